@@ -0,0 +1,44 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.igorivkin.msaspices.lib.config.BinaryConversionConfig;
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import com.igorivkin.msaspices.lib.config.MaskingConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Object mappers configured the same way as the beans of library.
+ */
+final class BenchmarkObjectMappers {
+
+    private BenchmarkObjectMappers() {
+    }
+
+    static ObjectMapper json(LogProperties logProperties) {
+        return new MaskingConfig().maskingObjectMapper(new Jackson2ObjectMapperBuilder(), provider(logProperties));
+    }
+
+    static ObjectMapper json() {
+        return json(new LogProperties());
+    }
+
+    static ObjectMapper xml() {
+        return new MaskingConfig().xmlObjectMapper(provider(new LogProperties()));
+    }
+
+    static ObjectMapper smile() {
+        return new BinaryConversionConfig.SmileConversionConfig().smileObjectMapper(provider(new LogProperties()));
+    }
+
+    static ObjectMapper cbor() {
+        return new BinaryConversionConfig.CborConversionConfig().cborObjectMapper(provider(new LogProperties()));
+    }
+
+    private static ObjectProvider<LogProperties> provider(LogProperties logProperties) {
+        final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("logProperties", logProperties);
+        return beanFactory.getBeanProvider(LogProperties.class);
+    }
+}
@@ -0,0 +1,96 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion to JSON by the mapper of library with reflective access to properties and with Blackbird
+ * ("msa-spices.log.jackson.blackbird"), a small order and a large one. The first conversion by a new mapper
+ * is measured with and without warm-up of serializers ("msa-spices.log.jackson.warm-up").
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlackbirdBenchmark {
+
+    @Param({"false", "true"})
+    private boolean blackbird;
+
+    @Param({"SMALL", "LARGE"})
+    private String size;
+
+    private LogPreparationService logPreparationService;
+
+    private Object value;
+
+    @Setup
+    public void setUp() {
+        logPreparationService = preparationService(blackbird);
+        value = value(size);
+    }
+
+    @Benchmark
+    public String convertObjectToString() {
+        return logPreparationService.convertObjectToString(value, LogConversionType.JSON);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 200)
+    public String firstConversion(FirstConversion state) {
+        return state.logPreparationService.convertObjectToString(state.value, LogConversionType.JSON);
+    }
+
+    /**
+     * A new mapper for every conversion, serializers are built by the conversion or by warm-up before it.
+     */
+    @State(Scope.Thread)
+    public static class FirstConversion {
+
+        @Param({"false", "true"})
+        private boolean warmUp;
+
+        private LogPreparationService logPreparationService;
+
+        private Object value;
+
+        @Setup(Level.Invocation)
+        public void setUp(BlackbirdBenchmark benchmark) {
+            logPreparationService = preparationService(benchmark.blackbird);
+            value = value(benchmark.size);
+            if (warmUp) {
+                logPreparationService.warmUp(value.getClass(), LogConversionType.JSON);
+            }
+        }
+    }
+
+    private static LogPreparationService preparationService(boolean blackbird) {
+        final LogProperties logProperties = new LogProperties();
+        logProperties.getJackson().setBlackbird(blackbird);
+        return new LogPreparationService(List.of(new LogJsonConverter(BenchmarkObjectMappers.json(logProperties))));
+    }
+
+    private static Object value(String size) {
+        return "SMALL".equals(size) ? ConversionBenchmark.order(0) : ConversionBenchmark.largeOrder(100);
+    }
+}
@@ -0,0 +1,80 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import com.igorivkin.msaspices.lib.capture.CaptureDirection;
+import com.igorivkin.msaspices.lib.capture.CaptureSpool;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append of a captured response to the ring file by one thread and by four threads sharing the ring,
+ * compared with the conversion of the same value to a string, which logging does anyway.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaptureSpoolBenchmark {
+
+    @Param({"SMALL", "LARGE"})
+    private String size;
+
+    private LogPreparationService logPreparationService;
+
+    private CaptureSpool captureSpool;
+
+    private Path file;
+
+    private Object value;
+
+    @Setup
+    public void setUp() throws IOException {
+        logPreparationService = new LogPreparationService(List.of(new LogJsonConverter(BenchmarkObjectMappers.json())));
+        file = Files.createTempFile("capture", ".ring");
+        captureSpool = new CaptureSpool(logPreparationService, file, 64 * 1024 * 1024, LogConversionType.JSON);
+        value = "SMALL".equals(size) ? ConversionBenchmark.order(0) : ConversionBenchmark.largeOrder(100);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        captureSpool.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String convertObjectToString() {
+        return logPreparationService.convertObjectToString(value, LogConversionType.JSON);
+    }
+
+    @Benchmark
+    public boolean append() {
+        return captureSpool.append(CaptureDirection.RESPONSE, "515060d3", "OrderService", "getOrder", 1000L, value);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean appendContended() {
+        return captureSpool.append(CaptureDirection.RESPONSE, "515060d3", "OrderService", "getOrder", 1000L, value);
+    }
+}
@@ -0,0 +1,74 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the arguments of a typical controller method (path variables and query parameters):
+ * by Jackson for every argument, and by the service that renders simple values by hand.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerArgumentsBenchmark {
+
+    private final LogJsonConverter jsonConverter = new LogJsonConverter(BenchmarkObjectMappers.json());
+
+    private final LogPreparationService logPreparationService = new LogPreparationService(List.of(jsonConverter));
+
+    // getOrders(Long customerId, String query, UUID traceId, LocalDate from, Status status, List<String> tags,
+    // Integer page, Boolean descending)
+    private final Object[] arguments = {
+            42L,
+            "coffee beans",
+            UUID.fromString("123e4567-e89b-12d3-a456-426614174000"),
+            LocalDate.of(2022, 8, 1),
+            Status.ACTIVE,
+            List.of("new", "paid"),
+            2,
+            Boolean.TRUE
+    };
+
+    private final StringBuilder buffer = new StringBuilder(512);
+
+    @Benchmark
+    public int jackson() {
+        buffer.setLength(0);
+        for (Object argument : arguments) {
+            jsonConverter.appendObject(argument, buffer);
+        }
+        return buffer.length();
+    }
+
+    @Benchmark
+    public int typeDispatch() {
+        buffer.setLength(0);
+        for (Object argument : arguments) {
+            logPreparationService.appendObject(argument, LogConversionType.JSON, buffer);
+        }
+        return buffer.length();
+    }
+
+    public enum Status {
+        ACTIVE,
+        BLOCKED
+    }
+}
@@ -0,0 +1,109 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import com.igorivkin.msaspices.benchmarks.ConverterAllocationBenchmark.Item;
+import com.igorivkin.msaspices.benchmarks.ConverterAllocationBenchmark.Order;
+import com.igorivkin.msaspices.lib.convert.LogCborConverter;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.convert.LogSmileConverter;
+import com.igorivkin.msaspices.lib.convert.LogXmlConverter;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of a value by {@link LogPreparationService}: JSON, XML, Smile and CBOR, a small object and
+ * a large one (an order with a hundred items). Values are converted to string, binary values in Base64,
+ * and written to a reused byte stream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({"JSON", "XML", "SMILE", "CBOR"})
+    private LogConversionType conversionType;
+
+    @Param({"SMALL", "LARGE"})
+    private String size;
+
+    private final LogPreparationService logPreparationService = new LogPreparationService(List.of(
+            new LogJsonConverter(BenchmarkObjectMappers.json()),
+            new LogXmlConverter(BenchmarkObjectMappers.xml()),
+            new LogSmileConverter(BenchmarkObjectMappers.smile()),
+            new LogCborConverter(BenchmarkObjectMappers.cbor())));
+
+    private final ByteArrayOutputStream stream = new ByteArrayOutputStream(16 * 1024);
+
+    private Object value;
+
+    @Setup
+    public void setUp() {
+        value = "SMALL".equals(size) ? order(0) : largeOrder(100);
+    }
+
+    @Benchmark
+    public String convertObjectToString() {
+        return logPreparationService.convertObjectToString(value, conversionType);
+    }
+
+    @Benchmark
+    public int writeObject() throws IOException {
+        stream.reset();
+        logPreparationService.writeObject(value, conversionType, stream);
+        return stream.size();
+    }
+
+    static Order order(int number) {
+        return new Order("order-" + number, "Ivan Petrov", new BigDecimal("1250.50"),
+                LocalDateTime.of(2022, 8, 1, 12, 30));
+    }
+
+    static LargeOrder largeOrder(int itemsCount) {
+        final List<Item> items = new ArrayList<>(itemsCount);
+        for (var i = 0; i < itemsCount; i++) {
+            items.add(new Item("sku-" + i, i % 5 + 1, BigDecimal.valueOf(100 + i, 2)));
+        }
+        return new LargeOrder(order(1), items);
+    }
+
+    public static class LargeOrder {
+
+        private final Order order;
+
+        private final List<Item> items;
+
+        public LargeOrder(Order order, List<Item> items) {
+            this.order = order;
+            this.items = items;
+        }
+
+        public Order getOrder() {
+            return order;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+    }
+}
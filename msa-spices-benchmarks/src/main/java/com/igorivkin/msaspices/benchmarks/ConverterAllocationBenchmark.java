@@ -0,0 +1,127 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rendering of request parameters to a string per parameter with writing all of them
+ * to one reused buffer. Run it with "-prof gc" and compare "gc.alloc.rate.norm" (bytes/op).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterAllocationBenchmark {
+
+    private static final String[] PARAMETER_NAMES = {"id", "request", "items"};
+
+    private final LogPreparationService logPreparationService = new LogPreparationService(List.of(
+            new LogJsonConverter(BenchmarkObjectMappers.json())));
+
+    private final Object[] parameters = {
+            42L,
+            new Order("order-42", "Ivan Petrov", new BigDecimal("1250.50"), LocalDateTime.of(2022, 8, 1, 12, 30)),
+            List.of(new Item("sku-1", 2, new BigDecimal("100.25")),
+                    new Item("sku-2", 1, new BigDecimal("1050.00")))
+    };
+
+    private final StringBuilder reusedBuffer = new StringBuilder(512);
+
+    @Benchmark
+    public String stringPerParameter() {
+        final StringBuilder message = new StringBuilder();
+        for (var i = 0; i < parameters.length; i++) {
+            message.append("\n ").append(PARAMETER_NAMES[i]).append('=')
+                    .append(logPreparationService.convertObjectToString(parameters[i], LogConversionType.JSON));
+        }
+        return message.toString();
+    }
+
+    @Benchmark
+    public String appendToReusedBuffer() {
+        reusedBuffer.setLength(0);
+        for (var i = 0; i < parameters.length; i++) {
+            reusedBuffer.append("\n ").append(PARAMETER_NAMES[i]).append('=');
+            logPreparationService.appendObject(parameters[i], LogConversionType.JSON, reusedBuffer);
+        }
+        return reusedBuffer.toString();
+    }
+
+    public static class Order {
+
+        private final String number;
+
+        private final String customer;
+
+        private final BigDecimal amount;
+
+        private final LocalDateTime createdAt;
+
+        public Order(String number, String customer, BigDecimal amount, LocalDateTime createdAt) {
+            this.number = number;
+            this.customer = customer;
+            this.amount = amount;
+            this.createdAt = createdAt;
+        }
+
+        public String getNumber() {
+            return number;
+        }
+
+        public String getCustomer() {
+            return customer;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+    }
+
+    public static class Item {
+
+        private final String sku;
+
+        private final int quantity;
+
+        private final BigDecimal price;
+
+        public Item(String sku, int quantity, BigDecimal price) {
+            this.sku = sku;
+            this.quantity = quantity;
+            this.price = price;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+    }
+}
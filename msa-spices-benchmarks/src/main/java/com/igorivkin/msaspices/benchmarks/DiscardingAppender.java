@@ -0,0 +1,41 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appender that formats the message of event as a real appender does, and drops it.
+ * Lazy log arguments are rendered, so benchmarks with DEBUG level enabled include serialization,
+ * but not the cost of I/O.
+ */
+public class DiscardingAppender extends AppenderBase<ILoggingEvent> {
+
+    private long formattedChars;
+
+    /**
+     * Sets the level of logger and replaces its appenders with a discarding one.
+     */
+    static void attach(Class<?> loggerClass, boolean debug) {
+        final Logger logger = (Logger) LoggerFactory.getLogger(loggerClass);
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        logger.setLevel(debug ? Level.DEBUG : Level.INFO);
+
+        final DiscardingAppender appender = new DiscardingAppender();
+        appender.setContext(logger.getLoggerContext());
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        formattedChars += event.getFormattedMessage().length();
+    }
+
+    public long getFormattedChars() {
+        return formattedChars;
+    }
+}
@@ -0,0 +1,66 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import com.igorivkin.msaspices.benchmarks.ConverterAllocationBenchmark.Order;
+import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.log.LogMethod;
+import com.igorivkin.msaspices.lib.log.LogMethodAspect;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole {@link LogMethodAspect} around a method doing nothing, with DEBUG level enabled (messages are
+ * rendered by {@link DiscardingAppender}) and disabled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogMethodAspectBenchmark {
+
+    @Param({"false", "true"})
+    private boolean debug;
+
+    private final Order order = ConversionBenchmark.order(42);
+
+    private NoOpService service;
+
+    private long id;
+
+    @Setup
+    public void setUp() {
+        DiscardingAppender.attach(LogMethodAspect.class, debug);
+        final AspectJProxyFactory factory = new AspectJProxyFactory(new NoOpService());
+        factory.addAspect(new LogMethodAspect(new LogPreparationService(List.of(
+                new LogJsonConverter(BenchmarkObjectMappers.json())))));
+        service = factory.getProxy();
+    }
+
+    @Benchmark
+    public Order noOpMethod() {
+        return service.call(id++, order);
+    }
+
+    public static class NoOpService {
+
+        @LogMethod
+        public Order call(long id, Order order) {
+            return order;
+        }
+    }
+}
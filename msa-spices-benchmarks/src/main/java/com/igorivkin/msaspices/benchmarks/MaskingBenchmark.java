@@ -0,0 +1,162 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import com.igorivkin.msaspices.lib.masking.Masked;
+import com.igorivkin.msaspices.lib.masking.MaskingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serialization of a bean without masked properties, with annotated ones and with configured ones.
+ * The bean without masked properties shows the overhead of masking module for the beans it doesn't touch.
+ * Strings containing JSON are masked by streaming, the one without masked fields is written as it is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaskingBenchmark {
+
+    private final ObjectMapper objectMapper = BenchmarkObjectMappers.json(configuredMasking());
+
+    private final Payment plainPayment = new Payment("order-42", "4111111111111234", "Ivan Petrov");
+
+    private final MaskedPayment maskedPayment = new MaskedPayment("order-42", "4111111111111234", "Ivan Petrov");
+
+    private final ConfiguredPayment configuredPayment =
+            new ConfiguredPayment("order-42", "4111111111111234", "Ivan Petrov");
+
+    private final String embeddedJson = "{\"login\":\"admin\",\"cardNumber\":\"4111111111111234\","
+            + "\"items\":[{\"sku\":\"sku-1\",\"quantity\":2},{\"sku\":\"sku-2\",\"quantity\":1}]}";
+
+    private final String embeddedJsonWithoutMaskedFields = embeddedJson.replace("cardNumber", "cardAlias");
+
+    @Benchmark
+    public String notMasked() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(plainPayment);
+    }
+
+    @Benchmark
+    public String maskedByAnnotation() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(maskedPayment);
+    }
+
+    @Benchmark
+    public String maskedByConfiguration() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(configuredPayment);
+    }
+
+    @Benchmark
+    public String embeddedJsonMasked() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(embeddedJson);
+    }
+
+    @Benchmark
+    public String embeddedJsonWithoutMaskedFields() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(embeddedJsonWithoutMaskedFields);
+    }
+
+    private static LogProperties configuredMasking() {
+        final LogProperties logProperties = new LogProperties();
+        logProperties.getMasking().setFields(List.of("cardNumber"));
+        logProperties.getMasking().setPaths(List.of("holderName"));
+        return logProperties;
+    }
+
+    public static class Payment {
+
+        private final String order;
+
+        private final String card;
+
+        private final String holder;
+
+        public Payment(String order, String card, String holder) {
+            this.order = order;
+            this.card = card;
+            this.holder = holder;
+        }
+
+        public String getOrder() {
+            return order;
+        }
+
+        public String getCard() {
+            return card;
+        }
+
+        public String getHolder() {
+            return holder;
+        }
+    }
+
+    public static class MaskedPayment {
+
+        private final String order;
+
+        @Masked(MaskingStrategy.PARTIAL)
+        private final String card;
+
+        @Masked
+        private final String holder;
+
+        public MaskedPayment(String order, String card, String holder) {
+            this.order = order;
+            this.card = card;
+            this.holder = holder;
+        }
+
+        public String getOrder() {
+            return order;
+        }
+
+        public String getCard() {
+            return card;
+        }
+
+        public String getHolder() {
+            return holder;
+        }
+    }
+
+    public static class ConfiguredPayment {
+
+        private final String order;
+
+        private final String cardNumber;
+
+        private final String holderName;
+
+        public ConfiguredPayment(String order, String cardNumber, String holderName) {
+            this.order = order;
+            this.cardNumber = cardNumber;
+            this.holderName = holderName;
+        }
+
+        public String getOrder() {
+            return order;
+        }
+
+        public String getCardNumber() {
+            return cardNumber;
+        }
+
+        public String getHolderName() {
+            return holderName;
+        }
+    }
+}
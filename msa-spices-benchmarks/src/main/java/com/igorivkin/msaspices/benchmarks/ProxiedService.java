@@ -0,0 +1,14 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import com.igorivkin.msaspices.lib.log.LogMethod;
+
+/**
+ * Service logged through a Spring AOP proxy.
+ */
+public class ProxiedService {
+
+    @LogMethod
+    public long call(long value) {
+        return value + 1;
+    }
+}
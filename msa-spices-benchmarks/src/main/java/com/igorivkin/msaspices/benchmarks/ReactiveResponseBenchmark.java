@@ -0,0 +1,89 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import com.igorivkin.msaspices.benchmarks.ConverterAllocationBenchmark.Item;
+import com.igorivkin.msaspices.benchmarks.ConverterAllocationBenchmark.Order;
+import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.log.LogReactiveMethod;
+import com.igorivkin.msaspices.lib.log.LogReactiveMethodAspect;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging of {@code Mono} and {@code Flux} responses by {@link LogReactiveMethodAspect}, subscribed
+ * synchronously, with DEBUG level enabled and disabled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReactiveResponseBenchmark {
+
+    private static final int FLUX_SIZE = 10;
+
+    @Param({"false", "true"})
+    private boolean debug;
+
+    private ReactiveService service;
+
+    private long id;
+
+    @Setup
+    public void setUp() {
+        DiscardingAppender.attach(LogReactiveMethodAspect.class, debug);
+        final AspectJProxyFactory factory = new AspectJProxyFactory(new ReactiveService(
+                ConversionBenchmark.order(42), ConversionBenchmark.largeOrder(FLUX_SIZE).getItems()));
+        factory.addAspect(new LogReactiveMethodAspect(new LogPreparationService(List.of(
+                new LogJsonConverter(BenchmarkObjectMappers.json())))));
+        service = factory.getProxy();
+    }
+
+    @Benchmark
+    public Order mono() {
+        return service.mono(id++).block();
+    }
+
+    @Benchmark
+    public Item flux() {
+        return service.flux(id++).blockLast();
+    }
+
+    public static class ReactiveService {
+
+        private final Order order;
+
+        private final List<Item> items;
+
+        public ReactiveService(Order order, List<Item> items) {
+            this.order = order;
+            this.items = items;
+        }
+
+        @LogReactiveMethod
+        public Mono<Order> mono(long id) {
+            return Mono.just(order);
+        }
+
+        @LogReactiveMethod
+        public Flux<Item> flux(long id) {
+            return Flux.fromIterable(items);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import com.igorivkin.msaspices.lib.requestid.CounterRequestIdGenerator;
+import com.igorivkin.msaspices.lib.requestid.RandomRequestIdGenerator;
+import com.igorivkin.msaspices.lib.requestid.TimeOrderedRequestIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares strategies of request ID generation. Runs in several threads to show contention
+ * of {@link UUID#randomUUID()} on the shared SecureRandom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RequestIdGeneratorBenchmark {
+
+    private final RandomRequestIdGenerator randomGenerator = new RandomRequestIdGenerator();
+
+    private final TimeOrderedRequestIdGenerator timeOrderedGenerator = new TimeOrderedRequestIdGenerator();
+
+    private final CounterRequestIdGenerator counterGenerator = new CounterRequestIdGenerator("node");
+
+    @Benchmark
+    public String secureRandomUuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String random() {
+        return randomGenerator.generate();
+    }
+
+    @Benchmark
+    public String timeOrdered() {
+        return timeOrderedGenerator.generate();
+    }
+
+    @Benchmark
+    public String counter() {
+        return counterGenerator.generate();
+    }
+}
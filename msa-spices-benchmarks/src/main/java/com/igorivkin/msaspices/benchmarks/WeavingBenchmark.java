@@ -0,0 +1,89 @@
+package com.igorivkin.msaspices.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.igorivkin.msaspices.benchmarks.woven.WovenService;
+import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.log.LogMethodAspect;
+import com.igorivkin.msaspices.lib.log.WovenLogMethodAspect;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per-call overhead of the logging advice applied by a Spring AOP proxy and woven by AspectJ compiler.
+ * DEBUG level is disabled, so it's the cost of interception, the logging plan lookup and the call metrics.
+ * {@link WovenService} is woven when the module is built, see aspectj-maven-plugin in pom.xml.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeavingBenchmark {
+
+    private final PlainService plain = new PlainService();
+
+    private final WovenService woven = new WovenService();
+
+    private ProxiedService proxied;
+
+    private long value;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(LogMethodAspect.class)).setLevel(Level.INFO);
+        final LogMethodAspect aspect = new LogMethodAspect(new LogPreparationService(List.of(
+                new LogJsonConverter(BenchmarkObjectMappers.json()))));
+
+        final AspectJProxyFactory factory = new AspectJProxyFactory(new ProxiedService());
+        factory.addAspect(aspect);
+        proxied = factory.getProxy();
+        WovenLogMethodAspect.install(aspect);
+    }
+
+    @TearDown
+    public void tearDown() {
+        WovenLogMethodAspect.install(null);
+    }
+
+    @Benchmark
+    public long plainCall() {
+        return plain.call(value++);
+    }
+
+    @Benchmark
+    public long proxyCall() {
+        return proxied.call(value++);
+    }
+
+    @Benchmark
+    public long wovenCall() {
+        return woven.call(value++);
+    }
+
+    /**
+     * The same service without annotation, a baseline of the call itself.
+     */
+    public static class PlainService {
+
+        public long call(long value) {
+            return value + 1;
+        }
+    }
+}
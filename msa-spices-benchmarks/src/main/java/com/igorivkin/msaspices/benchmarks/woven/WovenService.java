@@ -0,0 +1,14 @@
+package com.igorivkin.msaspices.benchmarks.woven;
+
+import com.igorivkin.msaspices.lib.log.LogMethod;
+
+/**
+ * Service woven by AspectJ compiler at build time, only the classes of this package are woven.
+ */
+public class WovenService {
+
+    @LogMethod
+    public long call(long value) {
+        return value + 1;
+    }
+}
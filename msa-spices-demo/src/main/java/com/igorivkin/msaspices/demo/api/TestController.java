@@ -9,7 +9,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class TestController {
 
-    @LogMethod
+    @LogMethod(capture = true)
     @GetMapping("/hello/{user}")
     public HelloResponse helloUser(@PathVariable String user) {
         return HelloResponse.builder()
@@ -13,7 +13,7 @@ import reactor.core.publisher.Mono;
 @RestController
 public class HelloController {
 
-    @LogReactiveMethod
+    @LogReactiveMethod(capture = true)
     @PostMapping("/hello")
     public Mono<HelloResponse> hello(@RequestBody Mono<HelloRequest> request) {
         return request.map(r ->
@@ -22,7 +22,7 @@ public class HelloController {
                         .build());
     }
 
-    @LogReactiveMethod
+    @LogReactiveMethod(capture = true)
     @PostMapping("/hello/{userId}")
     public Mono<HelloResponse> helloUser(@PathVariable String userId, @RequestBody Mono<HelloRequest> request) {
         return request.map(r ->
@@ -32,7 +32,7 @@ public class HelloController {
                         .build());
     }
 
-    @LogReactiveMethod
+    @LogReactiveMethod(capture = true)
     @PostMapping("/hello-flux")
     public Flux<HelloResponse> helloFlux(@RequestBody Mono<HelloRequest> request) {
         return Flux.just(
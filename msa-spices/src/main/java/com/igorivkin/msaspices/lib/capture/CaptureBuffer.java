@@ -0,0 +1,76 @@
+package com.igorivkin.msaspices.lib.capture;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Unsynchronized growable byte sink reused by a thread to encode captured events before they are appended
+ * to the ring. Numbers are written in little-endian order. The buffer doesn't grow above the max size,
+ * {@link PayloadTooLargeException} is thrown instead, so an event too long for the ring is not encoded to the end.
+ */
+final class CaptureBuffer extends OutputStream {
+
+    private byte[] bytes;
+
+    private final int maxSize;
+
+    private int size;
+
+    CaptureBuffer(int initialCapacity, int maxSize) {
+        this.bytes = new byte[Math.min(initialCapacity, maxSize)];
+        this.maxSize = maxSize;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public void write(int b) throws PayloadTooLargeException {
+        ensureCapacity(1);
+        bytes[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] source, int offset, int length) throws PayloadTooLargeException {
+        ensureCapacity(length);
+        System.arraycopy(source, offset, bytes, size, length);
+        size += length;
+    }
+
+    void writeLong(long value) throws PayloadTooLargeException {
+        ensureCapacity(Long.BYTES);
+        for (var i = 0; i < Long.BYTES; i++) {
+            bytes[size++] = (byte) (value >>> (i * 8));
+        }
+    }
+
+    /**
+     * Writes a string as UTF-8 prefixed by its length of two bytes, strings longer than 65535 bytes are cut.
+     */
+    void writeShortString(String value) throws PayloadTooLargeException {
+        final byte[] encoded = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        final int length = Math.min(encoded.length, 0xFFFF);
+        write(length & 0xFF);
+        write(length >>> 8);
+        write(encoded, 0, length);
+    }
+
+    private void ensureCapacity(int length) throws PayloadTooLargeException {
+        if (length > maxSize - size) {
+            throw new PayloadTooLargeException(maxSize);
+        }
+        if (size + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.min(Math.max(bytes.length * 2, size + length), maxSize));
+        }
+    }
+}
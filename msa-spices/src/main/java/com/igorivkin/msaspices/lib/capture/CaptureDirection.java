@@ -0,0 +1,10 @@
+package com.igorivkin.msaspices.lib.capture;
+
+/**
+ * Direction of captured event.
+ */
+public enum CaptureDirection {
+    REQUEST,
+    RESPONSE,
+    ERROR
+}
@@ -0,0 +1,143 @@
+package com.igorivkin.msaspices.lib.capture;
+
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Event read from the capture ring: request, response or error of annotated method. The value is kept
+ * as it was encoded by the converter of its type: parameters of request by name, response or error.
+ * <p>
+ * Encoding: timestamp in epoch milliseconds and duration in nanoseconds (8 bytes each), direction and type
+ * of conversion (1 byte each), request ID, declaring type and method (2 bytes of length and UTF-8), the value
+ * up to the end.
+ */
+public final class CaptureEvent {
+
+    private final long timestampMillis;
+
+    private final long durationNanos;
+
+    private final CaptureDirection direction;
+
+    private final LogConversionType conversionType;
+
+    private final String requestId;
+
+    private final String type;
+
+    private final String method;
+
+    private final byte[] value;
+
+    private CaptureEvent(long timestampMillis,
+                         long durationNanos,
+                         CaptureDirection direction,
+                         LogConversionType conversionType,
+                         String requestId,
+                         String type,
+                         String method,
+                         byte[] value) {
+        this.timestampMillis = timestampMillis;
+        this.durationNanos = durationNanos;
+        this.direction = direction;
+        this.conversionType = conversionType;
+        this.requestId = requestId;
+        this.type = type;
+        this.method = method;
+        this.value = value;
+    }
+
+    static void encodeHeader(CaptureBuffer buffer,
+                             long timestampMillis,
+                             long durationNanos,
+                             CaptureDirection direction,
+                             LogConversionType conversionType,
+                             String requestId,
+                             String type,
+                             String method) throws PayloadTooLargeException {
+        buffer.writeLong(timestampMillis);
+        buffer.writeLong(durationNanos);
+        buffer.write(direction.ordinal());
+        buffer.write(conversionType.ordinal());
+        buffer.writeShortString(requestId);
+        buffer.writeShortString(type);
+        buffer.writeShortString(method);
+    }
+
+    static CaptureEvent decode(byte[] payload) {
+        final ByteBuffer buffer = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN);
+        final long timestampMillis = buffer.getLong();
+        final long durationNanos = buffer.getLong();
+        final CaptureDirection direction = CaptureDirection.values()[buffer.get()];
+        final LogConversionType conversionType = LogConversionType.values()[buffer.get()];
+        final String requestId = readShortString(buffer);
+        final String type = readShortString(buffer);
+        final String method = readShortString(buffer);
+        return new CaptureEvent(timestampMillis, durationNanos, direction, conversionType, requestId, type, method,
+                Arrays.copyOfRange(payload, buffer.position(), payload.length));
+    }
+
+    private static String readShortString(ByteBuffer buffer) {
+        final int length = buffer.getShort() & 0xFFFF;
+        final String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(timestampMillis);
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * @return duration of call in nanoseconds for responses and errors, -1 for requests
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public CaptureDirection getDirection() {
+        return direction;
+    }
+
+    public LogConversionType getConversionType() {
+        return conversionType;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * @return name of class declaring the annotated method
+     */
+    public String getType() {
+        return type;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return value encoded by the converter of {@link #getConversionType()}
+     */
+    public byte[] getValue() {
+        return value;
+    }
+
+    /**
+     * @return value of text types of conversion, JSON or XML
+     */
+    public String getValueAsString() {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,115 @@
+package com.igorivkin.msaspices.lib.capture;
+
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Captures requests, responses and errors of annotated methods to a ring in a memory-mapped file, whatever
+ * the level of logging is. Values are encoded by {@link LogPreparationService}, masking is applied,
+ * limits are not. An event is encoded to a buffer of current thread and copied to the ring by one lock-free
+ * append, no system calls are made. Events that can't be encoded or are longer than a quarter of the ring
+ * are dropped, encoding of a long event stops as soon as it doesn't fit. The ring is read by {@link CaptureSpoolReader}.
+ */
+public class CaptureSpool implements Closeable {
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    /**
+     * Buffers grown above this size by large events are not kept by threads.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private final LogPreparationService logPreparationService;
+
+    private final LogConversionType conversionType;
+
+    private final RingFile ringFile;
+
+    private final ThreadLocal<CaptureBuffer> buffers;
+
+    private final LongAdder droppedEvents = new LongAdder();
+
+    /**
+     * Opens the ring file, an existing ring of the same capacity is continued.
+     *
+     * @param logPreparationService service to convert captured values
+     * @param file                  path of ring file
+     * @param capacity              size of ring in bytes, a multiple of 8
+     * @param conversionType        type of conversion of captured values
+     * @throws IOException if the file can't be mapped
+     */
+    public CaptureSpool(LogPreparationService logPreparationService,
+                        Path file,
+                        int capacity,
+                        LogConversionType conversionType) throws IOException {
+        this.logPreparationService = logPreparationService;
+        this.conversionType = conversionType;
+        this.ringFile = RingFile.open(file, capacity);
+        final int maxPayloadSize = ringFile.getMaxPayloadSize();
+        this.buffers = ThreadLocal.withInitial(() -> new CaptureBuffer(INITIAL_BUFFER_SIZE, maxPayloadSize));
+    }
+
+    /**
+     * Appends an event to the ring. Never throws, events that can't be captured are counted as dropped.
+     *
+     * @param direction     direction of event
+     * @param requestId     ID of request
+     * @param type          name of class declaring the annotated method
+     * @param method        name of annotated method
+     * @param durationNanos duration of call in nanoseconds, -1 for requests
+     * @param value         parameters of request by name, response or error
+     * @return true if the event is appended
+     */
+    public boolean append(CaptureDirection direction,
+                          String requestId,
+                          String type,
+                          String method,
+                          long durationNanos,
+                          Object value) {
+        final CaptureBuffer buffer = buffers.get();
+        buffer.reset();
+        try {
+            CaptureEvent.encodeHeader(buffer, System.currentTimeMillis(), durationNanos, direction, conversionType,
+                    requestId, type, method);
+            logPreparationService.writeObject(value, conversionType, buffer);
+            if (ringFile.append(buffer.array(), 0, buffer.size())) {
+                return true;
+            }
+        } catch (IOException | RuntimeException ex) {
+            // Converter failed or the event is too long, the event is dropped
+        } finally {
+            if (buffer.array().length > MAX_RETAINED_BUFFER_SIZE) {
+                buffers.remove();
+            }
+        }
+        droppedEvents.increment();
+        return false;
+    }
+
+    /**
+     * Reads all the events kept in the ring, from the oldest to the newest.
+     *
+     * @param consumer consumer of events
+     */
+    public void read(Consumer<CaptureEvent> consumer) {
+        ringFile.read(payload -> consumer.accept(CaptureEvent.decode(payload)));
+    }
+
+    /**
+     * @return number of events dropped because they could not be encoded or were too long
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        ringFile.close();
+    }
+}
@@ -0,0 +1,192 @@
+package com.igorivkin.msaspices.lib.capture;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Command line reader of capture ring. Prints the events as JSON lines, from the oldest to the newest,
+ * optionally filtered by request ID, method and time range. The ring may be read while the application
+ * is writing it or after the application has crashed:
+ * <pre>
+ * java -cp "lib.jar:libs/*" com.igorivkin.msaspices.lib.capture.CaptureSpoolReader \
+ *     --file capture.ring --request-id 515060d3 --from 2022-08-01T12:00:00Z --to 2022-08-01T13:00:00Z
+ * </pre>
+ * Values of Smile and CBOR are printed as JSON if their Jackson modules are on the classpath, otherwise
+ * in Base64.
+ */
+public final class CaptureSpoolReader {
+
+    private static final String USAGE = "Usage: CaptureSpoolReader --file <ring file> [--request-id <id>]"
+            + " [--method <name>] [--from <ISO-8601 instant>] [--to <ISO-8601 instant>]";
+
+    private static final Map<LogConversionType, String> BINARY_FACTORIES = new EnumMap<>(Map.of(
+            LogConversionType.SMILE, "com.fasterxml.jackson.dataformat.smile.SmileFactory",
+            LogConversionType.CBOR, "com.fasterxml.jackson.dataformat.cbor.CBORFactory"));
+
+    private final Map<LogConversionType, ObjectMapper> binaryMappers = new EnumMap<>(LogConversionType.class);
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    private CaptureSpoolReader() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Prints filtered events of the ring.
+     *
+     * @param args arguments of command line
+     * @param out  stream to print events to
+     * @param err  stream to print errors to
+     * @return exit code
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Path file = null;
+        Predicate<CaptureEvent> filter = event -> true;
+        try {
+            for (var i = 0; i < args.length; i++) {
+                final String option = args[i];
+                if ("--help".equals(option)) {
+                    out.println(USAGE);
+                    return 0;
+                }
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("No value of " + option);
+                }
+                final String value = args[++i];
+                switch (option) {
+                    case "--file":
+                        file = Path.of(value);
+                        break;
+                    case "--request-id":
+                        filter = filter.and(event -> value.equals(event.getRequestId()));
+                        break;
+                    case "--method":
+                        filter = filter.and(event -> value.equals(event.getMethod()));
+                        break;
+                    case "--from":
+                        final long from = Instant.parse(value).toEpochMilli();
+                        filter = filter.and(event -> event.getTimestampMillis() >= from);
+                        break;
+                    case "--to":
+                        final long to = Instant.parse(value).toEpochMilli();
+                        filter = filter.and(event -> event.getTimestampMillis() < to);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+            if (file == null) {
+                throw new IllegalArgumentException("No ring file");
+            }
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            err.println(ex.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+
+        final CaptureSpoolReader reader = new CaptureSpoolReader();
+        final Predicate<CaptureEvent> eventFilter = filter;
+        try {
+            read(file, event -> {
+                if (eventFilter.test(event)) {
+                    out.println(reader.format(event));
+                }
+            });
+            return 0;
+        } catch (IOException | UncheckedIOException ex) {
+            err.println("Cannot read " + file + ": " + ex.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Reads all the events kept in a ring file, from the oldest to the newest. The ring may be written
+     * by another process at the same time.
+     *
+     * @param file     path of ring file
+     * @param consumer consumer of events
+     * @throws IOException if the file can't be mapped or is not a ring
+     */
+    public static void read(Path file, Consumer<CaptureEvent> consumer) throws IOException {
+        try (RingFile ringFile = RingFile.openReadOnly(file)) {
+            ringFile.read(payload -> consumer.accept(CaptureEvent.decode(payload)));
+        }
+    }
+
+    /**
+     * Formats an event as a line of JSON.
+     */
+    String format(CaptureEvent event) {
+        final StringWriter line = new StringWriter();
+        try (JsonGenerator generator = jsonMapper.createGenerator(line)) {
+            generator.writeStartObject();
+            generator.writeStringField("timestamp", event.getTimestamp().toString());
+            generator.writeStringField("requestId", event.getRequestId());
+            generator.writeStringField("type", event.getType());
+            generator.writeStringField("method", event.getMethod());
+            generator.writeStringField("direction", event.getDirection().name().toLowerCase());
+            if (event.getDurationNanos() >= 0L) {
+                generator.writeNumberField("durationMs", TimeUnit.NANOSECONDS.toMillis(event.getDurationNanos()));
+            }
+            generator.writeFieldName("value");
+            writeValue(generator, event);
+            generator.writeEndObject();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return line.toString();
+    }
+
+    private void writeValue(JsonGenerator generator, CaptureEvent event) throws IOException {
+        final LogConversionType conversionType = event.getConversionType();
+        if (conversionType == LogConversionType.JSON) {
+            generator.writeTree(jsonMapper.readTree(event.getValue()));
+        } else if (!conversionType.isBinary()) {
+            generator.writeString(event.getValueAsString());
+        } else {
+            final ObjectMapper binaryMapper = binaryMapper(conversionType);
+            if (binaryMapper != null) {
+                generator.writeTree(binaryMapper.readTree(event.getValue()));
+            } else {
+                generator.writeBinary(event.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return mapper reading the binary type of conversion or null if its Jackson module is not on the classpath
+     */
+    private ObjectMapper binaryMapper(LogConversionType conversionType) {
+        return binaryMappers.computeIfAbsent(conversionType, type -> {
+            final String factoryClass = BINARY_FACTORIES.get(type);
+            if (!ClassUtils.isPresent(factoryClass, CaptureSpoolReader.class.getClassLoader())) {
+                return null;
+            }
+            try {
+                return new ObjectMapper((JsonFactory) ClassUtils.forName(factoryClass,
+                        CaptureSpoolReader.class.getClassLoader()).getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException ex) {
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package com.igorivkin.msaspices.lib.capture;
+
+import java.io.IOException;
+
+/**
+ * Thrown by {@link CaptureBuffer} to stop encoding of an event that doesn't fit into a record of the ring.
+ * It is an IOException, so Jackson passes it through the serializers without wrapping.
+ */
+final class PayloadTooLargeException extends IOException {
+
+    PayloadTooLargeException(int maxSize) {
+        super("Captured event is longer than " + maxSize + " bytes", null);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        // It is a control flow signal, stack trace is not needed
+        return this;
+    }
+}
@@ -0,0 +1,244 @@
+package com.igorivkin.msaspices.lib.capture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-size ring of length-prefixed records in a memory-mapped file. Writers claim space by an atomic increment
+ * of the head kept in the header of file, so appends are lock-free for any number of threads and don't make
+ * system calls: records are written to the page cache, they survive a crash of process. When the ring is full,
+ * the oldest records are overwritten.
+ * <p>
+ * Layout: a header of {@value #HEADER_SIZE} bytes (magic, version, capacity, head) and the data region. Records
+ * are aligned to 8 bytes and may wrap around the end of data region. Every record starts with its length,
+ * CRC32C of payload and its logical position in the ring. The length is published last, readers check that
+ * the position and checksum match, so torn, unfinished and overwritten records are skipped.
+ */
+final class RingFile implements Closeable {
+
+    static final int HEADER_SIZE = 64;
+
+    static final int RECORD_HEADER_SIZE = 16;
+
+    private static final int MAGIC = 0x4D534153;
+
+    private static final int VERSION = 1;
+
+    private static final int CAPACITY_OFFSET = 8;
+
+    private static final int HEAD_OFFSET = 16;
+
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final int capacity;
+
+    private final int maxPayloadSize;
+
+    private final ThreadLocal<ByteBuffer> views;
+
+    private final ThreadLocal<CRC32C> checksums = ThreadLocal.withInitial(CRC32C::new);
+
+    private RingFile(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.maxPayloadSize = capacity / 4 - RECORD_HEADER_SIZE;
+        this.views = ThreadLocal.withInitial(() -> buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * Opens the ring for appending. An existing ring of the same capacity is continued, otherwise the file
+     * is created or overwritten by an empty ring.
+     *
+     * @param file     path of file
+     * @param capacity size of data region in bytes, a multiple of 8
+     * @return opened ring
+     * @throws IOException if the file can't be mapped
+     */
+    static RingFile open(Path file, int capacity) throws IOException {
+        if (capacity < 1024 || capacity % 8 != 0 || capacity > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IllegalArgumentException(
+                    "Capacity of capture ring should be a multiple of 8 from 1 KB to 2 GB: " + capacity);
+        }
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            final boolean existing = channel.size() == HEADER_SIZE + (long) capacity;
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (!existing || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getLong(CAPACITY_OFFSET) != capacity) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putLong(CAPACITY_OFFSET, capacity);
+                LONGS.setRelease(buffer, HEAD_OFFSET, 0L);
+            }
+            return new RingFile(channel, buffer, capacity);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens an existing ring for reading, e.g. a ring of another process.
+     *
+     * @param file path of file
+     * @return opened ring
+     * @throws IOException if the file can't be mapped or is not a ring
+     */
+    static RingFile openReadOnly(Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final long size = channel.size();
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getLong(CAPACITY_OFFSET) != size - HEADER_SIZE) {
+                throw new IOException("Not a capture ring: " + file);
+            }
+            return new RingFile(channel, buffer, (int) (size - HEADER_SIZE));
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Appends a record. Records longer than a quarter of the ring are rejected.
+     *
+     * @param payload array of payload
+     * @param offset  offset of payload in the array
+     * @param length  length of payload
+     * @return true if the record is appended
+     */
+    boolean append(byte[] payload, int offset, int length) {
+        if (length > maxPayloadSize) {
+            return false;
+        }
+        final int recordSize = RECORD_HEADER_SIZE + length;
+        final long position = (long) LONGS.getAndAdd(buffer, HEAD_OFFSET, align(recordSize));
+
+        final CRC32C checksum = checksums.get();
+        checksum.reset();
+        checksum.update(payload, offset, length);
+        put(views.get(), position + RECORD_HEADER_SIZE, payload, offset, length);
+        INTS.set(buffer, index(position + 4), (int) checksum.getValue());
+        LONGS.set(buffer, index(position + 8), position);
+        // Publishes the record
+        INTS.setRelease(buffer, index(position), recordSize);
+        return true;
+    }
+
+    /**
+     * Reads all the complete records kept in the ring, from the oldest to the newest.
+     *
+     * @param consumer consumer of payloads
+     */
+    void read(Consumer<byte[]> consumer) {
+        final ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32C checksum = new CRC32C();
+        final long head = (long) LONGS.getAcquire(buffer, HEAD_OFFSET);
+        long position = Math.max(0L, head - capacity);
+        while (position < head) {
+            final int recordSize = (int) INTS.getAcquire(buffer, index(position));
+            final byte[] payload = readRecord(view, checksum, position, recordSize, head);
+            if (payload == null) {
+                // Unfinished or overwritten record, look for the next one
+                position += 8;
+                continue;
+            }
+            consumer.accept(payload);
+            position += align(recordSize);
+        }
+    }
+
+    private byte[] readRecord(ByteBuffer view, CRC32C checksum, long position, int recordSize, long head) {
+        if (recordSize < RECORD_HEADER_SIZE || recordSize - RECORD_HEADER_SIZE > maxPayloadSize
+                || position + align(recordSize) > head
+                || (long) LONGS.get(buffer, index(position + 8)) != position) {
+            return null;
+        }
+        final byte[] payload = new byte[recordSize - RECORD_HEADER_SIZE];
+        get(view, position + RECORD_HEADER_SIZE, payload);
+        checksum.reset();
+        checksum.update(payload, 0, payload.length);
+        return (int) checksum.getValue() == (int) INTS.get(buffer, index(position + 4)) ? payload : null;
+    }
+
+    /**
+     * @return size of data region in bytes
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return max size of payload of one record
+     */
+    int getMaxPayloadSize() {
+        return maxPayloadSize;
+    }
+
+    /**
+     * Flushes the ring to the storage device, it's needed only to survive a crash of operating system.
+     */
+    void force() {
+        if (!buffer.isReadOnly()) {
+            buffer.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private int index(long position) {
+        return HEADER_SIZE + (int) (position % capacity);
+    }
+
+    private void put(ByteBuffer view, long position, byte[] source, int offset, int length) {
+        final int index = index(position);
+        final int head = Math.min(length, HEADER_SIZE + capacity - index);
+        view.position(index);
+        view.put(source, offset, head);
+        if (head < length) {
+            view.position(HEADER_SIZE);
+            view.put(source, offset + head, length - head);
+        }
+    }
+
+    private void get(ByteBuffer view, long position, byte[] target) {
+        final int index = index(position);
+        final int head = Math.min(target.length, HEADER_SIZE + capacity - index);
+        view.position(index);
+        view.get(target, 0, head);
+        if (head < target.length) {
+            view.position(HEADER_SIZE);
+            view.get(target, head, target.length - head);
+        }
+    }
+
+    private static long align(int size) {
+        return (size + 7L) & ~7L;
+    }
+}
@@ -0,0 +1,29 @@
+package com.igorivkin.msaspices.lib.config;
+
+import com.igorivkin.msaspices.lib.log.WovenLogAspects;
+import com.igorivkin.msaspices.lib.log.event.LogEventDispatcher;
+import com.igorivkin.msaspices.lib.metrics.MethodMetricsRegistry;
+import com.igorivkin.msaspices.lib.requestid.RequestIdGenerator;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Turns on logging by the aspects woven by AspectJ when "msa-spices.log.weaving" is "aspectj".
+ * Spring AOP proxies are not created in this mode.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "msa-spices.log", name = "weaving", havingValue = "aspectj")
+public class AspectjWeavingConfig {
+
+    @Bean
+    public WovenLogAspects wovenLogAspects(LogPreparationService logPreparationService,
+                                           LogProperties logProperties,
+                                           LogEventDispatcher logEventDispatcher,
+                                           RequestIdGenerator requestIdGenerator,
+                                           MethodMetricsRegistry methodMetricsRegistry) {
+        return new WovenLogAspects(logPreparationService, logProperties, logEventDispatcher,
+                requestIdGenerator, methodMetricsRegistry);
+    }
+}
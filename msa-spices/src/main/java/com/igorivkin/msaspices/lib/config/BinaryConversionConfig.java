@@ -0,0 +1,62 @@
+package com.igorivkin.msaspices.lib.config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.igorivkin.msaspices.lib.convert.LogCborConverter;
+import com.igorivkin.msaspices.lib.convert.LogSmileConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers converters to binary formats whose Jackson modules are on the classpath:
+ * jackson-dataformat-smile and jackson-dataformat-cbor. Mappers are configured like the JSON one.
+ */
+@Configuration
+public class BinaryConversionConfig {
+
+    private static ObjectMapper configure(ObjectMapper objectMapper, ObjectProvider<LogProperties> logProperties) {
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.registerModule(MaskingConfig.maskingModule(logProperties));
+        MaskingConfig.registerBlackbird(objectMapper, logProperties);
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return objectMapper;
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.smile.SmileFactory")
+    public static class SmileConversionConfig {
+
+        @Bean(name = "smile-object-mapper")
+        public ObjectMapper smileObjectMapper(ObjectProvider<LogProperties> logProperties) {
+            return configure(new SmileMapper(), logProperties);
+        }
+
+        @Bean
+        public LogSmileConverter logSmileConverter(@Qualifier("smile-object-mapper") ObjectMapper objectMapper) {
+            return new LogSmileConverter(objectMapper);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.cbor.CBORFactory")
+    public static class CborConversionConfig {
+
+        @Bean(name = "cbor-object-mapper")
+        public ObjectMapper cborObjectMapper(ObjectProvider<LogProperties> logProperties) {
+            return configure(new CBORMapper(), logProperties);
+        }
+
+        @Bean
+        public LogCborConverter logCborConverter(@Qualifier("cbor-object-mapper") ObjectMapper objectMapper) {
+            return new LogCborConverter(objectMapper);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.igorivkin.msaspices.lib.config;
+
+import com.igorivkin.msaspices.lib.capture.CaptureSpool;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Opens the ring file of captured calls when "msa-spices.log.capture.enabled" is true.
+ * The logging aspects capture methods annotated with {@code capture = true} to it.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "msa-spices.log.capture", name = "enabled", havingValue = "true")
+public class CaptureConfig {
+
+    @Bean
+    public CaptureSpool captureSpool(LogPreparationService logPreparationService,
+                                     LogProperties logProperties) throws IOException {
+        final LogProperties.Capture capture = logProperties.getCapture();
+        return new CaptureSpool(logPreparationService, Path.of(capture.getFile()), capture.getCapacity(),
+                capture.getConversionType());
+    }
+}
@@ -0,0 +1,703 @@
+package com.igorivkin.msaspices.lib.config;
+
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.log.LogFormat;
+import com.igorivkin.msaspices.lib.log.WeavingMode;
+import com.igorivkin.msaspices.lib.log.event.OverflowPolicy;
+import com.igorivkin.msaspices.lib.masking.MaskingStrategy;
+import com.igorivkin.msaspices.lib.requestid.RequestIdGeneratorType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Global settings of method logging. Bound from the properties with prefix "msa-spices.log".
+ */
+@ConfigurationProperties(prefix = "msa-spices.log")
+public class LogProperties {
+
+    /**
+     * The way the logging advice is applied to annotated methods.
+     */
+    private WeavingMode weaving = WeavingMode.PROXY;
+
+    /**
+     * Format of log events: multi-line text messages or structured events with separate fields.
+     */
+    private LogFormat format = LogFormat.TEXT;
+
+    private final Async async = new Async();
+
+    private final RequestId requestId = new RequestId();
+
+    private final FluxParameters fluxParameters = new FluxParameters();
+
+    private final Limits limits = new Limits();
+
+    private final Masking masking = new Masking();
+
+    private final Binary binary = new Binary();
+
+    private final Metrics metrics = new Metrics();
+
+    private final Sampling sampling = new Sampling();
+
+    private final Errors errors = new Errors();
+
+    private final Tail tail = new Tail();
+
+    private final Jackson jackson = new Jackson();
+
+    private final Capture capture = new Capture();
+
+    private final Replay replay = new Replay();
+
+    public WeavingMode getWeaving() {
+        return weaving;
+    }
+
+    public void setWeaving(WeavingMode weaving) {
+        this.weaving = weaving;
+    }
+
+    public LogFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(LogFormat format) {
+        this.format = format;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public RequestId getRequestId() {
+        return requestId;
+    }
+
+    public FluxParameters getFluxParameters() {
+        return fluxParameters;
+    }
+
+    public Limits getLimits() {
+        return limits;
+    }
+
+    public Masking getMasking() {
+        return masking;
+    }
+
+    public Binary getBinary() {
+        return binary;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    public Errors getErrors() {
+        return errors;
+    }
+
+    public Tail getTail() {
+        return tail;
+    }
+
+    public Jackson getJackson() {
+        return jackson;
+    }
+
+    public Capture getCapture() {
+        return capture;
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+
+    /**
+     * Settings of asynchronous emission of log events.
+     */
+    public static class Async {
+
+        /**
+         * Emit log events in background workers instead of the request thread.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Capacity of the ring buffer of events, rounded up to a power of two.
+         */
+        private int bufferSize = 8192;
+
+        /**
+         * Number of worker threads that convert and emit events.
+         */
+        private int workers = 1;
+
+        /**
+         * What to do with an event when the ring buffer is full.
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+        /**
+         * Convert arguments in the request thread when the event is captured. By default, events keep
+         * references to arguments, so arguments mutated after the call will be logged in their new state.
+         */
+        private boolean snapshotArguments = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public boolean isSnapshotArguments() {
+            return snapshotArguments;
+        }
+
+        public void setSnapshotArguments(boolean snapshotArguments) {
+            this.snapshotArguments = snapshotArguments;
+        }
+    }
+
+    /**
+     * Settings of request ID generation.
+     */
+    public static class RequestId {
+
+        /**
+         * Built-in generator of request IDs.
+         */
+        private RequestIdGeneratorType generator = RequestIdGeneratorType.RANDOM;
+
+        /**
+         * Node prefix of COUNTER generator. If empty, a random prefix is used.
+         */
+        private String node = "";
+
+        /**
+         * Header of inbound request ID, for servlet and WebFlux applications.
+         */
+        private String header = "X-Request-Id";
+
+        public RequestIdGeneratorType getGenerator() {
+            return generator;
+        }
+
+        public void setGenerator(RequestIdGeneratorType generator) {
+            this.generator = generator;
+        }
+
+        public String getNode() {
+            return node;
+        }
+
+        public void setNode(String node) {
+            this.node = node;
+        }
+
+        public String getHeader() {
+            return header;
+        }
+
+        public void setHeader(String header) {
+            this.header = header;
+        }
+    }
+
+    /**
+     * Settings of batched logging of Flux parameters of reactive methods.
+     * Can be overridden per method by attributes of the annotation.
+     */
+    public static class FluxParameters {
+
+        /**
+         * Number of elements logged by one event.
+         */
+        private int batchSize = 100;
+
+        /**
+         * Max duration of collecting elements to one event, in milliseconds.
+         */
+        private long batchWindowMillis = 1000L;
+
+        /**
+         * Max number of elements rendered in one event, the rest are only counted.
+         */
+        private int maxRenderedElements = 10;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getBatchWindowMillis() {
+            return batchWindowMillis;
+        }
+
+        public void setBatchWindowMillis(long batchWindowMillis) {
+            this.batchWindowMillis = batchWindowMillis;
+        }
+
+        public int getMaxRenderedElements() {
+            return maxRenderedElements;
+        }
+
+        public void setMaxRenderedElements(int maxRenderedElements) {
+            this.maxRenderedElements = maxRenderedElements;
+        }
+    }
+
+    /**
+     * Limits of conversion of logged values, zero means there is no limit.
+     * Can be overridden per method by attributes of the annotation.
+     */
+    public static class Limits {
+
+        /**
+         * Max number of chars of one converted value.
+         */
+        private int maxOutputChars = 0;
+
+        /**
+         * Max depth of nested objects and arrays, JSON only.
+         */
+        private int maxDepth = 0;
+
+        /**
+         * Max number of elements of collections and entries of maps/objects, JSON only.
+         */
+        private int maxElements = 0;
+
+        /**
+         * Max length of string values, longer ones are cut, JSON only.
+         */
+        private int maxStringLength = 0;
+
+        public int getMaxOutputChars() {
+            return maxOutputChars;
+        }
+
+        public void setMaxOutputChars(int maxOutputChars) {
+            this.maxOutputChars = maxOutputChars;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+
+        public int getMaxElements() {
+            return maxElements;
+        }
+
+        public void setMaxElements(int maxElements) {
+            this.maxElements = maxElements;
+        }
+
+        public int getMaxStringLength() {
+            return maxStringLength;
+        }
+
+        public void setMaxStringLength(int maxStringLength) {
+            this.maxStringLength = maxStringLength;
+        }
+    }
+
+    /**
+     * Settings of masking of logged values. Fields annotated by {@code @Masked} are masked anyway.
+     */
+    public static class Masking {
+
+        /**
+         * Names of properties masked wherever they are met.
+         */
+        private List<String> fields = new ArrayList<>();
+
+        /**
+         * Paths of masked properties from the root of logged value, for example "customer.card.number".
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * Strategy of masking for configured fields and paths.
+         */
+        private MaskingStrategy strategy = MaskingStrategy.FULL;
+
+        public List<String> getFields() {
+            return fields;
+        }
+
+        public void setFields(List<String> fields) {
+            this.fields = fields;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public MaskingStrategy getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(MaskingStrategy strategy) {
+            this.strategy = strategy;
+        }
+    }
+
+    /**
+     * Settings of rendering of binary values: byte arrays, buffers, files and streams.
+     */
+    public static class Binary {
+
+        /**
+         * Number of first bytes of content in memory to compute CRC32C of, zero disables checksum.
+         * Streams and files are never read.
+         */
+        private int hashPrefixBytes = 4096;
+
+        public int getHashPrefixBytes() {
+            return hashPrefixBytes;
+        }
+
+        public void setHashPrefixBytes(int hashPrefixBytes) {
+            this.hashPrefixBytes = hashPrefixBytes;
+        }
+    }
+
+    /**
+     * Settings of call metrics of annotated methods.
+     */
+    public static class Metrics {
+
+        /**
+         * Whether latency and outcomes of calls are recorded, it doesn't depend on the level of logging.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Percentiles of latency exposed to Micrometer, as fractions from 0.0 to 1.0.
+         */
+        private List<Double> percentiles = new ArrayList<>(List.of(0.5, 0.95, 0.99));
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<Double> getPercentiles() {
+            return percentiles;
+        }
+
+        public void setPercentiles(List<Double> percentiles) {
+            this.percentiles = percentiles;
+        }
+    }
+
+    /**
+     * Settings of sampling of logged calls, the attributes of annotations override them for a method.
+     */
+    public static class Sampling {
+
+        /**
+         * Probability to log a call, from 0.0 to 1.0.
+         */
+        private double rate = 1.0;
+
+        /**
+         * Max number of logged calls per second of every method, zero means no limit.
+         */
+        private int maxCallsPerSecond = 0;
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        public int getMaxCallsPerSecond() {
+            return maxCallsPerSecond;
+        }
+
+        public void setMaxCallsPerSecond(int maxCallsPerSecond) {
+            this.maxCallsPerSecond = maxCallsPerSecond;
+        }
+    }
+
+    /**
+     * Settings of logging of errors thrown by annotated methods.
+     */
+    public static class Errors {
+
+        /**
+         * Full stack trace of an error is logged once per window, repetitions are logged by short references.
+         */
+        private long windowMillis = 60000L;
+
+        /**
+         * Number of errors tracked at the same time, rounded up to a power of two.
+         */
+        private int cacheSize = 1024;
+
+        /**
+         * Number of top stack frames that identify an error together with its type.
+         */
+        private int topFrames = 5;
+
+        public long getWindowMillis() {
+            return windowMillis;
+        }
+
+        public void setWindowMillis(long windowMillis) {
+            this.windowMillis = windowMillis;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public int getTopFrames() {
+            return topFrames;
+        }
+
+        public void setTopFrames(int topFrames) {
+            this.topFrames = topFrames;
+        }
+    }
+
+    /**
+     * Settings of tail mode, when only slow or failed calls are logged.
+     */
+    public static class Tail {
+
+        /**
+         * Calls longer than this are logged, in milliseconds.
+         */
+        private long thresholdMillis = 1000L;
+
+        /**
+         * Convert parameters before the call instead of keeping references to them. It protects from changes
+         * of parameters by the method, but every call is converted.
+         */
+        private boolean snapshotArguments = false;
+
+        public long getThresholdMillis() {
+            return thresholdMillis;
+        }
+
+        public void setThresholdMillis(long thresholdMillis) {
+            this.thresholdMillis = thresholdMillis;
+        }
+
+        public boolean isSnapshotArguments() {
+            return snapshotArguments;
+        }
+
+        public void setSnapshotArguments(boolean snapshotArguments) {
+            this.snapshotArguments = snapshotArguments;
+        }
+    }
+
+    /**
+     * Settings of object mappers of the library, the object mapper of application is not affected.
+     */
+    public static class Jackson {
+
+        /**
+         * Access properties of logged values by generated lambdas of Blackbird module instead of reflection.
+         * Needs jackson-module-blackbird on the classpath.
+         */
+        private boolean blackbird = false;
+
+        /**
+         * Build serializers of parameters and responses of annotated methods on startup,
+         * not on the first call.
+         */
+        private boolean warmUp = false;
+
+        public boolean isBlackbird() {
+            return blackbird;
+        }
+
+        public void setBlackbird(boolean blackbird) {
+            this.blackbird = blackbird;
+        }
+
+        public boolean isWarmUp() {
+            return warmUp;
+        }
+
+        public void setWarmUp(boolean warmUp) {
+            this.warmUp = warmUp;
+        }
+    }
+
+    /**
+     * Settings of capture of requests and responses of methods annotated with {@code capture = true}
+     * to a ring file.
+     */
+    public static class Capture {
+
+        /**
+         * Whether calls are captured, it doesn't depend on the level of logging.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Path of ring file, an existing ring of the same capacity is continued after restart.
+         */
+        private String file = "msa-spices-capture.ring";
+
+        /**
+         * Size of ring in bytes, a multiple of 8. The oldest events are overwritten when the ring is full.
+         */
+        private int capacity = 64 * 1024 * 1024;
+
+        /**
+         * Type of conversion of captured values.
+         */
+        private LogConversionType conversionType = LogConversionType.JSON;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public LogConversionType getConversionType() {
+            return conversionType;
+        }
+
+        public void setConversionType(LogConversionType conversionType) {
+            this.conversionType = conversionType;
+        }
+    }
+
+    /**
+     * Settings of replay of captured calls on startup.
+     */
+    public static class Replay {
+
+        /**
+         * Path of ring file with captured calls to replay, calls are not replayed if it's not set.
+         */
+        private String file;
+
+        /**
+         * Pace of replay relative to the captured one, e.g. 2.0 is twice faster. Zero replays without delays.
+         */
+        private double speed = 1.0;
+
+        /**
+         * Number of threads making the calls.
+         */
+        private int threads = 8;
+
+        /**
+         * Max time to wait for Mono/Flux response of one call in milliseconds.
+         */
+        private long timeoutMillis = 10_000L;
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public double getSpeed() {
+            return speed;
+        }
+
+        public void setSpeed(double speed) {
+            this.speed = speed;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+}
@@ -2,31 +2,45 @@ package com.igorivkin.msaspices.lib.config;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.igorivkin.msaspices.lib.masking.MaskingModule;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.ClassUtils;
 
 @Configuration
 public class MaskingConfig {
 
+    private static final String BLACKBIRD_MODULE_CLASS = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+
     @Bean(name = "xml-object-mapper")
-    public ObjectMapper xmlObjectMapper() {
+    public ObjectMapper xmlObjectMapper(ObjectProvider<LogProperties> logProperties) {
         XmlMapper xmlMapper = new XmlMapper();
+        xmlMapper.registerModule(new JavaTimeModule());
+        xmlMapper.registerModule(maskingModule(logProperties));
+        registerBlackbird(xmlMapper, logProperties);
 
         // Set serialization options
         xmlMapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+        xmlMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
         return xmlMapper;
     }
 
     @Bean(name = "masking-object-mapper")
-    public ObjectMapper maskingObjectMapper(Jackson2ObjectMapperBuilder builder) {
+    public ObjectMapper maskingObjectMapper(Jackson2ObjectMapperBuilder builder,
+                                            ObjectProvider<LogProperties> logProperties) {
         ObjectMapper objectMapper = builder.build();
         objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.registerModule(maskingModule(logProperties));
+        registerBlackbird(objectMapper, logProperties);
 
         // Set serialization options
         objectMapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
@@ -37,4 +51,35 @@ public class MaskingConfig {
 
         return objectMapper;
     }
+
+    static MaskingModule maskingModule(ObjectProvider<LogProperties> logProperties) {
+        return new MaskingModule(logProperties.getIfAvailable(LogProperties::new).getMasking());
+    }
+
+    /**
+     * Registers Blackbird module if it's turned on by "msa-spices.log.jackson.blackbird". Jackson puts
+     * the serializer modifier of a later module in front of the earlier ones, so the Blackbird modifier runs first
+     * and replaces the writers of all properties by generated ones. Then the masking modifier wraps the writers
+     * of masked properties, the masked value is written by the masking writer itself. So masking doesn't depend
+     * on the order of modules, and only the properties which are not masked are written by generated writers.
+     */
+    static void registerBlackbird(ObjectMapper objectMapper, ObjectProvider<LogProperties> logProperties) {
+        if (!logProperties.getIfAvailable(LogProperties::new).getJackson().isBlackbird()) {
+            return;
+        }
+        if (!ClassUtils.isPresent(BLACKBIRD_MODULE_CLASS, MaskingConfig.class.getClassLoader())) {
+            throw new IllegalStateException("Blackbird serializers require jackson-module-blackbird on the classpath");
+        }
+        objectMapper.registerModule(Blackbird.module());
+    }
+
+    /**
+     * Keeps the reference to the optional module out of the configuration class.
+     */
+    private static final class Blackbird {
+
+        private static Module module() {
+            return new BlackbirdModule();
+        }
+    }
 }
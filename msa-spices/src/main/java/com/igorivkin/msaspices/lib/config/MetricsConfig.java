@@ -0,0 +1,25 @@
+package com.igorivkin.msaspices.lib.config;
+
+import com.igorivkin.msaspices.lib.metrics.MethodMetricsRegistry;
+import com.igorivkin.msaspices.lib.metrics.MicrometerMethodMetricsBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes call metrics of annotated methods to Micrometer if it's on the classpath.
+ * Spring Boot Actuator binds the binder to its meter registries.
+ */
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+public class MetricsConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MicrometerMethodMetricsBinder micrometerMethodMetricsBinder(MethodMetricsRegistry methodMetricsRegistry,
+                                                                       LogProperties logProperties) {
+        return new MicrometerMethodMetricsBinder(methodMetricsRegistry,
+                logProperties.getMetrics().getPercentiles());
+    }
+}
@@ -1,9 +1,11 @@
 package com.igorivkin.msaspices.lib.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 @ComponentScan(value = "com.igorivkin.msaspices")
+@EnableConfigurationProperties(LogProperties.class)
 public class MsaSpicesConfig {
 }
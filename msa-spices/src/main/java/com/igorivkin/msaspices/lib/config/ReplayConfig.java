@@ -0,0 +1,40 @@
+package com.igorivkin.msaspices.lib.config;
+
+import com.igorivkin.msaspices.lib.replay.ReplayApplicationRunner;
+import com.igorivkin.msaspices.lib.replay.ReplayRunner;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Replays the calls captured to the ring file "msa-spices.log.replay.file" when the application is started.
+ * Captured parameters are read by the mapper of application, not the masking one.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "msa-spices.log.replay", name = "file")
+public class ReplayConfig {
+
+    @Bean
+    public ReplayRunner replayRunner(ListableBeanFactory beanFactory,
+                                     LogPreparationService logPreparationService,
+                                     Jackson2ObjectMapperBuilder builder,
+                                     LogProperties logProperties) {
+        return new ReplayRunner(beanFactory, logPreparationService, builder.build(),
+                Duration.ofMillis(logProperties.getReplay().getTimeoutMillis()));
+    }
+
+    @Bean
+    public ReplayApplicationRunner replayApplicationRunner(ReplayRunner replayRunner,
+                                                           Jackson2ObjectMapperBuilder builder,
+                                                           LogProperties logProperties) {
+        final LogProperties.Replay replay = logProperties.getReplay();
+        return new ReplayApplicationRunner(replayRunner, builder.build(), Path.of(replay.getFile()),
+                replay.getSpeed(), replay.getThreads());
+    }
+}
@@ -0,0 +1,45 @@
+package com.igorivkin.msaspices.lib.config;
+
+import com.igorivkin.msaspices.lib.requestid.CounterRequestIdGenerator;
+import com.igorivkin.msaspices.lib.requestid.RandomRequestIdGenerator;
+import com.igorivkin.msaspices.lib.requestid.RequestIdGenerator;
+import com.igorivkin.msaspices.lib.requestid.RequestIdServletFilter;
+import com.igorivkin.msaspices.lib.requestid.TimeOrderedRequestIdGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RequestIdConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RequestIdGenerator requestIdGenerator(LogProperties logProperties) {
+        final LogProperties.RequestId settings = logProperties.getRequestId();
+        switch (settings.getGenerator()) {
+            case TIME_ORDERED:
+                return new TimeOrderedRequestIdGenerator();
+            case COUNTER:
+                return new CounterRequestIdGenerator(settings.getNode());
+            case RANDOM:
+            default:
+                return new RandomRequestIdGenerator();
+        }
+    }
+
+    /**
+     * Inbound request ID of servlet applications, WebFlux applications take it by the web filter.
+     * The filter is declared in a nested configuration, so the servlet API is not needed by other applications.
+     */
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class ServletRequestIdConfig {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public RequestIdServletFilter requestIdServletFilter(LogProperties logProperties) {
+            return new RequestIdServletFilter(logProperties.getRequestId().getHeader());
+        }
+    }
+}
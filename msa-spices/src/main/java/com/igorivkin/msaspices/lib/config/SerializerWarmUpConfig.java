@@ -0,0 +1,22 @@
+package com.igorivkin.msaspices.lib.config;
+
+import com.igorivkin.msaspices.lib.log.LogSerializerWarmUp;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Builds serializers of annotated methods on startup when "msa-spices.log.jackson.warm-up" is true.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "msa-spices.log.jackson", name = "warm-up", havingValue = "true")
+public class SerializerWarmUpConfig {
+
+    @Bean
+    public LogSerializerWarmUp logSerializerWarmUp(ListableBeanFactory beanFactory,
+                                                   LogPreparationService logPreparationService) {
+        return new LogSerializerWarmUp(beanFactory, logPreparationService);
+    }
+}
@@ -0,0 +1,89 @@
+package com.igorivkin.msaspices.lib.convert;
+
+import java.io.OutputStream;
+
+/**
+ * Unsynchronized stream encoding written bytes to base64 and appending them to a caller-supplied StringBuilder,
+ * the sink of binary converters. The JDK encoder stream is not used as it allocates an 8 KB buffer per stream.
+ * Optionally limits the number of written chars like {@link StringBuilderWriter}: the chars above the limit
+ * are dropped, and {@link LimitReachedException} is thrown to stop the conversion. Closing the stream writes
+ * the padding.
+ */
+final class Base64StringBuilderOutputStream extends OutputStream {
+
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    private final StringBuilder target;
+
+    private final int limit;
+
+    private int pendingBits;
+
+    private int pendingBytes;
+
+    private boolean closed;
+
+    /**
+     * @param target   buffer to append to
+     * @param maxChars max number of chars to write, zero means no limit
+     */
+    Base64StringBuilderOutputStream(StringBuilder target, int maxChars) {
+        this.target = target;
+        this.limit = maxChars > 0 ? target.length() + maxChars : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void write(int b) throws LimitReachedException {
+        pendingBits = (pendingBits << 8) | (b & 0xff);
+        if (++pendingBytes == 3) {
+            appendQuantum(pendingBits, 4);
+            pendingBits = 0;
+            pendingBytes = 0;
+        }
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws LimitReachedException {
+        final int end = offset + length;
+        var i = offset;
+        while (pendingBytes != 0 && i < end) {
+            write(buffer[i++]);
+        }
+        for (; i + 3 <= end; i += 3) {
+            appendQuantum((buffer[i] & 0xff) << 16 | (buffer[i + 1] & 0xff) << 8 | (buffer[i + 2] & 0xff), 4);
+        }
+        while (i < end) {
+            write(buffer[i++]);
+        }
+    }
+
+    @Override
+    public void close() throws LimitReachedException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (pendingBytes == 1) {
+            appendQuantum(pendingBits << 16, 2);
+            append('=');
+            append('=');
+        } else if (pendingBytes == 2) {
+            appendQuantum(pendingBits << 8, 3);
+            append('=');
+        }
+    }
+
+    private void appendQuantum(int bits, int chars) throws LimitReachedException {
+        for (var shift = 18; chars-- > 0; shift -= 6) {
+            append(ALPHABET[(bits >>> shift) & 0x3f]);
+        }
+    }
+
+    private void append(char c) throws LimitReachedException {
+        if (target.length() >= limit) {
+            throw new LimitReachedException("Max output chars is reached");
+        }
+        target.append(c);
+    }
+}
@@ -0,0 +1,38 @@
+package com.igorivkin.msaspices.lib.convert;
+
+import java.io.IOException;
+
+/**
+ * Thrown by limited writers and generators to stop conversion when a limit is reached.
+ * It is an IOException, so Jackson passes it through the serializers without wrapping.
+ */
+final class LimitReachedException extends IOException {
+
+    LimitReachedException(String message) {
+        super(message, null);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        // It is a control flow signal, stack trace is not needed
+        return this;
+    }
+
+    /**
+     * Checks if conversion was stopped by a limit, the exception can be wrapped by the underlying writers.
+     *
+     * @param ex exception thrown by conversion
+     * @return true if a limit is the cause of exception
+     */
+    static boolean isCauseOf(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LimitReachedException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
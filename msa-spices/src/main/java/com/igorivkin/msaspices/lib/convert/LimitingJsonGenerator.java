@@ -0,0 +1,272 @@
+package com.igorivkin.msaspices.lib.convert;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * JSON generator checking the limits of depth, elements and string length before every token is written.
+ * When a limit of depth or elements is reached, it throws {@link LimitReachedException} to stop
+ * serialization, too long strings are cut. The limit of output chars is applied by the writer.
+ */
+final class LimitingJsonGenerator extends JsonGeneratorDelegate {
+
+    private final int maxDepth;
+
+    private final int maxElements;
+
+    private final int maxStringLength;
+
+    private int depth;
+
+    LimitingJsonGenerator(JsonGenerator delegate, LogLimits limits) {
+        super(delegate, false);
+        this.maxDepth = limits.getMaxDepth();
+        this.maxElements = limits.getMaxElements();
+        this.maxStringLength = limits.getMaxStringLength();
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        beforeStart();
+        delegate.writeStartArray();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void writeStartArray(int size) throws IOException {
+        beforeStart();
+        delegate.writeStartArray(size);
+    }
+
+    @Override
+    public void writeStartArray(Object forValue) throws IOException {
+        beforeStart();
+        delegate.writeStartArray(forValue);
+    }
+
+    @Override
+    public void writeStartArray(Object forValue, int size) throws IOException {
+        beforeStart();
+        delegate.writeStartArray(forValue, size);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        depth--;
+        delegate.writeEndArray();
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        beforeStart();
+        delegate.writeStartObject();
+    }
+
+    @Override
+    public void writeStartObject(Object forValue) throws IOException {
+        beforeStart();
+        delegate.writeStartObject(forValue);
+    }
+
+    @Override
+    public void writeStartObject(Object forValue, int size) throws IOException {
+        beforeStart();
+        delegate.writeStartObject(forValue, size);
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        depth--;
+        delegate.writeEndObject();
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        beforeFieldName();
+        delegate.writeFieldName(name);
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+        beforeFieldName();
+        delegate.writeFieldName(name);
+    }
+
+    @Override
+    public void writeArray(int[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (var i = offset; i < offset + length; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(long[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (var i = offset; i < offset + length; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(double[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (var i = offset; i < offset + length; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(String[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (var i = offset; i < offset + length; i++) {
+            writeString(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        beforeValue();
+        if (maxStringLength > 0 && text != null && text.length() > maxStringLength) {
+            delegate.writeString(text.substring(0, maxStringLength) + LogLimits.STRING_TRUNCATION_MARKER);
+        } else {
+            delegate.writeString(text);
+        }
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int length) throws IOException {
+        if (maxStringLength > 0 && length > maxStringLength) {
+            writeString(new String(text, offset, length));
+        } else {
+            beforeValue();
+            delegate.writeString(text, offset, length);
+        }
+    }
+
+    @Override
+    public void writeString(SerializableString text) throws IOException {
+        if (maxStringLength > 0 && text.charLength() > maxStringLength) {
+            writeString(text.getValue());
+        } else {
+            beforeValue();
+            delegate.writeString(text);
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text) throws IOException {
+        beforeValue();
+        delegate.writeRawValue(text);
+    }
+
+    @Override
+    public void writeRawValue(String text, int offset, int length) throws IOException {
+        beforeValue();
+        delegate.writeRawValue(text, offset, length);
+    }
+
+    @Override
+    public void writeRawValue(char[] text, int offset, int length) throws IOException {
+        beforeValue();
+        delegate.writeRawValue(text, offset, length);
+    }
+
+    @Override
+    public void writeNumber(short value) throws IOException {
+        beforeValue();
+        delegate.writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(int value) throws IOException {
+        beforeValue();
+        delegate.writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(long value) throws IOException {
+        beforeValue();
+        delegate.writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(BigInteger value) throws IOException {
+        beforeValue();
+        delegate.writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(double value) throws IOException {
+        beforeValue();
+        delegate.writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(float value) throws IOException {
+        beforeValue();
+        delegate.writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(BigDecimal value) throws IOException {
+        beforeValue();
+        delegate.writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        beforeValue();
+        delegate.writeNumber(encodedValue);
+    }
+
+    @Override
+    public void writeNumber(char[] encodedValue, int offset, int length) throws IOException {
+        beforeValue();
+        delegate.writeNumber(encodedValue, offset, length);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws IOException {
+        beforeValue();
+        delegate.writeBoolean(value);
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        beforeValue();
+        delegate.writeNull();
+    }
+
+    private void beforeStart() throws IOException {
+        beforeValue();
+        if (maxDepth > 0 && depth >= maxDepth) {
+            throw new LimitReachedException("Max depth is reached");
+        }
+        depth++;
+    }
+
+    private void beforeValue() throws IOException {
+        final JsonStreamContext context = delegate.getOutputContext();
+        if (maxElements > 0 && context.inArray() && context.getEntryCount() >= maxElements) {
+            throw new LimitReachedException("Max elements is reached");
+        }
+    }
+
+    private void beforeFieldName() throws IOException {
+        final JsonStreamContext context = delegate.getOutputContext();
+        if (maxElements > 0 && context.getEntryCount() >= maxElements) {
+            throw new LimitReachedException("Max elements is reached");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.igorivkin.msaspices.lib.convert;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Base of converters to binary formats of Jackson, like Smile and CBOR. Values are written to log messages
+ * as base64 encoded straight into the target buffer, and to byte sinks as raw bytes. Binary encoding
+ * of large payloads is cheaper than text both in CPU and in size.
+ */
+public abstract class LogBinaryConverter implements LogConverter {
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter streamWriter;
+
+    protected LogBinaryConverter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Byte sinks are owned by the caller, they are not closed after every value
+        this.streamWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public String convertObjectToString(Object obj) {
+        if (obj == null) {
+            return null;
+        }
+        final StringBuilder target = new StringBuilder();
+        appendObject(obj, target);
+        return target.toString();
+    }
+
+    /**
+     * Serializes an object and appends it as base64 to the target buffer, no intermediate byte array is created.
+     *
+     * @param obj    object to logging
+     * @param target buffer to append to
+     */
+    @Override
+    public void appendObject(Object obj, StringBuilder target) {
+        if (obj == null) {
+            target.append("null");
+            return;
+        }
+        final int start = target.length();
+        try {
+            // Closing the stream writes the padding of base64
+            objectMapper.writeValue(new Base64StringBuilderOutputStream(target, 0), obj);
+        } catch (IOException ex) {
+            target.setLength(start);
+            throw new IllegalStateException("Cannot convert object to " + getConversionType()
+                    + ", reason: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Serializes an object and appends it as base64 to the target buffer, stops as soon as a limit is reached.
+     * Limit of output chars is applied to the base64 chars.
+     *
+     * @param obj    object to logging
+     * @param target buffer to append to
+     * @param limits limits of conversion
+     */
+    @Override
+    public void appendObject(Object obj, StringBuilder target, LogLimits limits) {
+        if (obj == null || limits.isUnlimited()) {
+            appendObject(obj, target);
+            return;
+        }
+        final int start = target.length();
+        JsonGenerator generator = null;
+        try {
+            generator = objectMapper.createGenerator(
+                    new Base64StringBuilderOutputStream(target, limits.getMaxOutputChars()));
+            if (!limits.isOutputOnly()) {
+                generator = new LimitingJsonGenerator(generator, limits);
+            }
+            objectMapper.writeValue(generator, obj);
+            generator.close();
+        } catch (IOException ex) {
+            if (!LimitReachedException.isCauseOf(ex)) {
+                target.setLength(start);
+                throw new IllegalStateException("Cannot convert object to " + getConversionType()
+                        + ", reason: " + ex.getMessage());
+            }
+            closeTruncated(generator);
+            target.append(LogLimits.TRUNCATION_MARKER);
+        }
+    }
+
+    /**
+     * Writes raw bytes of the serialized object to the sink, the sink is not closed.
+     *
+     * @param obj    object to logging
+     * @param target sink to write to
+     * @throws IOException if the sink fails
+     */
+    @Override
+    public void writeObject(Object obj, OutputStream target) throws IOException {
+        streamWriter.writeValue(target, obj);
+    }
+
+    @Override
+    public void warmUp(Type type) {
+        SerializerWarmUp.warmUp(objectMapper, type);
+    }
+
+    private static void closeTruncated(JsonGenerator generator) {
+        if (generator == null) {
+            return;
+        }
+        try {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.close();
+        } catch (IOException ex) {
+            // Stream drops everything above the limit of output chars
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.igorivkin.msaspices.lib.convert;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Converts values to CBOR, Concise Binary Object Representation (RFC 8949).
+ */
+public class LogCborConverter extends LogBinaryConverter {
+
+    public LogCborConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public LogConversionType getConversionType() {
+        return LogConversionType.CBOR;
+    }
+}
@@ -2,9 +2,27 @@ package com.igorivkin.msaspices.lib.convert;
 
 /**
  * Represents type of conversion to string for a service that prepares values
- * to be logged. Currently, supports JSON-conversion.
+ * to be logged. Currently, supports JSON, XML and binary Smile and CBOR conversions.
  */
 public enum LogConversionType {
     JSON,
-    XML;
+    XML,
+
+    /**
+     * Binary JSON of Jackson. Written as base64 to log messages and as raw bytes to byte sinks.
+     */
+    SMILE,
+
+    /**
+     * Concise Binary Object Representation (RFC 8949). Written as base64 to log messages
+     * and as raw bytes to byte sinks.
+     */
+    CBOR;
+
+    /**
+     * @return true if values are converted to bytes, not to text
+     */
+    public boolean isBinary() {
+        return this == SMILE || this == CBOR;
+    }
 }
@@ -1,5 +1,10 @@
 package com.igorivkin.msaspices.lib.convert;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Marking interface for conversion classes. These components are used to convert
  * object values to string representation.
@@ -9,4 +14,56 @@ public interface LogConverter {
     LogConversionType getConversionType();
 
     String convertObjectToString(Object obj);
+
+    /**
+     * Appends string representation of an object to the target buffer. Null is appended as "null".
+     * Converters should override it to write directly to the buffer without an intermediate string.
+     *
+     * @param obj    object to logging
+     * @param target buffer to append to
+     */
+    default void appendObject(Object obj, StringBuilder target) {
+        target.append(convertObjectToString(obj));
+    }
+
+    /**
+     * Appends string representation of an object to the target buffer respecting the limits of conversion.
+     * By default, only the limit of output chars is applied after the conversion. Converters should override it
+     * to stop the conversion as soon as a limit is reached.
+     *
+     * @param obj    object to logging
+     * @param target buffer to append to
+     * @param limits limits of conversion
+     */
+    default void appendObject(Object obj, StringBuilder target, LogLimits limits) {
+        final int start = target.length();
+        appendObject(obj, target);
+        if (limits.getMaxOutputChars() > 0 && target.length() - start > limits.getMaxOutputChars()) {
+            target.setLength(start + limits.getMaxOutputChars());
+            target.append(LogLimits.TRUNCATION_MARKER);
+        }
+    }
+
+    /**
+     * Writes an object to a byte sink, e.g. a file of captured payloads. By default, the string representation
+     * is written in UTF-8. Binary converters write raw bytes. The sink is not closed.
+     *
+     * @param obj    object to logging
+     * @param target sink to write to
+     * @throws IOException if the sink fails
+     */
+    default void writeObject(Object obj, OutputStream target) throws IOException {
+        final StringBuilder buffer = new StringBuilder();
+        appendObject(obj, buffer);
+        target.write(buffer.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds serializers of a declared type of logged values ahead of the first conversion, e.g. on startup.
+     * By default, does nothing.
+     *
+     * @param type declared type of logged values
+     */
+    default void warmUp(Type type) {
+    }
 }
@@ -1,11 +1,17 @@
 package com.igorivkin.msaspices.lib.convert;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
 /**
  * JSON-converter. Uses dedicated object mapper.
  */
@@ -14,9 +20,13 @@ public class LogJsonConverter implements LogConverter {
 
     private final ObjectMapper objectMapper;
 
+    private final ObjectWriter streamWriter;
+
     @Autowired
     public LogJsonConverter(@Qualifier("masking-object-mapper") ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        // Byte sinks are owned by the caller, they are not closed after every value
+        this.streamWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     /**
@@ -37,9 +47,97 @@ public class LogJsonConverter implements LogConverter {
         return null;
     }
 
+    /**
+     * Serializes an object to JSON directly into the target buffer, Jackson takes its
+     * intermediate buffers from the pool of current thread.
+     *
+     * @param obj    object to logging
+     * @param target buffer to append to
+     */
+    @Override
+    public void appendObject(Object obj, StringBuilder target) {
+        if (obj == null) {
+            target.append("null");
+            return;
+        }
+        final int start = target.length();
+        try {
+            objectMapper.writeValue(new StringBuilderWriter(target), obj);
+        } catch (IOException ex) {
+            target.setLength(start);
+            throw new IllegalStateException("Cannot convert object to JSON, reason: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Serializes an object to JSON directly into the target buffer and stops as soon as a limit is reached.
+     * Depth, elements and string length are checked by the generator before every token is written,
+     * output chars are checked by the writer.
+     *
+     * @param obj    object to logging
+     * @param target buffer to append to
+     * @param limits limits of conversion
+     */
+    @Override
+    public void appendObject(Object obj, StringBuilder target, LogLimits limits) {
+        if (obj == null || limits.isUnlimited()) {
+            appendObject(obj, target);
+            return;
+        }
+        final int start = target.length();
+        JsonGenerator generator = null;
+        try {
+            generator = objectMapper.createGenerator(new StringBuilderWriter(target, limits.getMaxOutputChars()));
+            if (!limits.isOutputOnly()) {
+                generator = new LimitingJsonGenerator(generator, limits);
+            }
+            objectMapper.writeValue(generator, obj);
+            generator.close();
+        } catch (LimitReachedException ex) {
+            closeTruncated(generator);
+            target.append(LogLimits.TRUNCATION_MARKER);
+        } catch (IOException ex) {
+            target.setLength(start);
+            throw new IllegalStateException("Cannot convert object to JSON, reason: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Flushes the content written before a limit was reached and releases the buffers of generator.
+     * Open objects and arrays are not closed, the output is followed by the truncation marker.
+     */
+    private static void closeTruncated(JsonGenerator generator) {
+        if (generator == null) {
+            return;
+        }
+        try {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.close();
+        } catch (IOException ex) {
+            // Writer drops everything above the limit of output chars
+        }
+    }
+
+    /**
+     * Writes UTF-8 bytes of JSON straight to the sink, without an intermediate string. The sink is not closed.
+     *
+     * @param obj    object to logging
+     * @param target sink to write to
+     * @throws IOException if the sink fails
+     */
+    @Override
+    public void writeObject(Object obj, OutputStream target) throws IOException {
+        streamWriter.writeValue(target, obj);
+    }
+
     @Override
     public LogConversionType getConversionType() {
         return LogConversionType.JSON;
     }
 
+    @Override
+    public void warmUp(Type type) {
+        SerializerWarmUp.warmUp(objectMapper, type);
+    }
+
 }
@@ -0,0 +1,79 @@
+package com.igorivkin.msaspices.lib.convert;
+
+/**
+ * Limits of value conversion to string. Conversion stops as soon as a limit of output, depth
+ * or elements is reached and leaves {@link #TRUNCATION_MARKER} at the end; too long strings are cut
+ * and conversion goes on. Zero value of a limit means there is no such limit.
+ */
+public final class LogLimits {
+
+    /**
+     * Marker appended to the output when conversion is stopped by a limit.
+     */
+    public static final String TRUNCATION_MARKER = "...(truncated)";
+
+    /**
+     * Marker appended to a string value cut by max string length.
+     */
+    public static final String STRING_TRUNCATION_MARKER = "...";
+
+    public static final LogLimits UNLIMITED = new LogLimits(0, 0, 0, 0);
+
+    private final int maxOutputChars;
+
+    private final int maxDepth;
+
+    private final int maxElements;
+
+    private final int maxStringLength;
+
+    private LogLimits(int maxOutputChars, int maxDepth, int maxElements, int maxStringLength) {
+        this.maxOutputChars = Math.max(maxOutputChars, 0);
+        this.maxDepth = Math.max(maxDepth, 0);
+        this.maxElements = Math.max(maxElements, 0);
+        this.maxStringLength = Math.max(maxStringLength, 0);
+    }
+
+    /**
+     * Creates limits of conversion, zero or negative values mean there is no limit.
+     *
+     * @param maxOutputChars  max number of chars in output of one value
+     * @param maxDepth        max depth of nested objects and arrays
+     * @param maxElements     max number of elements of an array or entries of an object
+     * @param maxStringLength max length of string value
+     * @return limits of conversion
+     */
+    public static LogLimits of(int maxOutputChars, int maxDepth, int maxElements, int maxStringLength) {
+        if (maxOutputChars <= 0 && maxDepth <= 0 && maxElements <= 0 && maxStringLength <= 0) {
+            return UNLIMITED;
+        }
+        return new LogLimits(maxOutputChars, maxDepth, maxElements, maxStringLength);
+    }
+
+    public int getMaxOutputChars() {
+        return maxOutputChars;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getMaxElements() {
+        return maxElements;
+    }
+
+    public int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    public boolean isUnlimited() {
+        return this == UNLIMITED;
+    }
+
+    /**
+     * @return true if only the size of output is limited, so it can be applied to any format
+     */
+    public boolean isOutputOnly() {
+        return maxDepth == 0 && maxElements == 0 && maxStringLength == 0;
+    }
+}
@@ -0,0 +1,18 @@
+package com.igorivkin.msaspices.lib.convert;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Converts values to Smile, binary JSON of Jackson.
+ */
+public class LogSmileConverter extends LogBinaryConverter {
+
+    public LogSmileConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public LogConversionType getConversionType() {
+        return LogConversionType.SMILE;
+    }
+}
@@ -6,6 +6,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.lang.reflect.Type;
+
 @Component
 public class LogXmlConverter implements LogConverter {
 
@@ -21,6 +24,11 @@ public class LogXmlConverter implements LogConverter {
         return LogConversionType.XML;
     }
 
+    @Override
+    public void warmUp(Type type) {
+        SerializerWarmUp.warmUp(objectMapper, type);
+    }
+
     @Override
     public String convertObjectToString(Object obj) {
         if (obj != null) {
@@ -32,4 +40,52 @@ public class LogXmlConverter implements LogConverter {
         }
         return null;
     }
+
+    /**
+     * Serializes an object to XML directly into the target buffer, Jackson takes its
+     * intermediate buffers from the pool of current thread.
+     *
+     * @param obj    object to logging
+     * @param target buffer to append to
+     */
+    @Override
+    public void appendObject(Object obj, StringBuilder target) {
+        if (obj == null) {
+            target.append("null");
+            return;
+        }
+        final int start = target.length();
+        try {
+            objectMapper.writeValue(new StringBuilderWriter(target), obj);
+        } catch (IOException ex) {
+            target.setLength(start);
+            throw new IllegalStateException("Cannot convert object to XML, reason: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Serializes an object to XML directly into the target buffer. Only the limit of output chars
+     * is applied to XML, the conversion stops as soon as it is reached.
+     *
+     * @param obj    object to logging
+     * @param target buffer to append to
+     * @param limits limits of conversion
+     */
+    @Override
+    public void appendObject(Object obj, StringBuilder target, LogLimits limits) {
+        if (obj == null || limits.getMaxOutputChars() == 0) {
+            appendObject(obj, target);
+            return;
+        }
+        final int start = target.length();
+        try {
+            objectMapper.writeValue(new StringBuilderWriter(target, limits.getMaxOutputChars()), obj);
+        } catch (IOException ex) {
+            if (!LimitReachedException.isCauseOf(ex)) {
+                target.setLength(start);
+                throw new IllegalStateException("Cannot convert object to XML, reason: " + ex.getMessage());
+            }
+            target.append(LogLimits.TRUNCATION_MARKER);
+        }
+    }
 }
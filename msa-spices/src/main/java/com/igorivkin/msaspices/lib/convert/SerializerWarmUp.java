@@ -0,0 +1,73 @@
+package com.igorivkin.msaspices.lib.convert;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Builds serializers of a declared type and of the types of its properties, elements and values, and puts them
+ * to the cache of object mapper shared by all the serializations. Introspection of beans and code generation
+ * of Blackbird are done once, before the first value is logged. Abstract types are skipped as values are
+ * serialized by their runtime classes.
+ */
+final class SerializerWarmUp {
+
+    private SerializerWarmUp() {
+    }
+
+    static void warmUp(ObjectMapper objectMapper, Type type) {
+        final SerializerProvider provider = objectMapper.getSerializerProviderInstance();
+        final JavaType javaType = objectMapper.constructType(type);
+        if (isConcrete(javaType)) {
+            try {
+                // Root values are looked up by their classes
+                provider.findTypedValueSerializer(javaType.getRawClass(), true, null);
+            } catch (JsonMappingException ex) {
+                return;
+            }
+        }
+        warmUp(provider, javaType, new HashSet<>());
+    }
+
+    private static void warmUp(SerializerProvider provider, JavaType type, Set<JavaType> visited) {
+        if (type == null || type.isJavaLangObject() || !visited.add(type)) {
+            return;
+        }
+        if (type.isContainerType() || type.isReferenceType()) {
+            warmUp(provider, type.getKeyType(), visited);
+            warmUp(provider, type.getContentType(), visited);
+            return;
+        }
+        if (!isConcrete(type)) {
+            return;
+        }
+        try {
+            provider.findValueSerializer(type);
+        } catch (JsonMappingException ex) {
+            // The type can't be serialized, it fails the same way when a value is logged
+            return;
+        }
+        if (type.isPrimitive() || type.isEnumType() || ClassUtil.isJDKClass(type.getRawClass())) {
+            return;
+        }
+        final BeanDescription description = provider.getConfig().introspect(type);
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (property.couldSerialize()) {
+                warmUp(provider, property.getPrimaryType(), visited);
+            }
+        }
+    }
+
+    private static boolean isConcrete(JavaType type) {
+        return type.isPrimitive() || type.isArrayType() || !Modifier.isAbstract(type.getRawClass().getModifiers());
+    }
+}
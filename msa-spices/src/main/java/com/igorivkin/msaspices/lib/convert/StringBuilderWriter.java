@@ -0,0 +1,93 @@
+package com.igorivkin.msaspices.lib.convert;
+
+import java.io.Writer;
+
+/**
+ * Unsynchronized writer appending to a caller-supplied StringBuilder. Lets converters serialize
+ * straight into the buffer of log message instead of producing an intermediate string per value.
+ * Optionally limits the number of written chars: the chars above the limit are dropped,
+ * and {@link LimitReachedException} is thrown to stop the conversion.
+ */
+public final class StringBuilderWriter extends Writer {
+
+    private final StringBuilder target;
+
+    private final int limit;
+
+    public StringBuilderWriter(StringBuilder target) {
+        this.target = target;
+        this.limit = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Creates a writer limited by the number of written chars.
+     *
+     * @param target   buffer to append to
+     * @param maxChars max number of chars to write, zero means no limit
+     */
+    public StringBuilderWriter(StringBuilder target, int maxChars) {
+        this.target = target;
+        this.limit = maxChars > 0 ? target.length() + maxChars : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void write(int c) throws LimitReachedException {
+        checkLimit(1 - allowed(1));
+        target.append((char) c);
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws LimitReachedException {
+        final int allowed = allowed(length);
+        target.append(buffer, offset, allowed);
+        checkLimit(length - allowed);
+    }
+
+    @Override
+    public void write(String value, int offset, int length) throws LimitReachedException {
+        final int allowed = allowed(length);
+        target.append(value, offset, offset + allowed);
+        checkLimit(length - allowed);
+    }
+
+    @Override
+    public Writer append(CharSequence value) throws LimitReachedException {
+        final CharSequence sequence = value == null ? "null" : value;
+        return append(sequence, 0, sequence.length());
+    }
+
+    @Override
+    public Writer append(CharSequence value, int start, int end) throws LimitReachedException {
+        final CharSequence sequence = value == null ? "null" : value;
+        final int allowed = allowed(end - start);
+        target.append(sequence, start, start + allowed);
+        checkLimit(end - start - allowed);
+        return this;
+    }
+
+    @Override
+    public Writer append(char c) throws LimitReachedException {
+        write(c);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to flush, everything is written to the target
+    }
+
+    @Override
+    public void close() {
+        // Target is owned by the caller
+    }
+
+    private int allowed(int length) {
+        return Math.min(length, limit - target.length());
+    }
+
+    private void checkLimit(int droppedChars) throws LimitReachedException {
+        if (droppedChars > 0) {
+            throw new LimitReachedException("Max output chars is reached");
+        }
+    }
+}
@@ -1,121 +1,650 @@
 package com.igorivkin.msaspices.lib.log;
 
+import com.igorivkin.msaspices.lib.capture.CaptureDirection;
+import com.igorivkin.msaspices.lib.capture.CaptureSpool;
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import com.igorivkin.msaspices.lib.convert.LogLimits;
+import com.igorivkin.msaspices.lib.log.event.LogEventDispatcher;
+import com.igorivkin.msaspices.lib.metrics.CallOutcome;
+import com.igorivkin.msaspices.lib.metrics.MethodMetrics;
+import com.igorivkin.msaspices.lib.metrics.MethodMetricsRegistry;
+import com.igorivkin.msaspices.lib.requestid.RequestIdGenerator;
+import com.igorivkin.msaspices.lib.requestid.RequestIds;
 import com.igorivkin.msaspices.lib.service.LogPreparationService;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.MDC;
+import org.slf4j.Marker;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
 
-import java.util.ArrayList;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Component
 public abstract class AbstractLogMethodAspect {
 
-    protected static final String REQUEST_ID = "request-id";
+    protected static final String REQUEST_ID = RequestIds.KEY;
 
     protected static final String IGNORED = "<ignored>";
 
+    private static final String LOGSTASH_MARKER_CLASS = "net.logstash.logback.marker.LogstashMarker";
+
     protected final LogPreparationService logPreparationService;
 
+    protected final LogProperties logProperties;
+
+    protected final LogEventDispatcher logEventDispatcher;
+
+    protected final RequestIdGenerator requestIdGenerator;
+
+    protected final MethodMetricsRegistry methodMetricsRegistry;
+
+    /**
+     * Whether events are emitted with {@link StructuredLogMarker}. The marker class is referenced only
+     * in method bodies, never in signatures, so the aspect is loaded without logstash-logback-encoder.
+     */
+    protected final boolean structured;
+
     protected Logger log;
 
+    private final Map<Method, LogPlan> logPlans = new ConcurrentHashMap<>();
+
+    private final ThrowableDeduplicator throwableDeduplicator;
+
+    private CaptureSpool captureSpool;
+
     @Autowired
-    public AbstractLogMethodAspect(LogPreparationService logPreparationService) {
+    public AbstractLogMethodAspect(LogPreparationService logPreparationService,
+                                   LogProperties logProperties,
+                                   LogEventDispatcher logEventDispatcher,
+                                   RequestIdGenerator requestIdGenerator,
+                                   MethodMetricsRegistry methodMetricsRegistry) {
         this.logPreparationService = logPreparationService;
+        this.logProperties = logProperties;
+        this.logEventDispatcher = logEventDispatcher;
+        this.requestIdGenerator = requestIdGenerator;
+        this.methodMetricsRegistry = methodMetricsRegistry;
+        this.throwableDeduplicator = new ThrowableDeduplicator(logProperties.getErrors());
+        this.structured = resolveStructured(logProperties.getFormat());
+    }
+
+    /**
+     * Sets the spool that captures calls of methods annotated with {@code capture = true}.
+     * There is no spool unless capture is enabled by "msa-spices.log.capture.enabled".
+     *
+     * @param captureSpool spool of captured calls
+     */
+    @Autowired(required = false)
+    public void setCaptureSpool(CaptureSpool captureSpool) {
+        this.captureSpool = captureSpool;
+    }
+
+    private static boolean resolveStructured(LogFormat format) {
+        if (format != LogFormat.STRUCTURED) {
+            return false;
+        }
+        if (!ClassUtils.isPresent(LOGSTASH_MARKER_CLASS, AbstractLogMethodAspect.class.getClassLoader())) {
+            throw new IllegalStateException("Structured log format requires logstash-logback-encoder on the classpath");
+        }
+        return true;
+    }
+
+    /**
+     * Puts a new request ID to the MDC unless there is already one, set upstream by a filter
+     * or by an outer annotated method. In this case the existing ID is reused.
+     *
+     * @return true if a new ID was generated, so the caller should remove it from the MDC after the call
+     */
+    protected boolean putRequestId() {
+        if (MDC.get(REQUEST_ID) != null) {
+            return false;
+        }
+        MDC.put(REQUEST_ID, requestIdGenerator.generate());
+        return true;
+    }
+
+    /**
+     * Returns the cached logging plan of annotated method.
+     *
+     * @param method annotated method
+     * @return logging plan of method or null if the method was not called yet
+     */
+    protected LogPlan getCachedLogPlan(MethodSignature method) {
+        return logPlans.get(method.getMethod());
     }
 
     /**
-     * Will log the request if parameter contains in the allowed parameters or
-     * if allowed parameters list is empty.
+     * Returns the logging plan of annotated method. The plan is built on the first call of method
+     * and then taken from the cache.
+     *
+     * @param method      annotated method
+     * @param planFactory creates the plan of method, is called once per method
+     * @return logging plan of method
+     */
+    protected LogPlan getLogPlan(MethodSignature method, Function<MethodSignature, LogPlan> planFactory) {
+        return logPlans.computeIfAbsent(method.getMethod(), m -> planFactory.apply(method));
+    }
+
+    /**
+     * Resolves parameters to log of a method and creates a builder of its logging plan.
      *
      * @param method          annotated method
-     * @param args            list of arguments of annotated method
      * @param parametersToLog list of argument names to log
+     * @param kind            kind of aspect that processes the method
+     * @return builder of logging plan
      */
-    protected void logNonReactiveRequest(MethodSignature method, Object[] args, String[] parametersToLog) {
-        final StringBuilder logResult = new StringBuilder();
-        logResult.append("\n>>> Request {}, method {}");
-
+    protected LogPlan.Builder logPlanBuilder(MethodSignature method, String[] parametersToLog, LogPlan.Kind kind) {
         final String[] parameterNames = method.getParameterNames();
+        final int[] parameterIndices = new int[parameterNames.length];
+        var parametersCount = 0;
         for (var i = 0; i < parameterNames.length; i++) {
-            final String parameterName = parameterNames[i];
-            if (useParameterToLog(parameterName, parametersToLog)) {
-                final Object parameterValue = args[i];
-                logResult.append("\n ")
-                        .append(parameterName)
-                        .append("=")
-                        .append(logPreparationService.convertObjectToString(parameterValue));
+            if (useParameterToLog(parameterNames[i], parametersToLog)) {
+                parameterIndices[parametersCount++] = i;
             }
         }
 
-        log.debug(logResult.toString(), MDC.get(REQUEST_ID), method.getName());
+        final String[] loggedParameterNames = new String[parametersCount];
+        for (var i = 0; i < parametersCount; i++) {
+            loggedParameterNames[i] = parameterNames[parameterIndices[i]];
+        }
+
+        return LogPlan.builder(kind,
+                        method.getName(),
+                        Arrays.copyOf(parameterIndices, parametersCount),
+                        loggedParameterNames)
+                .declaringTypeName(method.getDeclaringTypeName())
+                .metrics(resolveMetrics(method));
     }
 
     /**
-     * Will log the request if parameter contains in the allowed parameters or
-     * if allowed parameters list is empty.
+     * Resolves call metrics of method. Time to the first element is measured only for methods returning Flux.
      *
-     * @param method          annotated method
-     * @param args            list of arguments of annotated method
-     * @param parametersToLog list of argument names to log
+     * @param method annotated method
+     * @return metrics of method or null if metrics are disabled
      */
-    protected List<Object> logReactiveRequest(MethodSignature method, Object[] args, String[] parametersToLog) {
-        final List<Object> instrumentedArgs = new ArrayList<>();
-        final String logRequestHeader = "\n>>> Request {}, method {}";
-        log.debug(logRequestHeader, MDC.get(REQUEST_ID), method.getName());
+    private MethodMetrics resolveMetrics(MethodSignature method) {
+        if (!logProperties.getMetrics().isEnabled()) {
+            return null;
+        }
+        final String name = method.getDeclaringType().getSimpleName() + "." + method.getName();
+        return methodMetricsRegistry.forMethod(name, Flux.class.isAssignableFrom(method.getReturnType()));
+    }
 
-        final String[] parameterNames = method.getParameterNames();
-        for (var i = 0; i < parameterNames.length; i++) {
-            final String parameterName = parameterNames[i];
-            final Object currentArgument = args[i];
-            if (useParameterToLog(parameterName, parametersToLog)) {
-                instrumentedArgs.add(logParameter(parameterName, currentArgument));
-            } else {
-                instrumentedArgs.add(currentArgument);
+    /**
+     * Records a finished synchronous call of method. Nothing is recorded if metrics are disabled.
+     *
+     * @param logPlan       logging plan of annotated method
+     * @param outcome       outcome of call
+     * @param durationNanos duration of call in nanoseconds
+     */
+    protected static void recordCall(LogPlan logPlan, CallOutcome outcome, long durationNanos) {
+        final MethodMetrics metrics = logPlan.getMetrics();
+        if (metrics != null) {
+            metrics.record(outcome, durationNanos);
+        }
+    }
+
+    /**
+     * Resolves limits of conversion, negative values of annotation are replaced by the global settings.
+     *
+     * @param maxOutputChars  max number of chars of converted value set by annotation
+     * @param maxDepth        max depth of converted value set by annotation
+     * @param maxElements     max number of elements of converted value set by annotation
+     * @param maxStringLength max length of strings set by annotation
+     * @return limits of conversion
+     */
+    protected LogLimits resolveLimits(int maxOutputChars, int maxDepth, int maxElements, int maxStringLength) {
+        final LogProperties.Limits limits = logProperties.getLimits();
+        return LogLimits.of(
+                resolveSetting(maxOutputChars, limits.getMaxOutputChars()),
+                resolveSetting(maxDepth, limits.getMaxDepth()),
+                resolveSetting(maxElements, limits.getMaxElements()),
+                resolveSetting(maxStringLength, limits.getMaxStringLength()));
+    }
+
+    /**
+     * Takes the value of annotation attribute if it's set, otherwise the global one.
+     * Numeric attributes of annotations use negative values as "not set".
+     *
+     * @param annotationValue value of annotation attribute
+     * @param globalValue     value of global setting
+     * @return resolved value
+     */
+    protected static long resolveSetting(long annotationValue, long globalValue) {
+        return annotationValue >= 0 ? annotationValue : globalValue;
+    }
+
+    protected static int resolveSetting(int annotationValue, int globalValue) {
+        return annotationValue >= 0 ? annotationValue : globalValue;
+    }
+
+    protected static double resolveSetting(double annotationValue, double globalValue) {
+        return annotationValue >= 0 ? annotationValue : globalValue;
+    }
+
+    /**
+     * Resolves sampling and rate budget of logged calls, negative values of annotation are replaced
+     * by the global settings.
+     *
+     * @param sampleRate        probability to log a call set by annotation
+     * @param maxCallsPerSecond max number of logged calls per second set by annotation
+     * @return budget of logged calls or null if every call is logged
+     */
+    protected LogBudget resolveBudget(double sampleRate, int maxCallsPerSecond) {
+        final LogProperties.Sampling sampling = logProperties.getSampling();
+        return LogBudget.of(
+                resolveSetting(sampleRate, sampling.getRate()),
+                resolveSetting(maxCallsPerSecond, sampling.getMaxCallsPerSecond()));
+    }
+
+    /**
+     * Resolves threshold of tail mode, negative threshold of annotation is replaced by the global setting.
+     *
+     * @param tail            whether tail mode is set by annotation
+     * @param thresholdMillis threshold set by annotation
+     * @return threshold in milliseconds or -1 if tail mode is off
+     */
+    protected long resolveTail(boolean tail, long thresholdMillis) {
+        return tail ? resolveSetting(thresholdMillis, logProperties.getTail().getThresholdMillis()) : -1L;
+    }
+
+    /**
+     * Captures the request of a call in tail mode. It keeps references to the arguments, or converts them
+     * right now if snapshots are configured. Nothing is captured if DEBUG level is disabled.
+     *
+     * @param logPlan logging plan of annotated method
+     * @param args    list of arguments of annotated method
+     * @return captured request or null if the call is not in tail mode
+     */
+    protected Object captureTailRequest(LogPlan logPlan, Object[] args) {
+        if (!logPlan.isTail() || !log.isDebugEnabled()) {
+            return null;
+        }
+        if (structured) {
+            final StructuredLogMarker request = new StructuredLogMarker(logPreparationService, logPlan, null,
+                    StructuredLogMarker.REQUEST).parameters(args.clone());
+            if (logProperties.getTail().isSnapshotArguments()) {
+                request.snapshot();
+            }
+            return request;
+        }
+        final LazyLogParameters parameters = new LazyLogParameters(logPreparationService, logPlan, args.clone());
+        return logProperties.getTail().isSnapshotArguments() ? parameters.toString() : parameters;
+    }
+
+    /**
+     * Logs the captured request of a call in tail mode if the call is slow or failed
+     * and it fits the sampling and rate budget of method.
+     *
+     * @param logPlan       logging plan of annotated method
+     * @param requestId     ID of current request
+     * @param tailRequest   captured request, null if the call is not in tail mode
+     * @param durationNanos duration of call in nanoseconds
+     * @param failed        whether the call failed
+     * @return true if the request was logged, so the response should be logged too
+     */
+    protected boolean logTailRequest(LogPlan logPlan,
+                                     String requestId,
+                                     Object tailRequest,
+                                     long durationNanos,
+                                     boolean failed) {
+        if (tailRequest == null) {
+            return false;
+        }
+        final boolean slow = durationNanos > logPlan.getTailThresholdNanos();
+        if (!(slow || failed) || !admitCall(logPlan)) {
+            return false;
+        }
+
+        logSuppressedCalls(logPlan, requestId);
+        if (structured) {
+            final StructuredLogMarker request = ((StructuredLogMarker) tailRequest).copy(requestId)
+                    .duration(durationNanos);
+            debug(request, ">>> Request {}, method {}", requestId, logPlan.getMethodName());
+            return true;
+        }
+        debug("\n>>> Request {}, method {}, durationMs={}{}", requestId, logPlan.getMethodName(),
+                TimeUnit.NANOSECONDS.toMillis(durationNanos), tailRequest);
+        return true;
+    }
+
+    /**
+     * Captures the request of a call to the spool if the method is captured, whatever the level of logging is.
+     * Parameters resolved by logging plan are captured by name, Mono/Flux parameters are skipped here,
+     * values of Mono parameters are captured when emitted, see {@link #instrumentCapturedParameters}.
+     *
+     * @param logPlan   logging plan of annotated method
+     * @param requestId ID of current request, a new one is generated if it's null
+     * @param args      list of arguments of annotated method
+     * @return ID of captured request or null if the call is not captured
+     */
+    protected String captureRequest(LogPlan logPlan, String requestId, Object[] args) {
+        if (captureSpool == null || !logPlan.isCapture()) {
+            return null;
+        }
+        final String capturedRequestId = requestId != null ? requestId : requestIdGenerator.generate();
+        final int[] parameterIndices = logPlan.getParameterIndices();
+        final String[] parameterNames = logPlan.getParameterNames();
+        final Map<String, Object> parameters = new LinkedHashMap<>();
+        for (var i = 0; i < parameterIndices.length; i++) {
+            final Object parameterValue = args[parameterIndices[i]];
+            if (!(parameterValue instanceof Publisher)) {
+                parameters.put(parameterNames[i], parameterValue);
             }
         }
+        captureSpool.append(CaptureDirection.REQUEST, capturedRequestId, logPlan.getDeclaringTypeName(),
+                logPlan.getMethodName(), -1L, parameters);
+        return capturedRequestId;
+    }
 
+    /**
+     * Instruments Mono parameters of a captured method, so their values are captured when emitted, by another
+     * request event with the same request ID. Request ID is taken from the Reactor Context, values emitted
+     * out of the subscription of response are not captured. Flux parameters are not captured.
+     *
+     * @param logPlan logging plan of annotated method
+     * @param args    list of arguments of annotated method, instrumented parameters replace the original ones
+     * @return list of arguments to proceed with
+     */
+    protected Object[] instrumentCapturedParameters(LogPlan logPlan, Object[] args) {
+        if (captureSpool == null || !logPlan.isCapture()) {
+            return args;
+        }
+        final int[] parameterIndices = logPlan.getParameterIndices();
+        final String[] parameterNames = logPlan.getParameterNames();
+        Object[] instrumentedArgs = args;
+        for (var i = 0; i < parameterIndices.length; i++) {
+            final Object parameterValue = args[parameterIndices[i]];
+            if (parameterValue instanceof Mono) {
+                if (instrumentedArgs == args) {
+                    instrumentedArgs = args.clone();
+                }
+                final String parameterName = parameterNames[i];
+                instrumentedArgs[parameterIndices[i]] = ((Mono<?>) parameterValue).doOnEach(signal -> {
+                    final String requestId = RequestIds.get(signal.getContextView());
+                    if (signal.isOnNext() && requestId != null) {
+                        captureSpool.append(CaptureDirection.REQUEST, requestId, logPlan.getDeclaringTypeName(),
+                                logPlan.getMethodName(), -1L, Map.of(parameterName, signal.get()));
+                    }
+                });
+            }
+        }
         return instrumentedArgs;
     }
 
+    /**
+     * Captures the response of a call whose request was captured. The response is replaced by a placeholder
+     * if the method doesn't log its response.
+     *
+     * @param logPlan       logging plan of annotated method
+     * @param requestId     ID of captured request, nothing is captured if it's null
+     * @param response      response of annotated method
+     * @param durationNanos duration of call in nanoseconds
+     */
+    protected void captureResponse(LogPlan logPlan, String requestId, Object response, long durationNanos) {
+        if (requestId != null) {
+            captureSpool.append(CaptureDirection.RESPONSE, requestId, logPlan.getDeclaringTypeName(),
+                    logPlan.getMethodName(), durationNanos, logPlan.isLogResponse() ? response : IGNORED);
+        }
+    }
+
+    /**
+     * Captures the error of a call whose request was captured, by its type and message.
+     *
+     * @param logPlan       logging plan of annotated method
+     * @param requestId     ID of captured request, nothing is captured if it's null
+     * @param error         thrown error
+     * @param durationNanos duration of call in nanoseconds
+     */
+    protected void captureError(LogPlan logPlan, String requestId, Throwable error, long durationNanos) {
+        if (requestId != null) {
+            captureSpool.append(CaptureDirection.ERROR, requestId, logPlan.getDeclaringTypeName(),
+                    logPlan.getMethodName(), durationNanos, String.valueOf(error));
+        }
+    }
+
+    /**
+     * Instruments Mono/Flux response of a captured method. The request is captured on subscription
+     * with the request ID of Reactor Context, then every element of response and the error.
+     *
+     * @param logPlan  logging plan of annotated method
+     * @param args     list of arguments of annotated method
+     * @param response result of annotated method
+     * @return instrumented Mono/Flux response, or the response itself if the method is not captured
+     */
+    @SuppressWarnings({"ReactiveStreamsUnusedPublisher", "unchecked"})
+    protected Object captureReactiveResponse(LogPlan logPlan, Object[] args, Object response) {
+        if (captureSpool == null || !logPlan.isCapture()) {
+            return response;
+        }
+        if (response instanceof Mono) {
+            return Mono.deferContextual(context -> {
+                final String requestId = captureRequest(logPlan, RequestIds.get(context), args);
+                final long startNanos = System.nanoTime();
+                return ((Mono<Object>) response)
+                        .doOnNext(r -> captureResponse(logPlan, requestId, r, System.nanoTime() - startNanos))
+                        .doOnError(ex -> captureError(logPlan, requestId, ex, System.nanoTime() - startNanos));
+            }).contextWrite(this::putRequestId);
+        }
+        return Flux.deferContextual(context -> {
+            final String requestId = captureRequest(logPlan, RequestIds.get(context), args);
+            final long startNanos = System.nanoTime();
+            return ((Flux<Object>) response)
+                    .doOnNext(r -> captureResponse(logPlan, requestId, r, System.nanoTime() - startNanos))
+                    .doOnError(ex -> captureError(logPlan, requestId, ex, System.nanoTime() - startNanos));
+        }).contextWrite(this::putRequestId);
+    }
+
+    /**
+     * Decides whether the call is logged, before any argument is converted. The call is logged
+     * if DEBUG level is enabled and the call fits the sampling and rate budget of method.
+     *
+     * @param logPlan logging plan of annotated method
+     * @return true if the call should be logged
+     */
+    protected boolean admitCall(LogPlan logPlan) {
+        if (!log.isDebugEnabled()) {
+            return false;
+        }
+        final LogBudget budget = logPlan.getBudget();
+        return budget == null || budget.admit(logPlan.getMetrics());
+    }
+
+    /**
+     * Logs the number of calls that were not logged because the rate budget of method was spent.
+     * It's done by the first logged call after them, so there is no need in a background reporter.
+     * The total count is also available in the metrics of method, even if no call is logged after them.
+     *
+     * @param logPlan   logging plan of annotated method
+     * @param requestId ID of current request
+     */
+    private void logSuppressedCalls(LogPlan logPlan, String requestId) {
+        final LogBudget budget = logPlan.getBudget();
+        if (budget == null) {
+            return;
+        }
+        final long suppressedCalls = budget.takeSuppressedCalls();
+        if (suppressedCalls > 0) {
+            debug("\nRequest {}, method {}: {} calls were not logged, log budget was spent",
+                    requestId, logPlan.getMethodName(), suppressedCalls);
+        }
+    }
+
+    /**
+     * Will log the request parameters that are resolved by logging plan.
+     *
+     * @param logPlan   logging plan of annotated method
+     * @param requestId ID of current request
+     * @param args      list of arguments of annotated method
+     */
+    protected void logNonReactiveRequest(LogPlan logPlan, String requestId, Object[] args) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+
+        logSuppressedCalls(logPlan, requestId);
+        if (structured) {
+            final StructuredLogMarker request = new StructuredLogMarker(logPreparationService, logPlan, requestId,
+                    StructuredLogMarker.REQUEST).parameters(args);
+            debug(request, ">>> Request {}, method {}", requestId, logPlan.getMethodName());
+            return;
+        }
+        final String logRequest = "\n>>> Request {}, method {}{}";
+        debug(logRequest, requestId, logPlan.getMethodName(),
+                new LazyLogParameters(logPreparationService, logPlan, args));
+    }
+
+    /**
+     * Runs a special instrumentation for Mono/Flux parameters that are resolved by logging plan
+     * (will add one more listener on them), so their values are logged when they are emitted.
+     *
+     * @param logPlan logging plan of annotated method
+     * @param args    list of arguments of annotated method, instrumented parameters replace the original ones
+     * @return list of arguments to proceed with
+     */
+    protected Object[] instrumentReactiveParameters(LogPlan logPlan, Object[] args) {
+        final int[] parameterIndices = logPlan.getParameterIndices();
+        final String[] parameterNames = logPlan.getParameterNames();
+        for (var i = 0; i < parameterIndices.length; i++) {
+            final int parameterIndex = parameterIndices[i];
+            args[parameterIndex] = logReactiveParameter(logPlan, parameterNames[i], args[parameterIndex]);
+        }
+        return args;
+    }
+
+    /**
+     * Logs the header of request and its non-reactive parameters. Mono/Flux parameters
+     * are logged by their instrumentation.
+     *
+     * @param logPlan   logging plan of annotated method
+     * @param requestId ID of current request
+     * @param args      list of arguments of annotated method
+     */
+    protected void logReactiveRequest(LogPlan logPlan, String requestId, Object[] args) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+
+        logSuppressedCalls(logPlan, requestId);
+        if (structured) {
+            // Mono/Flux parameters are skipped by the marker
+            final StructuredLogMarker request = new StructuredLogMarker(logPreparationService, logPlan, requestId,
+                    StructuredLogMarker.REQUEST).parameters(args);
+            debug(request, ">>> Request {}, method {}", requestId, logPlan.getMethodName());
+            return;
+        }
+        final String logRequestHeader = "\n>>> Request {}, method {}";
+        debug(logRequestHeader, requestId, logPlan.getMethodName());
+
+        final int[] parameterIndices = logPlan.getParameterIndices();
+        final String[] parameterNames = logPlan.getParameterNames();
+        for (var i = 0; i < parameterIndices.length; i++) {
+            final Object parameterValue = args[parameterIndices[i]];
+            if (!(parameterValue instanceof Mono) && !(parameterValue instanceof Flux)) {
+                logNonReactiveParameter(logPlan, requestId, parameterNames[i], parameterValue);
+            }
+        }
+    }
+
     /**
      * Runs a special instrumentation for Mono/Flux parameters (will add one more listener on it).
-     * Logs non-reactive parameter without ny changes.
+     * Request ID is read from the Reactor Context of subscriber. Elements of Flux are logged by batches,
+     * the instrumentation doesn't change demand on the source.
+     * Returns non-reactive parameter without any changes.
      *
+     * @param logPlan        logging plan of annotated method
      * @param parameterName  name of current parameter
      * @param parameterValue value of current parameter
      * @return value of current parameter, will be modified for Mono/Flux
      */
     @SuppressWarnings("ReactiveStreamsUnusedPublisher")
-    private Object logParameter(String parameterName, Object parameterValue) {
+    private Object logReactiveParameter(LogPlan logPlan, String parameterName, Object parameterValue) {
         if (parameterValue instanceof Mono) {
             final Mono<?> monoParameter = (Mono<?>) parameterValue;
-            return monoParameter.doOnNext(p -> logNonReactiveParameter(parameterName, p));
+            return monoParameter.doOnEach(signal -> {
+                if (signal.isOnNext()) {
+                    logNonReactiveParameter(logPlan, RequestIds.get(signal.getContextView()),
+                            parameterName, signal.get());
+                }
+            });
         } else if (parameterValue instanceof Flux) {
-            // TODO
-            return parameterValue;
+            final Flux<?> fluxParameter = (Flux<?>) parameterValue;
+            return Flux.deferContextual(context -> {
+                final FluxParameterBatch batch = new FluxParameterBatch(this, logPlan,
+                        RequestIds.get(context), parameterName);
+                return fluxParameter
+                        .doOnNext(batch::onNext)
+                        .doFinally(signalType -> batch.onTerminate());
+            });
         } else {
-            return logNonReactiveParameter(parameterName, parameterValue);
+            // Non-reactive parameters are logged with the header of request
+            return parameterValue;
+        }
+    }
+
+    /**
+     * Logs a batch of elements of Flux parameter.
+     *
+     * @param logPlan          logging plan of annotated method
+     * @param requestId        ID of current request
+     * @param parameterName    name of parameter
+     * @param batchNumber      number of batch within the subscription, starting from 1
+     * @param elementsCount    number of elements in the batch
+     * @param renderedElements first elements of the batch, already rendered
+     */
+    void logFluxParameterBatch(LogPlan logPlan,
+                               String requestId,
+                               String parameterName,
+                               long batchNumber,
+                               int elementsCount,
+                               List<String> renderedElements) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        final LazyLogBatch batch = new LazyLogBatch(elementsCount, renderedElements);
+        if (structured) {
+            final StructuredLogMarker request = new StructuredLogMarker(logPreparationService, logPlan, requestId,
+                    StructuredLogMarker.REQUEST).summary(parameterName + " batch #" + batchNumber + ": " + batch);
+            debug(request, "Request {}, {} batch #{}", requestId, parameterName, batchNumber);
+            return;
         }
+        debug("\nRequest {}, {} batch #{}: {}", requestId, parameterName, batchNumber, batch);
     }
 
     /**
      * Logs non-reactive parameters so any parameter that is not instance of Flux or Mono.
      * Tracks also ID of request.
      *
+     * @param logPlan        logging plan of annotated method
+     * @param requestId      ID of current request
      * @param parameterName  name of parameter
      * @param parameterValue value of parameter
-     * @return value of parameter
      */
-    private Object logNonReactiveParameter(String parameterName, Object parameterValue) {
-        log.debug("\nRequest {}, {}={}",
-                MDC.get(REQUEST_ID), parameterName, logPreparationService.convertObjectToString(parameterValue));
-        return parameterValue;
+    private void logNonReactiveParameter(LogPlan logPlan, String requestId, String parameterName, Object parameterValue) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        if (structured) {
+            final StructuredLogMarker request = new StructuredLogMarker(logPreparationService, logPlan, requestId,
+                    StructuredLogMarker.REQUEST).parameter(parameterName, parameterValue);
+            debug(request, "Request {}, parameter {}", requestId, parameterName);
+            return;
+        }
+        debug("\nRequest {}, {}={}", requestId, parameterName, lazyValue(logPlan, parameterValue));
     }
 
     /**
@@ -148,61 +677,404 @@ public abstract class AbstractLogMethodAspect {
 
     /**
      * Logs the response of method which is annotated.
-     * Logging is making by calling .toString().
+     * Response is converted only if DEBUG level is enabled for the logger.
      *
-     * @param method      current method
-     * @param response    a response of annotated method
-     * @param logResponse do log the object of response
+     * @param logPlan       logging plan of annotated method
+     * @param requestId     ID of current request
+     * @param response      a response of annotated method
+     * @param durationNanos duration of call in nanoseconds
      */
-    protected Object logNonReactiveResponse(MethodSignature method, Object response, boolean logResponse) {
+    protected Object logNonReactiveResponse(LogPlan logPlan, String requestId, Object response, long durationNanos) {
+        if (!log.isDebugEnabled()) {
+            return response;
+        }
+        if (structured) {
+            final StructuredLogMarker marker = new StructuredLogMarker(logPreparationService, logPlan, requestId,
+                    StructuredLogMarker.RESPONSE).response(response).duration(durationNanos);
+            debug(marker, "<<< Response {}, method: {}", requestId, logPlan.getMethodName());
+            return response;
+        }
+
         final String logResult = "\n<<< Response {}, method: {}"
                 + "\n{}";
 
-        final String logResponseResult;
-        if (logResponse) {
-            logResponseResult = logPreparationService.convertObjectToString(response);
+        final Object logResponseResult;
+        if (logPlan.isLogResponse()) {
+            logResponseResult = lazyValue(logPlan, response);
         } else {
             logResponseResult = IGNORED;
         }
 
-        log.debug(logResult, MDC.get(REQUEST_ID), method.getName(), logResponseResult);
+        debug(logResult, requestId, logPlan.getMethodName(), logResponseResult);
         return response;
     }
 
     /**
-     * Runs a special instrumentation for Mono/Flux response (add one more listener to it) and
-     * logs any other type of response as it is.
+     * Logs an error thrown by annotated method or emitted by its reactive response. The full stack trace
+     * is logged on the first occurrence of error within the window, its repetitions are logged by
+     * a compact line with the fingerprint and the number of occurrences.
      *
-     * @param method      annotated method
-     * @param response    result of annotated method
-     * @param logResponse do log response?
+     * @param logPlan       logging plan of annotated method
+     * @param requestId     ID of current request
+     * @param error         thrown error
+     * @param durationNanos duration of call in nanoseconds
+     */
+    protected void logError(LogPlan logPlan, String requestId, Throwable error, long durationNanos) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+
+        final long fingerprint = throwableDeduplicator.fingerprint(error);
+        final long occurrence = throwableDeduplicator.occur(fingerprint);
+        if (structured) {
+            final StructuredLogMarker marker = new StructuredLogMarker(logPreparationService, logPlan, requestId,
+                    StructuredLogMarker.ERROR).error(ThrowableDeduplicator.format(fingerprint), occurrence)
+                    .duration(durationNanos);
+            if (occurrence == 1L) {
+                debug(marker, "<<< Error {}, method: {}", requestId, logPlan.getMethodName(), error);
+            } else {
+                debug(marker, "<<< Error {}, method: {}: {}", requestId, logPlan.getMethodName(),
+                        String.valueOf(error));
+            }
+            return;
+        }
+        if (occurrence == 1L) {
+            debug("\n<<< Error {}, method: {}, fingerprint: {}", requestId, logPlan.getMethodName(),
+                    ThrowableDeduplicator.format(fingerprint), error);
+        } else {
+            debug("\n<<< Error {}, method: {}, fingerprint: {}, seen {} times: {}", requestId, logPlan.getMethodName(),
+                    ThrowableDeduplicator.format(fingerprint), occurrence, String.valueOf(error));
+        }
+    }
+
+    /**
+     * Runs a special instrumentation for Mono/Flux response (add one more listener to it).
+     * The request is logged when the response is subscribed, the error is logged if the response fails.
+     * Latency of the call is measured from subscription to the terminal signal, not including logging
+     * of the response. Request ID is taken from the Reactor Context of subscriber, or it is generated
+     * and put to the context if there is none. This way every logged line carries the ID of its own
+     * request whatever thread emits the signal.
+     *
+     * @param logPlan  logging plan of annotated method
+     * @param args     list of arguments of annotated method
+     * @param response result of annotated method
      * @return object to log, will be modified for Mono/Flux
      */
-    @SuppressWarnings("ReactiveStreamsUnusedPublisher")
-    protected Object logReactiveResponse(MethodSignature method, Object response, boolean logResponse) {
+    @SuppressWarnings({"ReactiveStreamsUnusedPublisher", "unchecked"})
+    protected Object logReactiveResponse(LogPlan logPlan, Object[] args, Object response) {
         if (response instanceof Mono) {
-            final Mono<?> monoResponse = (Mono<?>) response;
-            return monoResponse.doOnNext(r -> logNonReactiveResponse(method, r, logResponse));
+            final Mono<Object> monoResponse = (Mono<Object>) response;
+            return Mono.deferContextual(context -> {
+                final String requestId = RequestIds.get(context);
+                logReactiveRequest(logPlan, requestId, args);
+                final long startNanos = System.nanoTime();
+                return measureMono(logPlan, monoResponse)
+                        .doOnNext(r -> logNonReactiveResponse(logPlan, requestId, r, System.nanoTime() - startNanos))
+                        .doOnError(ex -> logError(logPlan, requestId, ex, System.nanoTime() - startNanos));
+            }).contextWrite(this::putRequestId);
         } else if (response instanceof Flux) {
-            if (logResponse) {
-                Flux<?> fluxResponse = (Flux<?>) response;
-                return fluxResponse.doOnNext(this::logReactiveFluxElement);
-            } else {
-                log.debug("\n<<< Response {}, method: {}\n" + IGNORED, MDC.get(REQUEST_ID), method.getName());
-                return response;
-            }
+            return Flux.deferContextual(context -> {
+                final String requestId = RequestIds.get(context);
+                logReactiveRequest(logPlan, requestId, args);
+                final long startNanos = System.nanoTime();
+                final Flux<Object> fluxResponse = measureFlux(logPlan, (Flux<Object>) response)
+                        .doOnError(ex -> logError(logPlan, requestId, ex, System.nanoTime() - startNanos));
+                if (logPlan.isLogResponse() && logPlan.getResponseMode() == LogResponseMode.SUMMARY) {
+                    return logReactiveFluxSummary(logPlan, requestId, fluxResponse);
+                }
+                if (logPlan.isLogResponse()) {
+                    return fluxResponse.doOnNext(r -> logReactiveFluxElement(logPlan, requestId, r));
+                }
+                if (log.isDebugEnabled()) {
+                    logIgnoredFluxResponse(logPlan, requestId);
+                }
+                return fluxResponse;
+            }).contextWrite(this::putRequestId);
         } else {
             throw new IllegalArgumentException("Response is logging with reactive method but is not Mono or Flux");
         }
     }
 
+    /**
+     * Instruments Mono/Flux response of a call in tail mode. Duration is measured from subscription,
+     * the captured request is logged with the response or error only if the call is slow or failed.
+     * Flux response is logged by the number of its elements, elements are not kept.
+     *
+     * @param logPlan     logging plan of annotated method
+     * @param tailRequest captured request
+     * @param response    result of annotated method
+     * @return instrumented Mono/Flux response
+     */
+    @SuppressWarnings({"ReactiveStreamsUnusedPublisher", "unchecked"})
+    protected Object logTailReactiveResponse(LogPlan logPlan, Object tailRequest, Object response) {
+        if (response instanceof Mono) {
+            final Mono<Object> monoResponse = (Mono<Object>) response;
+            return Mono.deferContextual(context -> {
+                final String requestId = RequestIds.get(context);
+                final long startNanos = System.nanoTime();
+                return measureMono(logPlan, monoResponse)
+                        .doOnSuccess(r -> {
+                            final long durationNanos = System.nanoTime() - startNanos;
+                            if (logTailRequest(logPlan, requestId, tailRequest, durationNanos, false)) {
+                                logNonReactiveResponse(logPlan, requestId, r, durationNanos);
+                            }
+                        })
+                        .doOnError(ex -> {
+                            final long durationNanos = System.nanoTime() - startNanos;
+                            if (logTailRequest(logPlan, requestId, tailRequest, durationNanos, true)) {
+                                logError(logPlan, requestId, ex, durationNanos);
+                            }
+                        });
+            }).contextWrite(this::putRequestId);
+        } else if (response instanceof Flux) {
+            final Flux<Object> fluxResponse = (Flux<Object>) response;
+            return Flux.deferContextual(context -> {
+                final String requestId = RequestIds.get(context);
+                final TailFluxResponse tail = new TailFluxResponse();
+                return measureFlux(logPlan, fluxResponse)
+                        .doOnNext(r -> tail.onNext())
+                        .doOnComplete(() -> logTailFluxResponse(logPlan, requestId, tailRequest, tail,
+                                SignalType.ON_COMPLETE, null))
+                        .doOnError(ex -> logTailFluxResponse(logPlan, requestId, tailRequest, tail,
+                                SignalType.ON_ERROR, ex))
+                        .doOnCancel(() -> logTailFluxResponse(logPlan, requestId, tailRequest, tail,
+                                SignalType.CANCEL, null));
+            }).contextWrite(this::putRequestId);
+        } else {
+            throw new IllegalArgumentException("Response is logging with reactive method but is not Mono or Flux");
+        }
+    }
+
+    /**
+     * Logs the captured request and the number of elements of Flux response in tail mode
+     * if the subscription is slow or failed. Only the first terminal signal is considered.
+     */
+    private void logTailFluxResponse(LogPlan logPlan,
+                                     String requestId,
+                                     Object tailRequest,
+                                     TailFluxResponse tail,
+                                     SignalType signalType,
+                                     Throwable error) {
+        if (!tail.terminate()) {
+            return;
+        }
+        final long durationNanos = tail.getDurationNanos();
+        if (!logTailRequest(logPlan, requestId, tailRequest, durationNanos, error != null)) {
+            return;
+        }
+        if (structured) {
+            final StructuredLogMarker marker = new StructuredLogMarker(logPreparationService, logPlan, requestId,
+                    StructuredLogMarker.RESPONSE).duration(durationNanos)
+                    .summary("signal=" + signalType + ", count=" + tail.getElementsCount());
+            debug(marker, "<<< Response {}, method: {}", requestId, logPlan.getMethodName());
+        } else {
+            debug("\n<<< Response {}, method: {}, summary: signal={}, count={}, durationMs={}",
+                    requestId, logPlan.getMethodName(), signalType, tail.getElementsCount(),
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        }
+        if (error != null) {
+            logError(logPlan, requestId, error, durationNanos);
+        }
+    }
+
+    /**
+     * Instruments Mono/Flux response of a call that is not logged, only its metrics are recorded.
+     *
+     * @param logPlan  logging plan of annotated method
+     * @param response result of annotated method
+     * @return instrumented Mono/Flux response
+     */
+    @SuppressWarnings({"ReactiveStreamsUnusedPublisher", "unchecked"})
+    protected Object measureReactiveResponse(LogPlan logPlan, Object response) {
+        if (logPlan.getMetrics() == null) {
+            return response;
+        } else if (response instanceof Mono) {
+            return Mono.defer(() -> measureMono(logPlan, (Mono<Object>) response));
+        } else if (response instanceof Flux) {
+            return Flux.defer(() -> measureFlux(logPlan, (Flux<Object>) response));
+        } else {
+            throw new IllegalArgumentException("Response is measured with reactive method but is not Mono or Flux");
+        }
+    }
+
+    /**
+     * Measures the call from subscription to the terminal signal of Mono response.
+     *
+     * @param logPlan      logging plan of annotated method
+     * @param monoResponse Mono response of annotated method
+     * @return instrumented Mono response
+     */
+    private static Mono<Object> measureMono(LogPlan logPlan, Mono<Object> monoResponse) {
+        final MethodMetrics metrics = logPlan.getMetrics();
+        if (metrics == null) {
+            return monoResponse;
+        }
+        final ReactiveCallTimer timer = new ReactiveCallTimer(metrics);
+        return monoResponse
+                .doOnSuccess(r -> timer.terminate(CallOutcome.SUCCESS))
+                .doOnError(ex -> timer.terminate(CallOutcome.ERROR))
+                .doOnCancel(() -> timer.terminate(CallOutcome.CANCEL));
+    }
+
+    /**
+     * Measures the call from subscription to the terminal signal of Flux response
+     * and the time to its first element.
+     *
+     * @param logPlan      logging plan of annotated method
+     * @param fluxResponse Flux response of annotated method
+     * @return instrumented Flux response
+     */
+    private static Flux<Object> measureFlux(LogPlan logPlan, Flux<Object> fluxResponse) {
+        final MethodMetrics metrics = logPlan.getMetrics();
+        if (metrics == null) {
+            return fluxResponse;
+        }
+        final ReactiveCallTimer timer = new ReactiveCallTimer(metrics);
+        return fluxResponse
+                .doOnNext(r -> timer.onNext())
+                .doOnComplete(() -> timer.terminate(CallOutcome.SUCCESS))
+                .doOnError(ex -> timer.terminate(CallOutcome.ERROR))
+                .doOnCancel(() -> timer.terminate(CallOutcome.CANCEL));
+    }
+
+    /**
+     * Logs the header of Flux response whose elements are not logged.
+     */
+    private void logIgnoredFluxResponse(LogPlan logPlan, String requestId) {
+        if (structured) {
+            final StructuredLogMarker marker = new StructuredLogMarker(logPreparationService, logPlan, requestId,
+                    StructuredLogMarker.RESPONSE).response(null);
+            debug(marker, "<<< Response {}, method: {}", requestId, logPlan.getMethodName());
+            return;
+        }
+        debug("\n<<< Response {}, method: {}\n" + IGNORED, requestId, logPlan.getMethodName());
+    }
+
     /**
      * Logs next element of Flux sequence.
      *
-     * @param response element from Flux sequence
+     * @param logPlan   logging plan of annotated method
+     * @param requestId ID of current request
+     * @param response  element from Flux sequence
+     */
+    private void logReactiveFluxElement(LogPlan logPlan, String requestId, Object response) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        if (structured) {
+            final StructuredLogMarker marker = new StructuredLogMarker(logPreparationService, logPlan, requestId,
+                    StructuredLogMarker.RESPONSE).response(response);
+            debug(marker, "<<< Response {}, next flux element", requestId);
+            return;
+        }
+        debug("\n<<< Response {}, next flux element = {}", requestId, lazyValue(logPlan, response));
+    }
+
+    /**
+     * Instruments Flux response to log a single summary line on its terminal signal.
+     * Nothing is collected if DEBUG level is disabled at the moment of subscription.
+     *
+     * @param logPlan      logging plan of annotated method
+     * @param requestId    ID of current request
+     * @param fluxResponse Flux response of annotated method
+     * @return instrumented Flux response
+     */
+    private Flux<Object> logReactiveFluxSummary(LogPlan logPlan, String requestId, Flux<Object> fluxResponse) {
+        if (!log.isDebugEnabled()) {
+            return fluxResponse;
+        }
+        final FluxResponseSummary summary = new FluxResponseSummary(logPreparationService, logPlan);
+        return fluxResponse
+                .doOnNext(summary::onNext)
+                .doOnComplete(() -> logFluxResponseSummary(logPlan, requestId, summary, SignalType.ON_COMPLETE))
+                .doOnError(ex -> logFluxResponseSummary(logPlan, requestId, summary, SignalType.ON_ERROR))
+                .doOnCancel(() -> logFluxResponseSummary(logPlan, requestId, summary, SignalType.CANCEL));
+    }
+
+    /**
+     * Logs summary of Flux response before the terminal signal is passed to subscriber.
+     * Only the first terminal signal is logged, cancellation can race with completion.
+     */
+    private void logFluxResponseSummary(LogPlan logPlan,
+                                        String requestId,
+                                        FluxResponseSummary summary,
+                                        SignalType signalType) {
+        if (!summary.terminate() || !log.isDebugEnabled()) {
+            return;
+        }
+        if (structured) {
+            final StructuredLogMarker marker = new StructuredLogMarker(logPreparationService, logPlan, requestId,
+                    StructuredLogMarker.RESPONSE).summary(summary.render(signalType));
+            debug(marker, "<<< Response {}, method: {}", requestId, logPlan.getMethodName());
+            return;
+        }
+        debug("\n<<< Response {}, method: {}, summary: {}",
+                requestId, logPlan.getMethodName(), summary.render(signalType));
+    }
+
+    /**
+     * Puts a new request ID to the Reactor Context unless there is already one.
+     *
+     * @param context context of subscriber
+     * @return context with request ID
+     */
+    private Context putRequestId(Context context) {
+        return RequestIds.putIfAbsent(context, requestIdGenerator);
+    }
+
+    /**
+     * Wraps a value to log, so it will be converted to string only if the logging backend
+     * really formats the message.
+     *
+     * @param logPlan logging plan of annotated method
+     * @param value   value to log
+     * @return lazy wrapper of value to pass as an argument of log message
+     */
+    protected Object lazyValue(LogPlan logPlan, Object value) {
+        return new LazyLogValue(logPreparationService, value, logPlan.getConversionType(), logPlan.getLimits());
+    }
+
+    /**
+     * Converts a value to string right now, e.g. an element of Flux that is logged later.
+     *
+     * @param logPlan logging plan of annotated method
+     * @param value   value to log
+     * @return string representation of value
+     */
+    String renderValue(LogPlan logPlan, Object value) {
+        final StringBuilder buffer = LogBuffers.acquire();
+        try {
+            logPreparationService.appendObject(value, logPlan.getConversionType(), logPlan.getLimits(), buffer);
+        } catch (RuntimeException ex) {
+            LogBuffers.discard(buffer);
+            throw ex;
+        }
+        return LogBuffers.release(buffer);
+    }
+
+    boolean isDebugEnabled() {
+        return log.isDebugEnabled();
+    }
+
+    /**
+     * Emits a debug message through the dispatcher of log events, so it is logged right now
+     * or in background depending on settings. Should be called only if DEBUG level is enabled.
+     *
+     * @param template  message template
+     * @param arguments arguments of message template, the first one is request ID
+     */
+    protected void debug(String template, Object... arguments) {
+        logEventDispatcher.debug(log, template, arguments, (String) arguments[0]);
+    }
+
+    /**
+     * Emits a debug message of structured event, the fields of event are carried by the marker.
+     *
+     * @param marker    marker with the fields of event
+     * @param template  message template
+     * @param arguments arguments of message template, the first one is request ID
      */
-    private void logReactiveFluxElement(Object response) {
-        log.debug("\n<<< Response {}, next flux element = {}", MDC.get(REQUEST_ID),
-                logPreparationService.convertObjectToString(response));
+    protected void debug(Marker marker, String template, Object... arguments) {
+        logEventDispatcher.debug(log, marker, template, arguments, (String) arguments[0]);
     }
 }
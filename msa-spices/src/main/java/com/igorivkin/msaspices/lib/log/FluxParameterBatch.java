@@ -0,0 +1,118 @@
+package com.igorivkin.msaspices.lib.log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects elements of a Flux parameter of one subscription and logs them by batches: one event
+ * per N elements or per time window, whatever comes first. The window is checked when an element comes,
+ * so no timer is used. The rest of batch is logged on the terminal signal.
+ * <p>
+ * Elements are rendered when they come, so the batch doesn't keep references to them and later changes
+ * of elements are not logged. A cancellation may run concurrently with an element, so the signals are
+ * guarded by the lock of batch, elements coming after the terminal signal are ignored.
+ * Batches are logged outside the lock.
+ */
+final class FluxParameterBatch {
+
+    private final AbstractLogMethodAspect aspect;
+
+    private final LogPlan logPlan;
+
+    private final String requestId;
+
+    private final String parameterName;
+
+    private final List<String> renderedElements;
+
+    private long batchStartNanos;
+
+    private int elementsCount;
+
+    private long batchNumber;
+
+    private boolean terminated;
+
+    FluxParameterBatch(AbstractLogMethodAspect aspect, LogPlan logPlan, String requestId, String parameterName) {
+        this.aspect = aspect;
+        this.logPlan = logPlan;
+        this.requestId = requestId;
+        this.parameterName = parameterName;
+        this.renderedElements = new ArrayList<>(Math.min(logPlan.getFluxBatchMaxRendered(), 16));
+    }
+
+    void onNext(Object element) {
+        final Batch batch;
+        synchronized (this) {
+            if (terminated) {
+                return;
+            }
+            if (elementsCount == 0) {
+                batchStartNanos = System.nanoTime();
+            }
+            elementsCount++;
+            if (renderedElements.size() < logPlan.getFluxBatchMaxRendered() && aspect.isDebugEnabled()) {
+                renderedElements.add(aspect.renderValue(logPlan, element));
+            }
+
+            if (elementsCount < logPlan.getFluxBatchSize()
+                    && System.nanoTime() - batchStartNanos < logPlan.getFluxBatchWindowNanos()) {
+                return;
+            }
+            batch = takeBatch();
+        }
+        log(batch);
+    }
+
+    void onTerminate() {
+        final Batch batch;
+        synchronized (this) {
+            if (terminated) {
+                return;
+            }
+            terminated = true;
+            batch = takeBatch();
+        }
+        log(batch);
+    }
+
+    /**
+     * Takes the collected elements as a batch and starts a new one, should be called under the lock.
+     *
+     * @return collected batch, null if no elements came
+     */
+    private Batch takeBatch() {
+        if (elementsCount == 0) {
+            return null;
+        }
+        final Batch batch = new Batch(++batchNumber, elementsCount, new ArrayList<>(renderedElements));
+        elementsCount = 0;
+        renderedElements.clear();
+        return batch;
+    }
+
+    private void log(Batch batch) {
+        if (batch != null) {
+            aspect.logFluxParameterBatch(logPlan, requestId, parameterName, batch.number,
+                    batch.elementsCount, batch.renderedElements);
+        }
+    }
+
+    /**
+     * Batch taken from the collector to log.
+     */
+    private static final class Batch {
+
+        private final long number;
+
+        private final int elementsCount;
+
+        private final List<String> renderedElements;
+
+        private Batch(long number, int elementsCount, List<String> renderedElements) {
+            this.number = number;
+            this.elementsCount = elementsCount;
+            this.renderedElements = renderedElements;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.igorivkin.msaspices.lib.log;
+
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import reactor.core.publisher.SignalType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects statistics of a Flux response of one subscription to log them by a single line
+ * on the terminal signal: number of elements, serialized size, time to first element, total duration
+ * and optionally the first and last elements. Only every N-th element is serialized when sampling is set,
+ * the size of others is estimated.
+ * <p>
+ * A cancellation runs on the thread that cancels, concurrently with the elements, so collecting and rendering
+ * are guarded by the lock of summary. Elements coming after the terminal signal are ignored.
+ */
+final class FluxResponseSummary {
+
+    private final LogPreparationService logPreparationService;
+
+    private final LogPlan logPlan;
+
+    private final long startNanos;
+
+    private final List<Object> firstElements;
+
+    private final ArrayDeque<Object> lastElements;
+
+    private final AtomicBoolean terminated = new AtomicBoolean();
+
+    private long firstElementNanos = -1L;
+
+    private long elementsCount;
+
+    private long sampledElementsCount;
+
+    private long sampledBytes;
+
+    FluxResponseSummary(LogPreparationService logPreparationService, LogPlan logPlan) {
+        this.logPreparationService = logPreparationService;
+        this.logPlan = logPlan;
+        this.startNanos = System.nanoTime();
+        this.firstElements = new ArrayList<>(logPlan.getSummaryEdgeElements());
+        this.lastElements = new ArrayDeque<>(logPlan.getSummaryEdgeElements());
+    }
+
+    synchronized void onNext(Object element) {
+        if (terminated.get()) {
+            return;
+        }
+        if (elementsCount == 0) {
+            firstElementNanos = System.nanoTime() - startNanos;
+        }
+        if (elementsCount % logPlan.getSummarySampleRate() == 0) {
+            final StringBuilder buffer = LogBuffers.acquire();
+            try {
+                logPreparationService.appendObject(element, logPlan.getConversionType(), logPlan.getLimits(), buffer);
+                sampledBytes += LazyLogBatch.utf8Length(buffer);
+            } finally {
+                LogBuffers.discard(buffer);
+            }
+            sampledElementsCount++;
+        }
+        elementsCount++;
+
+        final int edgeElements = logPlan.getSummaryEdgeElements();
+        if (edgeElements > 0) {
+            if (firstElements.size() < edgeElements) {
+                firstElements.add(element);
+            } else {
+                if (lastElements.size() == edgeElements) {
+                    lastElements.pollFirst();
+                }
+                lastElements.addLast(element);
+            }
+        }
+    }
+
+    /**
+     * Marks the summary as terminated.
+     *
+     * @return true if it is the first terminal signal
+     */
+    boolean terminate() {
+        return terminated.compareAndSet(false, true);
+    }
+
+    /**
+     * Renders the summary, should be called on the terminal signal.
+     *
+     * @param signalType terminal signal of subscription
+     * @return rendered summary
+     */
+    synchronized String render(SignalType signalType) {
+        final long durationNanos = System.nanoTime() - startNanos;
+        final StringBuilder summary = new StringBuilder();
+        summary.append("signal=").append(signalType)
+                .append(", count=").append(elementsCount);
+        if (sampledElementsCount == elementsCount) {
+            summary.append(", bytes=").append(sampledBytes);
+        } else {
+            final long estimatedBytes = sampledElementsCount == 0
+                    ? 0L
+                    : sampledBytes * elementsCount / sampledElementsCount;
+            summary.append(", bytes~=").append(estimatedBytes);
+        }
+        summary.append(", firstElementMs=");
+        if (firstElementNanos < 0) {
+            summary.append('-');
+        } else {
+            summary.append(TimeUnit.NANOSECONDS.toMillis(firstElementNanos));
+        }
+        summary.append(", durationMs=").append(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+
+        if (logPlan.getSummaryEdgeElements() > 0) {
+            summary.append(", first=");
+            appendElements(summary, firstElements);
+            summary.append(", last=");
+            appendElements(summary, lastElements);
+        }
+        return summary.toString();
+    }
+
+    private void appendElements(StringBuilder summary, Iterable<Object> elements) {
+        summary.append('[');
+        var first = true;
+        for (Object element : elements) {
+            if (!first) {
+                summary.append(", ");
+            }
+            logPreparationService.appendObject(element, logPlan.getConversionType(), logPlan.getLimits(), summary);
+            first = false;
+        }
+        summary.append(']');
+    }
+}
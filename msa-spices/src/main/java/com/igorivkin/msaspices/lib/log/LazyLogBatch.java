@@ -0,0 +1,93 @@
+package com.igorivkin.msaspices.lib.log;
+
+import java.util.List;
+
+/**
+ * Lazy rendering of a batch of Flux elements: count of elements, estimation of their size in bytes
+ * and the rendered elements up to a cap. The size is extrapolated from the rendered elements,
+ * so the elements that are not rendered are never converted.
+ */
+final class LazyLogBatch {
+
+    private final int elementsCount;
+
+    private final List<String> elements;
+
+    private String convertedValue;
+
+    LazyLogBatch(int elementsCount, List<String> elements) {
+        this.elementsCount = elementsCount;
+        this.elements = elements;
+    }
+
+    @Override
+    public String toString() {
+        if (convertedValue == null) {
+            convertedValue = convert();
+        }
+        return convertedValue;
+    }
+
+    private String convert() {
+        final StringBuilder buffer = LogBuffers.acquire();
+        final String rendered;
+        try {
+            buffer.append("count=").append(elementsCount)
+                    .append(", bytes~=");
+            final int bytesPosition = buffer.length();
+            buffer.append(", elements=[");
+            long renderedBytes = 0L;
+            for (var i = 0; i < elements.size(); i++) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+                final String element = elements.get(i);
+                buffer.append(element);
+                renderedBytes += utf8Length(element);
+            }
+            buffer.append(']');
+
+            final long estimatedBytes = elements.isEmpty() ? 0L : renderedBytes * elementsCount / elements.size();
+            buffer.insert(bytesPosition, estimatedBytes);
+        } finally {
+            rendered = LogBuffers.release(buffer);
+        }
+        return rendered;
+    }
+
+    /**
+     * Counts the length of string encoded to UTF-8 without encoding it.
+     *
+     * @param value string to measure
+     * @return number of bytes in UTF-8
+     */
+    static long utf8Length(CharSequence value) {
+        return utf8Length(value, 0, value.length());
+    }
+
+    /**
+     * Counts the length of a part of string encoded to UTF-8 without encoding it.
+     *
+     * @param value string to measure
+     * @param start start index of part, inclusive
+     * @param end   end index of part, exclusive
+     * @return number of bytes in UTF-8
+     */
+    static long utf8Length(CharSequence value, int start, int end) {
+        long length = 0L;
+        for (var i = start; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,53 @@
+package com.igorivkin.msaspices.lib.log;
+
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.reactivestreams.Publisher;
+
+/**
+ * Renders all the logged parameters of a request as one argument of log message, so they are written
+ * by one fill of the buffer of current thread instead of a string per parameter. As well as
+ * {@link LazyLogValue}, it is rendered only when the logging backend formats the message, and only once.
+ * Mono/Flux parameters of reactive methods are logged when they are emitted, so they are not rendered here.
+ */
+final class LazyLogParameters {
+
+    private static final String NOT_CAPTURED = "<not captured>";
+
+    private final LogPreparationService logPreparationService;
+
+    private final LogPlan logPlan;
+
+    private final Object[] args;
+
+    private String convertedValue;
+
+    LazyLogParameters(LogPreparationService logPreparationService, LogPlan logPlan, Object[] args) {
+        this.logPreparationService = logPreparationService;
+        this.logPlan = logPlan;
+        this.args = args;
+    }
+
+    @Override
+    public String toString() {
+        if (convertedValue == null) {
+            final int[] parameterIndices = logPlan.getParameterIndices();
+            final String[] parameterNames = logPlan.getParameterNames();
+            final StringBuilder buffer = LogBuffers.acquire();
+            try {
+                for (var i = 0; i < parameterIndices.length; i++) {
+                    buffer.append("\n ").append(parameterNames[i]).append('=');
+                    final Object value = args[parameterIndices[i]];
+                    if (logPlan.getKind() == LogPlan.Kind.REACTIVE && value instanceof Publisher) {
+                        buffer.append(NOT_CAPTURED);
+                    } else {
+                        logPreparationService.appendObject(value, logPlan.getConversionType(),
+                                logPlan.getLimits(), buffer);
+                    }
+                }
+            } finally {
+                convertedValue = LogBuffers.release(buffer);
+            }
+        }
+        return convertedValue;
+    }
+}
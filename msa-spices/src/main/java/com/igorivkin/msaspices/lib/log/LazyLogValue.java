@@ -0,0 +1,46 @@
+package com.igorivkin.msaspices.lib.log;
+
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogLimits;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+
+/**
+ * Wraps a value to log and defers its conversion until the logging backend formats the message
+ * (i.e. calls {@link #toString()}). If the message is discarded by the backend, the value is never converted.
+ * The converted value is memoized, so it is converted at most once even if the message is formatted twice.
+ */
+final class LazyLogValue {
+
+    private final LogPreparationService logPreparationService;
+
+    private final Object value;
+
+    private final LogConversionType conversionType;
+
+    private final LogLimits limits;
+
+    private String convertedValue;
+
+    LazyLogValue(LogPreparationService logPreparationService,
+                 Object value,
+                 LogConversionType conversionType,
+                 LogLimits limits) {
+        this.logPreparationService = logPreparationService;
+        this.value = value;
+        this.conversionType = conversionType;
+        this.limits = limits;
+    }
+
+    @Override
+    public String toString() {
+        if (convertedValue == null) {
+            final StringBuilder buffer = LogBuffers.acquire();
+            try {
+                logPreparationService.appendObject(value, conversionType, limits, buffer);
+            } finally {
+                convertedValue = LogBuffers.release(buffer);
+            }
+        }
+        return convertedValue;
+    }
+}
@@ -0,0 +1,84 @@
+package com.igorivkin.msaspices.lib.log;
+
+import com.igorivkin.msaspices.lib.metrics.MethodMetrics;
+import com.igorivkin.msaspices.lib.ratelimiter.TokenBucket;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a call of annotated method is logged: calls are sampled with the given probability
+ * and then limited by the number of logged calls per second. The decision is made before anything
+ * is converted and uses only lock-free counters. Calls rejected by the budget are counted as suppressed,
+ * the count is reported by the next logged call and, if metrics are enabled, by the metrics of method,
+ * so the calls suppressed before a method goes quiet are visible too.
+ */
+public final class LogBudget {
+
+    private final double sampleRate;
+
+    private final TokenBucket callsPerSecond;
+
+    private final LongAdder suppressedCalls = new LongAdder();
+
+    private LogBudget(double sampleRate, int maxCallsPerSecond) {
+        this.sampleRate = sampleRate;
+        this.callsPerSecond = maxCallsPerSecond > 0
+                ? new TokenBucket(Math.min(maxCallsPerSecond, TokenBucket.MAX_CAPACITY), 1, TimeUnit.SECONDS)
+                : null;
+    }
+
+    /**
+     * Creates a budget of method.
+     *
+     * @param sampleRate        probability to log a call, from 0.0 to 1.0
+     * @param maxCallsPerSecond max number of logged calls per second, zero means no limit
+     * @return budget or null if every call is logged
+     */
+    public static LogBudget of(double sampleRate, int maxCallsPerSecond) {
+        if (sampleRate >= 1.0 && maxCallsPerSecond <= 0) {
+            return null;
+        }
+        return new LogBudget(Math.max(sampleRate, 0.0), maxCallsPerSecond);
+    }
+
+    /**
+     * @return true if the call should be logged
+     */
+    public boolean admit() {
+        return admit(null);
+    }
+
+    /**
+     * @param metrics metrics of method to count suppressed calls, may be null
+     * @return true if the call should be logged
+     */
+    public boolean admit(MethodMetrics metrics) {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        if (callsPerSecond != null && !callsPerSecond.tryAcquire()) {
+            suppressedCalls.increment();
+            if (metrics != null) {
+                metrics.recordSuppressed();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Takes the number of calls suppressed since the previous report.
+     *
+     * @return number of suppressed calls
+     */
+    long takeSuppressedCalls() {
+        // Reading is cheaper than resetting, and most of the time nothing is suppressed
+        return suppressedCalls.sum() > 0 ? suppressedCalls.sumThenReset() : 0L;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+}
@@ -0,0 +1,57 @@
+package com.igorivkin.msaspices.lib.log;
+
+/**
+ * Thread-local buffers to render log messages. A message is rendered by one fill of the buffer
+ * of current thread, and only the resulting string is allocated. A nested rendering on the same thread
+ * takes a new buffer, and too large buffers are not kept to not hold the memory after a huge message.
+ */
+final class LogBuffers {
+
+    private static final int INITIAL_CAPACITY = 512;
+
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    private LogBuffers() {
+    }
+
+    /**
+     * Takes an empty buffer of current thread.
+     *
+     * @return empty buffer
+     */
+    static StringBuilder acquire() {
+        final StringBuilder buffer = BUFFER.get();
+        if (buffer.length() > 0) {
+            // Buffer is in use by an outer rendering
+            return new StringBuilder(INITIAL_CAPACITY);
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the content of buffer and gives it back to current thread.
+     *
+     * @param buffer buffer taken by {@link #acquire()}
+     * @return content of buffer
+     */
+    static String release(StringBuilder buffer) {
+        final String content = buffer.toString();
+        discard(buffer);
+        return content;
+    }
+
+    /**
+     * Gives the buffer back to current thread dropping its content.
+     *
+     * @param buffer buffer taken by {@link #acquire()}
+     */
+    static void discard(StringBuilder buffer) {
+        buffer.setLength(0);
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY && buffer == BUFFER.get()) {
+            BUFFER.remove();
+        }
+    }
+}
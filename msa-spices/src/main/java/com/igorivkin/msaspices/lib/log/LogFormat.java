@@ -0,0 +1,19 @@
+package com.igorivkin.msaspices.lib.log;
+
+/**
+ * Represents the way log events of annotated methods are emitted.
+ */
+public enum LogFormat {
+
+    /**
+     * Multi-line messages, parameters and responses are rendered into the message.
+     */
+    TEXT,
+
+    /**
+     * A short message per event, request ID, method, direction, duration, parameters and response
+     * are separate fields of the event, see {@link StructuredLogMarker}.
+     * Requires logstash-logback-encoder on the classpath.
+     */
+    STRUCTURED
+}
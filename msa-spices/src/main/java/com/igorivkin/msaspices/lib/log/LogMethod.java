@@ -1,5 +1,7 @@
 package com.igorivkin.msaspices.lib.log;
 
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -22,4 +24,86 @@ public @interface LogMethod {
      * @return do log the response
      */
     boolean logResponse() default true;
+
+    /**
+     * Format of logged values. Binary formats SMILE and CBOR are logged in Base64 and need
+     * jackson-dataformat-smile or jackson-dataformat-cbor on the classpath.
+     *
+     * @return format of logged values
+     */
+    LogConversionType conversionType() default LogConversionType.JSON;
+
+    /**
+     * Max number of chars of one converted value, zero means no limit.
+     * By default, it's taken from "msa-spices.log.limits.max-output-chars".
+     *
+     * @return max number of chars of converted value
+     */
+    int maxOutputChars() default -1;
+
+    /**
+     * Max depth of nested objects and arrays of converted value, zero means no limit.
+     * By default, it's taken from "msa-spices.log.limits.max-depth".
+     *
+     * @return max depth of converted value
+     */
+    int maxDepth() default -1;
+
+    /**
+     * Max number of elements of collections and entries of maps of converted value, zero means no limit.
+     * By default, it's taken from "msa-spices.log.limits.max-elements".
+     *
+     * @return max number of elements
+     */
+    int maxElements() default -1;
+
+    /**
+     * Max length of string values of converted value, longer ones are cut, zero means no limit.
+     * By default, it's taken from "msa-spices.log.limits.max-string-length".
+     *
+     * @return max length of strings
+     */
+    int maxStringLength() default -1;
+
+    /**
+     * Probability to log a call, from 0.0 to 1.0. Calls which are not sampled are not converted at all,
+     * their metrics are still recorded.
+     * By default, it's taken from "msa-spices.log.sampling.rate".
+     *
+     * @return probability to log a call
+     */
+    double sampleRate() default -1.0;
+
+    /**
+     * Max number of logged calls per second, zero means no limit. Further calls of the second are not
+     * converted and are counted as suppressed, the count is logged by the next logged call.
+     * By default, it's taken from "msa-spices.log.sampling.max-calls-per-second".
+     *
+     * @return max number of logged calls per second
+     */
+    int maxCallsPerSecond() default -1;
+
+    /**
+     * Tail mode: the request is captured in memory during the call and logged with the response only
+     * if the call is slower than the threshold or fails. Fast and successful calls are not converted at all.
+     *
+     * @return log only slow or failed calls
+     */
+    boolean tail() default false;
+
+    /**
+     * Threshold of call duration in tail mode, in milliseconds.
+     * By default, it's taken from "msa-spices.log.tail.threshold-millis".
+     *
+     * @return threshold of slow call
+     */
+    long tailThresholdMillis() default -1L;
+
+    /**
+     * Capture request, response and error of every call to the ring file, whatever the level of logging
+     * and sampling are. Needs "msa-spices.log.capture.enabled" to be true.
+     *
+     * @return capture calls of method
+     */
+    boolean capture() default false;
 }
@@ -1,5 +1,11 @@
 package com.igorivkin.msaspices.lib.log;
 
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import com.igorivkin.msaspices.lib.log.event.LogEventDispatcher;
+import com.igorivkin.msaspices.lib.metrics.CallOutcome;
+import com.igorivkin.msaspices.lib.metrics.MethodMetricsRegistry;
+import com.igorivkin.msaspices.lib.requestid.RandomRequestIdGenerator;
+import com.igorivkin.msaspices.lib.requestid.RequestIdGenerator;
 import com.igorivkin.msaspices.lib.service.LogPreparationService;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -8,22 +14,56 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 
-import java.util.UUID;
 
 @Aspect
 @Configuration
 @EnableAspectJAutoProxy
+@ConditionalOnProperty(prefix = "msa-spices.log", name = "weaving", havingValue = "proxy", matchIfMissing = true)
 public class LogMethodAspect extends AbstractLogMethodAspect {
 
     @Autowired
-    public LogMethodAspect(LogPreparationService logPreparationService) {
-        super(logPreparationService);
+    public LogMethodAspect(LogPreparationService logPreparationService,
+                           LogProperties logProperties,
+                           LogEventDispatcher logEventDispatcher,
+                           RequestIdGenerator requestIdGenerator,
+                           MethodMetricsRegistry methodMetricsRegistry) {
+        super(logPreparationService, logProperties, logEventDispatcher, requestIdGenerator, methodMetricsRegistry);
         log = LoggerFactory.getLogger(LogMethodAspect.class);
     }
 
+    /**
+     * Creates an aspect that emits log events synchronously, in the thread of annotated method,
+     * and generates random request IDs.
+     *
+     * @param logPreparationService service to convert logged values
+     */
+    public LogMethodAspect(LogPreparationService logPreparationService) {
+        this(logPreparationService, new MethodMetricsRegistry());
+    }
+
+    /**
+     * Creates an aspect that emits log events synchronously, in the thread of annotated method,
+     * generates random request IDs and records call metrics to the given registry.
+     *
+     * @param logPreparationService service to convert logged values
+     * @param methodMetricsRegistry registry of call metrics
+     */
+    public LogMethodAspect(LogPreparationService logPreparationService, MethodMetricsRegistry methodMetricsRegistry) {
+        this(logPreparationService, new LogProperties(), new RandomRequestIdGenerator(), methodMetricsRegistry);
+    }
+
+    private LogMethodAspect(LogPreparationService logPreparationService,
+                            LogProperties logProperties,
+                            RequestIdGenerator requestIdGenerator,
+                            MethodMetricsRegistry methodMetricsRegistry) {
+        this(logPreparationService, logProperties, new LogEventDispatcher(logProperties), requestIdGenerator,
+                methodMetricsRegistry);
+    }
+
     /**
      * Logs request and response of annotated method. Request params which is allowed to log
      * is possible to define in the "parameters"-param of annotation. It is possible to skip
@@ -37,21 +77,74 @@ public class LogMethodAspect extends AbstractLogMethodAspect {
     @Around("@annotation(logAnnotation)")
     public Object processLogMethod(ProceedingJoinPoint jp, LogMethod logAnnotation) throws Throwable {
 
-        MDC.put(REQUEST_ID, UUID.randomUUID().toString());
+        final boolean newRequestId = putRequestId();
+        try {
+            // Initialize common params of method calling, settings of annotation are resolved
+            // once per method and cached in the logging plan
+            var args = jp.getArgs();
+            var method = ((MethodSignature) jp.getSignature());
+            var logPlan = getLogPlan(method, logAnnotation);
+
+            var requestId = MDC.get(REQUEST_ID);
 
-        // Initialize common params of method calling and settings of annotation
-        var args = jp.getArgs();
-        var method = ((MethodSignature) jp.getSignature());
-        var parametersToLog = logAnnotation.parameters();
-        var logResponse = logAnnotation.logResponse();
+            // Write the request to the capture spool whatever the level of logging is, keep it for tail mode
+            // to log after a slow or failed call, otherwise admit the call before its params are converted
+            final String capturedRequestId = captureRequest(logPlan, requestId, args);
+            final Object tailRequest = captureTailRequest(logPlan, args);
+            final boolean logCall = !logPlan.isTail() && admitCall(logPlan);
+            if (logCall) {
+                logNonReactiveRequest(logPlan, requestId, args);
+            }
 
-        // Log request of the method, use the only params that are allowed to log
-        logNonReactiveRequest(method, args, parametersToLog);
+            // Execute method and return its result, its latency and outcome are recorded whatever
+            // the level of logging is. Log the response in the case if it's allowed to log
+            final long startNanos = System.nanoTime();
+            final Object result;
+            try {
+                result = jp.proceed();
+            } catch (Throwable ex) {
+                final long durationNanos = System.nanoTime() - startNanos;
+                recordCall(logPlan, CallOutcome.ERROR, durationNanos);
+                captureError(logPlan, capturedRequestId, ex, durationNanos);
+                if (logCall || logTailRequest(logPlan, requestId, tailRequest, durationNanos, true)) {
+                    logError(logPlan, requestId, ex, durationNanos);
+                }
+                throw ex;
+            }
+            final long durationNanos = System.nanoTime() - startNanos;
+            recordCall(logPlan, CallOutcome.SUCCESS, durationNanos);
+            captureResponse(logPlan, capturedRequestId, result, durationNanos);
+            if (logCall || logTailRequest(logPlan, requestId, tailRequest, durationNanos, false)) {
+                logNonReactiveResponse(logPlan, requestId, result, durationNanos);
+            }
+            return result;
+        } finally {
+            if (newRequestId) {
+                MDC.remove(REQUEST_ID);
+            }
+        }
+    }
 
-        // Execute method and return its result. Log the response in the case
-        // if it's allowed to log
-        final Object result = jp.proceed();
-        logNonReactiveResponse(method, result, logResponse);
-        return result;
+    /**
+     * Takes the logging plan from cache, annotation attributes are read the only time when the plan is built.
+     *
+     * @param method        annotated method
+     * @param logAnnotation current annotation
+     * @return logging plan of method
+     */
+    private LogPlan getLogPlan(MethodSignature method, LogMethod logAnnotation) {
+        final LogPlan logPlan = getCachedLogPlan(method);
+        if (logPlan != null) {
+            return logPlan;
+        }
+        return getLogPlan(method, m -> logPlanBuilder(m, logAnnotation.parameters(), LogPlan.Kind.NON_REACTIVE)
+                .logResponse(logAnnotation.logResponse())
+                .conversionType(logAnnotation.conversionType())
+                .limits(resolveLimits(logAnnotation.maxOutputChars(), logAnnotation.maxDepth(),
+                        logAnnotation.maxElements(), logAnnotation.maxStringLength()))
+                .budget(resolveBudget(logAnnotation.sampleRate(), logAnnotation.maxCallsPerSecond()))
+                .tail(resolveTail(logAnnotation.tail(), logAnnotation.tailThresholdMillis()))
+                .capture(logAnnotation.capture())
+                .build());
     }
 }
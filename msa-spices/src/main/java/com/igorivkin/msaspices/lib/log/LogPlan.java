@@ -0,0 +1,323 @@
+package com.igorivkin.msaspices.lib.log;
+
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogLimits;
+import com.igorivkin.msaspices.lib.metrics.MethodMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precompiled logging plan of an annotated method. It is built once per method and keeps everything
+ * that can be resolved from the method signature and annotation, so the per-call path only walks
+ * the indices of parameters to log.
+ */
+public final class LogPlan {
+
+    /**
+     * Kind of aspect that processes the method.
+     */
+    public enum Kind {
+        NON_REACTIVE,
+        REACTIVE
+    }
+
+    private final Kind kind;
+
+    private final String declaringTypeName;
+
+    private final String methodName;
+
+    private final int[] parameterIndices;
+
+    private final String[] parameterNames;
+
+    private final boolean logResponse;
+
+    private final LogConversionType conversionType;
+
+    private final LogLimits limits;
+
+    private final int fluxBatchSize;
+
+    private final long fluxBatchWindowNanos;
+
+    private final int fluxBatchMaxRendered;
+
+    private final LogResponseMode responseMode;
+
+    private final int summarySampleRate;
+
+    private final int summaryEdgeElements;
+
+    private final MethodMetrics metrics;
+
+    private final LogBudget budget;
+
+    private final long tailThresholdNanos;
+
+    private final boolean capture;
+
+    private LogPlan(Builder builder) {
+        this.kind = builder.kind;
+        this.declaringTypeName = builder.declaringTypeName;
+        this.methodName = builder.methodName;
+        this.parameterIndices = builder.parameterIndices;
+        this.parameterNames = builder.parameterNames;
+        this.logResponse = builder.logResponse;
+        this.conversionType = builder.conversionType;
+        this.limits = builder.limits;
+        this.fluxBatchSize = builder.fluxBatchSize;
+        this.fluxBatchWindowNanos = TimeUnit.MILLISECONDS.toNanos(builder.fluxBatchWindowMillis);
+        this.fluxBatchMaxRendered = builder.fluxBatchMaxRendered;
+        this.responseMode = builder.responseMode;
+        this.summarySampleRate = builder.summarySampleRate;
+        this.summaryEdgeElements = builder.summaryEdgeElements;
+        this.metrics = builder.metrics;
+        this.budget = builder.budget;
+        this.tailThresholdNanos = builder.tailThresholdMillis >= 0
+                ? TimeUnit.MILLISECONDS.toNanos(builder.tailThresholdMillis)
+                : -1L;
+        this.capture = builder.capture;
+    }
+
+    /**
+     * Creates a builder of logging plan.
+     *
+     * @param kind             kind of aspect that processes the method
+     * @param methodName       name of method
+     * @param parameterIndices indices of method arguments to log
+     * @param parameterNames   names of parameters to log, in the same order as indices
+     * @return builder of logging plan
+     */
+    public static Builder builder(Kind kind, String methodName, int[] parameterIndices, String[] parameterNames) {
+        return new Builder(kind, methodName, parameterIndices, parameterNames);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return name of class declaring the method, null if not set
+     */
+    public String getDeclaringTypeName() {
+        return declaringTypeName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * @return indices of method arguments to log
+     */
+    public int[] getParameterIndices() {
+        return parameterIndices;
+    }
+
+    /**
+     * @return names of parameters to log, in the same order as {@link #getParameterIndices()}
+     */
+    public String[] getParameterNames() {
+        return parameterNames;
+    }
+
+    public boolean isLogResponse() {
+        return logResponse;
+    }
+
+    public LogConversionType getConversionType() {
+        return conversionType;
+    }
+
+    /**
+     * @return limits of conversion of logged values
+     */
+    public LogLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * @return number of Flux parameter elements logged by one event
+     */
+    public int getFluxBatchSize() {
+        return fluxBatchSize;
+    }
+
+    /**
+     * @return max duration of collecting Flux parameter elements to one event, in nanoseconds
+     */
+    public long getFluxBatchWindowNanos() {
+        return fluxBatchWindowNanos;
+    }
+
+    /**
+     * @return max number of Flux parameter elements rendered in one event
+     */
+    public int getFluxBatchMaxRendered() {
+        return fluxBatchMaxRendered;
+    }
+
+    public LogResponseMode getResponseMode() {
+        return responseMode;
+    }
+
+    /**
+     * @return every N-th element of Flux response is serialized to compute the size of summary
+     */
+    public int getSummarySampleRate() {
+        return summarySampleRate;
+    }
+
+    /**
+     * @return number of first and last elements of Flux response rendered in the summary
+     */
+    public int getSummaryEdgeElements() {
+        return summaryEdgeElements;
+    }
+
+    /**
+     * @return call metrics of method, null if metrics are disabled
+     */
+    public MethodMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return sampling and rate budget of logged calls, null if every call is logged
+     */
+    public LogBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return true if only slow or failed calls are logged
+     */
+    public boolean isTail() {
+        return tailThresholdNanos >= 0;
+    }
+
+    /**
+     * @return calls longer than this are logged in tail mode, in nanoseconds
+     */
+    public long getTailThresholdNanos() {
+        return tailThresholdNanos;
+    }
+
+    /**
+     * @return true if calls are captured to the ring file
+     */
+    public boolean isCapture() {
+        return capture;
+    }
+
+    public static final class Builder {
+
+        private final Kind kind;
+
+        private final String methodName;
+
+        private final int[] parameterIndices;
+
+        private final String[] parameterNames;
+
+        private String declaringTypeName;
+
+        private boolean logResponse = true;
+
+        private LogConversionType conversionType = LogConversionType.JSON;
+
+        private LogLimits limits = LogLimits.UNLIMITED;
+
+        private int fluxBatchSize = 1;
+
+        private long fluxBatchWindowMillis = 0L;
+
+        private int fluxBatchMaxRendered = 1;
+
+        private LogResponseMode responseMode = LogResponseMode.ELEMENTS;
+
+        private int summarySampleRate = 1;
+
+        private int summaryEdgeElements = 0;
+
+        private MethodMetrics metrics;
+
+        private LogBudget budget;
+
+        private long tailThresholdMillis = -1L;
+
+        private boolean capture;
+
+        private Builder(Kind kind, String methodName, int[] parameterIndices, String[] parameterNames) {
+            this.kind = kind;
+            this.methodName = methodName;
+            this.parameterIndices = parameterIndices;
+            this.parameterNames = parameterNames;
+        }
+
+        public Builder declaringTypeName(String declaringTypeName) {
+            this.declaringTypeName = declaringTypeName;
+            return this;
+        }
+
+        public Builder logResponse(boolean logResponse) {
+            this.logResponse = logResponse;
+            return this;
+        }
+
+        public Builder conversionType(LogConversionType conversionType) {
+            this.conversionType = conversionType;
+            return this;
+        }
+
+        public Builder limits(LogLimits limits) {
+            this.limits = limits;
+            return this;
+        }
+
+        public Builder fluxBatching(int batchSize, long windowMillis, int maxRendered) {
+            this.fluxBatchSize = batchSize;
+            this.fluxBatchWindowMillis = windowMillis;
+            this.fluxBatchMaxRendered = maxRendered;
+            return this;
+        }
+
+        public Builder responseSummary(LogResponseMode responseMode, int sampleRate, int edgeElements) {
+            this.responseMode = responseMode;
+            this.summarySampleRate = Math.max(sampleRate, 1);
+            this.summaryEdgeElements = Math.max(edgeElements, 0);
+            return this;
+        }
+
+        public Builder metrics(MethodMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public Builder budget(LogBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * Turns on tail mode.
+         *
+         * @param thresholdMillis calls longer than this are logged, negative value turns tail mode off
+         * @return this builder
+         */
+        public Builder tail(long thresholdMillis) {
+            this.tailThresholdMillis = thresholdMillis;
+            return this;
+        }
+
+        public Builder capture(boolean capture) {
+            this.capture = capture;
+            return this;
+        }
+
+        public LogPlan build() {
+            return new LogPlan(this);
+        }
+    }
+}
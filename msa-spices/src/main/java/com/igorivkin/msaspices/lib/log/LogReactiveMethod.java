@@ -1,5 +1,7 @@
 package com.igorivkin.msaspices.lib.log;
 
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -22,4 +24,137 @@ public @interface LogReactiveMethod {
      * @return do log the response
      */
     boolean logResponse() default true;
+
+    /**
+     * Format of logged values. Binary formats SMILE and CBOR are logged in Base64 and need
+     * jackson-dataformat-smile or jackson-dataformat-cbor on the classpath.
+     *
+     * @return format of logged values
+     */
+    LogConversionType conversionType() default LogConversionType.JSON;
+
+    /**
+     * Number of elements of Flux parameter logged by one event.
+     * By default, it's taken from "msa-spices.log.flux-parameters.batch-size".
+     *
+     * @return number of elements per event
+     */
+    int fluxBatchSize() default -1;
+
+    /**
+     * Max duration of collecting elements of Flux parameter to one event, in milliseconds.
+     * By default, it's taken from "msa-spices.log.flux-parameters.batch-window-millis".
+     *
+     * @return duration of batch window
+     */
+    long fluxBatchWindowMillis() default -1L;
+
+    /**
+     * Max number of elements of Flux parameter rendered in one event, the rest are only counted.
+     * By default, it's taken from "msa-spices.log.flux-parameters.max-rendered-elements".
+     *
+     * @return max number of rendered elements
+     */
+    int fluxBatchMaxRendered() default -1;
+
+    /**
+     * How to log Flux response: every element or a single summary line on the terminal signal.
+     * Mono responses are always logged by their value. By default, every element is logged.
+     *
+     * @return mode of Flux response logging
+     */
+    LogResponseMode responseMode() default LogResponseMode.ELEMENTS;
+
+    /**
+     * Every N-th element of Flux response is serialized to compute the size of summary,
+     * the size of others is estimated. By default, every element is serialized.
+     *
+     * @return sample rate of serialized size in summary mode
+     */
+    int summarySampleRate() default 1;
+
+    /**
+     * Number of first and last elements of Flux response rendered in the summary.
+     * By default, no elements are rendered.
+     *
+     * @return number of first/last elements to render in summary mode
+     */
+    int summaryEdgeElements() default 0;
+
+    /**
+     * Max number of chars of one converted value, zero means no limit.
+     * By default, it's taken from "msa-spices.log.limits.max-output-chars".
+     *
+     * @return max number of chars of converted value
+     */
+    int maxOutputChars() default -1;
+
+    /**
+     * Max depth of nested objects and arrays of converted value, zero means no limit.
+     * By default, it's taken from "msa-spices.log.limits.max-depth".
+     *
+     * @return max depth of converted value
+     */
+    int maxDepth() default -1;
+
+    /**
+     * Max number of elements of collections and entries of maps of converted value, zero means no limit.
+     * By default, it's taken from "msa-spices.log.limits.max-elements".
+     *
+     * @return max number of elements
+     */
+    int maxElements() default -1;
+
+    /**
+     * Max length of string values of converted value, longer ones are cut, zero means no limit.
+     * By default, it's taken from "msa-spices.log.limits.max-string-length".
+     *
+     * @return max length of strings
+     */
+    int maxStringLength() default -1;
+
+    /**
+     * Probability to log a call, from 0.0 to 1.0. Calls which are not sampled are not converted at all,
+     * their metrics are still recorded.
+     * By default, it's taken from "msa-spices.log.sampling.rate".
+     *
+     * @return probability to log a call
+     */
+    double sampleRate() default -1.0;
+
+    /**
+     * Max number of logged calls per second, zero means no limit. Further calls of the second are not
+     * converted and are counted as suppressed, the count is logged by the next logged call.
+     * By default, it's taken from "msa-spices.log.sampling.max-calls-per-second".
+     *
+     * @return max number of logged calls per second
+     */
+    int maxCallsPerSecond() default -1;
+
+    /**
+     * Tail mode: the request is captured in memory during the call and logged with the response only
+     * if the call is slower than the threshold or fails. Fast and successful calls are not converted at all.
+     * Mono/Flux parameters are not captured, Flux response is logged by the number of its elements.
+     *
+     * @return log only slow or failed calls
+     */
+    boolean tail() default false;
+
+    /**
+     * Threshold of call duration in tail mode, in milliseconds.
+     * By default, it's taken from "msa-spices.log.tail.threshold-millis".
+     *
+     * @return threshold of slow call
+     */
+    long tailThresholdMillis() default -1L;
+
+    /**
+     * Capture request, response and error of every call to the ring file, whatever the level of logging
+     * and sampling are. Needs "msa-spices.log.capture.enabled" to be true.
+     * Values of Mono parameters are captured when emitted, Flux parameters are not captured, elements of Flux
+     * response are captured one by one.
+     *
+     * @return capture calls of method
+     */
+    boolean capture() default false;
 }
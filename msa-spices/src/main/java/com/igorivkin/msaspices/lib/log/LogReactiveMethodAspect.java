@@ -1,5 +1,11 @@
 package com.igorivkin.msaspices.lib.log;
 
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import com.igorivkin.msaspices.lib.log.event.LogEventDispatcher;
+import com.igorivkin.msaspices.lib.metrics.CallOutcome;
+import com.igorivkin.msaspices.lib.metrics.MethodMetricsRegistry;
+import com.igorivkin.msaspices.lib.requestid.RandomRequestIdGenerator;
+import com.igorivkin.msaspices.lib.requestid.RequestIdGenerator;
 import com.igorivkin.msaspices.lib.service.LogPreparationService;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -8,29 +14,64 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
-import java.util.UUID;
 
 /**
  * This aspect maintains logging of reactive methods (i.e. methods that accept or respond by Mono/Flux).
- * I should give a note that this class is not tested yet and has an experimental status.
+ * Request ID is carried in the Reactor Context instead of the thread-local MDC, so every logged line
+ * belongs to its own request whatever event-loop thread emits the signal.
  */
 @Aspect
 @Configuration
 @EnableAspectJAutoProxy
+@ConditionalOnProperty(prefix = "msa-spices.log", name = "weaving", havingValue = "proxy", matchIfMissing = true)
 public class LogReactiveMethodAspect extends AbstractLogMethodAspect {
 
     @Autowired
-    public LogReactiveMethodAspect(LogPreparationService logPreparationService) {
-        super(logPreparationService);
+    public LogReactiveMethodAspect(LogPreparationService logPreparationService,
+                                   LogProperties logProperties,
+                                   LogEventDispatcher logEventDispatcher,
+                                   RequestIdGenerator requestIdGenerator,
+                                   MethodMetricsRegistry methodMetricsRegistry) {
+        super(logPreparationService, logProperties, logEventDispatcher, requestIdGenerator, methodMetricsRegistry);
         log = LoggerFactory.getLogger(LogReactiveMethodAspect.class);
     }
 
+    /**
+     * Creates an aspect that emits log events synchronously, in the thread of annotated method,
+     * and generates random request IDs.
+     *
+     * @param logPreparationService service to convert logged values
+     */
+    public LogReactiveMethodAspect(LogPreparationService logPreparationService) {
+        this(logPreparationService, new MethodMetricsRegistry());
+    }
+
+    /**
+     * Creates an aspect that emits log events synchronously, in the thread of annotated method,
+     * generates random request IDs and records call metrics to the given registry.
+     *
+     * @param logPreparationService service to convert logged values
+     * @param methodMetricsRegistry registry of call metrics
+     */
+    public LogReactiveMethodAspect(LogPreparationService logPreparationService,
+                                   MethodMetricsRegistry methodMetricsRegistry) {
+        this(logPreparationService, new LogProperties(), new RandomRequestIdGenerator(), methodMetricsRegistry);
+    }
+
+    private LogReactiveMethodAspect(LogPreparationService logPreparationService,
+                                    LogProperties logProperties,
+                                    RequestIdGenerator requestIdGenerator,
+                                    MethodMetricsRegistry methodMetricsRegistry) {
+        this(logPreparationService, logProperties, new LogEventDispatcher(logProperties), requestIdGenerator,
+                methodMetricsRegistry);
+    }
+
     /**
      * Logs request and response of annotated method. Request params which is allowed to log
      * is possible to define in the "parameters"-param of annotation. It is possible to skip
@@ -44,36 +85,113 @@ public class LogReactiveMethodAspect extends AbstractLogMethodAspect {
     @Around("@annotation(logAnnotation)")
     public Object processLogReactiveMethod(ProceedingJoinPoint jp, LogReactiveMethod logAnnotation) throws Throwable {
 
-        MDC.put(REQUEST_ID, UUID.randomUUID().toString());
-
-        // Initialize common params of method calling and settings of annotation
+        // Initialize common params of method calling, settings of annotation are resolved
+        // once per method and cached in the logging plan
         var args = jp.getArgs();
         var method = ((MethodSignature) jp.getSignature());
-        var parametersToLog = logAnnotation.parameters();
-        var logResponse = logAnnotation.logResponse();
+        var logPlan = getLogPlan(method, logAnnotation);
+
+        // In tail mode the request is only captured, it's logged if the call is slow or failed.
+        // Otherwise, decide whether the call is logged before anything is converted. Instrument Mono/Flux params
+        // that are allowed to log, they are logged when emitted. Mono params of captured methods are captured
+        // when emitted too
+        final Object tailRequest = captureTailRequest(logPlan, args);
+        final boolean logCall = !logPlan.isTail() && admitCall(logPlan);
+        final Object[] instrumentedArgs = instrumentCapturedParameters(logPlan,
+                logCall ? instrumentReactiveParameters(logPlan, args) : args);
 
-        // Log request of the method, use the only params that are allowed to log
-        final List<Object> instrumentedArgs = logReactiveRequest(method, args, parametersToLog);
+        // Execute method. Reactive response is instrumented to log the request on subscription
+        // and the response when it's emitted, request ID is carried in the Reactor Context
+        final long startNanos = System.nanoTime();
+        final Object result;
+        try {
+            result = jp.proceed(instrumentedArgs);
+        } catch (Throwable ex) {
+            final long durationNanos = System.nanoTime() - startNanos;
+            recordCall(logPlan, CallOutcome.ERROR, durationNanos);
 
-        // Execute method and return its result. Log the response in the case
-        // if it's allowed to log
-        final Object result = jp.proceed(instrumentedArgs.toArray());
-        return logResponse(method, result, logResponse);
+            // Method failed before a reactive response was built, so the request is logged here,
+            // with the same request ID as the error and the captured call
+            final boolean newRequestId = putRequestId();
+            try {
+                final String requestId = MDC.get(REQUEST_ID);
+                captureError(logPlan, captureRequest(logPlan, requestId, args), ex, durationNanos);
+                if (logCall) {
+                    logReactiveRequest(logPlan, requestId, instrumentedArgs);
+                }
+                if (logCall || logTailRequest(logPlan, requestId, tailRequest, durationNanos, true)) {
+                    logError(logPlan, requestId, ex, durationNanos);
+                }
+            } finally {
+                if (newRequestId) {
+                    MDC.remove(REQUEST_ID);
+                }
+            }
+            throw ex;
+        }
+        if (result instanceof Mono || result instanceof Flux) {
+            // Captured methods are written to the capture spool on subscription, the logging instrumentation
+            // wraps the capturing one, so both see the same request ID
+            final Object response = captureReactiveResponse(logPlan, args, result);
+            if (logCall) {
+                return logReactiveResponse(logPlan, instrumentedArgs, response);
+            }
+            return tailRequest != null
+                    ? logTailReactiveResponse(logPlan, tailRequest, response)
+                    : measureReactiveResponse(logPlan, response);
+        }
+        final long durationNanos = System.nanoTime() - startNanos;
+        recordCall(logPlan, CallOutcome.SUCCESS, durationNanos);
+        if (!logCall && tailRequest == null && !logPlan.isCapture()) {
+            return result;
+        }
+
+        // Method responds synchronously, so log it like a non-reactive one
+        final boolean newRequestId = putRequestId();
+        try {
+            var requestId = MDC.get(REQUEST_ID);
+            captureResponse(logPlan, captureRequest(logPlan, requestId, args), result, durationNanos);
+            if (logCall) {
+                logReactiveRequest(logPlan, requestId, instrumentedArgs);
+            } else if (!logTailRequest(logPlan, requestId, tailRequest, durationNanos, false)) {
+                return result;
+            }
+            return logNonReactiveResponse(logPlan, requestId, result, durationNanos);
+        } finally {
+            if (newRequestId) {
+                MDC.remove(REQUEST_ID);
+            }
+        }
     }
 
     /**
-     * Logs the response of method which is annotated.
-     * Logging is making by calling .toString().
+     * Takes the logging plan from cache, annotation attributes are read the only time when the plan is built.
      *
-     * @param method      current method
-     * @param response    a response of annotated method
-     * @param logResponse do log the object of response
+     * @param method        annotated method
+     * @param logAnnotation current annotation
+     * @return logging plan of method
      */
-    private Object logResponse(MethodSignature method, Object response, boolean logResponse) {
-        if (response instanceof Mono || response instanceof Flux) {
-            return logReactiveResponse(method, response, logResponse);
-        } else {
-            return logNonReactiveResponse(method, response, logResponse);
+    private LogPlan getLogPlan(MethodSignature method, LogReactiveMethod logAnnotation) {
+        final LogPlan logPlan = getCachedLogPlan(method);
+        if (logPlan != null) {
+            return logPlan;
         }
+        final LogProperties.FluxParameters fluxParameters = logProperties.getFluxParameters();
+        return getLogPlan(method, m -> logPlanBuilder(m, logAnnotation.parameters(), LogPlan.Kind.REACTIVE)
+                .logResponse(logAnnotation.logResponse())
+                .conversionType(logAnnotation.conversionType())
+                .limits(resolveLimits(logAnnotation.maxOutputChars(), logAnnotation.maxDepth(),
+                        logAnnotation.maxElements(), logAnnotation.maxStringLength()))
+                .fluxBatching(
+                        resolveSetting(logAnnotation.fluxBatchSize(), fluxParameters.getBatchSize()),
+                        resolveSetting(logAnnotation.fluxBatchWindowMillis(), fluxParameters.getBatchWindowMillis()),
+                        resolveSetting(logAnnotation.fluxBatchMaxRendered(), fluxParameters.getMaxRenderedElements()))
+                .responseSummary(logAnnotation.responseMode(),
+                        logAnnotation.summarySampleRate(),
+                        logAnnotation.summaryEdgeElements())
+                .budget(resolveBudget(logAnnotation.sampleRate(), logAnnotation.maxCallsPerSecond()))
+                .tail(resolveTail(logAnnotation.tail(), logAnnotation.tailThresholdMillis()))
+                .capture(logAnnotation.capture())
+                .build());
     }
 }
@@ -0,0 +1,17 @@
+package com.igorivkin.msaspices.lib.log;
+
+/**
+ * Represents the way Flux responses of reactive methods are logged.
+ */
+public enum LogResponseMode {
+
+    /**
+     * Every element of Flux response is logged by its own line.
+     */
+    ELEMENTS,
+
+    /**
+     * A single summary line is logged on the terminal signal of Flux response.
+     */
+    SUMMARY
+}
@@ -0,0 +1,111 @@
+package com.igorivkin.msaspices.lib.log;
+
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds serializers of logged parameters and responses of annotated methods when all the beans are created,
+ * so the first calls don't pay for introspection of their types. Elements of Mono and Flux are warmed up
+ * instead of the publishers.
+ */
+public class LogSerializerWarmUp implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(LogSerializerWarmUp.class);
+
+    private final ListableBeanFactory beanFactory;
+
+    private final LogPreparationService logPreparationService;
+
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    public LogSerializerWarmUp(ListableBeanFactory beanFactory, LogPreparationService logPreparationService) {
+        this.beanFactory = beanFactory;
+        this.logPreparationService = logPreparationService;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        final long startNanos = System.nanoTime();
+        final Set<Method> methods = new HashSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            final Class<?> beanType = beanFactory.getType(beanName, false);
+            if (beanType != null) {
+                warmUp(ClassUtils.getUserClass(beanType), methods);
+            }
+        }
+        log.debug("Serializers of {} annotated methods are built in {} ms", methods.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Warms up serializers of all the annotated methods of the class.
+     *
+     * @param type    class of bean
+     * @param visited methods already warmed up
+     */
+    void warmUp(Class<?> type, Set<Method> visited) {
+        ReflectionUtils.doWithMethods(type, method -> {
+            if (!visited.add(method)) {
+                return;
+            }
+            final LogMethod logMethod = method.getAnnotation(LogMethod.class);
+            if (logMethod != null) {
+                warmUp(method, logMethod.parameters(), logMethod.logResponse(), logMethod.conversionType());
+            }
+            final LogReactiveMethod logReactiveMethod = method.getAnnotation(LogReactiveMethod.class);
+            if (logReactiveMethod != null) {
+                warmUp(method, logReactiveMethod.parameters(), logReactiveMethod.logResponse(),
+                        logReactiveMethod.conversionType());
+            }
+        });
+    }
+
+    private void warmUp(Method method, String[] parameters, boolean logResponse, LogConversionType conversionType) {
+        final List<String> loggedNames = Arrays.asList(parameters);
+        final String[] parameterNames = parameterNameDiscoverer.getParameterNames(method);
+        for (var i = 0; i < method.getParameterCount(); i++) {
+            if (loggedNames.isEmpty() || parameterNames != null && loggedNames.contains(parameterNames[i])) {
+                logPreparationService.warmUp(loggedType(new MethodParameter(method, i)), conversionType);
+            }
+        }
+        if (logResponse && method.getReturnType() != void.class) {
+            logPreparationService.warmUp(loggedType(new MethodParameter(method, -1)), conversionType);
+        }
+    }
+
+    /**
+     * @return declared type of parameter or response, or type of elements for Mono and Flux
+     */
+    private static Type loggedType(MethodParameter parameter) {
+        final ResolvableType type = ResolvableType.forMethodParameter(parameter);
+        if (Publisher.class.isAssignableFrom(type.toClass())) {
+            // Mono and Flux declare the type of elements as their only generic
+            final ResolvableType elementType = type.getGenerics().length == 1
+                    ? type.getGeneric(0)
+                    : type.as(Publisher.class).getGeneric(0);
+            return elementType.getType() instanceof TypeVariable ? elementType.resolve(Object.class)
+                    : elementType.getType();
+        }
+        return type.getType();
+    }
+}
@@ -0,0 +1,46 @@
+package com.igorivkin.msaspices.lib.log;
+
+import com.igorivkin.msaspices.lib.metrics.CallOutcome;
+import com.igorivkin.msaspices.lib.metrics.MethodMetrics;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Measures one subscription to the response of reactive method: time to the first element
+ * and time to the terminal signal. Only the first terminal signal is recorded, cancellation
+ * can race with completion.
+ */
+final class ReactiveCallTimer {
+
+    private static final AtomicIntegerFieldUpdater<ReactiveCallTimer> TERMINATED =
+            AtomicIntegerFieldUpdater.newUpdater(ReactiveCallTimer.class, "terminated");
+
+    private final MethodMetrics metrics;
+
+    private final long startNanos;
+
+    private boolean firstElementRecorded;
+
+    private volatile int terminated;
+
+    ReactiveCallTimer(MethodMetrics metrics) {
+        this.metrics = metrics;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records time to the first element, signals of one subscription are serialized.
+     */
+    void onNext() {
+        if (!firstElementRecorded) {
+            firstElementRecorded = true;
+            metrics.recordFirstElement(System.nanoTime() - startNanos);
+        }
+    }
+
+    void terminate(CallOutcome outcome) {
+        if (TERMINATED.compareAndSet(this, 0, 1)) {
+            metrics.record(outcome, System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.igorivkin.msaspices.lib.log;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogLimits;
+import com.igorivkin.msaspices.lib.log.event.LazyLogPayload;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import net.logstash.logback.marker.LogstashMarker;
+import org.reactivestreams.Publisher;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carries the fields of a structured log event: request ID, method, direction, duration, parameters,
+ * response and error fingerprint. Logstash JSON encoders write the fields to the root of event.
+ * Parameters and response are serialized to JSON once, when the encoder writes the event, and are embedded
+ * as raw JSON, so they are not escaped and serialized again as a string. Values cut by the limits
+ * of conversion and XML values are not valid JSON, they are written as strings.
+ * <p>
+ * The class depends on logstash-logback-encoder and is loaded only in {@link LogFormat#STRUCTURED} mode.
+ */
+public final class StructuredLogMarker extends LogstashMarker implements LazyLogPayload {
+
+    public static final String MARKER_NAME = MARKER_NAME_PREFIX + "MSA_SPICES";
+
+    static final String REQUEST = "request";
+
+    static final String RESPONSE = "response";
+
+    static final String ERROR = "error";
+
+    private final transient LogPreparationService logPreparationService;
+
+    private final transient LogPlan logPlan;
+
+    private final String requestId;
+
+    private final String direction;
+
+    private long durationNanos = -1L;
+
+    private String[] parameterNames;
+
+    private transient Object[] parameterValues;
+
+    /**
+     * Parameters rendered by the marker this one is copied from, they are not converted again.
+     */
+    private String[] copiedParameters;
+
+    private transient Object response;
+
+    private boolean hasResponse;
+
+    private volatile Rendered rendered;
+
+    private boolean ignoredResponse;
+
+    private String summary;
+
+    private String fingerprint;
+
+    private long occurrence;
+
+    StructuredLogMarker(LogPreparationService logPreparationService,
+                        LogPlan logPlan,
+                        String requestId,
+                        String direction) {
+        super(MARKER_NAME);
+        this.logPreparationService = logPreparationService;
+        this.logPlan = logPlan;
+        this.requestId = requestId;
+        this.direction = direction;
+    }
+
+    /**
+     * Adds the parameters resolved by logging plan. Mono/Flux parameters of reactive methods
+     * are logged when they are emitted, so they are skipped.
+     */
+    StructuredLogMarker parameters(Object[] args) {
+        final int[] parameterIndices = logPlan.getParameterIndices();
+        final String[] names = logPlan.getParameterNames();
+        var count = 0;
+        parameterNames = new String[parameterIndices.length];
+        parameterValues = new Object[parameterIndices.length];
+        for (var i = 0; i < parameterIndices.length; i++) {
+            final Object value = args[parameterIndices[i]];
+            if (logPlan.getKind() == LogPlan.Kind.REACTIVE && value instanceof Publisher) {
+                continue;
+            }
+            parameterNames[count] = names[i];
+            parameterValues[count++] = value;
+        }
+        if (count < parameterIndices.length) {
+            parameterNames = Arrays.copyOf(parameterNames, count);
+            parameterValues = Arrays.copyOf(parameterValues, count);
+        }
+        return this;
+    }
+
+    /**
+     * Creates a marker of request with the same parameters for another request ID. It's used by tail mode,
+     * parameters are captured before the call and logged after it, maybe for several subscriptions.
+     */
+    StructuredLogMarker copy(String requestId) {
+        final StructuredLogMarker copy = new StructuredLogMarker(logPreparationService, logPlan, requestId, direction);
+        copy.parameterNames = parameterNames;
+        copy.parameterValues = parameterValues;
+        final Rendered source = rendered;
+        copy.copiedParameters = source != null ? source.parameters : copiedParameters;
+        return copy;
+    }
+
+    /**
+     * Adds a single parameter, e.g. an emitted value of Mono parameter.
+     */
+    StructuredLogMarker parameter(String name, Object value) {
+        parameterNames = new String[]{name};
+        parameterValues = new Object[]{value};
+        return this;
+    }
+
+    /**
+     * Adds the response, or marks it as ignored if responses of method are not logged.
+     */
+    StructuredLogMarker response(Object response) {
+        if (logPlan.isLogResponse()) {
+            this.response = response;
+            this.hasResponse = true;
+        } else {
+            this.ignoredResponse = true;
+        }
+        return this;
+    }
+
+    StructuredLogMarker duration(long durationNanos) {
+        this.durationNanos = durationNanos;
+        return this;
+    }
+
+    StructuredLogMarker summary(String summary) {
+        this.summary = summary;
+        return this;
+    }
+
+    StructuredLogMarker error(String fingerprint, long occurrence) {
+        this.fingerprint = fingerprint;
+        this.occurrence = occurrence;
+        return this;
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        final Rendered values = render();
+        generator.writeStringField("requestId", requestId);
+        generator.writeStringField("method", logPlan.getMethodName());
+        generator.writeStringField("direction", direction);
+        if (durationNanos >= 0L) {
+            generator.writeNumberField("durationMs", TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        }
+        if (values.parameters != null) {
+            generator.writeObjectFieldStart("parameters");
+            for (var i = 0; i < parameterNames.length; i++) {
+                generator.writeFieldName(parameterNames[i]);
+                writeValue(generator, values.parameters[i]);
+            }
+            generator.writeEndObject();
+        }
+        if (ignoredResponse) {
+            generator.writeStringField("response", AbstractLogMethodAspect.IGNORED);
+        } else if (values.response != null) {
+            generator.writeFieldName("response");
+            writeValue(generator, values.response);
+        }
+        if (summary != null) {
+            generator.writeStringField("summary", summary);
+        }
+        if (fingerprint != null) {
+            generator.writeStringField("fingerprint", fingerprint);
+            generator.writeNumberField("occurrence", occurrence);
+        }
+    }
+
+    @Override
+    public void snapshot() {
+        render();
+    }
+
+    /**
+     * Converts parameters and response once, the marker may be written by several appenders concurrently,
+     * e.g. a synchronous one and the worker of an asynchronous one. The converted values are published at once.
+     *
+     * @return converted parameters and response
+     */
+    private Rendered render() {
+        Rendered values = rendered;
+        if (values == null) {
+            synchronized (this) {
+                values = rendered;
+                if (values == null) {
+                    values = new Rendered(renderParameters(), hasResponse ? convert(response) : null);
+                    rendered = values;
+                }
+            }
+        }
+        return values;
+    }
+
+    private String[] renderParameters() {
+        if (copiedParameters != null || parameterValues == null) {
+            return copiedParameters;
+        }
+        final String[] parameters = new String[parameterValues.length];
+        for (var i = 0; i < parameterValues.length; i++) {
+            parameters[i] = convert(parameterValues[i]);
+        }
+        return parameters;
+    }
+
+    private String convert(Object value) {
+        final StringBuilder buffer = LogBuffers.acquire();
+        try {
+            logPreparationService.appendObject(value, logPlan.getConversionType(), logPlan.getLimits(), buffer);
+        } catch (RuntimeException ex) {
+            LogBuffers.discard(buffer);
+            throw ex;
+        }
+        return LogBuffers.release(buffer);
+    }
+
+    private void writeValue(JsonGenerator generator, String value) throws IOException {
+        if (logPlan.getConversionType() == LogConversionType.JSON && !value.endsWith(LogLimits.TRUNCATION_MARKER)) {
+            generator.writeRawValue(value);
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    /**
+     * Converted parameters and response of the marker.
+     */
+    private static final class Rendered {
+
+        private final String[] parameters;
+
+        private final String response;
+
+        private Rendered(String[] parameters, String response) {
+            this.parameters = parameters;
+            this.response = response;
+        }
+    }
+
+    @Override
+    protected String toStringSelf() {
+        return "requestId=" + requestId + ", method=" + logPlan.getMethodName() + ", direction=" + direction;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+}
@@ -0,0 +1,39 @@
+package com.igorivkin.msaspices.lib.log;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * State of one subscription to Flux response in tail mode. Elements are only counted, nothing
+ * is kept or converted until it's known that the call is slow or failed.
+ */
+final class TailFluxResponse {
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicBoolean terminated = new AtomicBoolean();
+
+    private volatile long elementsCount;
+
+    /**
+     * Counts an element. Elements are signaled serially, so the count has a single writer, but cancellation
+     * may read it from another thread, hence the field is volatile.
+     */
+    void onNext() {
+        elementsCount++;
+    }
+
+    /**
+     * @return true for the first terminal signal, cancellation can race with completion
+     */
+    boolean terminate() {
+        return terminated.compareAndSet(false, true);
+    }
+
+    long getElementsCount() {
+        return elementsCount;
+    }
+
+    long getDurationNanos() {
+        return System.nanoTime() - startNanos;
+    }
+}
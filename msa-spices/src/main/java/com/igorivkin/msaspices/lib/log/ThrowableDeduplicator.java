@@ -0,0 +1,97 @@
+package com.igorivkin.msaspices.lib.log;
+
+import com.igorivkin.msaspices.lib.config.LogProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Counts occurrences of throwables by their fingerprints, so the full stack trace of an error
+ * is logged only once per window and its repetitions are logged by compact references.
+ * The fingerprint is a hash of the type of throwable and its top stack frames, messages are ignored
+ * since they often carry IDs. Occurrences are kept in a bounded direct-mapped cache: fingerprints
+ * colliding in a slot evict each other, so an evicted one is logged with the full trace again.
+ */
+final class ThrowableDeduplicator {
+
+    private final AtomicReferenceArray<Occurrences> slots;
+
+    private final int mask;
+
+    private final int topFrames;
+
+    private final long windowNanos;
+
+    ThrowableDeduplicator(LogProperties.Errors settings) {
+        final int capacity = Integer.highestOneBit(Math.max(settings.getCacheSize(), 1) * 2 - 1);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.topFrames = settings.getTopFrames();
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(settings.getWindowMillis());
+    }
+
+    /**
+     * @param throwable throwable to fingerprint
+     * @return hash of type and top stack frames of throwable
+     */
+    long fingerprint(Throwable throwable) {
+        long hash = throwable.getClass().getName().hashCode();
+        final StackTraceElement[] stackTrace = throwable.getStackTrace();
+        final int frames = Math.min(stackTrace.length, topFrames);
+        for (var i = 0; i < frames; i++) {
+            final StackTraceElement frame = stackTrace[i];
+            hash = hash * 31 + frame.getClassName().hashCode();
+            hash = hash * 31 + frame.getMethodName().hashCode();
+            hash = hash * 31 + frame.getLineNumber();
+        }
+        // Spread bits, so the low ones are good to index the cache
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Counts an occurrence of throwable with the given fingerprint.
+     *
+     * @param fingerprint fingerprint of throwable
+     * @return number of occurrence within the current window, 1 for the first one
+     */
+    long occur(long fingerprint) {
+        final int index = (int) fingerprint & mask;
+        final long now = System.nanoTime();
+        while (true) {
+            final Occurrences current = slots.get(index);
+            if (current != null && current.fingerprint == fingerprint && now - current.windowStartNanos < windowNanos) {
+                return current.count.incrementAndGet();
+            }
+            if (slots.compareAndSet(index, current, new Occurrences(fingerprint, now))) {
+                return 1L;
+            }
+        }
+    }
+
+    /**
+     * @param fingerprint fingerprint of throwable
+     * @return fingerprint as 16 hex digits
+     */
+    static String format(long fingerprint) {
+        final String hex = Long.toHexString(fingerprint);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    private static final class Occurrences {
+
+        private final long fingerprint;
+
+        private final long windowStartNanos;
+
+        private final AtomicLong count = new AtomicLong(1L);
+
+        private Occurrences(long fingerprint, long windowStartNanos) {
+            this.fingerprint = fingerprint;
+            this.windowStartNanos = windowStartNanos;
+        }
+    }
+}
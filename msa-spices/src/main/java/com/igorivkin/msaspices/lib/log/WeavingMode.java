@@ -0,0 +1,19 @@
+package com.igorivkin.msaspices.lib.log;
+
+/**
+ * The way the logging advice is applied to annotated methods.
+ */
+public enum WeavingMode {
+
+    /**
+     * Spring AOP proxies are created for annotated beans at startup. Calls go through the proxy,
+     * self-invocations and objects which are not Spring beans are not logged.
+     */
+    PROXY,
+
+    /**
+     * The advice is woven right into annotated classes by AspectJ compiler or load-time weaver,
+     * see {@link WovenLogMethodAspect} and {@link WovenLogReactiveMethodAspect}. No proxies are created.
+     */
+    ASPECTJ
+}
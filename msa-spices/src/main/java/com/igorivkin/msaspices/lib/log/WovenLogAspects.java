@@ -0,0 +1,56 @@
+package com.igorivkin.msaspices.lib.log;
+
+import com.igorivkin.msaspices.lib.capture.CaptureSpool;
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import com.igorivkin.msaspices.lib.log.event.LogEventDispatcher;
+import com.igorivkin.msaspices.lib.metrics.MethodMetricsRegistry;
+import com.igorivkin.msaspices.lib.requestid.RequestIdGenerator;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Installs the logging aspects into the woven aspects in {@link WeavingMode#ASPECTJ} mode. The logging aspects
+ * are created here rather than registered as beans, so Spring AOP doesn't create proxies for them.
+ */
+public class WovenLogAspects implements InitializingBean, DisposableBean {
+
+    private final LogMethodAspect logMethodAspect;
+
+    private final LogReactiveMethodAspect logReactiveMethodAspect;
+
+    public WovenLogAspects(LogPreparationService logPreparationService,
+                           LogProperties logProperties,
+                           LogEventDispatcher logEventDispatcher,
+                           RequestIdGenerator requestIdGenerator,
+                           MethodMetricsRegistry methodMetricsRegistry) {
+        this.logMethodAspect = new LogMethodAspect(logPreparationService, logProperties,
+                logEventDispatcher, requestIdGenerator, methodMetricsRegistry);
+        this.logReactiveMethodAspect = new LogReactiveMethodAspect(logPreparationService, logProperties,
+                logEventDispatcher, requestIdGenerator, methodMetricsRegistry);
+    }
+
+    /**
+     * Sets the spool of captured calls to both logging aspects.
+     *
+     * @param captureSpool spool of captured calls
+     */
+    @Autowired(required = false)
+    public void setCaptureSpool(CaptureSpool captureSpool) {
+        logMethodAspect.setCaptureSpool(captureSpool);
+        logReactiveMethodAspect.setCaptureSpool(captureSpool);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        WovenLogMethodAspect.install(logMethodAspect);
+        WovenLogReactiveMethodAspect.install(logReactiveMethodAspect);
+    }
+
+    @Override
+    public void destroy() {
+        WovenLogMethodAspect.install(null);
+        WovenLogReactiveMethodAspect.install(null);
+    }
+}
@@ -0,0 +1,33 @@
+package com.igorivkin.msaspices.lib.log;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Aspect woven into classes with methods annotated by {@link LogMethod} by AspectJ compiler or load-time weaver
+ * (declared in META-INF/aop.xml). The advice is a part of annotated method itself, so self-invocations and
+ * objects which are not Spring beans are logged too and there is no proxy hop. The aspect is instantiated
+ * by AspectJ, so it delegates to the {@link LogMethodAspect} installed by Spring context in
+ * {@link WeavingMode#ASPECTJ} mode. Until then, annotated methods are called as is.
+ */
+@Aspect
+public class WovenLogMethodAspect {
+
+    private static volatile LogMethodAspect delegate;
+
+    /**
+     * Installs the aspect that logs calls of woven methods.
+     *
+     * @param logMethodAspect aspect to delegate to, null to stop logging
+     */
+    public static void install(LogMethodAspect logMethodAspect) {
+        delegate = logMethodAspect;
+    }
+
+    @Around("execution(* *(..)) && @annotation(logAnnotation)")
+    public Object processLogMethod(ProceedingJoinPoint jp, LogMethod logAnnotation) throws Throwable {
+        final LogMethodAspect logMethodAspect = delegate;
+        return logMethodAspect != null ? logMethodAspect.processLogMethod(jp, logAnnotation) : jp.proceed();
+    }
+}
@@ -0,0 +1,32 @@
+package com.igorivkin.msaspices.lib.log;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Aspect woven into classes with methods annotated by {@link LogReactiveMethod}, see {@link WovenLogMethodAspect}.
+ * It delegates to the {@link LogReactiveMethodAspect} installed by Spring context in {@link WeavingMode#ASPECTJ} mode.
+ */
+@Aspect
+public class WovenLogReactiveMethodAspect {
+
+    private static volatile LogReactiveMethodAspect delegate;
+
+    /**
+     * Installs the aspect that logs calls of woven methods.
+     *
+     * @param logReactiveMethodAspect aspect to delegate to, null to stop logging
+     */
+    public static void install(LogReactiveMethodAspect logReactiveMethodAspect) {
+        delegate = logReactiveMethodAspect;
+    }
+
+    @Around("execution(* *(..)) && @annotation(logAnnotation)")
+    public Object processLogReactiveMethod(ProceedingJoinPoint jp, LogReactiveMethod logAnnotation) throws Throwable {
+        final LogReactiveMethodAspect logReactiveMethodAspect = delegate;
+        return logReactiveMethodAspect != null
+                ? logReactiveMethodAspect.processLogReactiveMethod(jp, logAnnotation)
+                : jp.proceed();
+    }
+}
@@ -0,0 +1,12 @@
+package com.igorivkin.msaspices.lib.log.event;
+
+/**
+ * Part of log event that is rendered only when the logging backend writes the event.
+ */
+public interface LazyLogPayload {
+
+    /**
+     * Renders the payload right now, so it no longer depends on the state of argument objects.
+     */
+    void snapshot();
+}
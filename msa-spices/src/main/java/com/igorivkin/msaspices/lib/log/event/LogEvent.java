@@ -0,0 +1,107 @@
+package com.igorivkin.msaspices.lib.log.event;
+
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.Map;
+
+/**
+ * Lightweight log event captured by an aspect. It keeps the message template and references
+ * to the arguments, so conversion of arguments happens when the event is emitted. The MDC of the calling
+ * thread is copied when the event is created, e.g. trace IDs, to be restored when the event is emitted.
+ */
+public final class LogEvent {
+
+    private final Logger logger;
+
+    private final Marker marker;
+
+    private final String template;
+
+    private final Object[] arguments;
+
+    private final String requestId;
+
+    private final long timestamp;
+
+    private final Map<String, String> contextMap;
+
+    public LogEvent(Logger logger, String template, Object[] arguments, String requestId) {
+        this(logger, null, template, arguments, requestId);
+    }
+
+    public LogEvent(Logger logger, Marker marker, String template, Object[] arguments, String requestId) {
+        this.logger = logger;
+        this.marker = marker;
+        this.template = template;
+        this.arguments = arguments;
+        this.requestId = requestId;
+        this.timestamp = System.currentTimeMillis();
+        this.contextMap = MDC.getCopyOfContextMap();
+    }
+
+    public Logger getLogger() {
+        return logger;
+    }
+
+    /**
+     * @return marker of structured event or null
+     */
+    public Marker getMarker() {
+        return marker;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * @return time when the event was captured, in milliseconds since epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return copy of the MDC of the thread that captured the event, may be null if the MDC was empty
+     */
+    public Map<String, String> getContextMap() {
+        return contextMap;
+    }
+
+    /**
+     * Emits the event to its logger at DEBUG level.
+     */
+    void emit() {
+        if (marker == null) {
+            logger.debug(template, arguments);
+        } else {
+            logger.debug(marker, template, arguments);
+        }
+    }
+
+    /**
+     * Converts all the arguments and the payload of marker to strings right now, so the event no longer depends
+     * on the state of argument objects.
+     */
+    void snapshotArguments() {
+        if (marker instanceof LazyLogPayload) {
+            ((LazyLogPayload) marker).snapshot();
+        }
+        for (var i = 0; i < arguments.length; i++) {
+            // Throwables are kept, so the logging backend still prints their stack traces
+            if (arguments[i] != null && !(arguments[i] instanceof Throwable)) {
+                arguments[i] = arguments[i].toString();
+            }
+        }
+    }
+}
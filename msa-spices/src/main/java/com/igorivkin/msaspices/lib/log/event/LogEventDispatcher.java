@@ -0,0 +1,234 @@
+package com.igorivkin.msaspices.lib.log.event;
+
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import com.igorivkin.msaspices.lib.requestid.RequestIds;
+import org.slf4j.Logger;
+import org.slf4j.Marker;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Emits log events of the aspects. By default, events are emitted right in the calling thread.
+ * With "msa-spices.log.async.enabled" the calling thread only captures an event into a bounded
+ * lock-free ring buffer and a small pool of workers converts and emits the events in background,
+ * so a slow appender or a large response does not add to the latency of annotated method.
+ */
+@Component
+public class LogEventDispatcher implements InitializingBean, DisposableBean {
+
+    /**
+     * Key of MDC with the time when an event was captured in the calling thread, as ISO-8601 instant.
+     */
+    public static final String CAPTURED_AT_KEY = "capturedAt";
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000L;
+
+    private static final int IDLE_SPINS = 100;
+
+    private final LogProperties.Async settings;
+
+    private final LogEventRingBuffer ringBuffer;
+
+    private final LongAdder droppedEvents = new LongAdder();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean stopped;
+
+    @Autowired
+    public LogEventDispatcher(LogProperties logProperties) {
+        this.settings = logProperties.getAsync();
+        this.ringBuffer = settings.isEnabled() ? new LogEventRingBuffer(settings.getBufferSize()) : null;
+    }
+
+    /**
+     * Emits the debug message or captures it to emit later in background if the asynchronous mode is enabled.
+     * The caller is responsible to check that DEBUG level is enabled before preparing of arguments.
+     *
+     * @param logger    logger to emit the message
+     * @param template  message template
+     * @param arguments arguments of message template
+     * @param requestId ID of request the message belongs to
+     */
+    public void debug(Logger logger, String template, Object[] arguments, String requestId) {
+        debug(logger, null, template, arguments, requestId);
+    }
+
+    /**
+     * Emits the debug message with a marker, e.g. of a structured event, or captures it to emit later
+     * in background if the asynchronous mode is enabled.
+     *
+     * @param logger    logger to emit the message
+     * @param marker    marker of message, may be null
+     * @param template  message template
+     * @param arguments arguments of message template
+     * @param requestId ID of request the message belongs to
+     */
+    public void debug(Logger logger, Marker marker, String template, Object[] arguments, String requestId) {
+        if (ringBuffer == null || stopped) {
+            if (marker == null) {
+                logger.debug(template, arguments);
+            } else {
+                logger.debug(marker, template, arguments);
+            }
+            return;
+        }
+
+        final LogEvent event = new LogEvent(logger, marker, template, arguments, requestId);
+        if (settings.isSnapshotArguments()) {
+            event.snapshotArguments();
+        }
+        enqueue(event);
+        if (stopped) {
+            // Workers could drain the buffer and exit after the check above, the event is emitted here then
+            drain();
+        }
+    }
+
+    /**
+     * @return true if events are emitted in background workers
+     */
+    public boolean isAsync() {
+        return ringBuffer != null;
+    }
+
+    /**
+     * @return number of events dropped because the ring buffer was full
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (ringBuffer == null) {
+            return;
+        }
+        for (var i = 0; i < settings.getWorkers(); i++) {
+            final Thread worker = new Thread(this::runWorker, "msa-spices-log-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        stopped = true;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+            worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+        if (ringBuffer != null) {
+            drain();
+        }
+    }
+
+    /**
+     * Emits the events left in the buffer in the current thread.
+     */
+    private void drain() {
+        LogEvent event;
+        while ((event = ringBuffer.poll()) != null) {
+            emit(event);
+        }
+    }
+
+    private void enqueue(LogEvent event) {
+        switch (settings.getOverflowPolicy()) {
+            case DROP_OLDEST:
+                while (!ringBuffer.offer(event)) {
+                    if (ringBuffer.poll() != null) {
+                        droppedEvents.increment();
+                    }
+                }
+                break;
+            case BLOCK:
+                while (!ringBuffer.offer(event)) {
+                    if (stopped) {
+                        event.emit();
+                        return;
+                    }
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                }
+                break;
+            case DROP_NEWEST:
+            default:
+                if (!ringBuffer.offer(event)) {
+                    droppedEvents.increment();
+                }
+                break;
+        }
+    }
+
+    /**
+     * Main loop of worker: takes events from the ring buffer until the dispatcher is stopped
+     * and the buffer is drained. Spins a little when the buffer is empty and then parks.
+     */
+    private void runWorker() {
+        var idleSpins = 0;
+        while (true) {
+            final LogEvent event = ringBuffer.poll();
+            if (event != null) {
+                idleSpins = 0;
+                emit(event);
+            } else if (stopped) {
+                return;
+            } else if (idleSpins < IDLE_SPINS) {
+                idleSpins++;
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Emits the event in the worker thread, or in the calling thread after the workers are stopped.
+     * Sets the MDC captured with the event and request ID, so they are available to the logging backend as if
+     * the message was logged in the request thread, and the time of capture, which may be well before the time
+     * of emission under load. The previous MDC of the thread is restored.
+     *
+     * @param event event to emit
+     */
+    private void emit(LogEvent event) {
+        final Map<String, String> previousContextMap = MDC.getCopyOfContextMap();
+        setContextMap(event.getContextMap());
+        if (event.getRequestId() != null) {
+            // Reactive methods carry request ID in the Reactor Context, not in the MDC
+            MDC.put(RequestIds.KEY, event.getRequestId());
+        }
+        MDC.put(CAPTURED_AT_KEY, Instant.ofEpochMilli(event.getTimestamp()).toString());
+        try {
+            event.emit();
+        } catch (RuntimeException ex) {
+            // Worker should survive a failed conversion of a single event
+            event.getLogger().warn("Cannot emit log event of request {}", event.getRequestId(), ex);
+        } finally {
+            setContextMap(previousContextMap);
+        }
+    }
+
+    private static void setContextMap(Map<String, String> contextMap) {
+        if (contextMap != null) {
+            MDC.setContextMap(contextMap);
+        } else {
+            MDC.clear();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.igorivkin.msaspices.lib.log.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer multi-consumer ring buffer of log events.
+ * Every slot has a sequence number that tells whether the slot is free for a producer
+ * at a given position or filled for a consumer, so producers and consumers only
+ * compete by CAS on their own position counters.
+ */
+final class LogEventRingBuffer {
+
+    private final LogEvent[] events;
+
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    private final AtomicLong producerPosition = new AtomicLong();
+
+    private final AtomicLong consumerPosition = new AtomicLong();
+
+    LogEventRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Capacity of ring buffer should be at least 2, got: " + requestedCapacity);
+        }
+        final int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.events = new LogEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (var i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return events.length;
+    }
+
+    /**
+     * Puts an event to the buffer.
+     *
+     * @param event event to put
+     * @return false if the buffer is full
+     */
+    boolean offer(LogEvent event) {
+        long position = producerPosition.get();
+        while (true) {
+            final int index = (int) (position & mask);
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (producerPosition.compareAndSet(position, position + 1)) {
+                    events[index] = event;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = producerPosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = producerPosition.get();
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest event from the buffer.
+     *
+     * @return event or null if the buffer is empty
+     */
+    LogEvent poll() {
+        long position = consumerPosition.get();
+        while (true) {
+            final int index = (int) (position & mask);
+            final long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (consumerPosition.compareAndSet(position, position + 1)) {
+                    final LogEvent event = events[index];
+                    events[index] = null;
+                    sequences.lazySet(index, position + mask + 1);
+                    return event;
+                }
+                position = consumerPosition.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = consumerPosition.get();
+            }
+        }
+    }
+}
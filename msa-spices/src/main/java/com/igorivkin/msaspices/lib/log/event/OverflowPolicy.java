@@ -0,0 +1,22 @@
+package com.igorivkin.msaspices.lib.log.event;
+
+/**
+ * Defines what happens with a log event when the ring buffer of asynchronous dispatcher is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The new event is dropped.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest event in the buffer is dropped to give place to the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The calling thread waits until there is a free place in the buffer.
+     */
+    BLOCK
+}
@@ -0,0 +1,256 @@
+package com.igorivkin.msaspices.lib.masking;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.igorivkin.msaspices.lib.convert.StringBuilderWriter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Masks configured fields of JSON/XML documents embedded in string values, for example raw bodies
+ * forwarded from gateways. The document is streamed once token by token (Jackson parser and generator
+ * for JSON, StAX for XML), no tree is built. A string is returned as it is if it doesn't look like
+ * a document or doesn't contain any of masked names. A document that can't be parsed is returned masked
+ * up to the first error, the rest of it is never returned, as it could contain unmasked values.
+ * For XML, only the names of elements and attributes are matched, paths are applied to JSON only.
+ */
+final class EmbeddedDocumentMasker {
+
+    /**
+     * Replaces the rest of document after the first error of parsing.
+     */
+    static final String INVALID_REST = "<invalid, the rest is masked>";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private final Set<String> fields;
+
+    private final MaskingPaths paths;
+
+    private final String[] names;
+
+    private final MaskingStrategy strategy;
+
+    EmbeddedDocumentMasker(List<String> fields, List<String> paths, MaskingStrategy strategy) {
+        this.fields = new HashSet<>(fields);
+        this.paths = new MaskingPaths(paths);
+        this.strategy = strategy;
+
+        final Set<String> allNames = new HashSet<>(fields);
+        this.paths.getNames().forEach(allNames::add);
+        this.names = allNames.toArray(new String[0]);
+    }
+
+    /**
+     * @return true if there is anything to mask
+     */
+    boolean isEnabled() {
+        return names.length > 0;
+    }
+
+    /**
+     * Masks the fields of document embedded in string.
+     *
+     * @param value string value
+     * @return string with masked document, or the same string if it's not a document to mask
+     */
+    String mask(String value) {
+        final char first = firstChar(value);
+        if ((first != '{' && first != '[' && first != '<') || !containsAnyName(value)) {
+            return value;
+        }
+        final StringBuilder target = new StringBuilder(value.length());
+        try {
+            if (first == '<') {
+                maskXml(value, target);
+            } else {
+                maskJson(value, target);
+            }
+            return target.toString();
+        } catch (IOException | XMLStreamException | RuntimeException ex) {
+            // The document contains masked names, so the part that was not masked is never logged
+            return target.append(INVALID_REST).toString();
+        }
+    }
+
+    /**
+     * Writes the masked document to the target. On error, the target contains the document masked up to it.
+     */
+    private void maskJson(String value, StringBuilder target) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(value);
+             JsonGenerator generator = JSON_FACTORY.createGenerator(new StringBuilderWriter(target))) {
+            // A truncated document is not completed, so the output ends where the error is
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME && isMaskedField(parser)) {
+                    generator.writeFieldName(parser.getCurrentName());
+                    final JsonToken valueToken = parser.nextToken();
+                    if (valueToken == JsonToken.VALUE_NULL) {
+                        generator.writeNull();
+                    } else if (valueToken.isStructStart()) {
+                        parser.skipChildren();
+                        generator.writeString(MaskingStrategy.FULL.mask(null));
+                    } else {
+                        generator.writeString(strategy.mask(parser.getText()));
+                    }
+                } else {
+                    generator.copyCurrentEvent(parser);
+                }
+            }
+        }
+    }
+
+    private boolean isMaskedField(JsonParser parser) throws IOException {
+        final String name = parser.getCurrentName();
+        if (fields.contains(name)) {
+            return true;
+        }
+        final String[][] parentPaths = paths.getParentPaths(name);
+        return parentPaths != null && MaskingPaths.matches(parser.getParsingContext(), parentPaths);
+    }
+
+    /**
+     * Writes the masked document to the target. On error, the target contains the document masked up to it.
+     */
+    private void maskXml(String value, StringBuilder target) throws XMLStreamException {
+        final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(value));
+        final XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(new StringBuilderWriter(target));
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        copyStartElement(reader, writer);
+                        if (fields.contains(reader.getLocalName())) {
+                            writeMaskedContent(reader, writer);
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        writer.writeEndElement();
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(),
+                                reader.getTextLength());
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        writer.writeCData(reader.getText());
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        writer.writeComment(reader.getText());
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+                        break;
+                    default:
+                        break;
+                }
+            }
+            writer.close();
+        } finally {
+            // Closing the writer would complete the elements of a truncated document, so it's only flushed
+            writer.flush();
+            reader.close();
+        }
+    }
+
+    private void copyStartElement(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        final String prefix = reader.getPrefix();
+        final String namespace = reader.getNamespaceURI();
+        writer.writeStartElement(prefix == null ? "" : prefix, reader.getLocalName(),
+                namespace == null ? "" : namespace);
+        for (var i = 0; i < reader.getNamespaceCount(); i++) {
+            final String namespacePrefix = reader.getNamespacePrefix(i);
+            if (namespacePrefix == null || namespacePrefix.isEmpty()) {
+                writer.writeDefaultNamespace(reader.getNamespaceURI(i));
+            } else {
+                writer.writeNamespace(namespacePrefix, reader.getNamespaceURI(i));
+            }
+        }
+        for (var i = 0; i < reader.getAttributeCount(); i++) {
+            final String attributePrefix = reader.getAttributePrefix(i);
+            final String attributeNamespace = reader.getAttributeNamespace(i);
+            final String attributeName = reader.getAttributeLocalName(i);
+            final String attributeValue = fields.contains(attributeName)
+                    ? strategy.mask(reader.getAttributeValue(i))
+                    : reader.getAttributeValue(i);
+            if (attributeNamespace == null || attributeNamespace.isEmpty()) {
+                writer.writeAttribute(attributeName, attributeValue);
+            } else {
+                writer.writeAttribute(attributePrefix == null ? "" : attributePrefix, attributeNamespace,
+                        attributeName, attributeValue);
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of masked element: text is masked by the strategy, nested elements
+     * are replaced completely. Reader is left on the end of element.
+     */
+    private void writeMaskedContent(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        final StringBuilder text = new StringBuilder();
+        var nested = false;
+        var depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                nested = true;
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (depth == 1 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+                text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+        }
+        if (nested) {
+            writer.writeCharacters(MaskingStrategy.FULL.mask(null));
+        } else if (text.length() > 0) {
+            writer.writeCharacters(strategy.mask(text.toString()));
+        }
+        writer.writeEndElement();
+    }
+
+    private boolean containsAnyName(String value) {
+        for (String name : names) {
+            if (value.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static char firstChar(String value) {
+        for (var i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Logged documents come from outside, so DTDs and external entities are never resolved
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+}
@@ -0,0 +1,32 @@
+package com.igorivkin.msaspices.lib.masking;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+import java.io.IOException;
+
+/**
+ * Serializer of strings that masks the fields of JSON/XML documents embedded in them.
+ */
+final class EmbeddedDocumentSerializer extends StdScalarSerializer<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient EmbeddedDocumentMasker masker;
+
+    EmbeddedDocumentSerializer(EmbeddedDocumentMasker masker) {
+        super(String.class, false);
+        this.masker = masker;
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, String value) {
+        return value.isEmpty();
+    }
+
+    @Override
+    public void serialize(String value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeString(masker.mask(value));
+    }
+}
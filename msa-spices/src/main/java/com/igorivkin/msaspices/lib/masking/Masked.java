@@ -0,0 +1,22 @@
+package com.igorivkin.msaspices.lib.masking;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field (or getter) whose value is masked when the object is logged.
+ * Masking is applied by the object mappers of library only, the serialization of application is not changed.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface Masked {
+
+    /**
+     * Strategy of masking. By default, the value is masked completely.
+     *
+     * @return strategy of masking
+     */
+    MaskingStrategy value() default MaskingStrategy.FULL;
+}
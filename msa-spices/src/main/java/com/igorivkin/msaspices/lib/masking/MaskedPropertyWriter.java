@@ -0,0 +1,50 @@
+package com.igorivkin.msaspices.lib.masking;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+
+/**
+ * Writer of bean property that writes the masked value instead of the real one. Null and empty values
+ * are written by the original writer, so the inclusion rules of mapper are kept. If the property is masked
+ * by a path, the parents of property are checked against the path when it's written.
+ */
+final class MaskedPropertyWriter extends BeanPropertyWriter {
+
+    private static final long serialVersionUID = 1L;
+
+    private final MaskingStrategy strategy;
+
+    private final String[][] parentPaths;
+
+    /**
+     * @param base        original writer of property
+     * @param strategy    strategy of masking
+     * @param parentPaths paths of parent properties from the root, or null if the property is masked everywhere
+     */
+    MaskedPropertyWriter(BeanPropertyWriter base, MaskingStrategy strategy, String[][] parentPaths) {
+        super(base);
+        this.strategy = strategy;
+        this.parentPaths = parentPaths;
+    }
+
+    @Override
+    public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+        final Object value = get(bean);
+        if (value == null || isEmpty(value) || !matchesPath(gen.getOutputContext())) {
+            super.serializeAsField(bean, gen, prov);
+            return;
+        }
+        gen.writeFieldName(_name);
+        gen.writeString(strategy.mask(value));
+    }
+
+    private static boolean isEmpty(Object value) {
+        return value instanceof CharSequence && ((CharSequence) value).length() == 0;
+    }
+
+    private boolean matchesPath(JsonStreamContext context) {
+        return MaskingPaths.matches(context, parentPaths);
+    }
+}
@@ -0,0 +1,56 @@
+package com.igorivkin.msaspices.lib.masking;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replaces writers of masked properties when Jackson builds the serializer of a bean. Serializers are built
+ * once per class and cached by the mapper, so the masking plan is resolved once, and the properties
+ * that are not masked are written by their original writers without any overhead.
+ * A property is masked if it's annotated by {@link Masked}, or its name is in the list of masked fields,
+ * or it's the last segment of a masked path ("customer.card.number" or "$.customer.card.number").
+ */
+public class MaskingBeanSerializerModifier extends BeanSerializerModifier {
+
+    private final Set<String> fields;
+
+    private final MaskingPaths paths;
+
+    private final MaskingStrategy defaultStrategy;
+
+    /**
+     * @param fields          names of properties masked everywhere
+     * @param paths           paths of masked properties from the root of logged value
+     * @param defaultStrategy strategy of masking for configured fields and paths
+     */
+    public MaskingBeanSerializerModifier(List<String> fields, List<String> paths, MaskingStrategy defaultStrategy) {
+        this.fields = new HashSet<>(fields);
+        this.paths = new MaskingPaths(paths);
+        this.defaultStrategy = defaultStrategy;
+    }
+
+    @Override
+    public List<BeanPropertyWriter> changeProperties(SerializationConfig config,
+                                                     BeanDescription beanDesc,
+                                                     List<BeanPropertyWriter> beanProperties) {
+        for (var i = 0; i < beanProperties.size(); i++) {
+            final BeanPropertyWriter writer = beanProperties.get(i);
+            final Masked masked = writer.getAnnotation(Masked.class);
+            if (masked != null) {
+                beanProperties.set(i, new MaskedPropertyWriter(writer, masked.value(), null));
+            } else if (fields.contains(writer.getName())) {
+                beanProperties.set(i, new MaskedPropertyWriter(writer, defaultStrategy, null));
+            } else if (paths.getParentPaths(writer.getName()) != null) {
+                beanProperties.set(i, new MaskedPropertyWriter(writer, defaultStrategy,
+                        paths.getParentPaths(writer.getName())));
+            }
+        }
+        return beanProperties;
+    }
+}
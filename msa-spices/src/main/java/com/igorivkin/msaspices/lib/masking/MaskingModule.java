@@ -0,0 +1,30 @@
+package com.igorivkin.msaspices.lib.masking;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.igorivkin.msaspices.lib.config.LogProperties;
+
+/**
+ * Jackson module that masks the properties of logged values and the configured fields of JSON/XML documents
+ * embedded in string values. It is registered
+ * in the object mappers of library by {@link com.igorivkin.msaspices.lib.config.MaskingConfig}.
+ */
+public class MaskingModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    public MaskingModule(LogProperties.Masking masking) {
+        super("msa-spices-masking");
+        setSerializerModifier(new MaskingBeanSerializerModifier(
+                masking.getFields(),
+                masking.getPaths(),
+                masking.getStrategy()));
+
+        final EmbeddedDocumentMasker masker = new EmbeddedDocumentMasker(
+                masking.getFields(),
+                masking.getPaths(),
+                masking.getStrategy());
+        if (masker.isEnabled()) {
+            addSerializer(String.class, new EmbeddedDocumentSerializer(masker));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.igorivkin.msaspices.lib.masking;
+
+import com.fasterxml.jackson.core.JsonStreamContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled paths of masked properties. Paths are grouped by their last segment, so only the properties
+ * with a matching name check their parents. Parents are checked against the output context of generator
+ * (or parsing context of parser), arrays on the way are skipped.
+ */
+final class MaskingPaths {
+
+    private final Map<String, String[][]> parentPathsByName;
+
+    MaskingPaths(List<String> paths) {
+        final Map<String, List<String[]>> parentPaths = new HashMap<>();
+        for (String path : paths) {
+            final String normalizedPath = path.startsWith("$.") ? path.substring(2) : path;
+            final String[] segments = normalizedPath.split("\\.");
+            final String name = segments[segments.length - 1];
+            parentPaths.computeIfAbsent(name, n -> new ArrayList<>())
+                    .add(Arrays.copyOf(segments, segments.length - 1));
+        }
+
+        this.parentPathsByName = new HashMap<>();
+        parentPaths.forEach((name, parents) -> parentPathsByName.put(name, parents.toArray(new String[0][])));
+    }
+
+    boolean isEmpty() {
+        return parentPathsByName.isEmpty();
+    }
+
+    /**
+     * @param name name of property
+     * @return paths of parents of masked properties with this name, or null if there are none
+     */
+    String[][] getParentPaths(String name) {
+        return parentPathsByName.get(name);
+    }
+
+    /**
+     * @return names of properties that end the paths
+     */
+    Iterable<String> getNames() {
+        return parentPathsByName.keySet();
+    }
+
+    /**
+     * Checks if the object being written or read is placed by one of paths.
+     *
+     * @param context     context of object containing the property
+     * @param parentPaths paths of parents, null means any place
+     * @return true if the property is masked in this place
+     */
+    static boolean matches(JsonStreamContext context, String[][] parentPaths) {
+        if (parentPaths == null) {
+            return true;
+        }
+        for (String[] parentPath : parentPaths) {
+            if (matches(context, parentPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(JsonStreamContext context, String[] parentPath) {
+        JsonStreamContext parent = context.getParent();
+        for (var i = parentPath.length - 1; i >= 0; i--) {
+            parent = skipArrays(parent);
+            if (parent == null || !parentPath[i].equals(parent.getCurrentName())) {
+                return false;
+            }
+            parent = parent.getParent();
+        }
+        parent = skipArrays(parent);
+        return parent == null || parent.inRoot();
+    }
+
+    private static JsonStreamContext skipArrays(JsonStreamContext context) {
+        JsonStreamContext current = context;
+        while (current != null && current.inArray()) {
+            current = current.getParent();
+        }
+        return current;
+    }
+}
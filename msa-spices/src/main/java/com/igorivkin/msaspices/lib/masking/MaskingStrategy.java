@@ -0,0 +1,79 @@
+package com.igorivkin.msaspices.lib.masking;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Represents the way a value is masked. Values are masked by their string representation,
+ * the length of value is never revealed.
+ */
+public enum MaskingStrategy {
+
+    /**
+     * Value is replaced by the mask completely.
+     */
+    FULL {
+        @Override
+        public String mask(Object value) {
+            return MASK;
+        }
+    },
+
+    /**
+     * Only the last 4 chars of value are kept, for example "****1234".
+     */
+    PARTIAL {
+        @Override
+        public String mask(Object value) {
+            final String text = String.valueOf(value);
+            if (text.length() <= VISIBLE_CHARS) {
+                return MASK;
+            }
+            return MASK + text.substring(text.length() - VISIBLE_CHARS);
+        }
+    },
+
+    /**
+     * Value is replaced by its SHA-256 hash, so the same values can be correlated in logs.
+     * Keep in mind that values from a small set (like card numbers) can be recovered by brute force.
+     */
+    HASH {
+        @Override
+        public String mask(Object value) {
+            final byte[] hash = DIGEST.get().digest(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            final char[] hex = new char[HASH_BYTES * 2];
+            for (var i = 0; i < HASH_BYTES; i++) {
+                hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0x0F];
+                hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0x0F];
+            }
+            return HASH_PREFIX + new String(hex);
+        }
+    };
+
+    private static final String MASK = "****";
+
+    private static final int VISIBLE_CHARS = 4;
+
+    private static final String HASH_PREFIX = "sha256:";
+
+    private static final int HASH_BYTES = 8;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+    });
+
+    /**
+     * Masks a non-null value.
+     *
+     * @param value value to mask
+     * @return masked value
+     */
+    public abstract String mask(Object value);
+}
@@ -0,0 +1,10 @@
+package com.igorivkin.msaspices.lib.metrics;
+
+/**
+ * Outcome of a call of annotated method. For reactive methods it's the terminal signal of subscription.
+ */
+public enum CallOutcome {
+    SUCCESS,
+    ERROR,
+    CANCEL
+}
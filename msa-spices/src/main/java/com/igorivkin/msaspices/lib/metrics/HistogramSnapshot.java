@@ -0,0 +1,58 @@
+package com.igorivkin.msaspices.lib.metrics;
+
+/**
+ * Immutable copy of {@link LatencyHistogram}.
+ */
+public final class HistogramSnapshot {
+
+    private final long[] bucketCounts;
+
+    private final long count;
+
+    private final long totalNanos;
+
+    private final long maxNanos;
+
+    HistogramSnapshot(long[] bucketCounts, long count, long totalNanos, long maxNanos) {
+        this.bucketCounts = bucketCounts;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * @return mean of recorded values in nanoseconds, 0 if nothing was recorded
+     */
+    public double getMeanNanos() {
+        return count == 0 ? 0.0 : (double) totalNanos / count;
+    }
+
+    /**
+     * @param quantile fraction of values from 0.0 to 1.0
+     * @return value at quantile in nanoseconds, see {@link LatencyHistogram#valueAtQuantile(double)}
+     */
+    public long valueAtQuantile(double quantile) {
+        return LatencyHistogram.valueAtQuantile(quantile, count, i -> bucketCounts[i], maxNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count
+                + ", meanNanos=" + (long) getMeanNanos()
+                + ", p50Nanos=" + valueAtQuantile(0.5)
+                + ", p99Nanos=" + valueAtQuantile(0.99)
+                + ", maxNanos=" + maxNanos;
+    }
+}
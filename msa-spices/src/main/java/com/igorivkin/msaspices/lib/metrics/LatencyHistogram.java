@@ -0,0 +1,138 @@
+package com.igorivkin.msaspices.lib.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies with HDR-like log-linear buckets: every power of two is split into 16 linear
+ * sub-buckets, so any recorded value is kept with a relative error below 1/16. Values up to 2^44 ns
+ * (about 4.9 hours) are tracked, larger ones fall into the last bucket. Recording is lock-free
+ * and does not allocate, so it can be done on every call of a hot method. Reads are not atomic
+ * against concurrent recording, a snapshot may miss the values recorded while it is taken.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 44;
+
+    private static final long MAX_TRACKABLE_NANOS = (1L << MAX_EXPONENT) - 1;
+
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a single value.
+     *
+     * @param nanos duration in nanoseconds, negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        final long value = Math.max(nanos, 0L);
+        counts.incrementAndGet(bucketIndex(value));
+        totalNanos.add(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+        long count = 0;
+        for (var i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return sum of recorded values in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * @return max recorded value in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the value below which the given fraction of recorded values falls. The value is the highest
+     * one equivalent to the found bucket, but not greater than the max recorded value. The histogram is
+     * read in place, so it can be called by a gauge without allocation.
+     *
+     * @param quantile fraction of values from 0.0 to 1.0
+     * @return value at quantile in nanoseconds, 0 if nothing was recorded
+     */
+    public long valueAtQuantile(double quantile) {
+        return valueAtQuantile(quantile, getCount(), counts::get, maxNanos.get());
+    }
+
+    /**
+     * @return immutable copy of the histogram
+     */
+    public HistogramSnapshot snapshot() {
+        final long[] bucketCounts = new long[BUCKETS];
+        long count = 0;
+        for (var i = 0; i < BUCKETS; i++) {
+            bucketCounts[i] = counts.get(i);
+            count += bucketCounts[i];
+        }
+        return new HistogramSnapshot(bucketCounts, count, totalNanos.sum(), maxNanos.get());
+    }
+
+    static long valueAtQuantile(double quantile, long count, BucketCounts bucketCounts, long maxNanos) {
+        if (count == 0) {
+            return 0L;
+        }
+        final double boundedQuantile = Math.min(Math.max(quantile, 0.0), 1.0);
+        final long target = Math.max(1L, (long) Math.ceil(boundedQuantile * count));
+        long cumulative = 0;
+        for (var i = 0; i < BUCKETS; i++) {
+            cumulative += bucketCounts.get(i);
+            if (cumulative >= target) {
+                return Math.min(highestEquivalentValue(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final long boundedValue = Math.min(value, MAX_TRACKABLE_NANOS);
+        final int shift = 63 - Long.numberOfLeadingZeros(boundedValue) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (boundedValue >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestEquivalentValue(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKETS) {
+            return bucketIndex;
+        }
+        final int shift = bucketIndex / SUB_BUCKETS - 1;
+        final long lowestValue = (long) (bucketIndex % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+
+    /**
+     * Access to the counts of buckets of either a live histogram or its snapshot.
+     */
+    @FunctionalInterface
+    interface BucketCounts {
+        long get(int bucketIndex);
+    }
+}
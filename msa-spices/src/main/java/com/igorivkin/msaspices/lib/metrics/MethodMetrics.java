@@ -0,0 +1,100 @@
+package com.igorivkin.msaspices.lib.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call metrics of one annotated method: latency histogram, counts of calls by outcome and,
+ * for reactive methods, histogram of time to the first element of Flux response.
+ * Recording is lock-free and does not allocate.
+ */
+public final class MethodMetrics {
+
+    private static final CallOutcome[] OUTCOMES = CallOutcome.values();
+
+    private final String name;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final LatencyHistogram firstElementLatency;
+
+    private final LongAdder[] outcomeCounts = new LongAdder[OUTCOMES.length];
+
+    private final LongAdder suppressedCount = new LongAdder();
+
+    MethodMetrics(String name, boolean reactive) {
+        this.name = name;
+        this.firstElementLatency = reactive ? new LatencyHistogram() : null;
+        for (var i = 0; i < outcomeCounts.length; i++) {
+            outcomeCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a finished call.
+     *
+     * @param outcome       outcome of call
+     * @param durationNanos duration of call in nanoseconds
+     */
+    public void record(CallOutcome outcome, long durationNanos) {
+        outcomeCounts[outcome.ordinal()].increment();
+        latency.record(durationNanos);
+    }
+
+    /**
+     * Records a call that was not logged because the log budget of method was spent.
+     */
+    public void recordSuppressed() {
+        suppressedCount.increment();
+    }
+
+    /**
+     * Records time from subscription to the first element of Flux response.
+     * Ignored for non-reactive methods.
+     *
+     * @param durationNanos duration in nanoseconds
+     */
+    public void recordFirstElement(long durationNanos) {
+        if (firstElementLatency != null) {
+            firstElementLatency.record(durationNanos);
+        }
+    }
+
+    /**
+     * @return name of method as "SimpleClassName.methodName", overloaded methods share their metrics
+     */
+    public String getName() {
+        return name;
+    }
+
+    public long getCount(CallOutcome outcome) {
+        return outcomeCounts[outcome.ordinal()].sum();
+    }
+
+    /**
+     * @return number of calls not logged because the log budget of method was spent, since the start
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return histogram of time to the first element of Flux response, null for non-reactive methods
+     */
+    public LatencyHistogram getFirstElementLatency() {
+        return firstElementLatency;
+    }
+
+    public MethodMetricsSnapshot snapshot() {
+        return new MethodMetricsSnapshot(name,
+                getCount(CallOutcome.SUCCESS),
+                getCount(CallOutcome.ERROR),
+                getCount(CallOutcome.CANCEL),
+                getSuppressedCount(),
+                latency.snapshot(),
+                firstElementLatency != null ? firstElementLatency.snapshot() : null);
+    }
+}
@@ -0,0 +1,81 @@
+package com.igorivkin.msaspices.lib.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Keeps call metrics of annotated methods. Metrics of a method are created when its logging plan
+ * is built, so the registry is not touched on the per-call path. It's the in-process API to read
+ * the metrics, they are also exposed to Micrometer if it's on the classpath.
+ */
+@Component
+public class MethodMetricsRegistry {
+
+    private final ConcurrentMap<String, MethodMetrics> metrics = new ConcurrentHashMap<>();
+
+    private final Collection<Consumer<MethodMetrics>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Returns metrics of method, creates them on the first call.
+     *
+     * @param name     name of method as "SimpleClassName.methodName"
+     * @param reactive whether time to the first element of Flux response is measured
+     * @return metrics of method
+     */
+    public MethodMetrics forMethod(String name, boolean reactive) {
+        final MethodMetrics existing = metrics.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        final MethodMetrics created = new MethodMetrics(name, reactive);
+        final MethodMetrics raced = metrics.putIfAbsent(name, created);
+        if (raced != null) {
+            return raced;
+        }
+        listeners.forEach(listener -> listener.accept(created));
+        return created;
+    }
+
+    /**
+     * @param name name of method as "SimpleClassName.methodName"
+     * @return metrics of method or null if the method was not called yet
+     */
+    public MethodMetrics get(String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * @return metrics of all methods called so far
+     */
+    public Collection<MethodMetrics> getAll() {
+        return Collections.unmodifiableCollection(metrics.values());
+    }
+
+    /**
+     * @return copies of metrics of all methods called so far, sorted by name of method
+     */
+    public Map<String, MethodMetricsSnapshot> snapshot() {
+        final Map<String, MethodMetricsSnapshot> snapshot = new TreeMap<>();
+        metrics.forEach((name, methodMetrics) -> snapshot.put(name, methodMetrics.snapshot()));
+        return snapshot;
+    }
+
+    /**
+     * Adds a listener of new methods. It's called at once for the methods that are already known.
+     * A method may be passed twice if it's created while the listener is added.
+     *
+     * @param listener listener of new methods
+     */
+    public void addListener(Consumer<MethodMetrics> listener) {
+        listeners.add(listener);
+        metrics.values().forEach(listener);
+    }
+}
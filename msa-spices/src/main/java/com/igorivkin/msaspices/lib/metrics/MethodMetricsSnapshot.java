@@ -0,0 +1,82 @@
+package com.igorivkin.msaspices.lib.metrics;
+
+/**
+ * Immutable copy of {@link MethodMetrics}.
+ */
+public final class MethodMetricsSnapshot {
+
+    private final String name;
+
+    private final long successCount;
+
+    private final long errorCount;
+
+    private final long cancelCount;
+
+    private final long suppressedCount;
+
+    private final HistogramSnapshot latency;
+
+    private final HistogramSnapshot firstElementLatency;
+
+    MethodMetricsSnapshot(String name,
+                          long successCount,
+                          long errorCount,
+                          long cancelCount,
+                          long suppressedCount,
+                          HistogramSnapshot latency,
+                          HistogramSnapshot firstElementLatency) {
+        this.name = name;
+        this.successCount = successCount;
+        this.errorCount = errorCount;
+        this.cancelCount = cancelCount;
+        this.suppressedCount = suppressedCount;
+        this.latency = latency;
+        this.firstElementLatency = firstElementLatency;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getCancelCount() {
+        return cancelCount;
+    }
+
+    /**
+     * @return number of calls not logged because the log budget of method was spent
+     */
+    public long getSuppressedCount() {
+        return suppressedCount;
+    }
+
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return histogram of time to the first element of Flux response, null for non-reactive methods
+     */
+    public HistogramSnapshot getFirstElementLatency() {
+        return firstElementLatency;
+    }
+
+    @Override
+    public String toString() {
+        return name + "[success=" + successCount
+                + ", error=" + errorCount
+                + ", cancel=" + cancelCount
+                + ", suppressed=" + suppressedCount
+                + ", latency={" + latency + "}"
+                + (firstElementLatency != null ? ", firstElement={" + firstElementLatency + "}" : "")
+                + "]";
+    }
+}
@@ -0,0 +1,84 @@
+package com.igorivkin.msaspices.lib.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes call metrics of annotated methods to Micrometer. Meters read the lock-free histograms
+ * and counters in place, nothing is recorded twice. Meters of a method are registered when it's
+ * called for the first time.
+ */
+public class MicrometerMethodMetricsBinder implements MeterBinder {
+
+    static final String CALLS = "msa.spices.method.calls";
+
+    static final String SUPPRESSED = "msa.spices.method.log.suppressed";
+
+    static final String LATENCY = "msa.spices.method.latency";
+
+    static final String FIRST_ELEMENT = "msa.spices.method.first.element";
+
+    private final MethodMetricsRegistry methodMetricsRegistry;
+
+    private final List<Double> quantiles;
+
+    public MicrometerMethodMetricsBinder(MethodMetricsRegistry methodMetricsRegistry, List<Double> quantiles) {
+        this.methodMetricsRegistry = methodMetricsRegistry;
+        this.quantiles = List.copyOf(quantiles);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        methodMetricsRegistry.addListener(methodMetrics -> register(meterRegistry, methodMetrics));
+    }
+
+    private void register(MeterRegistry meterRegistry, MethodMetrics methodMetrics) {
+        final Tags tags = Tags.of("method", methodMetrics.getName());
+        for (CallOutcome outcome : CallOutcome.values()) {
+            FunctionCounter.builder(CALLS, methodMetrics, m -> m.getCount(outcome))
+                    .tags(tags.and("outcome", outcome.name().toLowerCase()))
+                    .description("Calls of annotated method by outcome")
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder(SUPPRESSED, methodMetrics, MethodMetrics::getSuppressedCount)
+                .tags(tags)
+                .description("Calls of annotated method not logged because its log budget was spent")
+                .register(meterRegistry);
+        registerHistogram(meterRegistry, LATENCY, tags, methodMetrics.getLatency(),
+                "Latency of annotated method, from subscription to the terminal signal for reactive ones");
+        if (methodMetrics.getFirstElementLatency() != null) {
+            registerHistogram(meterRegistry, FIRST_ELEMENT, tags, methodMetrics.getFirstElementLatency(),
+                    "Time from subscription to the first element of Flux response");
+        }
+    }
+
+    private void registerHistogram(MeterRegistry meterRegistry,
+                                   String name,
+                                   Tags tags,
+                                   LatencyHistogram histogram,
+                                   String description) {
+        FunctionTimer.builder(name, histogram,
+                        LatencyHistogram::getCount,
+                        LatencyHistogram::getTotalNanos,
+                        TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .description(description)
+                .register(meterRegistry);
+        TimeGauge.builder(name + ".max", histogram, TimeUnit.NANOSECONDS, LatencyHistogram::getMaxNanos)
+                .tags(tags)
+                .register(meterRegistry);
+        for (Double quantile : quantiles) {
+            TimeGauge.builder(name + ".percentile", histogram, TimeUnit.NANOSECONDS,
+                            h -> h.valueAtQuantile(quantile))
+                    .tags(tags.and("phi", String.valueOf(quantile)))
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package com.igorivkin.msaspices.lib.ratelimiter;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Defines rate limiting. Rate limiting allows to run something for the only defined times
  * per period, for example not more than 5 times per second.
  * This rate limiter is thread-safe in case if you use the same instance of rate limiter
  * in many threads. For Spring installations I recommend to autowire it as "Bean".
+ * <p>
+ * Runs are taken from a {@link TokenBucket} refilled by the callers themselves, so the rate limiter
+ * has no threads of its own and is collected as any other object when it's not used.
+ * Runs not used in a period are carried over up to the burst capacity.
  */
 public class RateLimiter {
 
@@ -16,30 +18,86 @@ public class RateLimiter {
 
     private final Integer rateValue;
 
-    private final Semaphore rateLimitingSemaphore;
+    private final TokenBucket tokenBucket;
 
     public RateLimiter(Integer rateValue, Long periodInMillis) {
+        this(rateValue, periodInMillis, rateValue);
+    }
+
+    /**
+     * @param rateValue      rate value in times
+     * @param periodInMillis period in milliseconds
+     * @param burstCapacity  max number of runs available at once after the rate limiter was not used
+     */
+    public RateLimiter(Integer rateValue, Long periodInMillis, Integer burstCapacity) {
         this.rateValue = rateValue;
         this.periodInMillis = periodInMillis;
-        this.rateLimitingSemaphore = new Semaphore(rateValue);
+        this.tokenBucket = createTokenBucket(rateValue, periodInMillis, burstCapacity);
+    }
 
-        runRateResetThread();
+    /**
+     * Creates a bucket of the rate. A rate above the capacity of bucket is kept by a shorter period
+     * with proportionally fewer runs.
+     */
+    private static TokenBucket createTokenBucket(int rateValue, long periodInMillis, int burstCapacity) {
+        final long burst = Math.min(burstCapacity, TokenBucket.MAX_CAPACITY);
+        if (rateValue <= TokenBucket.MAX_CAPACITY) {
+            return new TokenBucket(rateValue, burst, periodInMillis, TimeUnit.MILLISECONDS);
+        }
+        final long periodNanos = TimeUnit.MILLISECONDS.toNanos(periodInMillis);
+        final long scaledPeriodNanos =
+                Math.max(1L, (long) ((double) periodNanos * TokenBucket.MAX_CAPACITY / rateValue));
+        return new TokenBucket(TokenBucket.MAX_CAPACITY, burst, scaledPeriodNanos, TimeUnit.NANOSECONDS);
     }
 
     /**
      * Acquire a given number of runs.
      * In case if they are exceeded for a given period will block until limit will be reset.
+     * More runs than the burst capacity are taken by parts, waiting for refill of the limit between them.
      *
-     * @param takeRuns runs to acquire
+     * @param takeRuns runs to acquire, zero returns at once
      */
     public void acquire(Integer takeRuns) {
+        if (takeRuns < 0) {
+            throw new IllegalArgumentException("Runs should not be negative: " + takeRuns);
+        }
+        final int maxRuns = (int) tokenBucket.getBurstCapacity();
+        int leftRuns = takeRuns;
         try {
-            rateLimitingSemaphore.acquire(takeRuns);
+            while (leftRuns > 0) {
+                final int runs = Math.min(leftRuns, maxRuns);
+                while (!tokenBucket.tryAcquire(runs)) {
+                    TimeUnit.NANOSECONDS.sleep(tokenBucket.nanosToNextPeriod());
+                }
+                leftRuns -= runs;
+            }
         } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
             throw new RuntimeException(ex);
         }
     }
 
+    /**
+     * Acquire a given number of runs if they are not exceeded, never blocks.
+     *
+     * @param takeRuns runs to acquire
+     * @return true if the runs were acquired, always false for more runs than the burst capacity
+     */
+    public boolean tryAcquire(Integer takeRuns) {
+        if (takeRuns < 0) {
+            throw new IllegalArgumentException("Runs should not be negative: " + takeRuns);
+        }
+        return takeRuns == 0 || takeRuns <= tokenBucket.getBurstCapacity() && tokenBucket.tryAcquire(takeRuns);
+    }
+
+    public Integer getRateValue() {
+        return rateValue;
+    }
+
+    public Long getPeriodInMillis() {
+        return periodInMillis;
+    }
+
     /**
      * A static fabric method allows to create a rate limiter using given rate value and period in milliseconds.
      *
@@ -62,32 +120,15 @@ public class RateLimiter {
         return ofRate(rateValue, 1000L);
     }
 
-    private void runRateResetThread() {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        executorService.submit(new RateReset());
-        executorService.shutdown();
-    }
-
-
     /**
-     * A helper class used to reset currently tracked values.
-     * Resets count of runs and tracked time to compare with.
+     * A static fabric method allows to create a rate limiter that keeps unused runs up to the burst capacity.
+     *
+     * @param rateValue      rate value in times
+     * @param periodInMillis period in milliseconds
+     * @param burstCapacity  max number of runs available at once
+     * @return rate limiter instance
      */
-    private class RateReset implements Runnable {
-
-        @SuppressWarnings({"BusyWait"})
-        @Override
-        public void run() {
-            try {
-                // Runs an infinite loop to reset tracked values in a defined scheduler
-                Thread currentThread = Thread.currentThread();
-                while (!currentThread.isInterrupted()) {
-                    Thread.sleep(periodInMillis);
-                    rateLimitingSemaphore.release(rateValue);
-                }
-            } catch (InterruptedException ex) {
-                throw new RuntimeException(ex);
-            }
-        }
+    public static RateLimiter ofRate(Integer rateValue, Long periodInMillis, Integer burstCapacity) {
+        return new RateLimiter(rateValue, periodInMillis, burstCapacity);
     }
 }
@@ -0,0 +1,173 @@
+package com.igorivkin.msaspices.lib.ratelimiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free non-blocking token bucket. The bucket gets the given number of tokens per period and holds
+ * not more than its burst capacity, unused tokens are carried over up to it. The bucket is refilled lazily
+ * by the caller taking tokens, for all the periods passed since the last refill. The number of period
+ * of the last refill and the number of tokens left are packed into a single long, so a token is taken
+ * by one compare-and-set without any locks, background threads or allocations. Periods are counted
+ * from the first use of the bucket, not from its creation. Only the low 40 bits of the period number are kept
+ * and periods are compared modulo 2^40, so the number wraps around safely whatever the duration of period is.
+ */
+public final class TokenBucket {
+
+    private static final int TOKENS_BITS = 24;
+
+    private static final long TOKENS_MASK = (1L << TOKENS_BITS) - 1;
+
+    private static final long PERIOD_MASK = (1L << (Long.SIZE - TOKENS_BITS)) - 1;
+
+    /**
+     * The state is read before the time, so the period of state is not ahead of the period of caller.
+     * A small lead is still tolerated in case of a clock skew, it's not taken for a wrap-around.
+     */
+    private static final long MAX_PERIODS_AHEAD = 1L << 20;
+
+    private static final long NOT_USED = Long.MIN_VALUE;
+
+    /**
+     * Max number of tokens per period and max burst capacity.
+     */
+    public static final long MAX_CAPACITY = TOKENS_MASK;
+
+    private final long capacity;
+
+    private final long burstCapacity;
+
+    private final long periodNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final AtomicLong originNanos = new AtomicLong(NOT_USED);
+
+    private final AtomicLong state;
+
+    /**
+     * Creates a bucket that allows to take the given number of tokens per period, unused tokens
+     * are not carried over.
+     *
+     * @param capacity    number of tokens per period, from 1 to {@link #MAX_CAPACITY}
+     * @param period      duration of period
+     * @param periodUnit  unit of period
+     */
+    public TokenBucket(long capacity, long period, TimeUnit periodUnit) {
+        this(capacity, capacity, period, periodUnit);
+    }
+
+    /**
+     * Creates a bucket that gets the given number of tokens per period and holds not more than
+     * the burst capacity. The bucket is full when created.
+     *
+     * @param capacity      number of tokens per period, from 1 to {@link #MAX_CAPACITY}
+     * @param burstCapacity max number of tokens in the bucket, from 1 to {@link #MAX_CAPACITY}
+     * @param period        duration of period
+     * @param periodUnit    unit of period
+     */
+    public TokenBucket(long capacity, long burstCapacity, long period, TimeUnit periodUnit) {
+        this(capacity, burstCapacity, period, periodUnit, System::nanoTime);
+    }
+
+    TokenBucket(long capacity, long burstCapacity, long period, TimeUnit periodUnit, LongSupplier nanoClock) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity should be from 1 to " + MAX_CAPACITY + ": " + capacity);
+        }
+        if (burstCapacity < 1 || burstCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Burst capacity should be from 1 to " + MAX_CAPACITY + ": "
+                    + burstCapacity);
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period should be positive: " + period);
+        }
+        this.capacity = capacity;
+        this.burstCapacity = burstCapacity;
+        this.periodNanos = periodUnit.toNanos(period);
+        this.nanoClock = nanoClock;
+        this.state = new AtomicLong(burstCapacity);
+    }
+
+    /**
+     * Takes a token if there is one left in the bucket.
+     *
+     * @return true if the token was taken
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * Takes the given number of tokens if they are left in the bucket. Either all the tokens
+     * are taken or none of them.
+     *
+     * @param tokens number of tokens to take
+     * @return true if the tokens were taken
+     */
+    public boolean tryAcquire(int tokens) {
+        if (tokens < 1 || tokens > burstCapacity) {
+            throw new IllegalArgumentException("Tokens should be from 1 to " + burstCapacity + ": " + tokens);
+        }
+        while (true) {
+            final long current = state.get();
+            final long currentPeriod = currentPeriod() & PERIOD_MASK;
+            final long period = current >>> TOKENS_BITS;
+            final long left = current & TOKENS_MASK;
+            final long passedPeriods = (currentPeriod - period) & PERIOD_MASK;
+            final boolean ahead = passedPeriods > PERIOD_MASK - MAX_PERIODS_AHEAD;
+            final long available = passedPeriods == 0 || ahead ? left : refill(left, passedPeriods);
+            if (available < tokens) {
+                return false;
+            }
+            final long next = ((ahead ? period : currentPeriod) << TOKENS_BITS) | (available - tokens);
+            if (state.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return time left till the next refill of the bucket, in nanoseconds
+     */
+    public long nanosToNextPeriod() {
+        return periodNanos - elapsedNanos() % periodNanos;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getBurstCapacity() {
+        return burstCapacity;
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * @return tokens left after the given number of periods, not more than the burst capacity
+     */
+    private long refill(long left, long periods) {
+        // The bucket is full after burst capacity periods whatever is left, so the product doesn't overflow
+        return periods >= burstCapacity ? burstCapacity : Math.min(burstCapacity, left + periods * capacity);
+    }
+
+    private long currentPeriod() {
+        return elapsedNanos() / periodNanos;
+    }
+
+    /**
+     * @return time since the start of the first period, which is started by the first call
+     */
+    private long elapsedNanos() {
+        final long nowNanos = nanoClock.getAsLong();
+        long origin = originNanos.get();
+        if (origin == NOT_USED) {
+            origin = originNanos.compareAndSet(NOT_USED, nowNanos) ? nowNanos : originNanos.get();
+        }
+        // Another thread could start the period a bit later than this one read the time
+        return Math.max(nowNanos - origin, 0L);
+    }
+}
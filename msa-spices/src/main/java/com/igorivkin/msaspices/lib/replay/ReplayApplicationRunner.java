@@ -0,0 +1,48 @@
+package com.igorivkin.msaspices.lib.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Replays the calls of a ring file once the application is started and logs the report.
+ */
+public class ReplayApplicationRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayApplicationRunner.class);
+
+    private final ReplayRunner replayRunner;
+
+    private final ObjectMapper objectMapper;
+
+    private final Path file;
+
+    private final double speed;
+
+    private final int threads;
+
+    public ReplayApplicationRunner(ReplayRunner replayRunner,
+                                   ObjectMapper objectMapper,
+                                   Path file,
+                                   double speed,
+                                   int threads) {
+        this.replayRunner = replayRunner;
+        this.objectMapper = objectMapper;
+        this.file = file;
+        this.speed = speed;
+        this.threads = threads;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        final List<ReplayCall> calls = ReplayCall.read(file, objectMapper);
+        log.info("Replaying {} calls captured to {}", calls.size(), file);
+        final ReplayReport report = replayRunner.replay(calls, speed, threads);
+        log.info("Replay of {} is finished: {}", file, report);
+    }
+}
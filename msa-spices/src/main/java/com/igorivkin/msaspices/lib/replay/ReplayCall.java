@@ -0,0 +1,162 @@
+package com.igorivkin.msaspices.lib.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.igorivkin.msaspices.lib.capture.CaptureDirection;
+import com.igorivkin.msaspices.lib.capture.CaptureEvent;
+import com.igorivkin.msaspices.lib.capture.CaptureSpoolReader;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Captured call of annotated method assembled from the events of capture ring: parameters by name,
+ * response (elements of Flux response) or error, start time and duration.
+ */
+public final class ReplayCall {
+
+    private final String requestId;
+
+    private final String type;
+
+    private final String method;
+
+    private final long startMillis;
+
+    private final Map<String, JsonNode> parameters = new LinkedHashMap<>();
+
+    private final List<JsonNode> responses = new ArrayList<>();
+
+    private String error;
+
+    private long durationNanos = -1L;
+
+    ReplayCall(String requestId, String type, String method, long startMillis) {
+        this.requestId = requestId;
+        this.type = type;
+        this.method = method;
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Reads the calls captured to a ring file in JSON, ordered by their start. Events are assembled
+     * to calls by request ID and method, events captured in other types of conversion are skipped.
+     *
+     * @param file         path of ring file
+     * @param objectMapper mapper to read captured values
+     * @return captured calls
+     * @throws IOException if the file can't be read
+     */
+    public static List<ReplayCall> read(Path file, ObjectMapper objectMapper) throws IOException {
+        final List<CaptureEvent> events = new ArrayList<>();
+        CaptureSpoolReader.read(file, events::add);
+        return assemble(events, objectMapper);
+    }
+
+    static List<ReplayCall> assemble(List<CaptureEvent> events, ObjectMapper objectMapper) throws IOException {
+        final List<ReplayCall> calls = new ArrayList<>();
+        final Map<String, ReplayCall> openCalls = new HashMap<>();
+        for (CaptureEvent event : events) {
+            if (event.getConversionType() != LogConversionType.JSON) {
+                continue;
+            }
+            final String key = event.getRequestId() + '\n' + event.getType() + '\n' + event.getMethod();
+            ReplayCall call = openCalls.get(key);
+            if (event.getDirection() == CaptureDirection.REQUEST && (call == null || call.isFinished())) {
+                // Values of Mono parameters come by separate request events before the response
+                call = new ReplayCall(event.getRequestId(), event.getType(), event.getMethod(),
+                        event.getTimestampMillis());
+                openCalls.put(key, call);
+                calls.add(call);
+            }
+            if (call == null) {
+                // Request was overwritten in the ring
+                continue;
+            }
+            final JsonNode value = objectMapper.readTree(event.getValue());
+            if (event.getDirection() == CaptureDirection.REQUEST) {
+                final Iterator<Map.Entry<String, JsonNode>> fields = value.fields();
+                while (fields.hasNext()) {
+                    final Map.Entry<String, JsonNode> field = fields.next();
+                    call.parameters.put(field.getKey(), field.getValue());
+                }
+            } else if (event.getDirection() == CaptureDirection.RESPONSE) {
+                call.responses.add(value);
+                call.durationNanos = event.getDurationNanos();
+            } else {
+                call.error = value.asText();
+                call.durationNanos = event.getDurationNanos();
+            }
+        }
+        calls.sort(Comparator.comparingLong(ReplayCall::getStartMillis));
+        return calls;
+    }
+
+    private boolean isFinished() {
+        return !responses.isEmpty() || error != null;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * @return name of class declaring the annotated method
+     */
+    public String getType() {
+        return type;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return time of captured request in epoch milliseconds
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return captured parameters by name, parameters that are not logged are absent
+     */
+    public Map<String, JsonNode> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    /**
+     * @return captured response, or elements of Flux response; empty if the call failed or is not finished
+     */
+    public List<JsonNode> getResponses() {
+        return Collections.unmodifiableList(responses);
+    }
+
+    /**
+     * @return captured error by its type and message, null if the call didn't fail
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return duration of captured call in nanoseconds, -1 if it's not finished
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return requestId + " " + type + "." + method;
+    }
+}
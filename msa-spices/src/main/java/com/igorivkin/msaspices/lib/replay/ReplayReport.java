@@ -0,0 +1,163 @@
+package com.igorivkin.msaspices.lib.replay;
+
+import com.igorivkin.msaspices.lib.metrics.HistogramSnapshot;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of replay: number of calls by outcome, latencies of replayed calls compared with the captured ones
+ * and the first divergences of results.
+ */
+public final class ReplayReport {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.95, 0.99};
+
+    private final long callsCount;
+
+    private final long skippedCount;
+
+    private final long errorCount;
+
+    private final long divergedCount;
+
+    private final HistogramSnapshot latency;
+
+    private final HistogramSnapshot capturedLatency;
+
+    private final List<Divergence> divergences;
+
+    ReplayReport(long callsCount,
+                 long skippedCount,
+                 long errorCount,
+                 long divergedCount,
+                 HistogramSnapshot latency,
+                 HistogramSnapshot capturedLatency,
+                 List<Divergence> divergences) {
+        this.callsCount = callsCount;
+        this.skippedCount = skippedCount;
+        this.errorCount = errorCount;
+        this.divergedCount = divergedCount;
+        this.latency = latency;
+        this.capturedLatency = capturedLatency;
+        this.divergences = List.copyOf(divergences);
+    }
+
+    /**
+     * @return number of calls to replay
+     */
+    public long getCallsCount() {
+        return callsCount;
+    }
+
+    /**
+     * @return number of calls that were not replayed because their bean or method was not found
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * @return number of replayed calls that failed, whether they failed when captured or not
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return number of replayed calls whose result differs from the captured one
+     */
+    public long getDivergedCount() {
+        return divergedCount;
+    }
+
+    /**
+     * @return latency of replayed calls, until the response is complete for Mono/Flux responses
+     */
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return latency of the same calls when they were captured
+     */
+    public HistogramSnapshot getCapturedLatency() {
+        return capturedLatency;
+    }
+
+    /**
+     * @return the first divergences of results, the number of kept divergences is limited
+     */
+    public List<Divergence> getDivergences() {
+        return divergences;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder report = new StringBuilder()
+                .append("calls=").append(callsCount)
+                .append(", skipped=").append(skippedCount)
+                .append(", errors=").append(errorCount)
+                .append(", diverged=").append(divergedCount);
+        appendLatency(report.append("\nlatency, ms:  "), latency);
+        appendLatency(report.append("\ncaptured, ms: "), capturedLatency);
+        for (Divergence divergence : divergences) {
+            report.append("\n").append(divergence);
+        }
+        return report.toString();
+    }
+
+    private static void appendLatency(StringBuilder report, HistogramSnapshot histogram) {
+        report.append("count=").append(histogram.getCount());
+        for (double quantile : QUANTILES) {
+            report.append(", p").append(Math.round(quantile * 100)).append('=')
+                    .append(toMillis(histogram.valueAtQuantile(quantile)));
+        }
+        report.append(", max=").append(toMillis(histogram.getMaxNanos()));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1L);
+    }
+
+    /**
+     * Result of replayed call that differs from the captured one.
+     */
+    public static final class Divergence {
+
+        private final ReplayCall call;
+
+        private final String expected;
+
+        private final String actual;
+
+        Divergence(ReplayCall call, String expected, String actual) {
+            this.call = call;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        public ReplayCall getCall() {
+            return call;
+        }
+
+        /**
+         * @return captured result: response as JSON, elements of Flux response as JSON array or error
+         */
+        public String getExpected() {
+            return expected;
+        }
+
+        /**
+         * @return result of replayed call in the same form as {@link #getExpected()}
+         */
+        public String getActual() {
+            return actual;
+        }
+
+        @Override
+        public String toString() {
+            return call + ": expected " + expected + ", actual " + actual;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.igorivkin.msaspices.lib.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.log.LogMethod;
+import com.igorivkin.msaspices.lib.log.LogReactiveMethod;
+import com.igorivkin.msaspices.lib.metrics.LatencyHistogram;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays captured calls against the beans of application: every call is made to the bean of its declaring
+ * type with the captured parameters, at the captured pace or faster. Mono/Flux responses are awaited.
+ * Results are compared with the captured ones as JSON converted by {@link LogPreparationService}, so masked
+ * properties are compared masked.
+ * <p>
+ * Parameters that were not logged are replayed as null (default values for primitives), Flux parameters as
+ * empty Flux, masked parameters with their masks. Calls of methods that can't be found are skipped.
+ */
+public class ReplayRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayRunner.class);
+
+    /**
+     * Placeholder captured instead of responses that are not logged.
+     */
+    private static final String IGNORED = "<ignored>";
+
+    private static final int MAX_DIVERGENCES = 100;
+
+    private final ListableBeanFactory beanFactory;
+
+    private final LogPreparationService logPreparationService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration timeout;
+
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    private final Map<String, Optional<Target>> targets = new ConcurrentHashMap<>();
+
+    /**
+     * @param beanFactory           factory of beans to call
+     * @param logPreparationService service to convert results of replayed calls
+     * @param objectMapper          mapper to read captured parameters, usually the mapper of application
+     * @param timeout               max time to wait for Mono/Flux response of one call
+     */
+    public ReplayRunner(ListableBeanFactory beanFactory,
+                        LogPreparationService logPreparationService,
+                        ObjectMapper objectMapper,
+                        Duration timeout) {
+        this.beanFactory = beanFactory;
+        this.logPreparationService = logPreparationService;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Replays the calls in the order of their start.
+     *
+     * @param calls   captured calls ordered by start
+     * @param speed   pace of replay relative to the captured one, e.g. 2.0 is twice faster;
+     *                zero or negative replays the calls without delays
+     * @param threads number of threads making the calls
+     * @return report of replay
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public ReplayReport replay(List<ReplayCall> calls, double speed, int threads) throws InterruptedException {
+        final Run run = new Run();
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "msa-spices-replay-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final long startNanos = System.nanoTime();
+            final long firstMillis = calls.isEmpty() ? 0L : calls.get(0).getStartMillis();
+            for (ReplayCall call : calls) {
+                if (speed > 0) {
+                    final long offsetNanos = TimeUnit.MILLISECONDS.toNanos(call.getStartMillis() - firstMillis);
+                    final long delayNanos = startNanos + (long) (offsetNanos / speed) - System.nanoTime();
+                    if (delayNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(delayNanos);
+                    }
+                }
+                executor.execute(() -> {
+                    try {
+                        replay(call, run);
+                    } catch (RuntimeException ex) {
+                        log.warn("Replay of call {} failed", call, ex);
+                        run.errors.increment();
+                    }
+                });
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(1L, TimeUnit.MINUTES)) {
+                log.info("Replay of {} calls is in progress", calls.size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return run.report(calls.size());
+    }
+
+    private void replay(ReplayCall call, Run run) {
+        final Target target = resolveTarget(call);
+        final Object[] args;
+        try {
+            args = target != null ? target.arguments(call) : null;
+        } catch (IllegalArgumentException ex) {
+            log.debug("Parameters of call {} can't be read: {}", call, ex.getMessage());
+            run.skipped.increment();
+            return;
+        }
+        if (args == null) {
+            run.skipped.increment();
+            return;
+        }
+
+        final long startNanos = System.nanoTime();
+        Object result = null;
+        Throwable error = null;
+        try {
+            result = await(target.method.invoke(target.bean, args));
+        } catch (InvocationTargetException ex) {
+            error = ex.getTargetException();
+        } catch (IllegalAccessException ex) {
+            error = ex;
+        } catch (RuntimeException ex) {
+            // Checked errors of Mono/Flux are wrapped by block()
+            error = Exceptions.unwrap(ex);
+        }
+        run.latency.record(System.nanoTime() - startNanos);
+        if (call.getDurationNanos() >= 0) {
+            run.capturedLatency.record(call.getDurationNanos());
+        }
+        if (error != null) {
+            run.errors.increment();
+        }
+        try {
+            compare(call, target, result, error, run);
+        } catch (RuntimeException ex) {
+            // Result can't be converted to be compared, e.g. its serialization fails
+            run.diverge(call, call.getError() != null ? call.getError() : call.getResponses().toString(),
+                    "<not comparable: " + ex + ">");
+        }
+    }
+
+    /**
+     * Waits for the result of Mono response and for all the elements of Flux response.
+     */
+    private Object await(Object result) {
+        if (result instanceof Mono) {
+            return ((Mono<?>) result).block(timeout);
+        } else if (result instanceof Flux) {
+            return ((Flux<?>) result).collectList().block(timeout);
+        }
+        return result;
+    }
+
+    private void compare(ReplayCall call, Target target, Object result, Throwable error, Run run) {
+        final String expected;
+        final String actual;
+        if (call.getError() != null) {
+            if (error != null && errorType(String.valueOf(error)).equals(errorType(call.getError()))) {
+                return;
+            }
+            expected = call.getError();
+            actual = error != null ? String.valueOf(error) : toJson(result, target.flux).toString();
+        } else if (!call.getResponses().isEmpty()) {
+            final JsonNode expectedNode = target.flux
+                    ? objectMapper.createArrayNode().addAll(call.getResponses())
+                    : call.getResponses().get(0);
+            if (IGNORED.equals(call.getResponses().get(0).textValue())) {
+                return;
+            }
+            final JsonNode actualNode = error == null ? toJson(result, target.flux) : null;
+            if (expectedNode.equals(actualNode)) {
+                return;
+            }
+            expected = expectedNode.toString();
+            actual = actualNode != null ? actualNode.toString() : String.valueOf(error);
+        } else {
+            // Response was not captured, nothing to compare with
+            return;
+        }
+        run.diverge(call, expected, actual);
+    }
+
+    /**
+     * Converts the result of replayed call the same way as captured responses, elements of Flux to JSON array.
+     */
+    private JsonNode toJson(Object result, boolean flux) {
+        if (!flux || result == null) {
+            return toJson(result);
+        }
+        final ArrayNode elements = objectMapper.createArrayNode();
+        for (Object element : (List<?>) result) {
+            elements.add(toJson(element));
+        }
+        return elements;
+    }
+
+    private JsonNode toJson(Object value) {
+        if (value == null) {
+            return NullNode.getInstance();
+        }
+        try {
+            return objectMapper.readTree(logPreparationService.convertObjectToString(value, LogConversionType.JSON));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read converted result, reason: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * @return type of error from its captured form "type: message"
+     */
+    private static String errorType(String error) {
+        final int end = error.indexOf(':');
+        return end >= 0 ? error.substring(0, end) : error;
+    }
+
+    private Target resolveTarget(ReplayCall call) {
+        return targets.computeIfAbsent(call.getType() + '#' + call.getMethod(), key -> {
+            final Target target = findTarget(call.getType(), call.getMethod());
+            if (target == null) {
+                log.warn("Captured method {}.{} is not found, its calls are skipped", call.getType(), call.getMethod());
+            }
+            return Optional.ofNullable(target);
+        }).orElse(null);
+    }
+
+    /**
+     * Finds the unique bean of the declaring type and its captured method of the name.
+     */
+    private Target findTarget(String typeName, String methodName) {
+        final Class<?> type;
+        try {
+            type = ClassUtils.forName(typeName, ClassUtils.getDefaultClassLoader());
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return null;
+        }
+        final Object bean = beanFactory.getBeanProvider(type).getIfUnique();
+        if (bean == null) {
+            return null;
+        }
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(type)) {
+            if (method.getName().equals(methodName) && isCaptured(method)) {
+                final String[] parameterNames = parameterNameDiscoverer.getParameterNames(method);
+                return parameterNames != null ? new Target(bean, method, parameterNames) : null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isCaptured(Method method) {
+        final LogMethod logMethod = method.getAnnotation(LogMethod.class);
+        final LogReactiveMethod logReactiveMethod = method.getAnnotation(LogReactiveMethod.class);
+        return logMethod != null && logMethod.capture() || logReactiveMethod != null && logReactiveMethod.capture();
+    }
+
+    /**
+     * Captured method with its bean.
+     */
+    private final class Target {
+
+        private final Object bean;
+
+        private final Method method;
+
+        private final String[] parameterNames;
+
+        private final ResolvableType[] parameterTypes;
+
+        private final boolean flux;
+
+        private Target(Object bean, Method method, String[] parameterNames) {
+            this.bean = bean;
+            this.method = method;
+            this.parameterNames = parameterNames;
+            this.parameterTypes = new ResolvableType[parameterNames.length];
+            for (var i = 0; i < parameterNames.length; i++) {
+                parameterTypes[i] = ResolvableType.forMethodParameter(method, i);
+            }
+            this.flux = Flux.class.isAssignableFrom(method.getReturnType());
+            ReflectionUtils.makeAccessible(method);
+        }
+
+        /**
+         * @throws IllegalArgumentException if a captured parameter can't be read as its type
+         */
+        private Object[] arguments(ReplayCall call) {
+            final Object[] args = new Object[parameterNames.length];
+            for (var i = 0; i < args.length; i++) {
+                final JsonNode value = call.getParameters().get(parameterNames[i]);
+                final ResolvableType type = parameterTypes[i];
+                final Class<?> rawType = type.toClass();
+                if (Mono.class.isAssignableFrom(rawType)) {
+                    args[i] = value != null ? Mono.justOrEmpty(convert(value, type.getGeneric(0))) : Mono.empty();
+                } else if (Flux.class.isAssignableFrom(rawType)) {
+                    args[i] = Flux.empty();
+                } else if (value != null) {
+                    args[i] = convert(value, type);
+                } else {
+                    args[i] = rawType.isPrimitive() ? Array.get(Array.newInstance(rawType, 1), 0) : null;
+                }
+            }
+            return args;
+        }
+
+        private Object convert(JsonNode value, ResolvableType type) {
+            return objectMapper.convertValue(value, objectMapper.getTypeFactory().constructType(type.getType()));
+        }
+    }
+
+    /**
+     * Outcomes of one replay, filled by the replaying threads.
+     */
+    private static final class Run {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private final LatencyHistogram capturedLatency = new LatencyHistogram();
+
+        private final LongAdder skipped = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final AtomicLong diverged = new AtomicLong();
+
+        private final Queue<ReplayReport.Divergence> divergences = new ConcurrentLinkedQueue<>();
+
+        private void diverge(ReplayCall call, String expected, String actual) {
+            if (diverged.incrementAndGet() <= MAX_DIVERGENCES) {
+                divergences.add(new ReplayReport.Divergence(call, expected, actual));
+            }
+        }
+
+        private ReplayReport report(long callsCount) {
+            return new ReplayReport(callsCount, skipped.sum(), errors.sum(), diverged.get(), latency.snapshot(),
+                    capturedLatency.snapshot(), new ArrayList<>(divergences));
+        }
+    }
+}
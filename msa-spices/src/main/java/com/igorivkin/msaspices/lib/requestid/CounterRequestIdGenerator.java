@@ -0,0 +1,48 @@
+package com.igorivkin.msaspices.lib.requestid;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates IDs as node prefix followed by a counter, for example "a1b2c3d4-2f". IDs are short and unique
+ * within the node. Every thread takes a block of counter values from the shared counter and then
+ * increments its own local counter, so threads touch the shared state once per block only.
+ */
+public class CounterRequestIdGenerator implements RequestIdGenerator {
+
+    private static final long BLOCK_SIZE = 1024L;
+
+    private final String nodePrefix;
+
+    private final AtomicLong nextBlock = new AtomicLong();
+
+    private final ThreadLocal<long[]> threadBlock = ThreadLocal.withInitial(() -> new long[]{0L, 0L});
+
+    /**
+     * Creates a generator with a given node prefix.
+     *
+     * @param node node name, if empty a random prefix will be used
+     */
+    public CounterRequestIdGenerator(String node) {
+        if (node == null || node.isEmpty()) {
+            this.nodePrefix = Integer.toHexString(ThreadLocalRandom.current().nextInt()) + "-";
+        } else {
+            this.nodePrefix = node + "-";
+        }
+    }
+
+    public CounterRequestIdGenerator() {
+        this(null);
+    }
+
+    @Override
+    public String generate() {
+        // The first element is the next value, the second one is the end of block
+        final long[] block = threadBlock.get();
+        if (block[0] == block[1]) {
+            block[0] = nextBlock.getAndIncrement() * BLOCK_SIZE;
+            block[1] = block[0] + BLOCK_SIZE;
+        }
+        return nodePrefix + Long.toHexString(block[0]++);
+    }
+}
@@ -0,0 +1,28 @@
+package com.igorivkin.msaspices.lib.requestid;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates random UUIDs (version 4). Unlike {@link UUID#randomUUID()} it does not go through
+ * a shared SecureRandom, so it doesn't become a contention point at high rate of requests.
+ * IDs are not cryptographically strong, and they should not be used as secrets.
+ */
+public class RandomRequestIdGenerator implements RequestIdGenerator {
+
+    private static final long VERSION_MASK = 0xFFFFFFFFFFFF0FFFL;
+
+    private static final long VERSION_4 = 0x0000000000004000L;
+
+    private static final long VARIANT_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private static final long VARIANT_IETF = 0x8000000000000000L;
+
+    @Override
+    public String generate() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final long mostSignificantBits = (random.nextLong() & VERSION_MASK) | VERSION_4;
+        final long leastSignificantBits = (random.nextLong() & VARIANT_MASK) | VARIANT_IETF;
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+}
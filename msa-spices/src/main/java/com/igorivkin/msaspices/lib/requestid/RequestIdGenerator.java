@@ -0,0 +1,14 @@
+package com.igorivkin.msaspices.lib.requestid;
+
+/**
+ * Generates IDs of requests that are logged by the aspects. Define your own bean of this type
+ * to replace the generator selected by "msa-spices.log.request-id.generator".
+ * Implementations should be thread-safe and avoid shared contended state.
+ */
+public interface RequestIdGenerator {
+
+    /**
+     * @return new unique ID of request
+     */
+    String generate();
+}
@@ -0,0 +1,22 @@
+package com.igorivkin.msaspices.lib.requestid;
+
+/**
+ * Built-in strategies of request ID generation.
+ */
+public enum RequestIdGeneratorType {
+
+    /**
+     * Random UUID (version 4) based on {@link java.util.concurrent.ThreadLocalRandom}.
+     */
+    RANDOM,
+
+    /**
+     * Time-ordered UUID (version 7): unix timestamp in milliseconds followed by random bits.
+     */
+    TIME_ORDERED,
+
+    /**
+     * Node prefix followed by a counter.
+     */
+    COUNTER
+}
@@ -0,0 +1,46 @@
+package com.igorivkin.msaspices.lib.requestid;
+
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Propagates inbound request ID of servlet applications. If the request has a header with request ID
+ * (by default "X-Request-Id"), the ID is put to the MDC while the request is processed, so the aspects
+ * reuse it instead of generating a new one. The previous ID of the thread is restored.
+ */
+public class RequestIdServletFilter extends OncePerRequestFilter {
+
+    private final String headerName;
+
+    public RequestIdServletFilter(String headerName) {
+        this.headerName = headerName;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        final String requestId = request.getHeader(headerName);
+        if (requestId == null || requestId.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        final String previousRequestId = MDC.get(RequestIds.KEY);
+        MDC.put(RequestIds.KEY, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (previousRequestId != null) {
+                MDC.put(RequestIds.KEY, previousRequestId);
+            } else {
+                MDC.remove(RequestIds.KEY);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.igorivkin.msaspices.lib.requestid;
+
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Propagates inbound request ID of WebFlux applications. If the request has a header with request ID
+ * (by default "X-Request-Id"), the ID is put to the Reactor Context, so the reactive aspect
+ * reuses it instead of generating a new one.
+ */
+@Component
+public class RequestIdWebFilter implements WebFilter {
+
+    private final String headerName;
+
+    @Autowired
+    public RequestIdWebFilter(LogProperties logProperties) {
+        this.headerName = logProperties.getRequestId().getHeader();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final String requestId = exchange.getRequest().getHeaders().getFirst(headerName);
+        if (requestId == null || requestId.isEmpty()) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(RequestIds.KEY, requestId));
+    }
+}
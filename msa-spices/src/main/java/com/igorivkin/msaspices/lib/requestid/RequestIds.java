@@ -0,0 +1,43 @@
+package com.igorivkin.msaspices.lib.requestid;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Helpers to keep request ID in the MDC for blocking calls and in the Reactor Context for reactive ones.
+ */
+public final class RequestIds {
+
+    /**
+     * Key of request ID in the MDC and in the Reactor Context.
+     */
+    public static final String KEY = "request-id";
+
+    private RequestIds() {
+    }
+
+    /**
+     * Reads request ID from the Reactor Context.
+     *
+     * @param context context of subscriber
+     * @return request ID or null if context has no request ID
+     */
+    public static String get(ContextView context) {
+        return context.getOrDefault(KEY, null);
+    }
+
+    /**
+     * Puts a new request ID to the Reactor Context unless there is already one, set by the web filter
+     * from request header or by an outer annotated method.
+     *
+     * @param context   context of subscriber
+     * @param generator generator of request IDs
+     * @return context with request ID
+     */
+    public static Context putIfAbsent(Context context, RequestIdGenerator generator) {
+        if (context.hasKey(KEY)) {
+            return context;
+        }
+        return context.put(KEY, generator.generate());
+    }
+}
@@ -0,0 +1,29 @@
+package com.igorivkin.msaspices.lib.requestid;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates time-ordered UUIDs (version 7): 48 bits of unix timestamp in milliseconds
+ * followed by random bits. IDs sort by the time of request that is handy when looking for requests
+ * in logs, and they spread well in indexes.
+ */
+public class TimeOrderedRequestIdGenerator implements RequestIdGenerator {
+
+    private static final long VERSION_7 = 0x7000L;
+
+    private static final long RANDOM_A_MASK = 0x0FFFL;
+
+    private static final long VARIANT_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private static final long VARIANT_IETF = 0x8000000000000000L;
+
+    @Override
+    public String generate() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final long timestamp = System.currentTimeMillis();
+        final long mostSignificantBits = (timestamp << 16) | VERSION_7 | (random.nextLong() & RANDOM_A_MASK);
+        final long leastSignificantBits = (random.nextLong() & VARIANT_MASK) | VARIANT_IETF;
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+}
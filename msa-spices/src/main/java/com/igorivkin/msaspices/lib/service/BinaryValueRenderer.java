@@ -0,0 +1,112 @@
+package com.igorivkin.msaspices.lib.service;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * Describes binary values and streams by their type and size instead of their content. Content in memory
+ * can be identified by CRC32C of its bounded prefix, so the cost doesn't depend on the size of value.
+ * Streams, files and parts are never read, and positions of buffers are not changed.
+ */
+final class BinaryValueRenderer {
+
+    private static final ThreadLocal<CRC32C> CHECKSUM = ThreadLocal.withInitial(CRC32C::new);
+
+    private BinaryValueRenderer() {
+    }
+
+    /**
+     * @param value           binary value or stream
+     * @param hashPrefixBytes number of first bytes to compute checksum of, zero disables checksum
+     * @return short description of value
+     */
+    static String describe(Object value, int hashPrefixBytes) {
+        if (value instanceof byte[]) {
+            final byte[] bytes = (byte[]) value;
+            final StringBuilder description = new StringBuilder("byte[").append(bytes.length);
+            if (hashPrefixBytes > 0) {
+                final int length = Math.min(bytes.length, hashPrefixBytes);
+                final CRC32C checksum = resetChecksum();
+                checksum.update(bytes, 0, length);
+                appendChecksum(description, length, checksum);
+            }
+            return description.append(']').toString();
+        } else if (value instanceof ByteBuffer) {
+            final ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            return describeBuffer("ByteBuffer[remaining=", buffer.remaining(), buffer, hashPrefixBytes);
+        } else if (value instanceof DataBuffer) {
+            final DataBuffer dataBuffer = (DataBuffer) value;
+            final int readable = dataBuffer.readableByteCount();
+            final ByteBuffer prefix = hashPrefixBytes > 0
+                    ? dataBuffer.asByteBuffer(dataBuffer.readPosition(), Math.min(readable, hashPrefixBytes))
+                    : null;
+            return describeBuffer("DataBuffer[readable=", readable, prefix, hashPrefixBytes);
+        } else if (value instanceof MultipartFile) {
+            final MultipartFile file = (MultipartFile) value;
+            return "MultipartFile[name=" + file.getName()
+                    + ", filename=" + file.getOriginalFilename()
+                    + ", contentType=" + file.getContentType()
+                    + ", size=" + file.getSize() + "]";
+        } else if (value instanceof FilePart) {
+            final FilePart part = (FilePart) value;
+            return "FilePart[name=" + part.name()
+                    + ", filename=" + part.filename()
+                    + ", contentType=" + part.headers().getContentType() + "]";
+        } else if (value instanceof ByteArrayResource || value instanceof FileSystemResource) {
+            final Resource resource = (Resource) value;
+            return "Resource[" + resource.getDescription() + ", length=" + contentLength(resource) + "]";
+        } else if (value instanceof Resource) {
+            // Length of other resources can require reading of their content
+            return "Resource[" + ((Resource) value).getDescription() + "]";
+        }
+        return value.getClass().getSimpleName();
+    }
+
+    /**
+     * @param prefix          beginning of description
+     * @param size            size of buffer
+     * @param content         view of content that can be consumed, null if checksum is disabled
+     * @param hashPrefixBytes number of first bytes to compute checksum of
+     */
+    private static String describeBuffer(String prefix, int size, ByteBuffer content, int hashPrefixBytes) {
+        final StringBuilder description = new StringBuilder(prefix).append(size);
+        if (hashPrefixBytes > 0 && content != null) {
+            final int length = Math.min(content.remaining(), hashPrefixBytes);
+            content.limit(content.position() + length);
+            final CRC32C checksum = resetChecksum();
+            checksum.update(content);
+            appendChecksum(description, length, checksum);
+        }
+        return description.append(']').toString();
+    }
+
+    private static CRC32C resetChecksum() {
+        final CRC32C checksum = CHECKSUM.get();
+        checksum.reset();
+        return checksum;
+    }
+
+    private static void appendChecksum(StringBuilder description, int length, CRC32C checksum) {
+        final String hex = Long.toHexString(checksum.getValue());
+        description.append(", crc32c(").append(length).append(")=");
+        for (var i = hex.length(); i < 8; i++) {
+            description.append('0');
+        }
+        description.append(hex);
+    }
+
+    private static String contentLength(Resource resource) {
+        try {
+            return String.valueOf(resource.contentLength());
+        } catch (Exception ex) {
+            return "unknown";
+        }
+    }
+}
@@ -1,31 +1,74 @@
 package com.igorivkin.msaspices.lib.service;
 
+import com.igorivkin.msaspices.lib.config.LogProperties;
 import com.igorivkin.msaspices.lib.convert.LogConversionType;
 import com.igorivkin.msaspices.lib.convert.LogConverter;
+import com.igorivkin.msaspices.lib.convert.LogLimits;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ResolvableType;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Provides the functionality to prepare the objects for logging.
  * All the converters defined by their conversion type (for example JSON). Every converter should implement
  * an interface LogConverter and be valid @Component. This way we are able to find a suitable converter
  * using conversion type.
+ * <p>
+ * Simple values (strings, numbers, enums, UUIDs, java.time values and small collections of them) are rendered
+ * to JSON by hand-written appenders, and infrastructure objects (requests, exchanges, principals) get short
+ * descriptions, so only the beans are passed to converters. Binary values and streams are described by their size
+ * and checksum of a bounded prefix, streams are never read. The kind of value is resolved once per class.
+ * Every kind of simple values is checked by probes against the JSON converter when the service is created,
+ * and only the kinds rendered exactly the same way are used.
  */
 @Service
 public class LogPreparationService {
 
+    private static final Map<ValueKind, List<Object>> PROBES = createProbes();
+
     private final Map<LogConversionType, LogConverter> converters;
 
+    private final Set<ValueKind> jsonFastPathKinds;
+
+    private final int hashPrefixBytes;
+
     @Autowired
+    public LogPreparationService(List<LogConverter> converterList, ObjectProvider<LogProperties> logProperties) {
+        this(converterList, logProperties.getIfAvailable(LogProperties::new));
+    }
+
     public LogPreparationService(List<LogConverter> converterList) {
+        this(converterList, new LogProperties());
+    }
+
+    private LogPreparationService(List<LogConverter> converterList, LogProperties logProperties) {
         converters = new HashMap<>();
         for (LogConverter converter : converterList) {
             converters.put(converter.getConversionType(), converter);
         }
+        jsonFastPathKinds = probeFastPathKinds(converters.get(LogConversionType.JSON));
+        hashPrefixBytes = logProperties.getBinary().getHashPrefixBytes();
     }
 
     /**
@@ -35,11 +78,79 @@ public class LogPreparationService {
      * @return string representation of object to log
      */
     public String convertObjectToString(Object obj, LogConversionType conversionType) {
-        LogConverter logConverter = converters.get(conversionType);
-        if (logConverter == null) {
-            throw new IllegalStateException("Cannot find converter for conversion type: " + conversionType);
+        if (obj != null) {
+            final StringBuilder target = new StringBuilder();
+            if (appendFast(obj, conversionType, LogLimits.UNLIMITED, target)) {
+                return target.toString();
+            }
+        }
+        return getConverter(conversionType).convertObjectToString(obj);
+    }
+
+    /**
+     * Appends string representation of an object to the target buffer.
+     *
+     * @param obj            object to logging
+     * @param conversionType type of conversion
+     * @param target         buffer to append to
+     */
+    public void appendObject(Object obj, LogConversionType conversionType, StringBuilder target) {
+        appendObject(obj, conversionType, LogLimits.UNLIMITED, target);
+    }
+
+    /**
+     * Appends string representation of an object to the target buffer, the conversion stops
+     * as soon as a limit is reached.
+     *
+     * @param obj            object to logging
+     * @param conversionType type of conversion
+     * @param limits         limits of conversion
+     * @param target         buffer to append to
+     */
+    public void appendObject(Object obj, LogConversionType conversionType, LogLimits limits, StringBuilder target) {
+        if (obj != null && appendFast(obj, conversionType, limits, target)) {
+            return;
+        }
+        getConverter(conversionType).appendObject(obj, target, limits);
+    }
+
+    /**
+     * Writes an object to a byte sink: raw bytes for binary types of conversion, UTF-8 text for others.
+     * The sink is not closed.
+     *
+     * @param obj            object to logging
+     * @param conversionType type of conversion
+     * @param target         sink to write to
+     * @throws IOException if the sink fails
+     */
+    public void writeObject(Object obj, LogConversionType conversionType, OutputStream target) throws IOException {
+        if (!conversionType.isBinary()) {
+            final StringBuilder buffer = new StringBuilder();
+            if (obj != null && appendFast(obj, conversionType, LogLimits.UNLIMITED, buffer)) {
+                target.write(buffer.toString().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            // Other values are written by the converter, JSON goes to the sink without an intermediate string
+            getConverter(conversionType).writeObject(obj, target);
+            return;
+        }
+        final String description = obj != null ? describe(obj, ValueKind.of(obj.getClass())) : null;
+        getConverter(conversionType).writeObject(description != null ? description : obj, target);
+    }
+
+    /**
+     * Builds serializers of a declared type of parameters or responses ahead of the first conversion.
+     * Infrastructure and binary values are skipped, they are never serialized by converters.
+     *
+     * @param type           declared type of logged values
+     * @param conversionType type of conversion
+     */
+    public void warmUp(Type type, LogConversionType conversionType) {
+        final LogConverter converter = converters.get(conversionType);
+        final ValueKind kind = ValueKind.of(ResolvableType.forType(type).toClass());
+        if (converter != null && kind != ValueKind.INFRASTRUCTURE && kind != ValueKind.BINARY) {
+            converter.warmUp(type);
         }
-        return logConverter.convertObjectToString(obj);
     }
 
     /**
@@ -51,5 +162,153 @@ public class LogPreparationService {
     public String convertObjectToString(Object obj) {
         return convertObjectToString(obj, LogConversionType.JSON);
     }
-}
 
+    /**
+     * Renders simple and infrastructure values without converter.
+     *
+     * @return true if the value is rendered, false if it should be passed to converter
+     */
+    private boolean appendFast(Object obj, LogConversionType conversionType, LogLimits limits, StringBuilder target) {
+        final ValueKind kind = ValueKind.of(obj.getClass());
+        if (conversionType.isBinary()) {
+            // Descriptions are encoded by the binary converter as strings
+            final String description = describe(obj, kind);
+            if (description == null) {
+                return false;
+            }
+            getConverter(conversionType).appendObject(description, target, limits);
+            return true;
+        }
+        final int start = target.length();
+        if (kind == ValueKind.INFRASTRUCTURE) {
+            SimpleValueRenderer.appendInfrastructure(obj, conversionType, target);
+        } else if (kind == ValueKind.BINARY) {
+            SimpleValueRenderer.appendDescription(BinaryValueRenderer.describe(obj, hashPrefixBytes),
+                    conversionType, target);
+        } else if (conversionType != LogConversionType.JSON || !jsonFastPathKinds.contains(kind)) {
+            return false;
+        } else if (kind == ValueKind.COLLECTION) {
+            final Collection<?> collection = (Collection<?>) obj;
+            if (limits.getMaxElements() > 0 || limits.getMaxDepth() > 0
+                    || !SimpleValueRenderer.isSimpleCollection(collection, jsonFastPathKinds)) {
+                return false;
+            }
+            SimpleValueRenderer.appendCollection(collection, limits, target);
+        } else {
+            if (SimpleValueRenderer.isDocument(kind, obj)) {
+                return false;
+            }
+            SimpleValueRenderer.appendScalar(kind, obj, limits, target);
+        }
+
+        if (limits.getMaxOutputChars() > 0 && target.length() - start > limits.getMaxOutputChars()) {
+            target.setLength(start + limits.getMaxOutputChars());
+            target.append(LogLimits.TRUNCATION_MARKER);
+        }
+        return true;
+    }
+
+    /**
+     * Describes infrastructure and binary values, they are never serialized by converters.
+     *
+     * @return description of value or null if the value is serialized
+     */
+    private String describe(Object obj, ValueKind kind) {
+        if (kind == ValueKind.INFRASTRUCTURE) {
+            return SimpleValueRenderer.describeInfrastructure(obj);
+        } else if (kind == ValueKind.BINARY) {
+            return BinaryValueRenderer.describe(obj, hashPrefixBytes);
+        }
+        return null;
+    }
+
+    /**
+     * @return kinds of simple values rendered to JSON without converter
+     */
+    Set<ValueKind> getJsonFastPathKinds() {
+        return jsonFastPathKinds;
+    }
+
+    private LogConverter getConverter(LogConversionType conversionType) {
+        LogConverter logConverter = converters.get(conversionType);
+        if (logConverter == null) {
+            throw new IllegalStateException("Cannot find converter for conversion type: " + conversionType);
+        }
+        return logConverter;
+    }
+
+    /**
+     * Compares the hand-written rendering of probe values with the output of JSON converter.
+     *
+     * @param converter JSON converter
+     * @return kinds of values rendered by hand
+     */
+    private static Set<ValueKind> probeFastPathKinds(LogConverter converter) {
+        final Set<ValueKind> kinds = EnumSet.noneOf(ValueKind.class);
+        if (converter == null) {
+            return kinds;
+        }
+        PROBES.forEach((kind, probes) -> {
+            if (probes.stream().allMatch(probe -> rendersAsConverter(converter, probe))) {
+                kinds.add(kind);
+            }
+        });
+        if (!kinds.containsAll(EnumSet.of(ValueKind.STRING, ValueKind.INTEGRAL, ValueKind.BOOLEAN))) {
+            // Collections are probed with these values, so they're not used without them
+            kinds.remove(ValueKind.COLLECTION);
+        }
+        return Collections.unmodifiableSet(kinds);
+    }
+
+    private static boolean rendersAsConverter(LogConverter converter, Object probe) {
+        try {
+            final StringBuilder rendered = new StringBuilder();
+            final ValueKind kind = ValueKind.of(probe.getClass());
+            if (kind == ValueKind.COLLECTION) {
+                SimpleValueRenderer.appendCollection((Collection<?>) probe, LogLimits.UNLIMITED, rendered);
+            } else {
+                SimpleValueRenderer.appendScalar(kind, probe, LogLimits.UNLIMITED, rendered);
+            }
+            return rendered.toString().equals(converter.convertObjectToString(probe));
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private static Map<ValueKind, List<Object>> createProbes() {
+        final Map<ValueKind, List<Object>> probes = new EnumMap<>(ValueKind.class);
+        probes.put(ValueKind.STRING, List.of("plain",
+                "quote \" backslash \\ slash / controls \u0000\u0001\u001f\b\t\f\n\r\u007f"
+                        + " unicode \u00e9 \u2028 \uD83D\uDE00"));
+        probes.put(ValueKind.INTEGRAL, List.of(Integer.MIN_VALUE, Long.MAX_VALUE, (short) -5, (byte) 7));
+        probes.put(ValueKind.FLOATING, List.of(1.5d, 1.0E-5d, 1.0E21d, -0.0d, Double.NaN,
+                Double.POSITIVE_INFINITY, 0.1f, Float.NEGATIVE_INFINITY));
+        probes.put(ValueKind.BIG_DECIMAL, List.of(new BigDecimal("1E+3"), new BigDecimal("12.50")));
+        probes.put(ValueKind.BIG_INTEGER, List.of(new BigInteger("123456789012345678901234567890")));
+        probes.put(ValueKind.BOOLEAN, List.of(true, false));
+        probes.put(ValueKind.CHARACTER, List.of('c', '"'));
+        probes.put(ValueKind.ENUM, List.of(ProbeEnum.VALUE, ProbeEnum.OTHER));
+        probes.put(ValueKind.UUID, List.of(UUID.fromString("123e4567-e89b-12d3-a456-426614174000")));
+        probes.put(ValueKind.LOCAL_DATE, List.of(LocalDate.of(2022, 8, 1), LocalDate.of(12345, 1, 1)));
+        probes.put(ValueKind.LOCAL_TIME, List.of(LocalTime.of(12, 30), LocalTime.of(12, 30, 15, 123_000_000)));
+        probes.put(ValueKind.LOCAL_DATE_TIME, List.of(LocalDateTime.of(2022, 8, 1, 12, 30),
+                LocalDateTime.of(2022, 8, 1, 12, 30, 15, 1000)));
+        probes.put(ValueKind.INSTANT, List.of(Instant.ofEpochSecond(1659357000L),
+                Instant.ofEpochSecond(1659357000L, 123_456_789)));
+        probes.put(ValueKind.COLLECTION, List.of(List.of("a", 1, true), List.of()));
+        return probes;
+    }
+
+    /**
+     * Enum rendered differently by its name and by its string representation.
+     */
+    private enum ProbeEnum {
+        VALUE,
+        OTHER;
+
+        @Override
+        public String toString() {
+            return "probe-" + ordinal();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.igorivkin.msaspices.lib.service;
+
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogLimits;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.security.Principal;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Hand-written JSON appenders of simple values. They produce exactly the same output as Jackson
+ * with the settings of library: strings are escaped the same way, java.time values are written
+ * by ISO formatters. The service checks it by probes against the JSON converter and uses only
+ * the kinds that match. Infrastructure objects get short descriptions instead of their state.
+ */
+final class SimpleValueRenderer {
+
+    /**
+     * Max size of collection rendered by hand, larger ones are passed to the converter.
+     */
+    static final int MAX_COLLECTION_SIZE = 64;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private SimpleValueRenderer() {
+    }
+
+    /**
+     * Appends JSON of a scalar value.
+     *
+     * @param kind   kind of value, should be scalar
+     * @param value  non-null value
+     * @param limits limits of conversion
+     * @param target buffer to append to
+     */
+    static void appendScalar(ValueKind kind, Object value, LogLimits limits, StringBuilder target) {
+        switch (kind) {
+            case STRING:
+                appendString((String) value, limits.getMaxStringLength(), target);
+                break;
+            case INTEGRAL:
+                target.append(((Number) value).longValue());
+                break;
+            case FLOATING:
+                appendFloating((Number) value, target);
+                break;
+            case BIG_DECIMAL:
+            case BIG_INTEGER:
+                target.append(value);
+                break;
+            case BOOLEAN:
+                target.append(((Boolean) value).booleanValue());
+                break;
+            case CHARACTER:
+                appendString(String.valueOf(value), 0, target);
+                break;
+            case ENUM:
+                appendString(((Enum<?>) value).name(), limits.getMaxStringLength(), target);
+                break;
+            case UUID:
+                target.append('"').append(value).append('"');
+                break;
+            case LOCAL_DATE:
+                appendTemporal(DateTimeFormatter.ISO_LOCAL_DATE, (TemporalAccessor) value, target);
+                break;
+            case LOCAL_TIME:
+                appendTemporal(DateTimeFormatter.ISO_LOCAL_TIME, (TemporalAccessor) value, target);
+                break;
+            case LOCAL_DATE_TIME:
+                appendTemporal(DateTimeFormatter.ISO_LOCAL_DATE_TIME, (TemporalAccessor) value, target);
+                break;
+            case INSTANT:
+                appendTemporal(DateTimeFormatter.ISO_INSTANT, (TemporalAccessor) value, target);
+                break;
+            default:
+                throw new IllegalArgumentException("Value of kind " + kind + " is not scalar");
+        }
+    }
+
+    /**
+     * Checks if a collection can be rendered by hand: it's small enough, and all of its elements
+     * are null or scalars of the supported kinds.
+     *
+     * @param collection     collection to check
+     * @param supportedKinds kinds of values rendered by hand
+     * @return true if the collection can be rendered by hand
+     */
+    static boolean isSimpleCollection(Collection<?> collection, Set<ValueKind> supportedKinds) {
+        if (collection.size() > MAX_COLLECTION_SIZE) {
+            return false;
+        }
+        for (Object element : collection) {
+            if (element != null) {
+                final ValueKind kind = ValueKind.of(element.getClass());
+                if (!kind.isScalar() || !supportedKinds.contains(kind) || isDocument(kind, element)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends JSON array of a collection checked by {@link #isSimpleCollection(Collection, Set)}.
+     */
+    static void appendCollection(Collection<?> collection, LogLimits limits, StringBuilder target) {
+        target.append('[');
+        var first = true;
+        for (Object element : collection) {
+            if (!first) {
+                target.append(',');
+            }
+            if (element == null) {
+                target.append("null");
+            } else {
+                appendScalar(ValueKind.of(element.getClass()), element, limits, target);
+            }
+            first = false;
+        }
+        target.append(']');
+    }
+
+    /**
+     * Strings looking like JSON/XML documents are passed to the converter, so the fields embedded
+     * in them can be masked.
+     *
+     * @param kind  kind of value
+     * @param value non-null value
+     * @return true if the value is a string that looks like a document
+     */
+    static boolean isDocument(ValueKind kind, Object value) {
+        if (kind != ValueKind.STRING) {
+            return false;
+        }
+        final String text = (String) value;
+        for (var i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{' || c == '[' || c == '<';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends a short description of an infrastructure object. It is written as a string for JSON
+     * and as a plain text for other types of conversion.
+     *
+     * @param value          infrastructure object
+     * @param conversionType type of conversion
+     * @param target         buffer to append to
+     */
+    static void appendInfrastructure(Object value, LogConversionType conversionType, StringBuilder target) {
+        appendDescription(describeInfrastructure(value), conversionType, target);
+    }
+
+    /**
+     * Appends a description of value. It is written as a string for JSON and as a plain text
+     * for other types of conversion.
+     *
+     * @param description    description of value
+     * @param conversionType type of conversion
+     * @param target         buffer to append to
+     */
+    static void appendDescription(String description, LogConversionType conversionType, StringBuilder target) {
+        if (conversionType == LogConversionType.JSON) {
+            appendString(description, 0, target);
+        } else {
+            target.append(description);
+        }
+    }
+
+    /**
+     * Describes an infrastructure value, e.g. a request or a principal, without its state.
+     *
+     * @param value infrastructure value
+     * @return short description of value
+     */
+    static String describeInfrastructure(Object value) {
+        if (value instanceof ServerWebExchange) {
+            return "ServerWebExchange[" + describeRequest(((ServerWebExchange) value).getRequest()) + "]";
+        } else if (value instanceof ServerHttpRequest) {
+            return "ServerHttpRequest[" + describeRequest((ServerHttpRequest) value) + "]";
+        } else if (value instanceof ServerHttpResponse) {
+            return "ServerHttpResponse[" + ((ServerHttpResponse) value).getStatusCode() + "]";
+        } else if (value instanceof Principal) {
+            return "Principal[" + ((Principal) value).getName() + "]";
+        }
+        // Session IDs and the state of servlet objects are never logged
+        return value.getClass().getSimpleName();
+    }
+
+    private static String describeRequest(ServerHttpRequest request) {
+        return request.getMethodValue() + " " + request.getPath().value();
+    }
+
+    private static void appendFloating(Number value, StringBuilder target) {
+        final double doubleValue = value.doubleValue();
+        if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+            // Non-numeric values are quoted by Jackson
+            target.append('"').append(value).append('"');
+        } else if (value instanceof Float) {
+            target.append(value.floatValue());
+        } else {
+            target.append(doubleValue);
+        }
+    }
+
+    private static void appendTemporal(DateTimeFormatter formatter, TemporalAccessor value, StringBuilder target) {
+        target.append('"');
+        formatter.formatTo(value, target);
+        target.append('"');
+    }
+
+    /**
+     * Appends quoted and escaped string the same way as Jackson: quote, backslash and control chars
+     * are escaped, other chars are written as they are.
+     */
+    private static void appendString(String value, int maxLength, StringBuilder target) {
+        final boolean cut = maxLength > 0 && value.length() > maxLength;
+        final int length = cut ? maxLength : value.length();
+        target.append('"');
+        var start = 0;
+        for (var i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            target.append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    target.append("\\\"");
+                    break;
+                case '\\':
+                    target.append("\\\\");
+                    break;
+                case '\b':
+                    target.append("\\b");
+                    break;
+                case '\t':
+                    target.append("\\t");
+                    break;
+                case '\f':
+                    target.append("\\f");
+                    break;
+                case '\n':
+                    target.append("\\n");
+                    break;
+                case '\r':
+                    target.append("\\r");
+                    break;
+                default:
+                    target.append("\\u00")
+                            .append(HEX_DIGITS[c >> 4])
+                            .append(HEX_DIGITS[c & 0x0F]);
+                    break;
+            }
+        }
+        target.append(value, start, length);
+        if (cut) {
+            target.append(LogLimits.STRING_TRUNCATION_MARKER);
+        }
+        target.append('"');
+    }
+}
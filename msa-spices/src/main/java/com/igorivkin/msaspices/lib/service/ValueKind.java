@@ -0,0 +1,188 @@
+package com.igorivkin.msaspices.lib.service;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotation;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.WebSession;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Kind of logged value defining the way it's rendered. Simple values are rendered by hand-written appenders,
+ * binary values, streams and infrastructure objects get short descriptions, and only the beans are passed
+ * to the converters.
+ * The kind is resolved once per class.
+ */
+enum ValueKind {
+    STRING,
+    INTEGRAL,
+    FLOATING,
+    BIG_DECIMAL,
+    BIG_INTEGER,
+    BOOLEAN,
+    CHARACTER,
+    ENUM,
+    UUID,
+    LOCAL_DATE,
+    LOCAL_TIME,
+    LOCAL_DATE_TIME,
+    INSTANT,
+    COLLECTION,
+    BINARY,
+    INFRASTRUCTURE,
+    BEAN;
+
+    /**
+     * Names of infrastructure types that may be absent in classpath, matched by the names of supertypes.
+     */
+    private static final Set<String> INFRASTRUCTURE_TYPE_NAMES = Set.of(
+            "javax.servlet.ServletRequest",
+            "javax.servlet.ServletResponse",
+            "javax.servlet.http.HttpSession",
+            "jakarta.servlet.ServletRequest",
+            "jakarta.servlet.ServletResponse",
+            "jakarta.servlet.http.HttpSession");
+
+    private static final ClassValue<ValueKind> KINDS = new ClassValue<>() {
+        @Override
+        protected ValueKind computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    static ValueKind of(Class<?> type) {
+        return KINDS.get(type);
+    }
+
+    /**
+     * @return true if the values of this kind are rendered without converter
+     */
+    boolean isScalar() {
+        return this != COLLECTION && this != BINARY && this != INFRASTRUCTURE && this != BEAN;
+    }
+
+    private static ValueKind resolve(Class<?> type) {
+        if (type == String.class) {
+            return STRING;
+        } else if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class) {
+            return INTEGRAL;
+        } else if (type == Double.class || type == Float.class) {
+            return FLOATING;
+        } else if (type == BigDecimal.class) {
+            return BIG_DECIMAL;
+        } else if (type == BigInteger.class) {
+            return BIG_INTEGER;
+        } else if (type == Boolean.class) {
+            return BOOLEAN;
+        } else if (type == Character.class) {
+            return CHARACTER;
+        } else if (type == java.util.UUID.class) {
+            return UUID;
+        } else if (type == LocalDate.class) {
+            return LOCAL_DATE;
+        } else if (type == LocalTime.class) {
+            return LOCAL_TIME;
+        } else if (type == LocalDateTime.class) {
+            return LOCAL_DATE_TIME;
+        } else if (type == Instant.class) {
+            return INSTANT;
+        } else if (Enum.class.isAssignableFrom(type)) {
+            return isPlainEnum(type) ? ENUM : BEAN;
+        } else if (isBinary(type)) {
+            return BINARY;
+        } else if (Collection.class.isAssignableFrom(type) && type.getName().startsWith("java.util.")) {
+            return COLLECTION;
+        } else if (isInfrastructure(type)) {
+            return INFRASTRUCTURE;
+        }
+        return BEAN;
+    }
+
+    /**
+     * Enum is rendered by its name unless Jackson annotations customize it.
+     */
+    private static boolean isPlainEnum(Class<?> type) {
+        final Class<?> enumType = type.isEnum() ? type : type.getSuperclass();
+        if (hasJacksonAnnotations(enumType)) {
+            return false;
+        }
+        for (AnnotatedElement field : enumType.getDeclaredFields()) {
+            if (hasJacksonAnnotations(field)) {
+                return false;
+            }
+        }
+        for (AnnotatedElement method : enumType.getDeclaredMethods()) {
+            if (hasJacksonAnnotations(method)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasJacksonAnnotations(AnnotatedElement element) {
+        for (Annotation annotation : element.getDeclaredAnnotations()) {
+            final Class<? extends Annotation> annotationType = annotation.annotationType();
+            if (annotationType.isAnnotationPresent(JacksonAnnotation.class)
+                    || annotationType.getName().startsWith("com.fasterxml.jackson.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBinary(Class<?> type) {
+        return type == byte[].class
+                || ByteBuffer.class.isAssignableFrom(type)
+                || DataBuffer.class.isAssignableFrom(type)
+                || InputStream.class.isAssignableFrom(type)
+                || Reader.class.isAssignableFrom(type)
+                || MultipartFile.class.isAssignableFrom(type)
+                || FilePart.class.isAssignableFrom(type)
+                || Resource.class.isAssignableFrom(type);
+    }
+
+    private static boolean isInfrastructure(Class<?> type) {
+        if (ServerWebExchange.class.isAssignableFrom(type)
+                || ServerHttpRequest.class.isAssignableFrom(type)
+                || ServerHttpResponse.class.isAssignableFrom(type)
+                || WebSession.class.isAssignableFrom(type)
+                || Principal.class.isAssignableFrom(type)) {
+            return true;
+        }
+        return hasInfrastructureSupertype(type);
+    }
+
+    private static boolean hasInfrastructureSupertype(Class<?> type) {
+        if (type == null || type == Object.class) {
+            return false;
+        }
+        if (INFRASTRUCTURE_TYPE_NAMES.contains(type.getName())) {
+            return true;
+        }
+        for (Class<?> superInterface : type.getInterfaces()) {
+            if (hasInfrastructureSupertype(superInterface)) {
+                return true;
+            }
+        }
+        return hasInfrastructureSupertype(type.getSuperclass());
+    }
+}
@@ -0,0 +1,271 @@
+package com.igorivkin.msaspices.lib.capture;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.convert.LogSmileConverter;
+import com.igorivkin.msaspices.lib.model.LogMethodTestRequest;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Unit-tests of capture spool in a ring file")
+public class CaptureSpoolTests {
+
+    private static final int CAPACITY = 64 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LogPreparationService logPreparationService = new LogPreparationService(List.of(
+            new LogJsonConverter(objectMapper),
+            new LogSmileConverter(new ObjectMapper(new SmileFactory()))));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Capture - events are read back with their headers and values")
+    public void append_readBack() throws Exception {
+        try (CaptureSpool spool = spool(CAPACITY, LogConversionType.JSON)) {
+            assertThat(spool.append(CaptureDirection.REQUEST, "r-1", "TestService", "testMethod", -1L,
+                    Map.of("param2", request("Igor")))).isTrue();
+            assertThat(spool.append(CaptureDirection.RESPONSE, "r-1", "TestService", "testMethod", 1_500_000L, 42L)).isTrue();
+
+            List<CaptureEvent> events = read(spool);
+
+            assertThat(events).hasSize(2);
+            CaptureEvent request = events.get(0);
+            assertThat(request.getDirection()).isEqualTo(CaptureDirection.REQUEST);
+            assertThat(request.getRequestId()).isEqualTo("r-1");
+            assertThat(request.getType()).isEqualTo("TestService");
+            assertThat(request.getMethod()).isEqualTo("testMethod");
+            assertThat(request.getDurationNanos()).isEqualTo(-1L);
+            assertThat(request.getConversionType()).isEqualTo(LogConversionType.JSON);
+            assertThat(request.getValueAsString()).isEqualTo("{\"param2\":{\"name\":\"Igor\",\"salary\":10000}}");
+            CaptureEvent response = events.get(1);
+            assertThat(response.getDirection()).isEqualTo(CaptureDirection.RESPONSE);
+            assertThat(response.getDurationNanos()).isEqualTo(1_500_000L);
+            assertThat(response.getValueAsString()).isEqualTo("42");
+            assertThat(response.getTimestampMillis()).isGreaterThanOrEqualTo(request.getTimestampMillis());
+        }
+    }
+
+    @Test
+    @DisplayName("Capture - the oldest events are overwritten when the ring is full")
+    public void append_wrapAround() throws Exception {
+        try (CaptureSpool spool = spool(4096, LogConversionType.JSON)) {
+            for (int i = 0; i < 500; i++) {
+                assertThat(spool.append(CaptureDirection.RESPONSE, "r-" + i, "TestService", "testMethod", 0L, "value " + i)).isTrue();
+            }
+
+            List<CaptureEvent> events = read(spool);
+
+            assertThat(events).isNotEmpty().hasSizeLessThan(500);
+            int first = Integer.parseInt(events.get(0).getRequestId().substring(2));
+            for (int i = 0; i < events.size(); i++) {
+                assertThat(events.get(i).getRequestId()).isEqualTo("r-" + (first + i));
+            }
+            assertThat(events.get(events.size() - 1).getRequestId()).isEqualTo("r-499");
+        }
+    }
+
+    @Test
+    @DisplayName("Capture - the ring is continued after reopening")
+    public void append_reopen() throws Exception {
+        try (CaptureSpool spool = spool(CAPACITY, LogConversionType.JSON)) {
+            spool.append(CaptureDirection.REQUEST, "r-1", "TestService", "testMethod", -1L, Map.of());
+        }
+        try (CaptureSpool spool = spool(CAPACITY, LogConversionType.JSON)) {
+            spool.append(CaptureDirection.REQUEST, "r-2", "TestService", "testMethod", -1L, Map.of());
+
+            assertThat(read(spool)).extracting(CaptureEvent::getRequestId).containsExactly("r-1", "r-2");
+        }
+    }
+
+    @Test
+    @DisplayName("Capture - concurrent appends don't lose or tear events")
+    public void append_concurrent() throws Exception {
+        int threads = 8;
+        int eventsPerThread = 1000;
+        try (CaptureSpool spool = spool(4 * 1024 * 1024, LogConversionType.JSON)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < threads; t++) {
+                String requestId = "thread-" + t;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    for (int i = 0; i < eventsPerThread; i++) {
+                        spool.append(CaptureDirection.RESPONSE, requestId, "TestService", "testMethod", i, request("Igor " + i));
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+            List<CaptureEvent> events = read(spool);
+
+            assertThat(events).hasSize(threads * eventsPerThread);
+            assertThat(spool.getDroppedEvents()).isZero();
+            for (int t = 0; t < threads; t++) {
+                String requestId = "thread-" + t;
+                assertThat(events.stream().filter(e -> requestId.equals(e.getRequestId()))
+                        .mapToLong(CaptureEvent::getDurationNanos).toArray())
+                        .containsExactly(LongStream.range(0, eventsPerThread).toArray());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Capture - a corrupted event is skipped, the next ones are read")
+    public void read_corruptedEvent() throws Exception {
+        Path file = directory.resolve("capture.ring");
+        try (CaptureSpool spool = spool(CAPACITY, LogConversionType.JSON)) {
+            spool.append(CaptureDirection.REQUEST, "r-1", "TestService", "testMethod", -1L, Map.of());
+            spool.append(CaptureDirection.REQUEST, "r-2", "TestService", "testMethod", -1L, Map.of());
+            spool.append(CaptureDirection.REQUEST, "r-3", "TestService", "testMethod", -1L, Map.of());
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), RingFile.HEADER_SIZE + RingFile.RECORD_HEADER_SIZE);
+        }
+
+        try (CaptureSpool spool = spool(CAPACITY, LogConversionType.JSON)) {
+            assertThat(read(spool)).extracting(CaptureEvent::getRequestId).containsExactly("r-2", "r-3");
+        }
+    }
+
+    @Test
+    @DisplayName("Capture - events longer than a quarter of the ring are dropped")
+    public void append_tooLong() throws Exception {
+        try (CaptureSpool spool = spool(4096, LogConversionType.JSON)) {
+            assertThat(spool.append(CaptureDirection.RESPONSE, "r-1", "TestService", "testMethod", 0L, "x".repeat(2000))).isFalse();
+
+            assertThat(spool.getDroppedEvents()).isEqualTo(1L);
+            assertThat(read(spool)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Capture - encoding of a long event stops as soon as it doesn't fit into the ring")
+    public void append_tooLongStopsEncoding() throws Exception {
+        AtomicInteger readElements = new AtomicInteger();
+        List<String> elements = new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                readElements.incrementAndGet();
+                return "element-" + index;
+            }
+
+            @Override
+            public int size() {
+                return 100_000;
+            }
+        };
+        try (CaptureSpool spool = spool(4096, LogConversionType.JSON)) {
+            assertThat(spool.append(CaptureDirection.RESPONSE, "r-1", "TestService", "testMethod", 0L, elements)).isFalse();
+
+            // Jackson flushes its own buffer of about 16 KB to the capture buffer, 1.5 MB are not encoded
+            assertThat(readElements.get()).isLessThan(5000);
+            assertThat(spool.getDroppedEvents()).isEqualTo(1L);
+            assertThat(spool.append(CaptureDirection.RESPONSE, "r-2", "TestService", "testMethod", 0L, 42L)).isTrue();
+            assertThat(read(spool)).extracting(CaptureEvent::getRequestId).containsExactly("r-2");
+        }
+    }
+
+    @Test
+    @DisplayName("Reader - events are printed as JSON lines filtered by request ID and time")
+    public void reader_filter() throws Exception {
+        Path file = directory.resolve("capture.ring");
+        try (CaptureSpool spool = spool(CAPACITY, LogConversionType.JSON)) {
+            spool.append(CaptureDirection.REQUEST, "r-1", "TestService", "testMethod", -1L, Map.of("param2", request("Igor")));
+            spool.append(CaptureDirection.RESPONSE, "r-1", "TestService", "testMethod", 2_000_000L, "done");
+            spool.append(CaptureDirection.REQUEST, "r-2", "TestService", "testMethod", -1L, Map.of());
+
+            List<String> lines = runReader("--file", file.toString(), "--request-id", "r-1",
+                    "--to", Instant.now().plusSeconds(60).toString());
+
+            assertThat(lines).hasSize(2);
+            JsonNode request = objectMapper.readTree(lines.get(0));
+            assertThat(request.get("requestId").asText()).isEqualTo("r-1");
+            assertThat(request.get("type").asText()).isEqualTo("TestService");
+            assertThat(request.get("direction").asText()).isEqualTo("request");
+            assertThat(request.has("durationMs")).isFalse();
+            assertThat(request.get("value").get("param2").get("name").asText()).isEqualTo("Igor");
+            JsonNode response = objectMapper.readTree(lines.get(1));
+            assertThat(response.get("durationMs").asLong()).isEqualTo(2L);
+            assertThat(response.get("value").asText()).isEqualTo("done");
+
+            assertThat(runReader("--file", file.toString(), "--from", Instant.now().plusSeconds(60).toString()))
+                    .isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Reader - binary values are printed as JSON")
+    public void reader_binaryValue() throws Exception {
+        Path file = directory.resolve("capture.ring");
+        try (CaptureSpool spool = spool(CAPACITY, LogConversionType.SMILE)) {
+            spool.append(CaptureDirection.RESPONSE, "r-1", "TestService", "testMethod", 0L, request("Igor"));
+
+            List<String> lines = runReader("--file", file.toString());
+
+            assertThat(lines).hasSize(1);
+            assertThat(objectMapper.readTree(lines.get(0)).get("value").get("salary").asLong()).isEqualTo(10000L);
+        }
+    }
+
+    private CaptureSpool spool(int capacity, LogConversionType conversionType) throws Exception {
+        return new CaptureSpool(logPreparationService, directory.resolve("capture.ring"), capacity, conversionType);
+    }
+
+    private static List<CaptureEvent> read(CaptureSpool spool) {
+        List<CaptureEvent> events = new ArrayList<>();
+        spool.read(events::add);
+        return events;
+    }
+
+    private static List<String> runReader(String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int exitCode = CaptureSpoolReader.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        assertThat(exitCode).as(err.toString(StandardCharsets.UTF_8)).isZero();
+        String output = out.toString(StandardCharsets.UTF_8);
+        return output.isEmpty() ? List.of() : List.of(output.split(System.lineSeparator()));
+    }
+
+    private static LogMethodTestRequest request(String name) {
+        return LogMethodTestRequest.builder()
+                .name(name)
+                .salary(10000L)
+                .build();
+    }
+}
@@ -1,32 +1,61 @@
 package com.igorivkin.msaspices.lib.log;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.igorivkin.msaspices.lib.capture.CaptureDirection;
+import com.igorivkin.msaspices.lib.capture.CaptureEvent;
+import com.igorivkin.msaspices.lib.capture.CaptureSpool;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.igorivkin.msaspices.lib.config.LogProperties;
 import com.igorivkin.msaspices.lib.config.MaskingConfig;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
 import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.convert.LogXmlConverter;
+import com.igorivkin.msaspices.lib.log.event.LogEventDispatcher;
+import com.igorivkin.msaspices.lib.metrics.MethodMetricsRegistry;
+import com.igorivkin.msaspices.lib.metrics.MethodMetricsSnapshot;
 import com.igorivkin.msaspices.lib.model.LogMethodTestRequest;
 import com.igorivkin.msaspices.lib.model.LogMethodTestResponse;
+import com.igorivkin.msaspices.lib.requestid.RandomRequestIdGenerator;
 import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Mockito;
-import org.slf4j.Logger;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
 import org.springframework.boot.test.autoconfigure.json.JsonTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
-import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @JsonTest
 @DisplayName("Unit-tests of aspect of method logging")
 @ExtendWith({SpringExtension.class})
-@ContextConfiguration(classes = {MaskingConfig.class, LogJsonConverter.class})
+@ContextConfiguration(classes = {MaskingConfig.class, LogJsonConverter.class, LogXmlConverter.class})
 public class LogMethodAspectTests {
 
     private static final String REQUEST_NAME = "Igor";
@@ -40,78 +69,359 @@ public class LogMethodAspectTests {
 
     private static final String RESPONSE_OUTPUT_IGNORED = "<ignored>";
 
+    private static final String REQUEST_ID = "request-id";
+
     @SpyBean
     private LogPreparationService logPreparationService;
 
-    private final Logger log = Mockito.spy(LoggerFactory.getLogger(LogMethodAspect.class));
+    private final Logger log = (Logger) LoggerFactory.getLogger(LogMethodAspect.class);
+
+    private final ListAppender<ILoggingEvent> logAppender = new ListAppender<>();
+
+    private final MethodMetricsRegistry methodMetricsRegistry = new MethodMetricsRegistry();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setUp() {
+        logAppender.start();
+        log.addAppender(logAppender);
+        log.setLevel(Level.DEBUG);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        log.detachAppender(logAppender);
+        log.setLevel(null);
+    }
 
     @Test
     @DisplayName("Logging method - basic case")
     public void logRestEndpoint_success() {
-        ArgumentCaptor<String> requestStringCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> responseStringCaptor = ArgumentCaptor.forClass(String.class);
         TestLogRestService testLogRestService = getTestLogRestService();
 
         testLogRestService.testMethod(2L, getTestLogRequest());
 
-        verify(logPreparationService, times(3)).convertObjectToString(any());
-        verify(log, times(1)).debug(requestStringCaptor.capture(), anyString(), anyString());
-        verify(log, times(1)).debug(anyString(), anyString(), anyString(),
-                responseStringCaptor.capture());
-
-        String requestValue = requestStringCaptor.getValue();
+        assertThat(logAppender.list).hasSize(2);
+        String requestValue = logAppender.list.get(0).getFormattedMessage();
         assertThat(requestValue).contains(REQUEST_OUTPUT);
-        String responseValue = responseStringCaptor.getValue();
+        String responseValue = logAppender.list.get(1).getFormattedMessage();
         assertThat(responseValue).contains(RESPONSE_OUTPUT);
+        verify(logPreparationService, times(3)).appendObject(any(), eq(LogConversionType.JSON), any(), any());
     }
 
     @Test
     @DisplayName("Logging method - do not log response")
     public void logRestEndpoint_doNotLogResponse() {
-        ArgumentCaptor<String> requestStringCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> responseStringCaptor = ArgumentCaptor.forClass(String.class);
         TestLogRestService testLogRestService = getTestLogRestService();
 
         testLogRestService.testMethod2(2L, getTestLogRequest());
 
-        verify(logPreparationService, times(2)).convertObjectToString(any());
-        verify(log, times(1)).debug(requestStringCaptor.capture(), anyString(), anyString());
-        verify(log, times(1)).debug(anyString(), anyString(), anyString(),
-                responseStringCaptor.capture());
-
-        String requestValue = requestStringCaptor.getValue();
+        assertThat(logAppender.list).hasSize(2);
+        String requestValue = logAppender.list.get(0).getFormattedMessage();
         assertThat(requestValue).contains(REQUEST_OUTPUT);
-        String responseValue = responseStringCaptor.getValue();
+        String responseValue = logAppender.list.get(1).getFormattedMessage();
         assertThat(responseValue).doesNotContain(RESPONSE_OUTPUT);
         assertThat(responseValue).contains(RESPONSE_OUTPUT_IGNORED);
+        verify(logPreparationService, times(2)).appendObject(any(), eq(LogConversionType.JSON), any(), any());
     }
 
     @Test
     @DisplayName("Logging method - do not log response and some parameters")
     public void logRestEndpoint_doNotLogResponseAndSomeParams() {
-        ArgumentCaptor<String> requestStringCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> responseStringCaptor = ArgumentCaptor.forClass(String.class);
         TestLogRestService testLogRestService = getTestLogRestService();
 
         testLogRestService.testMethod3(2L, getTestLogRequest());
 
-        verify(logPreparationService, times(1)).convertObjectToString(any());
-        verify(log, times(1)).debug(requestStringCaptor.capture(), anyString(), anyString());
-        verify(log, times(1)).debug(anyString(), anyString(), anyString(),
-                responseStringCaptor.capture());
-
-        String requestValue = requestStringCaptor.getValue();
+        assertThat(logAppender.list).hasSize(2);
+        String requestValue = logAppender.list.get(0).getFormattedMessage();
         assertThat(requestValue).doesNotContain(REQUEST_OUTPUT);
-        String responseValue = responseStringCaptor.getValue();
+        String responseValue = logAppender.list.get(1).getFormattedMessage();
         assertThat(responseValue).doesNotContain(RESPONSE_OUTPUT);
         assertThat(responseValue).contains(RESPONSE_OUTPUT_IGNORED);
+        verify(logPreparationService, times(1)).appendObject(any(), eq(LogConversionType.JSON), any(), any());
+    }
+
+    @Test
+    @DisplayName("Logging method - nothing is converted when DEBUG is disabled")
+    public void logRestEndpoint_debugDisabled() {
+        log.setLevel(Level.INFO);
+        TestLogRestService testLogRestService = getTestLogRestService();
+
+        LogMethodTestResponse response = testLogRestService.testMethod(2L, getTestLogRequest());
+
+        assertThat(response.getName()).isEqualTo(REQUEST_NAME);
+        assertThat(logAppender.list).isEmpty();
+        verify(logPreparationService, never()).convertObjectToString(any());
+        verify(logPreparationService, never()).convertObjectToString(any(), any());
+        verify(logPreparationService, never()).appendObject(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Logging method - request ID set upstream is reused and kept")
+    public void logRestEndpoint_reuseRequestId() {
+        TestLogRestService testLogRestService = getTestLogRestService();
+        MDC.put(REQUEST_ID, "upstream-id");
+
+        try {
+            testLogRestService.testMethod(2L, getTestLogRequest());
+
+            assertThat(logAppender.list).hasSize(2);
+            assertThat(logAppender.list).allSatisfy(event ->
+                    assertThat(event.getFormattedMessage()).contains("upstream-id"));
+            assertThat(MDC.get(REQUEST_ID)).isEqualTo("upstream-id");
+        } finally {
+            MDC.remove(REQUEST_ID);
+        }
+    }
+
+    @Test
+    @DisplayName("Logging method - generated request ID is removed after the call")
+    public void logRestEndpoint_generatedRequestIdRemoved() {
+        TestLogRestService testLogRestService = getTestLogRestService();
+
+        testLogRestService.testMethod(2L, getTestLogRequest());
+
+        assertThat(logAppender.list).hasSize(2);
+        String requestId = logAppender.list.get(0).getMDCPropertyMap().get(REQUEST_ID);
+        assertThat(requestId).isNotNull();
+        assertThat(logAppender.list.get(1).getFormattedMessage()).contains(requestId);
+        assertThat(MDC.get(REQUEST_ID)).isNull();
+    }
+
+    @Test
+    @DisplayName("Logging method - latency and outcomes are recorded when DEBUG is disabled")
+    public void logRestEndpoint_metrics() {
+        log.setLevel(Level.INFO);
+        TestLogRestService testLogRestService = getTestLogRestService();
+
+        testLogRestService.testMethod(2L, getTestLogRequest());
+        testLogRestService.testMethod(3L, getTestLogRequest());
+        assertThatThrownBy(() -> testLogRestService.testMethod(-1L, getTestLogRequest()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        MethodMetricsSnapshot metrics = methodMetricsRegistry.snapshot().get("TestLogRestService.testMethod");
+        assertThat(metrics.getSuccessCount()).isEqualTo(2);
+        assertThat(metrics.getErrorCount()).isEqualTo(1);
+        assertThat(metrics.getCancelCount()).isZero();
+        assertThat(metrics.getLatency().getCount()).isEqualTo(3);
+        assertThat(metrics.getFirstElementLatency()).isNull();
+        assertThat(logAppender.list).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Logging method - calls over the rate budget are not converted and reported later")
+    public void logRestEndpoint_rateBudget() throws InterruptedException {
+        TestLogRestService testLogRestService = getTestLogRestService();
+
+        for (int i = 0; i < 5; i++) {
+            testLogRestService.testMethodLimited(2L, getTestLogRequest());
+        }
+
+        assertThat(logAppender.list).hasSize(4);
+        verify(logPreparationService, times(6)).appendObject(any(), eq(LogConversionType.JSON), any(), any());
+        // Suppressed calls are visible in metrics even if the method is not called anymore
+        assertThat(methodMetricsRegistry.snapshot().get("TestLogRestService.testMethodLimited")
+                .getSuppressedCount()).isEqualTo(3);
+
+        Thread.sleep(1100L);
+        testLogRestService.testMethodLimited(2L, getTestLogRequest());
+
+        assertThat(logAppender.list).hasSize(7);
+        assertThat(logAppender.list.get(4).getFormattedMessage())
+                .contains("method testMethodLimited: 3 calls were not logged");
+    }
+
+    @Test
+    @DisplayName("Logging method - calls which are not sampled are not converted")
+    public void logRestEndpoint_notSampled() {
+        TestLogRestService testLogRestService = getTestLogRestService();
+
+        LogMethodTestResponse response = testLogRestService.testMethodNotSampled(2L, getTestLogRequest());
+
+        assertThat(response.getName()).isEqualTo(REQUEST_NAME);
+        assertThat(logAppender.list).isEmpty();
+        verify(logPreparationService, never()).appendObject(any(), any(), any(), any());
+        assertThat(methodMetricsRegistry.snapshot().get("TestLogRestService.testMethodNotSampled")
+                .getSuccessCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Logging method - stack trace of repeated error is logged once, then referenced")
+    public void logRestEndpoint_errorDeduplicated() {
+        TestLogRestService testLogRestService = getTestLogRestService();
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> testLogRestService.testMethod(-1L, getTestLogRequest()))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        // Request and error of every call
+        assertThat(logAppender.list).hasSize(6);
+        ILoggingEvent firstError = logAppender.list.get(1);
+        assertThat(firstError.getFormattedMessage()).contains("<<< Error", "method: testMethod, fingerprint: ");
+        assertThat(firstError.getThrowableProxy().getClassName()).isEqualTo(IllegalArgumentException.class.getName());
+        ILoggingEvent thirdError = logAppender.list.get(5);
+        assertThat(thirdError.getFormattedMessage())
+                .contains("seen 3 times: java.lang.IllegalArgumentException: Negative ID");
+        assertThat(thirdError.getThrowableProxy()).isNull();
+    }
+
+    @Test
+    @DisplayName("Logging method - in tail mode only slow or failed calls are converted and logged")
+    public void logRestEndpoint_tail() {
+        TestLogRestService testLogRestService = getTestLogRestService();
+
+        testLogRestService.testMethodTail(0L, getTestLogRequest());
+
+        assertThat(logAppender.list).isEmpty();
+        verify(logPreparationService, never()).appendObject(any(), any(), any(), any());
+
+        testLogRestService.testMethodTail(200L, getTestLogRequest());
+        assertThatThrownBy(() -> testLogRestService.testMethodTail(-1L, getTestLogRequest()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(logAppender.list).hasSize(4);
+        assertThat(logAppender.list.get(0).getFormattedMessage())
+                .contains(">>> Request", "method testMethodTail, durationMs=")
+                .contains(REQUEST_OUTPUT);
+        assertThat(logAppender.list.get(1).getFormattedMessage()).contains(RESPONSE_OUTPUT);
+        assertThat(logAppender.list.get(2).getFormattedMessage()).contains("sleepMillis=-1");
+        assertThat(logAppender.list.get(3).getFormattedMessage()).contains("<<< Error");
+    }
+
+    @Test
+    @DisplayName("Logging method - values are converted to the format set in annotation")
+    public void logRestEndpoint_conversionType() {
+        TestLogRestService testLogRestService = getTestLogRestService();
+
+        testLogRestService.testMethodXml(2L, getTestLogRequest());
+
+        assertThat(logAppender.list).hasSize(2);
+        assertThat(logAppender.list.get(0).getFormattedMessage()).contains("<name>Igor</name>")
+                .doesNotContain(REQUEST_OUTPUT);
+        assertThat(logAppender.list.get(1).getFormattedMessage()).contains("<id>1</id>");
+        verify(logPreparationService, times(3)).appendObject(any(), eq(LogConversionType.XML), any(), any());
+        verify(logPreparationService, never()).appendObject(any(), eq(LogConversionType.JSON), any(), any());
+    }
+
+    @Test
+    @DisplayName("Logging method - structured events carry parameters and response as JSON fields")
+    public void logRestEndpoint_structured() throws Exception {
+        LogProperties logProperties = new LogProperties();
+        logProperties.setFormat(LogFormat.STRUCTURED);
+        TestLogRestService testLogRestService = getTestLogRestService(new LogMethodAspect(logPreparationService,
+                logProperties, new LogEventDispatcher(logProperties), new RandomRequestIdGenerator(),
+                methodMetricsRegistry));
+
+        testLogRestService.testMethod(2L, getTestLogRequest());
+
+        assertThat(logAppender.list).hasSize(2);
+        assertThat(logAppender.list.get(0).getFormattedMessage()).startsWith(">>> Request").doesNotContain("param2");
+        JsonNode request = encode(logAppender.list.get(0));
+        assertThat(request.get("direction").asText()).isEqualTo("request");
+        assertThat(request.get("method").asText()).isEqualTo("testMethod");
+        assertThat(request.get("parameters").get("param1").asLong()).isEqualTo(2L);
+        assertThat(request.get("parameters").get("param2").get("name").asText()).isEqualTo(REQUEST_NAME);
+        JsonNode response = encode(logAppender.list.get(1));
+        assertThat(response.get("requestId").asText()).isEqualTo(request.get("requestId").asText());
+        assertThat(response.get("direction").asText()).isEqualTo("response");
+        assertThat(response.get("durationMs").isNumber()).isTrue();
+        assertThat(response.get("response").get("id").asLong()).isEqualTo(1L);
+
+        // Values are converted once even if the event is written twice
+        encode(logAppender.list.get(0));
+        verify(logPreparationService, times(3)).appendObject(any(), eq(LogConversionType.JSON), any(), any());
+    }
+
+    @Test
+    @DisplayName("Logging method - structured events written by concurrent encoders are converted once")
+    public void logRestEndpoint_structuredConcurrent() throws Exception {
+        LogProperties logProperties = new LogProperties();
+        logProperties.setFormat(LogFormat.STRUCTURED);
+        TestLogRestService testLogRestService = getTestLogRestService(new LogMethodAspect(logPreparationService,
+                logProperties, new LogEventDispatcher(logProperties), new RandomRequestIdGenerator(),
+                methodMetricsRegistry));
+
+        testLogRestService.testMethod(2L, getTestLogRequest());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<JsonNode>> encoded = new ArrayList<>();
+            for (var i = 0; i < 8; i++) {
+                ILoggingEvent event = logAppender.list.get(i % 2);
+                encoded.add(executor.submit(() -> {
+                    start.await();
+                    return encode(event);
+                }));
+            }
+            start.countDown();
+            for (var i = 0; i < encoded.size(); i++) {
+                JsonNode node = encoded.get(i).get(10, TimeUnit.SECONDS);
+                if (i % 2 == 0) {
+                    assertThat(node.get("parameters").get("param2").get("name").asText()).isEqualTo(REQUEST_NAME);
+                } else {
+                    assertThat(node.get("response").get("id").asLong()).isEqualTo(1L);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(logPreparationService, times(3)).appendObject(any(), eq(LogConversionType.JSON), any(), any());
+    }
+
+    @Test
+    @DisplayName("Logging method - calls of captured methods are captured whatever the level of logging is")
+    public void logRestEndpoint_capture() throws Exception {
+        log.setLevel(Level.INFO);
+        LogMethodAspect aspect = new LogMethodAspect(logPreparationService, methodMetricsRegistry);
+        try (CaptureSpool spool = new CaptureSpool(logPreparationService, directory.resolve("capture.ring"),
+                64 * 1024, LogConversionType.JSON)) {
+            aspect.setCaptureSpool(spool);
+            TestLogRestService testLogRestService = getTestLogRestService(aspect);
+
+            testLogRestService.testMethodCapture(2L, getTestLogRequest());
+            assertThatThrownBy(() -> testLogRestService.testMethodCapture(-1L, getTestLogRequest()))
+                    .isInstanceOf(IllegalArgumentException.class);
+            testLogRestService.testMethod(2L, getTestLogRequest());
+
+            assertThat(logAppender.list).isEmpty();
+            List<CaptureEvent> events = new ArrayList<>();
+            spool.read(events::add);
+            assertThat(events).extracting(CaptureEvent::getDirection).containsExactly(CaptureDirection.REQUEST,
+                    CaptureDirection.RESPONSE, CaptureDirection.REQUEST, CaptureDirection.ERROR);
+            assertThat(events.get(0).getMethod()).isEqualTo("testMethodCapture");
+            assertThat(events.get(0).getValueAsString())
+                    .isEqualTo("{\"param1\":2,\"param2\":{\"name\":\"Igor\",\"salary\":10000}}");
+            assertThat(events.get(1).getRequestId()).isEqualTo(events.get(0).getRequestId());
+            assertThat(events.get(1).getValueAsString()).isEqualTo(RESPONSE_OUTPUT);
+            assertThat(events.get(1).getDurationNanos()).isNotNegative();
+            assertThat(events.get(3).getRequestId()).isEqualTo(events.get(2).getRequestId())
+                    .isNotEqualTo(events.get(0).getRequestId());
+            assertThat(events.get(3).getValueAsString()).contains("IllegalArgumentException: Negative ID");
+        }
+    }
+
+    private JsonNode encode(ILoggingEvent event) throws Exception {
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setContext(log.getLoggerContext());
+        encoder.start();
+        try {
+            return new ObjectMapper().readTree(new String(encoder.encode(event), StandardCharsets.UTF_8));
+        } finally {
+            encoder.stop();
+        }
     }
 
     private TestLogRestService getTestLogRestService() {
+        return getTestLogRestService(new LogMethodAspect(logPreparationService, methodMetricsRegistry));
+    }
+
+    private TestLogRestService getTestLogRestService(LogMethodAspect aspect) {
         TestLogRestService testLogRestService = new TestLogRestService();
         AspectJProxyFactory factory = new AspectJProxyFactory(testLogRestService);
-        LogMethodAspect aspect = new LogMethodAspect(logPreparationService);
-        ReflectionTestUtils.setField(aspect, "log", log);
         factory.addAspect(aspect);
         return factory.getProxy();
     }
@@ -130,6 +440,9 @@ public class LogMethodAspectTests {
 
         @LogMethod
         public LogMethodTestResponse testMethod(Long param1, LogMethodTestRequest param2) {
+            if (param1 < 0) {
+                throw new IllegalArgumentException("Negative ID");
+            }
             return LogMethodTestResponse.builder()
                     .id(1L)
                     .name(param2.getName())
@@ -145,5 +458,35 @@ public class LogMethodAspectTests {
         public LogMethodTestResponse testMethod3(Long param1, LogMethodTestRequest param2) {
             return testMethod(param1, param2);
         }
+
+        @LogMethod(maxCallsPerSecond = 2)
+        public LogMethodTestResponse testMethodLimited(Long param1, LogMethodTestRequest param2) {
+            return testMethod(param1, param2);
+        }
+
+        @LogMethod(tail = true, tailThresholdMillis = 100L)
+        public LogMethodTestResponse testMethodTail(Long sleepMillis, LogMethodTestRequest param2) {
+            try {
+                Thread.sleep(Math.max(sleepMillis, 0L));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return testMethod(sleepMillis, param2);
+        }
+
+        @LogMethod(conversionType = LogConversionType.XML)
+        public LogMethodTestResponse testMethodXml(Long param1, LogMethodTestRequest param2) {
+            return testMethod(param1, param2);
+        }
+
+        @LogMethod(capture = true)
+        public LogMethodTestResponse testMethodCapture(Long param1, LogMethodTestRequest param2) {
+            return testMethod(param1, param2);
+        }
+
+        @LogMethod(sampleRate = 0.0)
+        public LogMethodTestResponse testMethodNotSampled(Long param1, LogMethodTestRequest param2) {
+            return testMethod(param1, param2);
+        }
     }
 }
@@ -0,0 +1,475 @@
+package com.igorivkin.msaspices.lib.log;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.igorivkin.msaspices.lib.capture.CaptureDirection;
+import com.igorivkin.msaspices.lib.capture.CaptureEvent;
+import com.igorivkin.msaspices.lib.capture.CaptureSpool;
+import com.igorivkin.msaspices.lib.config.MaskingConfig;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.metrics.MethodMetricsRegistry;
+import com.igorivkin.msaspices.lib.metrics.MethodMetricsSnapshot;
+import com.igorivkin.msaspices.lib.model.LogMethodTestRequest;
+import com.igorivkin.msaspices.lib.model.LogMethodTestResponse;
+import com.igorivkin.msaspices.lib.requestid.RequestIds;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JsonTest
+@DisplayName("Unit-tests of aspect of reactive method logging")
+@ExtendWith({SpringExtension.class})
+@ContextConfiguration(classes = {MaskingConfig.class, LogJsonConverter.class, LogPreparationService.class})
+public class LogReactiveMethodAspectTests {
+
+    private static final int REQUESTS_COUNT = 200;
+
+    private static final Pattern REQUEST_NUMBER = Pattern.compile("(?:id-|user-|param1=|\"id\":)(\\d+)");
+
+    @Autowired
+    private LogPreparationService logPreparationService;
+
+    private final Logger log = (Logger) LoggerFactory.getLogger(LogReactiveMethodAspect.class);
+
+    private final ListAppender<ILoggingEvent> logAppender = new ListAppender<>();
+
+    private final MethodMetricsRegistry methodMetricsRegistry = new MethodMetricsRegistry();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setUp() {
+        logAppender.start();
+        log.addAppender(logAppender);
+        log.setLevel(Level.DEBUG);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        log.detachAppender(logAppender);
+        log.setLevel(null);
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - every line carries ID of its own request under concurrent load")
+    public void logReactiveEndpoint_concurrentRequests() {
+        TestLogReactiveService service = getTestLogReactiveService();
+
+        Flux.range(0, REQUESTS_COUNT)
+                .flatMap(i -> service.testMono((long) i, Mono.fromCallable(() -> getTestLogRequest(i))
+                                .subscribeOn(Schedulers.boundedElastic()))
+                        .contextWrite(Context.of(RequestIds.KEY, "id-" + i)), 32)
+                .blockLast(Duration.ofSeconds(30));
+
+        List<String> messages = formattedMessages();
+        // Header, param1, param2 and response of every request
+        assertThat(messages).hasSize(REQUESTS_COUNT * 4);
+        assertThat(messages).allSatisfy(message -> assertThat(requestNumbers(message)).hasSize(1));
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - generated ID is shared by all the lines of Flux response")
+    public void logReactiveEndpoint_generatedRequestId() {
+        TestLogReactiveService service = getTestLogReactiveService();
+
+        List<LogMethodTestResponse> responses = service.testFlux("user")
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(responses).hasSize(3);
+        List<ILoggingEvent> events = new ArrayList<>(logAppender.list);
+        // Header, name and three elements
+        assertThat(events).hasSize(5);
+        String header = events.get(0).getFormattedMessage();
+        String requestId = header.substring(header.indexOf("Request ") + 8, header.indexOf(','));
+        assertThat(requestId).isNotEqualTo("null");
+        assertThat(events).allSatisfy(event -> assertThat(event.getFormattedMessage()).contains(requestId));
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - nothing is logged before subscription")
+    public void logReactiveEndpoint_notSubscribed() {
+        TestLogReactiveService service = getTestLogReactiveService();
+
+        service.testMono(1L, Mono.just(getTestLogRequest(1)));
+
+        assertThat(logAppender.list).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - Flux parameter is logged by batches with capped rendering")
+    public void logReactiveEndpoint_fluxParameterBatches() {
+        TestLogReactiveService service = getTestLogReactiveService();
+
+        Long count = service.testFluxParameter(Flux.range(0, 10).map(i -> "element-" + i))
+                .contextWrite(Context.of(RequestIds.KEY, "id-1"))
+                .block(Duration.ofSeconds(10));
+
+        assertThat(count).isEqualTo(10L);
+        List<String> batches = new ArrayList<>();
+        for (String message : formattedMessages()) {
+            if (message.contains(" batch #")) {
+                batches.add(message);
+            }
+        }
+        assertThat(batches).hasSize(3);
+        assertThat(batches.get(0))
+                .contains("Request id-1, elements batch #1: count=4")
+                .contains("elements=[\"element-0\", \"element-1\"]")
+                .doesNotContain("element-2");
+        assertThat(batches.get(1)).contains("batch #2: count=4").contains("\"element-4\"");
+        assertThat(batches.get(2)).contains("batch #3: count=2").contains("\"element-8\", \"element-9\"");
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - elements of Flux parameter are logged as they were emitted")
+    public void logReactiveEndpoint_fluxParameterChangedElements() {
+        TestLogReactiveService service = getTestLogReactiveService();
+
+        Long count = service.testFluxParameterChanged(Flux.range(0, 4)
+                        .map(i -> new ArrayList<>(List.of("element-" + i))))
+                .contextWrite(Context.of(RequestIds.KEY, "id-1"))
+                .block(Duration.ofSeconds(10));
+
+        assertThat(count).isEqualTo(4L);
+        List<String> batches = new ArrayList<>();
+        for (String message : formattedMessages()) {
+            if (message.contains(" batch #")) {
+                batches.add(message);
+            }
+        }
+        // Elements are changed by the method after they are emitted
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).contains("elements=[[\"element-0\"], [\"element-1\"]]")
+                .doesNotContain("changed");
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - instrumentation of Flux parameter doesn't change demand")
+    public void logReactiveEndpoint_fluxParameterDemand() {
+        TestLogReactiveService service = getTestLogReactiveService();
+        List<Long> requests = new ArrayList<>();
+        Flux<Integer> source = Flux.range(0, 100).doOnRequest(requests::add);
+
+        List<Integer> received = service.testFluxPassThrough(source)
+                .limitRate(2)
+                .take(5)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(received).containsExactly(0, 1, 2, 3, 4);
+        assertThat(requests).isNotEmpty().allSatisfy(request -> assertThat(request).isLessThanOrEqualTo(2L));
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - Flux response in summary mode is logged by a single line")
+    public void logReactiveEndpoint_fluxResponseSummary() {
+        TestLogReactiveService service = getTestLogReactiveService();
+
+        List<Integer> received = service.testFluxSummary(10)
+                .contextWrite(Context.of(RequestIds.KEY, "id-1"))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(received).hasSize(10);
+        List<String> messages = formattedMessages();
+        // Header, count and summary
+        assertThat(messages).hasSize(3);
+        assertThat(messages.get(2))
+                .contains("<<< Response id-1, method: testFluxSummary, summary: signal=onComplete, count=10, bytes=10,")
+                .contains("firstElementMs=")
+                .contains("durationMs=")
+                .contains("first=[0, 1], last=[8, 9]");
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - summary of cancelled Flux response carries the signal")
+    public void logReactiveEndpoint_fluxResponseSummaryCancelled() {
+        TestLogReactiveService service = getTestLogReactiveService();
+
+        service.testFluxSummary(100)
+                .contextWrite(Context.of(RequestIds.KEY, "id-1"))
+                .take(3)
+                .blockLast(Duration.ofSeconds(10));
+
+        List<String> messages = formattedMessages();
+        assertThat(messages).hasSize(3);
+        assertThat(messages.get(2)).contains("signal=cancel, count=3, bytes=3,");
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - subscriptions are measured to the terminal signal")
+    public void logReactiveEndpoint_metrics() {
+        log.setLevel(Level.INFO);
+        TestLogReactiveService service = getTestLogReactiveService();
+
+        service.testFluxSummary(10).blockLast(Duration.ofSeconds(10));
+        service.testFluxSummary(100).take(3).blockLast(Duration.ofSeconds(10));
+        service.testMono(1L, Mono.just(getTestLogRequest(1))).block(Duration.ofSeconds(10));
+        service.testMono(2L, Mono.error(new IllegalStateException())).onErrorReturn(
+                LogMethodTestResponse.builder().build()).block(Duration.ofSeconds(10));
+
+        MethodMetricsSnapshot fluxMetrics = methodMetricsRegistry.snapshot()
+                .get("TestLogReactiveService.testFluxSummary");
+        assertThat(fluxMetrics.getSuccessCount()).isEqualTo(1);
+        assertThat(fluxMetrics.getCancelCount()).isEqualTo(1);
+        assertThat(fluxMetrics.getLatency().getCount()).isEqualTo(2);
+        assertThat(fluxMetrics.getFirstElementLatency().getCount()).isEqualTo(2);
+        assertThat(fluxMetrics.getFirstElementLatency().getMaxNanos())
+                .isLessThanOrEqualTo(fluxMetrics.getLatency().getMaxNanos());
+        MethodMetricsSnapshot monoMetrics = methodMetricsRegistry.snapshot().get("TestLogReactiveService.testMono");
+        assertThat(monoMetrics.getSuccessCount()).isEqualTo(1);
+        assertThat(monoMetrics.getErrorCount()).isEqualTo(1);
+        assertThat(monoMetrics.getFirstElementLatency()).isNull();
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - error of response is logged with its stack trace")
+    public void logReactiveEndpoint_error() {
+        TestLogReactiveService service = getTestLogReactiveService();
+
+        for (int i = 0; i < 2; i++) {
+            service.testMono(1L, Mono.error(new IllegalStateException("Broken request")))
+                    .contextWrite(Context.of(RequestIds.KEY, "id-" + i))
+                    .onErrorResume(ex -> Mono.empty())
+                    .block(Duration.ofSeconds(10));
+        }
+
+        List<ILoggingEvent> errors = new ArrayList<>();
+        synchronized (logAppender) {
+            for (ILoggingEvent event : logAppender.list) {
+                if (event.getFormattedMessage().contains("<<< Error")) {
+                    errors.add(event);
+                }
+            }
+        }
+        assertThat(errors).hasSize(2);
+        assertThat(errors.get(0).getFormattedMessage()).contains("<<< Error id-0, method: testMono");
+        assertThat(errors.get(0).getThrowableProxy().getMessage()).isEqualTo("Broken request");
+        assertThat(errors.get(1).getFormattedMessage()).contains("<<< Error id-1", "seen 2 times");
+        assertThat(errors.get(1).getThrowableProxy()).isNull();
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - in tail mode only slow or failed subscriptions are logged")
+    public void logReactiveEndpoint_tail() {
+        TestLogReactiveService service = getTestLogReactiveService();
+
+        service.testMonoTail(1L, 0L).block(Duration.ofSeconds(10));
+        service.testFluxTail(3, false).collectList().block(Duration.ofSeconds(10));
+
+        assertThat(formattedMessages()).isEmpty();
+
+        service.testMonoTail(2L, 200L)
+                .contextWrite(Context.of(RequestIds.KEY, "id-2"))
+                .block(Duration.ofSeconds(10));
+        service.testFluxTail(3, true)
+                .contextWrite(Context.of(RequestIds.KEY, "id-3"))
+                .onErrorResume(ex -> Flux.empty())
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        List<String> messages = formattedMessages();
+        assertThat(messages).hasSize(5);
+        assertThat(messages.get(0)).contains(">>> Request id-2, method testMonoTail, durationMs=", "param1=2");
+        assertThat(messages.get(1)).contains("<<< Response id-2", "\"id\":2");
+        assertThat(messages.get(2)).contains(">>> Request id-3, method testFluxTail", "count=3");
+        assertThat(messages.get(3)).contains("<<< Response id-3", "summary: signal=onError, count=3");
+        assertThat(messages.get(4)).contains("<<< Error id-3");
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - captured calls carry the same request ID as the log")
+    public void logReactiveEndpoint_capture() throws Exception {
+        LogReactiveMethodAspect aspect = new LogReactiveMethodAspect(logPreparationService, methodMetricsRegistry);
+        try (CaptureSpool spool = new CaptureSpool(logPreparationService, directory.resolve("capture.ring"),
+                64 * 1024, LogConversionType.JSON)) {
+            aspect.setCaptureSpool(spool);
+            TestLogReactiveService service = getTestLogReactiveService(aspect);
+
+            service.testMonoCapture(7L, Mono.just(getTestLogRequest(7))).block(Duration.ofSeconds(10));
+
+            List<CaptureEvent> events = new ArrayList<>();
+            spool.read(events::add);
+            assertThat(events).extracting(CaptureEvent::getDirection).containsExactly(CaptureDirection.REQUEST,
+                    CaptureDirection.REQUEST, CaptureDirection.RESPONSE);
+            assertThat(events.get(0).getType()).isEqualTo(TestLogReactiveService.class.getName());
+            // Value of Mono parameter is captured when emitted
+            assertThat(events.get(0).getValueAsString()).isEqualTo("{\"param1\":7}");
+            assertThat(events.get(1).getValueAsString()).isEqualTo("{\"param2\":{\"name\":\"user-7\",\"salary\":10000}}");
+            assertThat(events.get(2).getValueAsString()).contains("\"id\":7", "user-7");
+            String requestId = events.get(0).getRequestId();
+            assertThat(events).allSatisfy(event -> assertThat(event.getRequestId()).isEqualTo(requestId));
+            assertThat(requestId).isNotEmpty();
+            assertThat(formattedMessages()).isNotEmpty()
+                    .allSatisfy(message -> assertThat(message).contains(requestId));
+        }
+    }
+
+    @Test
+    @DisplayName("Logging reactive method - synchronous failure is logged and captured with one request ID")
+    public void logReactiveEndpoint_synchronousError() throws Exception {
+        LogReactiveMethodAspect aspect = new LogReactiveMethodAspect(logPreparationService, methodMetricsRegistry);
+        try (CaptureSpool spool = new CaptureSpool(logPreparationService, directory.resolve("capture.ring"),
+                64 * 1024, LogConversionType.JSON)) {
+            aspect.setCaptureSpool(spool);
+            TestLogReactiveService service = getTestLogReactiveService(aspect);
+
+            assertThatThrownBy(() -> service.testMonoThrowing(-1L))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            List<CaptureEvent> events = new ArrayList<>();
+            spool.read(events::add);
+            assertThat(events).extracting(CaptureEvent::getDirection).containsExactly(CaptureDirection.REQUEST,
+                    CaptureDirection.ERROR);
+            String requestId = events.get(0).getRequestId();
+            assertThat(requestId).isNotEmpty();
+            assertThat(events.get(1).getRequestId()).isEqualTo(requestId);
+            List<String> messages = formattedMessages();
+            assertThat(messages).hasSize(3);
+            assertThat(messages.get(0)).contains(">>> Request " + requestId + ", method testMonoThrowing");
+            assertThat(messages.get(1)).contains("Request " + requestId + ", param1=-1");
+            assertThat(messages.get(2)).contains("<<< Error " + requestId);
+            assertThat(MDC.get(RequestIds.KEY)).isNull();
+        }
+    }
+
+    private TestLogReactiveService getTestLogReactiveService() {
+        return getTestLogReactiveService(new LogReactiveMethodAspect(logPreparationService, methodMetricsRegistry));
+    }
+
+    private TestLogReactiveService getTestLogReactiveService(LogReactiveMethodAspect aspect) {
+        TestLogReactiveService service = new TestLogReactiveService();
+        AspectJProxyFactory factory = new AspectJProxyFactory(service);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    private LogMethodTestRequest getTestLogRequest(int number) {
+        return LogMethodTestRequest.builder()
+                .name("user-" + number)
+                .salary(10000L)
+                .build();
+    }
+
+    private List<String> formattedMessages() {
+        synchronized (logAppender) {
+            List<String> messages = new ArrayList<>();
+            for (ILoggingEvent event : logAppender.list) {
+                messages.add(event.getFormattedMessage());
+            }
+            return messages;
+        }
+    }
+
+    private Set<String> requestNumbers(String message) {
+        Set<String> numbers = new HashSet<>();
+        Matcher matcher = REQUEST_NUMBER.matcher(message);
+        while (matcher.find()) {
+            numbers.add(matcher.group(1));
+        }
+        return numbers;
+    }
+
+    /**
+     * Class emulating the service containing annotated reactive methods.
+     * Responses are emitted on other threads than the calling one.
+     */
+    public static class TestLogReactiveService {
+
+        @LogReactiveMethod
+        public Mono<LogMethodTestResponse> testMono(Long param1, Mono<LogMethodTestRequest> param2) {
+            return param2
+                    .publishOn(Schedulers.parallel())
+                    .map(request -> LogMethodTestResponse.builder()
+                            .id(param1)
+                            .name(request.getName())
+                            .build());
+        }
+
+        @LogReactiveMethod
+        public Flux<LogMethodTestResponse> testFlux(String name) {
+            return Flux.range(0, 3)
+                    .publishOn(Schedulers.parallel())
+                    .map(i -> LogMethodTestResponse.builder()
+                            .id(i.longValue())
+                            .name(name)
+                            .build());
+        }
+
+        @LogReactiveMethod(fluxBatchSize = 4, fluxBatchWindowMillis = 60000L, fluxBatchMaxRendered = 2)
+        public Mono<Long> testFluxParameter(Flux<String> elements) {
+            return elements.count();
+        }
+
+        @LogReactiveMethod(fluxBatchSize = 4, fluxBatchWindowMillis = 60000L, fluxBatchMaxRendered = 2)
+        public Mono<Long> testFluxParameterChanged(Flux<List<String>> elements) {
+            return elements.doOnNext(element -> element.add("changed"))
+                    .count();
+        }
+
+        @LogReactiveMethod(responseMode = LogResponseMode.SUMMARY, summaryEdgeElements = 2)
+        public Flux<Integer> testFluxSummary(int count) {
+            return Flux.range(0, count)
+                    .publishOn(Schedulers.parallel());
+        }
+
+        @LogReactiveMethod(tail = true, tailThresholdMillis = 100L)
+        public Mono<LogMethodTestResponse> testMonoTail(Long param1, Long delayMillis) {
+            return Mono.just(LogMethodTestResponse.builder().id(param1).build())
+                    .delayElement(Duration.ofMillis(delayMillis));
+        }
+
+        @LogReactiveMethod(tail = true, tailThresholdMillis = 100L)
+        public Flux<Integer> testFluxTail(int count, boolean fail) {
+            return Flux.range(0, count)
+                    .concatWith(fail ? Flux.error(new IllegalStateException("Broken stream")) : Flux.empty());
+        }
+
+        @LogReactiveMethod(capture = true)
+        public Mono<LogMethodTestResponse> testMonoCapture(Long param1, Mono<LogMethodTestRequest> param2) {
+            return testMono(param1, param2);
+        }
+
+        @LogReactiveMethod(capture = true)
+        public Mono<LogMethodTestResponse> testMonoThrowing(Long param1) {
+            throw new IllegalArgumentException("Negative ID: " + param1);
+        }
+
+        @LogReactiveMethod(fluxBatchSize = 4, fluxBatchWindowMillis = 60000L, logResponse = false)
+        public Flux<Integer> testFluxPassThrough(Flux<Integer> elements) {
+            return elements;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.igorivkin.msaspices.lib.log;
+
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.model.LogMethodTestRequest;
+import com.igorivkin.msaspices.lib.model.LogMethodTestResponse;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("Unit-tests of warm-up of serializers of annotated methods")
+public class LogSerializerWarmUpTests {
+
+    @Test
+    @DisplayName("Warm-up - declared types of logged parameters and responses, elements of publishers")
+    public void warmUp_annotatedMethods() {
+        LogPreparationService logPreparationService = mock(LogPreparationService.class);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("restService",
+                new RootBeanDefinition(LogMethodAspectTests.TestLogRestService.class));
+        beanFactory.registerBeanDefinition("reactiveService",
+                new RootBeanDefinition(LogReactiveMethodAspectTests.TestLogReactiveService.class));
+
+        new LogSerializerWarmUp(beanFactory, logPreparationService).afterSingletonsInstantiated();
+
+        verify(logPreparationService, atLeastOnce()).warmUp(LogMethodTestRequest.class, LogConversionType.JSON);
+        verify(logPreparationService, atLeastOnce()).warmUp(LogMethodTestResponse.class, LogConversionType.JSON);
+        verify(logPreparationService).warmUp(LogMethodTestResponse.class, LogConversionType.XML);
+        verify(logPreparationService, atLeastOnce()).warmUp(String.class, LogConversionType.JSON);
+        // Two Flux<Integer> responses and a Flux<Integer> parameter, the third response is not logged
+        verify(logPreparationService, times(3)).warmUp(Integer.class, LogConversionType.JSON);
+    }
+}
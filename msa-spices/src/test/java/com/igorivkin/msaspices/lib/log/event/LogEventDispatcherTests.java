@@ -0,0 +1,227 @@
+package com.igorivkin.msaspices.lib.log.event;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import com.igorivkin.msaspices.lib.requestid.RequestIds;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@DisplayName("Unit-tests of log event dispatcher")
+public class LogEventDispatcherTests {
+
+    private static final int BUFFER_SIZE = 4;
+
+    private final Logger log = (Logger) LoggerFactory.getLogger(LogEventDispatcherTests.class);
+
+    private final ListAppender<ILoggingEvent> logAppender = new ListAppender<>();
+
+    private LogEventDispatcher dispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        logAppender.start();
+        log.addAppender(logAppender);
+        log.setLevel(Level.DEBUG);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.destroy();
+        }
+        log.detachAppender(logAppender);
+        log.setLevel(null);
+    }
+
+    @Test
+    @DisplayName("Synchronous mode - event is emitted in the calling thread")
+    public void dispatch_sync() {
+        dispatcher = createDispatcher(false, OverflowPolicy.DROP_NEWEST);
+
+        dispatcher.debug(log, "Request {}, value {}", new Object[]{"id-1", 1}, "id-1");
+
+        assertThat(dispatcher.isAsync()).isFalse();
+        assertThat(logAppender.list).hasSize(1);
+        assertThat(logAppender.list.get(0).getThreadName()).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    @DisplayName("Asynchronous mode - events are emitted by workers with request ID and time of capture in MDC")
+    public void dispatch_async() throws InterruptedException {
+        final long startMillis = System.currentTimeMillis();
+        dispatcher = createDispatcher(true, OverflowPolicy.BLOCK);
+        dispatcher.afterPropertiesSet();
+
+        final int producers = 4;
+        final int eventsPerProducer = 250;
+        final ExecutorService executor = Executors.newFixedThreadPool(producers);
+        final CountDownLatch latch = new CountDownLatch(producers);
+        for (var p = 0; p < producers; p++) {
+            final int producer = p;
+            executor.submit(() -> {
+                for (var i = 0; i < eventsPerProducer; i++) {
+                    final String requestId = producer + "-" + i;
+                    dispatcher.debug(log, "Request {}", new Object[]{requestId}, requestId);
+                }
+                latch.countDown();
+            });
+        }
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        awaitEvents(producers * eventsPerProducer);
+        assertThat(dispatcher.getDroppedEvents()).isZero();
+        assertThat(logAppender.list).allSatisfy(event -> {
+            assertThat(event.getThreadName()).startsWith("msa-spices-log-");
+            assertThat(event.getFormattedMessage())
+                    .isEqualTo("Request " + event.getMDCPropertyMap().get(RequestIds.KEY));
+            // Time of capture in the producer thread, not of emission
+            assertThat(Instant.parse(event.getMDCPropertyMap().get(LogEventDispatcher.CAPTURED_AT_KEY)).toEpochMilli())
+                    .isBetween(startMillis, event.getTimeStamp());
+        });
+    }
+
+    @Test
+    @DisplayName("Asynchronous mode - events are emitted with the MDC of the calling thread")
+    public void dispatch_asyncContextMap() throws InterruptedException {
+        dispatcher = createDispatcher(true, OverflowPolicy.DROP_NEWEST);
+
+        MDC.put("traceId", "trace-0");
+        dispatcher.debug(log, "Event {}", new Object[]{0}, "id-0");
+        MDC.clear();
+        MDC.put("traceId", "trace-1");
+        dispatcher.debug(log, "Event {}", new Object[]{1}, null);
+        MDC.clear();
+        dispatcher.afterPropertiesSet();
+
+        awaitEvents(2);
+        assertThat(logAppender.list).allSatisfy(event -> {
+            final String number = event.getFormattedMessage().substring("Event ".length());
+            assertThat(event.getMDCPropertyMap()).containsEntry("traceId", "trace-" + number);
+        });
+        assertThat(logAppender.list).filteredOn(event -> event.getFormattedMessage().equals("Event 0"))
+                .allSatisfy(event -> assertThat(event.getMDCPropertyMap()).containsEntry(RequestIds.KEY, "id-0"));
+
+        // After shutdown the event is emitted in the calling thread, its MDC is kept
+        dispatcher.destroy();
+        MDC.put("traceId", "trace-2");
+        try {
+            dispatcher.debug(log, "Event {}", new Object[]{2}, "id-2");
+
+            assertThat(MDC.getCopyOfContextMap()).containsOnly(entry("traceId", "trace-2"));
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    @Test
+    @DisplayName("Overflow policy DROP_NEWEST - new events are dropped and counted")
+    public void dispatch_dropNewest() throws InterruptedException {
+        dispatcher = createDispatcher(true, OverflowPolicy.DROP_NEWEST);
+
+        for (var i = 0; i < BUFFER_SIZE + 2; i++) {
+            dispatcher.debug(log, "Event {}", new Object[]{i}, null);
+        }
+        dispatcher.afterPropertiesSet();
+
+        awaitEvents(BUFFER_SIZE);
+        assertThat(dispatcher.getDroppedEvents()).isEqualTo(2);
+        assertThat(formattedMessages()).containsExactly("Event 0", "Event 1", "Event 2", "Event 3");
+    }
+
+    @Test
+    @DisplayName("Overflow policy DROP_OLDEST - old events are dropped and counted")
+    public void dispatch_dropOldest() throws InterruptedException {
+        dispatcher = createDispatcher(true, OverflowPolicy.DROP_OLDEST);
+
+        for (var i = 0; i < BUFFER_SIZE + 2; i++) {
+            dispatcher.debug(log, "Event {}", new Object[]{i}, null);
+        }
+        dispatcher.afterPropertiesSet();
+
+        awaitEvents(BUFFER_SIZE);
+        assertThat(dispatcher.getDroppedEvents()).isEqualTo(2);
+        assertThat(formattedMessages()).containsExactly("Event 2", "Event 3", "Event 4", "Event 5");
+    }
+
+    @Test
+    @DisplayName("Snapshot of arguments - arguments are converted when event is captured")
+    public void dispatch_snapshotArguments() throws InterruptedException {
+        LogProperties logProperties = new LogProperties();
+        logProperties.getAsync().setEnabled(true);
+        logProperties.getAsync().setSnapshotArguments(true);
+        dispatcher = new LogEventDispatcher(logProperties);
+
+        StringBuilder mutableArgument = new StringBuilder("before");
+        dispatcher.debug(log, "Value {}", new Object[]{mutableArgument}, null);
+        mutableArgument.setLength(0);
+        mutableArgument.append("after");
+        dispatcher.afterPropertiesSet();
+
+        awaitEvents(1);
+        assertThat(formattedMessages()).containsExactly("Value before");
+    }
+
+    @Test
+    @DisplayName("Shutdown - events left in the buffer are emitted, not lost")
+    public void dispatch_shutdown() throws InterruptedException {
+        dispatcher = createDispatcher(true, OverflowPolicy.DROP_NEWEST);
+
+        dispatcher.debug(log, "Event {}", new Object[]{0}, null);
+        dispatcher.debug(log, "Event {}", new Object[]{1}, null);
+        dispatcher.destroy();
+        dispatcher.debug(log, "Event {}", new Object[]{2}, null);
+
+        assertThat(formattedMessages()).containsExactly("Event 0", "Event 1", "Event 2");
+    }
+
+    private LogEventDispatcher createDispatcher(boolean async, OverflowPolicy overflowPolicy) {
+        LogProperties logProperties = new LogProperties();
+        logProperties.getAsync().setEnabled(async);
+        logProperties.getAsync().setBufferSize(BUFFER_SIZE);
+        logProperties.getAsync().setWorkers(2);
+        logProperties.getAsync().setOverflowPolicy(overflowPolicy);
+        return new LogEventDispatcher(logProperties);
+    }
+
+    /**
+     * Waits until workers emit a given number of events. Appender is synchronized on itself,
+     * so the list of events is read under the same lock.
+     */
+    private void awaitEvents(int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10_000L;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (logAppender) {
+                if (logAppender.list.size() >= count) {
+                    return;
+                }
+            }
+            Thread.sleep(10L);
+        }
+        throw new AssertionError("Expected " + count + " events but got " + logAppender.list.size());
+    }
+
+    private List<String> formattedMessages() {
+        return logAppender.list.stream()
+                .map(ILoggingEvent::getFormattedMessage)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,185 @@
+package com.igorivkin.msaspices.lib.masking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import com.igorivkin.msaspices.lib.config.MaskingConfig;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Unit-tests of masking of logged values")
+public class MaskingModuleTests {
+
+    @Test
+    @DisplayName("Masking - annotated fields are masked by their strategies")
+    public void mask_annotatedFields() throws Exception {
+        ObjectMapper objectMapper = getObjectMapper(new LogProperties.Masking());
+
+        String json = objectMapper.writeValueAsString(
+                new Customer("Ivan", "secret", new Card("4111111111111234", "Ivan Petrov")));
+
+        assertThat(json).isEqualTo("{\"name\":\"Ivan\",\"password\":\"****\","
+                + "\"card\":{\"number\":\"****1234\",\"holder\":\"" + MaskingStrategy.HASH.mask("Ivan Petrov") + "\"}}");
+        assertThat(MaskingStrategy.HASH.mask("Ivan Petrov")).startsWith("sha256:").hasSize(23);
+    }
+
+    @Test
+    @DisplayName("Masking - configured fields are masked everywhere, paths only in their place")
+    public void mask_configuredFieldsAndPaths() throws Exception {
+        LogProperties.Masking masking = new LogProperties.Masking();
+        masking.setFields(List.of("name"));
+        masking.setPaths(List.of("$.owner.login"));
+        ObjectMapper objectMapper = getObjectMapper(masking);
+
+        String json = objectMapper.writeValueAsString(
+                new Account(new User("admin", "Ivan"), List.of(new User("guest", "Petr"))));
+
+        assertThat(json).isEqualTo("{\"owner\":{\"login\":\"****\",\"name\":\"****\"},"
+                + "\"members\":[{\"login\":\"guest\",\"name\":\"****\"}]}");
+    }
+
+    @Test
+    @DisplayName("Masking - null values are not masked")
+    public void mask_nullValues() throws Exception {
+        ObjectMapper objectMapper = getObjectMapper(new LogProperties.Masking());
+
+        String json = objectMapper.writeValueAsString(new Customer("Ivan", null, null));
+
+        assertThat(json).isEqualTo("{\"name\":\"Ivan\",\"password\":null,\"card\":null}");
+    }
+
+    @Test
+    @DisplayName("Masking - fields of JSON embedded in string are masked")
+    public void mask_embeddedJson() throws Exception {
+        LogProperties.Masking masking = new LogProperties.Masking();
+        masking.setFields(List.of("password"));
+        masking.setPaths(List.of("card.number"));
+        masking.setStrategy(MaskingStrategy.PARTIAL);
+        ObjectMapper objectMapper = getObjectMapper(masking);
+
+        String body = "{\"login\": \"admin\", \"password\": \"secret-1234\", \"tokens\": {\"password\": {\"a\": 1}},"
+                + " \"card\": {\"number\": 4111111111111234}, \"number\": \"visible\"}";
+        String json = objectMapper.writeValueAsString(new User("admin", body));
+
+        assertThat(objectMapper.readTree(json).get("name").asText()).isEqualTo(
+                "{\"login\":\"admin\",\"password\":\"****1234\",\"tokens\":{\"password\":\"****\"},"
+                        + "\"card\":{\"number\":\"****1234\"},\"number\":\"visible\"}");
+    }
+
+    @Test
+    @DisplayName("Masking - fields of XML embedded in string are masked")
+    public void mask_embeddedXml() throws Exception {
+        LogProperties.Masking masking = new LogProperties.Masking();
+        masking.setFields(List.of("password", "token"));
+        ObjectMapper objectMapper = getObjectMapper(masking);
+
+        String body = "<user token=\"abc\"><login>admin</login><password>secret</password>"
+                + "<password><hash>1</hash></password></user>";
+        String json = objectMapper.writeValueAsString(new User("admin", body));
+
+        assertThat(objectMapper.readTree(json).get("name").asText()).isEqualTo(
+                "<user token=\"****\"><login>admin</login><password>****</password>"
+                        + "<password>****</password></user>");
+    }
+
+    @Test
+    @DisplayName("Masking - invalid documents are masked up to the error, the rest is not logged")
+    public void mask_invalidEmbeddedDocument() throws Exception {
+        LogProperties.Masking masking = new LogProperties.Masking();
+        masking.setFields(List.of("password"));
+        ObjectMapper objectMapper = getObjectMapper(masking);
+
+        String body = "{\"password\": \"secret\", broken, \"token\": \"secret\"}";
+        String json = objectMapper.writeValueAsString(new User("admin", body));
+
+        assertThat(objectMapper.readTree(json).get("name").asText())
+                .isEqualTo("{\"password\":\"****\"" + EmbeddedDocumentMasker.INVALID_REST);
+    }
+
+    @Test
+    @DisplayName("Masking - truncated documents don't leak masked values")
+    public void mask_truncatedEmbeddedDocument() throws Exception {
+        LogProperties.Masking masking = new LogProperties.Masking();
+        masking.setFields(List.of("password"));
+        ObjectMapper objectMapper = getObjectMapper(masking);
+
+        String json = objectMapper.writeValueAsString(List.of(
+                new User("admin", "{\"login\": \"admin\", \"password\": \"secret\", \"roles\": [\"ad"),
+                new User("admin", "{\"login\": \"admin\", \"password\": \"sec"),
+                new User("admin", "<user><login>admin</login><password>secret</passw")));
+
+        assertThat(json).doesNotContain("secret");
+        assertThat(objectMapper.readTree(json).findValuesAsText("name")).containsExactly(
+                "{\"login\":\"admin\",\"password\":\"****\",\"roles\":[" + EmbeddedDocumentMasker.INVALID_REST,
+                "{\"login\":\"admin\",\"password\"" + EmbeddedDocumentMasker.INVALID_REST,
+                "<user><login>admin</login><password" + EmbeddedDocumentMasker.INVALID_REST);
+    }
+
+    @Test
+    @DisplayName("Masking - masked fields stay masked with Blackbird serializers of library mapper")
+    public void mask_blackbird() throws Exception {
+        LogProperties logProperties = new LogProperties();
+        logProperties.getJackson().setBlackbird(true);
+        logProperties.getMasking().setFields(List.of("name"));
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("logProperties", logProperties);
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        ObjectMapper objectMapper = new MaskingConfig().maskingObjectMapper(builder,
+                beanFactory.getBeanProvider(LogProperties.class));
+
+        String json = objectMapper.writeValueAsString(
+                new Customer("Ivan", "secret", new Card("4111111111111234", "Ivan Petrov")));
+
+        // Blackbird is registered on the library mapper only, and annotated, configured and nested masked
+        // fields are masked as without it: masking writers wrap the writers generated by Blackbird
+        assertThat(objectMapper.getRegisteredModuleIds()).anyMatch(id -> id.toString().contains("Blackbird"));
+        assertThat(builder.build().getRegisteredModuleIds()).noneMatch(id -> id.toString().contains("Blackbird"));
+        assertThat(json).isEqualTo("{\"name\":\"****\",\"password\":\"****\","
+                + "\"card\":{\"number\":\"****1234\",\"holder\":\"" + MaskingStrategy.HASH.mask("Ivan Petrov") + "\"}}");
+    }
+
+    private ObjectMapper getObjectMapper(LogProperties.Masking masking) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new MaskingModule(masking));
+        return objectMapper;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Customer {
+        private String name;
+        @Masked
+        private String password;
+        private Card card;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Card {
+        @Masked(MaskingStrategy.PARTIAL)
+        private String number;
+        @Masked(MaskingStrategy.HASH)
+        private String holder;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Account {
+        private User owner;
+        private List<User> members;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class User {
+        private String login;
+        private String name;
+    }
+}
@@ -0,0 +1,115 @@
+package com.igorivkin.msaspices.lib.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Unit-tests of latency histogram and method metrics")
+public class LatencyHistogramTests {
+
+    @Test
+    @DisplayName("Latency histogram - values are kept with relative error below 1/16")
+    public void bucketIndex_precision() {
+        for (long value = 0; value < 1L << 40; value = value * 3 / 2 + 1) {
+            int bucketIndex = LatencyHistogram.bucketIndex(value);
+            long highestValue = LatencyHistogram.highestEquivalentValue(bucketIndex);
+
+            assertThat(bucketIndex).isBetween(0, LatencyHistogram.BUCKETS - 1);
+            assertThat(highestValue).isGreaterThanOrEqualTo(value);
+            assertThat(highestValue - value).isLessThanOrEqualTo(value / 16);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Latency histogram - quantiles, mean and max")
+    public void valueAtQuantile_success() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(value));
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), snapshot.getMaxNanos());
+        assertThat(snapshot.getMeanNanos()).isCloseTo(500_500.0, within(0.1));
+        assertThat(snapshot.valueAtQuantile(0.5)).isCloseTo(500_000L, within(500_000L / 16));
+        assertThat(snapshot.valueAtQuantile(0.99)).isCloseTo(990_000L, within(990_000L / 16));
+        assertEquals(snapshot.getMaxNanos(), snapshot.valueAtQuantile(1.0));
+        assertEquals(snapshot.valueAtQuantile(0.99), histogram.valueAtQuantile(0.99));
+    }
+
+    @Test
+    @DisplayName("Latency histogram - concurrent recording loses nothing")
+    public void record_concurrent() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 4;
+        int valuesPerThread = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < valuesPerThread; i++) {
+                    histogram.record(i);
+                }
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        assertEquals((long) threads * valuesPerThread, histogram.getCount());
+        assertEquals(valuesPerThread - 1, histogram.getMaxNanos());
+    }
+
+    @Test
+    @DisplayName("Method metrics - exposed to Micrometer, including methods registered before binding")
+    public void micrometerBinder_success() {
+        MethodMetricsRegistry registry = new MethodMetricsRegistry();
+        MethodMetrics early = registry.forMethod("Service.early", false);
+        early.record(CallOutcome.SUCCESS, 2_000_000L);
+        early.record(CallOutcome.ERROR, 4_000_000L);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        new MicrometerMethodMetricsBinder(registry, List.of(0.5)).bindTo(meterRegistry);
+        MethodMetrics late = registry.forMethod("Service.late", true);
+        late.recordFirstElement(1_000_000L);
+        late.record(CallOutcome.CANCEL, 3_000_000L);
+        late.recordSuppressed();
+
+        assertEquals(1.0, meterRegistry.get("msa.spices.method.calls")
+                .tags("method", "Service.early", "outcome", "error").functionCounter().count());
+        FunctionTimer earlyLatency = meterRegistry.get("msa.spices.method.latency")
+                .tag("method", "Service.early").functionTimer();
+        assertEquals(2.0, earlyLatency.count());
+        assertEquals(6.0, earlyLatency.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        TimeGauge median = meterRegistry.get("msa.spices.method.latency.percentile")
+                .tags("method", "Service.early", "phi", "0.5").timeGauge();
+        assertThat(median.value(TimeUnit.MILLISECONDS)).isCloseTo(2.0, within(2.0 / 16));
+        FunctionCounter cancelled = meterRegistry.get("msa.spices.method.calls")
+                .tags("method", "Service.late", "outcome", "cancel").functionCounter();
+        assertEquals(1.0, cancelled.count());
+        assertEquals(1.0, meterRegistry.get("msa.spices.method.log.suppressed")
+                .tag("method", "Service.late").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("msa.spices.method.first.element")
+                .tag("method", "Service.late").functionTimer().count());
+        assertThat(meterRegistry.find("msa.spices.method.first.element").tag("method", "Service.early").meters())
+                .isEmpty();
+        assertThat(registry.snapshot()).containsOnlyKeys("Service.early", "Service.late");
+    }
+}
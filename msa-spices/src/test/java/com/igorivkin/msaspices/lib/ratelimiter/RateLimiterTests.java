@@ -10,7 +10,10 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -71,6 +74,43 @@ public class RateLimiterTests {
         verify(task, times(8)).doSomething();
     }
 
+    @Test
+    @DisplayName("Check rate limiter - no threads are started, unused runs are limited by burst capacity")
+    public void checkRateLimiterBurstCapacity() throws InterruptedException {
+        int threadsCount = Thread.activeCount();
+        List<RateLimiter> rateLimiters = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rateLimiters.add(RateLimiter.ofRate(10));
+        }
+        assertThat(Thread.activeCount()).isLessThanOrEqualTo(threadsCount);
+        assertThat(rateLimiters).hasSize(1000);
+
+        RateLimiter rateLimiter = RateLimiter.ofRate(2, 100L, 4);
+        assertThat(rateLimiter.tryAcquire(4)).isTrue();
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+
+        Thread.sleep(1000L);
+
+        assertThat(rateLimiter.tryAcquire(4)).isTrue();
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Check rate limiter - more runs than the rate are acquired by parts of burst capacity")
+    public void checkRateLimiterAcquireMoreThanRate() {
+        int rate = 4;
+        RateLimiter rateLimiter = RateLimiter.ofRate(rate, 500L);
+
+        Instant start = Instant.now();
+        rateLimiter.acquire(0);
+        rateLimiter.acquire(rate * 2);
+        long elapsedMillis = ChronoUnit.MILLIS.between(start, Instant.now());
+
+        assertThat(elapsedMillis).isBetween(400L, 1400L);
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+        assertThat(RateLimiter.ofRate(Integer.MAX_VALUE).tryAcquire(1000)).isTrue();
+    }
+
     private static class SomeTask {
 
         public void doSomething() {
@@ -0,0 +1,114 @@
+package com.igorivkin.msaspices.lib.ratelimiter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Unit-tests of token bucket")
+public class TokenBucketTests {
+
+    @Test
+    @DisplayName("Token bucket - tokens of period are taken once and refilled by the next period")
+    public void tryAcquire_refillByPeriod() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(3, 200, TimeUnit.MILLISECONDS);
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(bucket.nanosToNextPeriod()) + 1);
+
+        assertThat(bucket.tryAcquire(2)).isTrue();
+        assertThat(bucket.tryAcquire(2)).isFalse();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(bucket.nanosToNextPeriod()) + 1);
+
+        assertThat(bucket.tryAcquire(3)).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Token bucket - unused tokens are carried over up to the burst capacity")
+    public void tryAcquire_burstCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(2, 5, 300, TimeUnit.MILLISECONDS);
+
+        assertThat(bucket.tryAcquire(5)).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(bucket.nanosToNextPeriod()) + 1);
+
+        assertThat(bucket.tryAcquire(3)).isFalse();
+        assertThat(bucket.tryAcquire(2)).isTrue();
+
+        Thread.sleep(1000L);
+
+        assertThat(bucket.tryAcquire(5)).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Token bucket - concurrent callers never take more tokens than capacity")
+    public void tryAcquire_concurrent() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 1, TimeUnit.HOURS);
+        AtomicInteger acquired = new AtomicInteger();
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (bucket.tryAcquire()) {
+                        acquired.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        assertThat(acquired.get()).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("Token bucket - tokens are still limited after the number of period wraps around")
+    public void tryAcquire_periodWrapAround() {
+        AtomicLong nanoTime = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(1, 1, 1, TimeUnit.NANOSECONDS, nanoTime::get);
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+
+        // 2^40 periods of 1 ns pass in about 18 minutes
+        nanoTime.set((1L << 40) + 5);
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+        assertThat(bucket.tryAcquire()).isFalse();
+
+        nanoTime.incrementAndGet();
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Token bucket - wrong settings are rejected")
+    public void create_wrongSettings() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1, TimeUnit.SECONDS))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0, TimeUnit.SECONDS))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0, 1, TimeUnit.SECONDS))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 1, TimeUnit.SECONDS).tryAcquire(2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,196 @@
+package com.igorivkin.msaspices.lib.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.igorivkin.msaspices.lib.capture.CaptureSpool;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.log.LogMethod;
+import com.igorivkin.msaspices.lib.log.LogMethodAspect;
+import com.igorivkin.msaspices.lib.log.LogReactiveMethod;
+import com.igorivkin.msaspices.lib.log.LogReactiveMethodAspect;
+import com.igorivkin.msaspices.lib.metrics.MethodMetricsRegistry;
+import com.igorivkin.msaspices.lib.model.LogMethodTestRequest;
+import com.igorivkin.msaspices.lib.model.LogMethodTestResponse;
+import com.igorivkin.msaspices.lib.service.LogPreparationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Unit-tests of replay of captured calls")
+public class ReplayRunnerTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LogPreparationService logPreparationService =
+            new LogPreparationService(List.of(new LogJsonConverter(objectMapper)));
+
+    private final MethodMetricsRegistry methodMetricsRegistry = new MethodMetricsRegistry();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Replay - calls of unchanged service don't diverge")
+    public void replay_unchanged() throws Exception {
+        List<ReplayCall> calls = capture();
+
+        assertThat(calls).extracting(ReplayCall::getMethod)
+                .containsExactly("getUser", "getUser", "getUserMono", "getUserMono");
+        assertThat(calls.get(2).getParameters()).containsOnlyKeys("id", "request");
+        assertThat(calls.get(1).getError()).startsWith("java.lang.IllegalArgumentException");
+
+        ReplayReport report = replayRunner(new TestReplayService("Hello")).replay(calls, 0.0, 2);
+
+        assertThat(report.getCallsCount()).isEqualTo(4L);
+        assertThat(report.getSkippedCount()).isZero();
+        assertThat(report.getErrorCount()).isEqualTo(1L);
+        assertThat(report.getDivergedCount()).as(report.toString()).isZero();
+        assertThat(report.getLatency().getCount()).isEqualTo(4L);
+        assertThat(report.getCapturedLatency().getCount()).isEqualTo(4L);
+    }
+
+    @Test
+    @DisplayName("Replay - changed results are reported as divergences")
+    public void replay_changed() throws Exception {
+        List<ReplayCall> calls = capture();
+
+        ReplayReport report = replayRunner(new TestReplayService("Hi")).replay(calls, 1.0, 1);
+
+        assertThat(report.getErrorCount()).isEqualTo(1L);
+        assertThat(report.getDivergedCount()).isEqualTo(3L);
+        assertThat(report.getDivergences()).extracting(divergence -> divergence.getCall().getMethod())
+                .containsExactly("getUser", "getUserMono", "getUserMono");
+        ReplayReport.Divergence divergence = report.getDivergences().get(0);
+        assertThat(divergence.getExpected()).contains("Hello");
+        assertThat(divergence.getActual()).contains("Hi");
+    }
+
+    @Test
+    @DisplayName("Replay - checked errors are compared by their own type")
+    public void replay_checkedError() throws Exception {
+        Path file = directory.resolve("capture.ring");
+        try (CaptureSpool spool = new CaptureSpool(logPreparationService, file, 64 * 1024,
+                LogConversionType.JSON)) {
+            LogMethodAspect logMethodAspect = new LogMethodAspect(logPreparationService, methodMetricsRegistry);
+            logMethodAspect.setCaptureSpool(spool);
+            TestReplayService service = proxy(new TestReplayService("Hello"), logMethodAspect);
+
+            assertThatThrownBy(() -> service.getUserChecked(-1L)).isInstanceOf(IOException.class);
+        }
+        List<ReplayCall> calls = ReplayCall.read(file, objectMapper);
+        assertThat(calls.get(0).getError()).startsWith("java.io.IOException");
+
+        ReplayReport report = replayRunner(new TestReplayService("Hello")).replay(calls, 0.0, 1);
+
+        assertThat(report.getErrorCount()).isEqualTo(1L);
+        assertThat(report.getDivergedCount()).as(report.toString()).isZero();
+    }
+
+    @Test
+    @DisplayName("Replay - calls of unknown beans are skipped")
+    public void replay_unknownBean() throws Exception {
+        List<ReplayCall> calls = capture();
+
+        ReplayReport report = new ReplayRunner(new StaticListableBeanFactory(), logPreparationService,
+                objectMapper, Duration.ofSeconds(10)).replay(calls, 0.0, 1);
+
+        assertThat(report.getSkippedCount()).isEqualTo(4L);
+        assertThat(report.getLatency().getCount()).isZero();
+    }
+
+    /**
+     * Captures two calls of each method of the service, one of them fails.
+     */
+    private List<ReplayCall> capture() throws Exception {
+        Path file = directory.resolve("capture.ring");
+        try (CaptureSpool spool = new CaptureSpool(logPreparationService, file, 64 * 1024,
+                LogConversionType.JSON)) {
+            LogMethodAspect logMethodAspect = new LogMethodAspect(logPreparationService, methodMetricsRegistry);
+            LogReactiveMethodAspect logReactiveMethodAspect =
+                    new LogReactiveMethodAspect(logPreparationService, methodMetricsRegistry);
+            logMethodAspect.setCaptureSpool(spool);
+            logReactiveMethodAspect.setCaptureSpool(spool);
+            TestReplayService service = proxy(new TestReplayService("Hello"), logMethodAspect,
+                    logReactiveMethodAspect);
+
+            service.getUser(1L, request("Igor"));
+            assertThatThrownBy(() -> service.getUser(-1L, request("Igor")))
+                    .isInstanceOf(IllegalArgumentException.class);
+            service.getUserMono(2L, Mono.just(request("Ivan"))).block(Duration.ofSeconds(10));
+            service.getUserMono(3L, Mono.just(request("Petr"))).block(Duration.ofSeconds(10));
+        }
+        return ReplayCall.read(file, objectMapper);
+    }
+
+    private ReplayRunner replayRunner(TestReplayService service) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("testReplayService", proxy(service,
+                new LogMethodAspect(logPreparationService, methodMetricsRegistry),
+                new LogReactiveMethodAspect(logPreparationService, methodMetricsRegistry)));
+        return new ReplayRunner(beanFactory, logPreparationService, objectMapper, Duration.ofSeconds(10));
+    }
+
+    private static TestReplayService proxy(TestReplayService service, Object... aspects) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(service);
+        for (Object aspect : aspects) {
+            factory.addAspect(aspect);
+        }
+        return factory.getProxy();
+    }
+
+    private static LogMethodTestRequest request(String name) {
+        return LogMethodTestRequest.builder()
+                .name(name)
+                .salary(10000L)
+                .build();
+    }
+
+    /**
+     * Class emulating the service containing captured methods.
+     */
+    public static class TestReplayService {
+
+        private final String greeting;
+
+        public TestReplayService(String greeting) {
+            this.greeting = greeting;
+        }
+
+        @LogMethod(capture = true)
+        public LogMethodTestResponse getUser(Long id, LogMethodTestRequest request) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Negative ID");
+            }
+            return LogMethodTestResponse.builder()
+                    .id(id)
+                    .name(greeting + ", " + request.getName())
+                    .build();
+        }
+
+        @LogMethod(capture = true)
+        public LogMethodTestResponse getUserChecked(Long id) throws IOException {
+            if (id < 0) {
+                throw new IOException("Negative ID");
+            }
+            return LogMethodTestResponse.builder()
+                    .id(id)
+                    .build();
+        }
+
+        @LogReactiveMethod(capture = true)
+        public Mono<LogMethodTestResponse> getUserMono(Long id, Mono<LogMethodTestRequest> request) {
+            return request.map(value -> getUser(id, value));
+        }
+    }
+}
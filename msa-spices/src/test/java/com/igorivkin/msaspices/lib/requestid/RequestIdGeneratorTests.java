@@ -0,0 +1,71 @@
+package com.igorivkin.msaspices.lib.requestid;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Unit-tests of request ID generators")
+public class RequestIdGeneratorTests {
+
+    @Test
+    @DisplayName("Random generator - valid UUID of version 4")
+    public void generate_random() {
+        String requestId = new RandomRequestIdGenerator().generate();
+
+        UUID uuid = UUID.fromString(requestId);
+        assertThat(uuid.version()).isEqualTo(4);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Time-ordered generator - valid UUID of version 7 with current timestamp")
+    public void generate_timeOrdered() throws InterruptedException {
+        TimeOrderedRequestIdGenerator generator = new TimeOrderedRequestIdGenerator();
+        long before = System.currentTimeMillis();
+
+        UUID first = UUID.fromString(generator.generate());
+        Thread.sleep(2L);
+        UUID second = UUID.fromString(generator.generate());
+
+        assertThat(first.version()).isEqualTo(7);
+        assertThat(first.variant()).isEqualTo(2);
+        assertThat(first.getMostSignificantBits() >>> 16).isBetween(before, System.currentTimeMillis());
+        assertThat(first.toString()).isLessThan(second.toString());
+    }
+
+    @Test
+    @DisplayName("Counter generator - unique IDs with node prefix across threads")
+    public void generate_counter() throws Exception {
+        CounterRequestIdGenerator generator = new CounterRequestIdGenerator("node1");
+        Set<String> requestIds = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (var t = 0; t < 4; t++) {
+            tasks.add(() -> {
+                for (var i = 0; i < 5000; i++) {
+                    requestIds.add(generator.generate());
+                }
+                return null;
+            });
+        }
+
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(requestIds).hasSize(20000);
+        assertThat(requestIds).allMatch(requestId -> requestId.startsWith("node1-"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.igorivkin.msaspices.lib.requestid;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Unit-tests of request ID servlet filter")
+public class RequestIdServletFilterTests {
+
+    private final RequestIdServletFilter filter = new RequestIdServletFilter("X-Request-Id");
+
+    @AfterEach
+    public void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("Inbound header - request ID is put to the MDC while the request is processed")
+    public void filter_withHeader() throws Exception {
+        AtomicReference<String> requestId = new AtomicReference<>();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hello");
+        request.addHeader("X-Request-Id", "inbound-id");
+        MDC.put(RequestIds.KEY, "outer-id");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain(requestId));
+
+        assertThat(requestId.get()).isEqualTo("inbound-id");
+        assertThat(MDC.get(RequestIds.KEY)).isEqualTo("outer-id");
+    }
+
+    @Test
+    @DisplayName("No inbound header - MDC is not changed")
+    public void filter_withoutHeader() throws Exception {
+        AtomicReference<String> requestId = new AtomicReference<>("not-called");
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/hello"), new MockHttpServletResponse(), chain(requestId));
+
+        assertThat(requestId.get()).isNull();
+        assertThat(MDC.get(RequestIds.KEY)).isNull();
+    }
+
+    private static MockFilterChain chain(AtomicReference<String> requestId) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                requestId.set(MDC.get(RequestIds.KEY));
+            }
+        });
+    }
+}
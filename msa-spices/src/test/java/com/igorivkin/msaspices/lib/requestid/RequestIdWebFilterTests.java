@@ -0,0 +1,47 @@
+package com.igorivkin.msaspices.lib.requestid;
+
+import com.igorivkin.msaspices.lib.config.LogProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Unit-tests of request ID web filter")
+public class RequestIdWebFilterTests {
+
+    private final RequestIdWebFilter webFilter = new RequestIdWebFilter(new LogProperties());
+
+    @Test
+    @DisplayName("Inbound header - request ID is put to the Reactor Context")
+    public void filter_withHeader() {
+        AtomicReference<String> requestId = new AtomicReference<>();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/hello")
+                .header("X-Request-Id", "inbound-id"));
+
+        webFilter.filter(exchange, e -> Mono.deferContextual(context -> {
+            requestId.set(RequestIds.get(context));
+            return Mono.empty();
+        })).block();
+
+        assertThat(requestId.get()).isEqualTo("inbound-id");
+    }
+
+    @Test
+    @DisplayName("No inbound header - context is not changed")
+    public void filter_withoutHeader() {
+        AtomicReference<Boolean> hasRequestId = new AtomicReference<>();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/hello"));
+
+        webFilter.filter(exchange, e -> Mono.deferContextual(context -> {
+            hasRequestId.set(context.hasKey(RequestIds.KEY));
+            return Mono.empty();
+        })).block();
+
+        assertThat(hasRequestId.get()).isFalse();
+    }
+}
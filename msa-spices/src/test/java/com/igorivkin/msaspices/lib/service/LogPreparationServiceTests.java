@@ -1,23 +1,54 @@
 package com.igorivkin.msaspices.lib.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+import com.igorivkin.msaspices.lib.config.BinaryConversionConfig;
 import com.igorivkin.msaspices.lib.config.MaskingConfig;
+import com.igorivkin.msaspices.lib.convert.LogConversionType;
+import com.igorivkin.msaspices.lib.convert.LogLimits;
 import com.igorivkin.msaspices.lib.convert.LogJsonConverter;
+import com.igorivkin.msaspices.lib.convert.LogXmlConverter;
 import lombok.*;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.json.JsonTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @JsonTest
 @DisplayName("Unit-tests of log preparation service")
 @ExtendWith({SpringExtension.class})
-@ContextConfiguration(classes = {MaskingConfig.class, LogJsonConverter.class})
+@ContextConfiguration(classes = {MaskingConfig.class, BinaryConversionConfig.class, LogJsonConverter.class})
 public class LogPreparationServiceTests {
 
     private static final String STRING_VALUE_TEST = "Test";
@@ -28,6 +59,18 @@ public class LogPreparationServiceTests {
     @SpyBean(name = "masking-object-mapper")
     private ObjectMapper objectMapper;
 
+    @Autowired
+    @Qualifier("xml-object-mapper")
+    private ObjectMapper xmlObjectMapper;
+
+    @Autowired
+    @Qualifier("smile-object-mapper")
+    private ObjectMapper smileObjectMapper;
+
+    @Autowired
+    @Qualifier("cbor-object-mapper")
+    private ObjectMapper cborObjectMapper;
+
     @Test
     @DisplayName("Serialization for logs - success")
     public void prepareObjectToLog_success() {
@@ -43,6 +86,200 @@ public class LogPreparationServiceTests {
         assertEquals("{\"name\":\"Test\",\"age\":25}", objectValue);
     }
 
+    @Test
+    @DisplayName("Serialization for logs - appending to a buffer gives the same result")
+    public void appendObjectToLog_success() {
+        ObjectToPrepare object = ObjectToPrepare.builder()
+                .age(25)
+                .name(STRING_VALUE_TEST)
+                .build();
+        StringBuilder buffer = new StringBuilder("value=");
+
+        logPreparationService.appendObject(object, LogConversionType.JSON, buffer);
+        buffer.append(", nothing=");
+        logPreparationService.appendObject(null, LogConversionType.JSON, buffer);
+
+        assertEquals("value=" + logPreparationService.convertObjectToString(object) + ", nothing=null",
+                buffer.toString());
+    }
+
+    @Test
+    @DisplayName("Serialization for logs - stops on max elements and leaves the marker")
+    public void appendObjectToLog_maxElements() {
+        List<Integer> values = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+        StringBuilder buffer = new StringBuilder();
+
+        logPreparationService.appendObject(values, LogConversionType.JSON, LogLimits.of(0, 0, 3, 0), buffer);
+
+        assertEquals("[0,1,2" + LogLimits.TRUNCATION_MARKER, buffer.toString());
+    }
+
+    @Test
+    @DisplayName("Serialization for logs - stops on max depth and cuts long strings")
+    public void appendObjectToLog_maxDepthAndStringLength() {
+        Map<String, Object> value = Map.of("name", "abcdefghij", "nested", Map.of("inner", List.of(1, 2)));
+        StringBuilder buffer = new StringBuilder();
+
+        logPreparationService.appendObject(Map.of("name", "abcdefghij"), LogConversionType.JSON,
+                LogLimits.of(0, 0, 0, 4), buffer);
+        assertEquals("{\"name\":\"abcd" + LogLimits.STRING_TRUNCATION_MARKER + "\"}", buffer.toString());
+
+        buffer.setLength(0);
+        logPreparationService.appendObject(value, LogConversionType.JSON, LogLimits.of(0, 2, 0, 0), buffer);
+        assertThat(buffer.toString()).endsWith(LogLimits.TRUNCATION_MARKER).doesNotContain("[");
+    }
+
+    @Test
+    @DisplayName("Serialization for logs - stops on max output chars")
+    public void appendObjectToLog_maxOutputChars() {
+        List<String> values = IntStream.range(0, 100_000).mapToObj(i -> "value-" + i).collect(Collectors.toList());
+        StringBuilder buffer = new StringBuilder("prefix ");
+
+        logPreparationService.appendObject(values, LogConversionType.JSON, LogLimits.of(20, 0, 0, 0), buffer);
+
+        assertEquals("prefix [\"value-0\",\"value-1\"" + LogLimits.TRUNCATION_MARKER, buffer.toString());
+    }
+
+    @Test
+    @DisplayName("Serialization for logs - simple values are rendered like Jackson does, without Jackson")
+    public void appendObjectToLog_simpleValues() throws Exception {
+        assertThat(logPreparationService.getJsonFastPathKinds())
+                .contains(ValueKind.STRING, ValueKind.INTEGRAL, ValueKind.FLOATING, ValueKind.BOOLEAN,
+                        ValueKind.ENUM, ValueKind.UUID, ValueKind.LOCAL_DATE, ValueKind.LOCAL_DATE_TIME,
+                        ValueKind.INSTANT, ValueKind.COLLECTION);
+        List<Object> values = List.of("line\nbreak \"quoted\" \u0002", 42L, 1.25d, Double.NaN, true,
+                TestStatus.ACTIVE, UUID.fromString("123e4567-e89b-12d3-a456-426614174000"),
+                LocalDate.of(2022, 8, 1), LocalDateTime.of(2022, 8, 1, 12, 30),
+                Instant.ofEpochSecond(1659357000L, 5000), List.of("a", 1, false), Set.of(TestStatus.BLOCKED));
+        clearInvocations(objectMapper);
+
+        for (Object value : values) {
+            StringBuilder buffer = new StringBuilder();
+            logPreparationService.appendObject(value, LogConversionType.JSON, buffer);
+            assertEquals(new ObjectMapper().findAndRegisterModules()
+                            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                            .writeValueAsString(value),
+                    buffer.toString());
+        }
+        verify(objectMapper, never()).writeValue(any(Writer.class), any());
+        verify(objectMapper, never()).writeValueAsString(any());
+    }
+
+    @Test
+    @DisplayName("Serialization for logs - infrastructure objects get short descriptions")
+    public void appendObjectToLog_infrastructure() {
+        Principal principal = () -> "ivan";
+
+        String value = logPreparationService.convertObjectToString(principal);
+
+        assertEquals("\"Principal[ivan]\"", value);
+    }
+
+    @Test
+    @DisplayName("Serialization for logs - binary values are described by size and checksum of prefix")
+    public void appendObjectToLog_binary() throws Exception {
+        byte[] bytes = "binary content".getBytes(StandardCharsets.UTF_8);
+        CRC32C checksum = new CRC32C();
+        checksum.update(bytes);
+        String expectedCrc = String.format("%08x", checksum.getValue());
+
+        String arrayValue = logPreparationService.convertObjectToString(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(7);
+        String bufferValue = logPreparationService.convertObjectToString(buffer);
+
+        assertEquals("\"byte[" + bytes.length + ", crc32c(" + bytes.length + ")=" + expectedCrc + "]\"", arrayValue);
+        assertThat(bufferValue).startsWith("\"ByteBuffer[remaining=7, crc32c(7)=");
+        assertEquals(7, buffer.position());
+        verify(objectMapper, never()).writeValue(any(Writer.class), any());
+    }
+
+    @Test
+    @DisplayName("Serialization for logs - streams are never read")
+    public void appendObjectToLog_stream() {
+        ByteArrayInputStream stream = new ByteArrayInputStream(new byte[100]);
+
+        String value = logPreparationService.convertObjectToString(stream);
+
+        assertEquals("\"ByteArrayInputStream\"", value);
+        assertEquals(100, stream.available());
+    }
+
+    @Test
+    @DisplayName("Serialization for logs - XML supports Java 8 date/time types")
+    public void prepareObjectToLog_xmlDates() {
+        LogPreparationService xmlPreparationService = new LogPreparationService(List.of(
+                new LogXmlConverter(xmlObjectMapper)));
+
+        String value = xmlPreparationService.convertObjectToString(
+                Map.of("createdAt", LocalDateTime.of(2022, 8, 1, 12, 30)), LogConversionType.XML);
+
+        // The root element is named after the class of map, it's internal to JDK
+        assertThat(value).contains("<createdAt>2022-08-01T12:30:00</createdAt>");
+    }
+
+    @Test
+    @DisplayName("Serialization for logs - Smile and CBOR values are logged in Base64 and decoded back")
+    public void appendObjectToLog_binaryFormats() throws Exception {
+        ObjectToPrepare object = ObjectToPrepare.builder()
+                .age(25)
+                .name(STRING_VALUE_TEST)
+                .build();
+
+        String smileValue = logPreparationService.convertObjectToString(object, LogConversionType.SMILE);
+        String cborValue = logPreparationService.convertObjectToString(object, LogConversionType.CBOR);
+        String principalValue = logPreparationService.convertObjectToString((Principal) () -> "ivan",
+                LogConversionType.SMILE);
+
+        assertEquals(Map.of("name", STRING_VALUE_TEST, "age", 25),
+                smileObjectMapper.readValue(Base64.getDecoder().decode(smileValue), Map.class));
+        assertEquals(Map.of("name", STRING_VALUE_TEST, "age", 25),
+                cborObjectMapper.readValue(Base64.getDecoder().decode(cborValue), Map.class));
+        assertEquals("Principal[ivan]",
+                smileObjectMapper.readValue(Base64.getDecoder().decode(principalValue), String.class));
+        for (String value : List.of("", "a", "ab", "abc", "abcd")) {
+            assertEquals(Base64.getEncoder().encodeToString(cborObjectMapper.writeValueAsBytes(Map.of("v", value))),
+                    logPreparationService.convertObjectToString(Map.of("v", value), LogConversionType.CBOR));
+        }
+    }
+
+    @Test
+    @DisplayName("Serialization for logs - Smile values stop on max output chars, raw bytes are written to streams")
+    public void writeObjectToLog_binaryFormats() throws Exception {
+        List<String> values = IntStream.range(0, 100_000).mapToObj(i -> "value-" + i).collect(Collectors.toList());
+        StringBuilder buffer = new StringBuilder();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        logPreparationService.appendObject(values, LogConversionType.SMILE, LogLimits.of(40, 0, 0, 0), buffer);
+        logPreparationService.writeObject(values.subList(0, 3), LogConversionType.CBOR, stream);
+
+        assertThat(buffer.toString()).endsWith(LogLimits.TRUNCATION_MARKER)
+                .hasSizeLessThanOrEqualTo(40 + LogLimits.TRUNCATION_MARKER.length());
+        assertEquals(List.of("value-0", "value-1", "value-2"),
+                cborObjectMapper.readValue(stream.toByteArray(), List.class));
+    }
+
+    @Test
+    @DisplayName("Serialization for logs - serializers of declared types are built ahead of conversion")
+    public void warmUp_success() {
+        DefaultSerializerProvider serializerProvider = (DefaultSerializerProvider) objectMapper.getSerializerProvider();
+        int cachedBefore = serializerProvider.cachedSerializersCount();
+
+        logPreparationService.warmUp(WarmUpOrder.class, LogConversionType.JSON);
+        int cachedAfterWarmUp = serializerProvider.cachedSerializersCount();
+        String value = logPreparationService.convertObjectToString(new WarmUpOrder("order-1",
+                ObjectToPrepare.builder().name(STRING_VALUE_TEST).age(25).build()));
+
+        assertThat(cachedAfterWarmUp).isGreaterThan(cachedBefore);
+        assertEquals(cachedAfterWarmUp, serializerProvider.cachedSerializersCount());
+        assertEquals("{\"number\":\"order-1\",\"customer\":{\"name\":\"Test\",\"age\":25}}", value);
+    }
+
+    public enum TestStatus {
+        ACTIVE,
+        BLOCKED
+    }
+
     @Getter
     @Setter
     @Builder
@@ -52,4 +289,11 @@ public class LogPreparationServiceTests {
         private String name;
         private Integer age;
     }
+
+    @Getter
+    @AllArgsConstructor
+    public static class WarmUpOrder {
+        private String number;
+        private ObjectToPrepare customer;
+    }
 }